@@ -59,7 +59,30 @@ public interface DataAcquisitionService
    * @throws IOException
    *           in case of I/O problems during the acquisition of data;
    * @throws IllegalArgumentException
-   *           in case the given device was <code>null</code>.
+   *           in case the given device was <code>null</code>;
+   * @throws IllegalStateException
+   *           in case an acquisition is already in progress.
    */
   void acquireData( Device aDeviceController ) throws IOException;
+
+  /**
+   * Continuously acquires data from the given device, until the acquisition is
+   * cancelled.
+   * <p>
+   * The connection to the device is kept open between the captures, and the
+   * device is re-armed directly after each capture. The result of a capture is
+   * published while the next capture is already in progress.
+   * </p>
+   * 
+   * @param aDeviceController
+   *          the device controller from which data should be acquired, cannot
+   *          be <code>null</code>;
+   * @throws IOException
+   *           in case of I/O problems during the acquisition of data;
+   * @throws IllegalArgumentException
+   *           in case the given device was <code>null</code>;
+   * @throws IllegalStateException
+   *           in case an acquisition is already in progress.
+   */
+  void acquireDataContinuously( Device aDeviceController ) throws IOException;
 }
@@ -0,0 +1,42 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+/**
+ * Can be implemented by an {@link AcquisitionProgressListener} or an
+ * {@link AcquisitionStatusListener} that also wants to get informed when a
+ * device is armed and waits for its trigger to fire.
+ */
+public interface AcquisitionArmedListener
+{
+  // METHODS
+
+  /**
+   * Called when the device is armed and starts waiting for its trigger.
+   * <p>
+   * There is no guarantee made by the framework that this method will be
+   * called. If called, it will be called before the first progress is reported
+   * for the capture.
+   * </p>
+   */
+  void acquisitionArmed();
+}
@@ -0,0 +1,226 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+import java.util.concurrent.*;
+
+
+/**
+ * Provides the performance metrics of a single acquisition, such as how long
+ * it took to arm the device, to read the samples and to decode them.
+ * <p>
+ * All durations are in nanoseconds, all sizes are in bytes.
+ * </p>
+ */
+public final class AcquisitionMetrics
+{
+  // VARIABLES
+
+  private final long armLatency;
+  private final long triggerWaitTime;
+  private final long readoutTime;
+  private final long decodeTime;
+  private final long bytesRead;
+  private final long samplesRead;
+  private final long transitionCount;
+  private final long peakBufferMemory;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new AcquisitionMetrics instance.
+   * 
+   * @param aArmLatency
+   *          the time between the start of the acquisition and the moment the
+   *          device is armed;
+   * @param aTriggerWaitTime
+   *          the time between the moment the device is armed and the first
+   *          sample is received;
+   * @param aReadoutTime
+   *          the time it took to read all samples, after the first one;
+   * @param aDecodeTime
+   *          the time spent decoding the samples, which might (partly) overlap
+   *          with the readout time when samples are decoded while being read;
+   * @param aBytesRead
+   *          the number of sample bytes read from the device;
+   * @param aSamplesRead
+   *          the number of samples read from the device;
+   * @param aTransitionCount
+   *          the number of transitions the samples were decoded into;
+   * @param aPeakBufferMemory
+   *          the (estimated) peak amount of memory used for buffering the
+   *          samples and transitions.
+   */
+  public AcquisitionMetrics( final long aArmLatency, final long aTriggerWaitTime, final long aReadoutTime,
+      final long aDecodeTime, final long aBytesRead, final long aSamplesRead, final long aTransitionCount,
+      final long aPeakBufferMemory )
+  {
+    this.armLatency = aArmLatency;
+    this.triggerWaitTime = aTriggerWaitTime;
+    this.readoutTime = aReadoutTime;
+    this.decodeTime = aDecodeTime;
+    this.bytesRead = aBytesRead;
+    this.samplesRead = aSamplesRead;
+    this.transitionCount = aTransitionCount;
+    this.peakBufferMemory = aPeakBufferMemory;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the time between the start of the acquisition and the moment the
+   * device is armed.
+   * 
+   * @return the arm latency, in nanoseconds.
+   */
+  public long getArmLatency()
+  {
+    return this.armLatency;
+  }
+
+  /**
+   * Returns the number of sample bytes read from the device.
+   * 
+   * @return a byte count, >= 0.
+   */
+  public long getBytesRead()
+  {
+    return this.bytesRead;
+  }
+
+  /**
+   * Returns the readout speed in bytes per second.
+   * 
+   * @return the readout speed, or 0.0 if no readout time is known.
+   */
+  public double getBytesPerSecond()
+  {
+    return perSecond( this.bytesRead );
+  }
+
+  /**
+   * Returns the time spent decoding the samples. When the samples are decoded
+   * while they are read, this time overlaps with the readout time.
+   * 
+   * @return the decode time, in nanoseconds.
+   */
+  public long getDecodeTime()
+  {
+    return this.decodeTime;
+  }
+
+  /**
+   * Returns the (estimated) peak amount of memory used for buffering the
+   * samples and transitions.
+   * 
+   * @return a memory size, in bytes.
+   */
+  public long getPeakBufferMemory()
+  {
+    return this.peakBufferMemory;
+  }
+
+  /**
+   * Returns the time it took to read all samples, after the first one.
+   * 
+   * @return the readout time, in nanoseconds.
+   */
+  public long getReadoutTime()
+  {
+    return this.readoutTime;
+  }
+
+  /**
+   * Returns the number of samples read from the device.
+   * 
+   * @return a sample count, >= 0.
+   */
+  public long getSamplesRead()
+  {
+    return this.samplesRead;
+  }
+
+  /**
+   * Returns the readout speed in samples per second.
+   * 
+   * @return the readout speed, or 0.0 if no readout time is known.
+   */
+  public double getSamplesPerSecond()
+  {
+    return perSecond( this.samplesRead );
+  }
+
+  /**
+   * Returns the number of transitions the samples were decoded into.
+   * 
+   * @return a transition count, >= 0.
+   */
+  public long getTransitionCount()
+  {
+    return this.transitionCount;
+  }
+
+  /**
+   * Returns the time between the moment the device is armed and the first
+   * sample is received, that is, the time it took for the trigger to fire.
+   * 
+   * @return the time to trigger, in nanoseconds.
+   */
+  public long getTriggerWaitTime()
+  {
+    return this.triggerWaitTime;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return String.format( "arm latency: %d ms, time to trigger: %d ms, readout: %d ms (%.0f bytes/s, %.0f samples/s), "
+        + "decode: %d ms, transitions: %d, peak buffer memory: %d KiB", Long.valueOf( toMillis( this.armLatency ) ),
+        Long.valueOf( toMillis( this.triggerWaitTime ) ), Long.valueOf( toMillis( this.readoutTime ) ),
+        Double.valueOf( getBytesPerSecond() ), Double.valueOf( getSamplesPerSecond() ),
+        Long.valueOf( toMillis( this.decodeTime ) ), Long.valueOf( this.transitionCount ),
+        Long.valueOf( this.peakBufferMemory / 1024L ) );
+  }
+
+  /**
+   * Converts the given number of nanoseconds to milliseconds.
+   */
+  private static long toMillis( final long aNanos )
+  {
+    return TimeUnit.NANOSECONDS.toMillis( aNanos );
+  }
+
+  /**
+   * Calculates the given amount per second of readout time.
+   */
+  private double perSecond( final long aAmount )
+  {
+    if ( this.readoutTime <= 0L )
+    {
+      return 0.0;
+    }
+    return ( aAmount * 1.0e9 ) / this.readoutTime;
+  }
+}
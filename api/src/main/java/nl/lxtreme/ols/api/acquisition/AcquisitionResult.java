@@ -81,6 +81,9 @@ public interface AcquisitionResult
    * </p>
    * 
    * @return the time stamps, as array of long values.
+   * @throws IllegalStateException
+   *           in case this result is too large to be represented as array, see
+   *           {@link IndexedAcquisitionResult#isArrayAccessible()}.
    * @see #getValues()
    */
   public abstract long[] getTimestamps();
@@ -100,6 +103,9 @@ public interface AcquisitionResult
    * </p>
    * 
    * @return the sample values, as array of integers.
+   * @throws IllegalStateException
+   *           in case this result is too large to be represented as array, see
+   *           {@link IndexedAcquisitionResult#isArrayAccessible()}.
    * @see #getTimestamps()
    */
   public abstract int[] getValues();
@@ -40,6 +40,7 @@ public final class AcquisitionResultStatus
 
   private final ResultStatus status;
   private final String message;
+  private final AcquisitionMetrics metrics;
 
   // CONSTRUCTORS
 
@@ -63,9 +64,26 @@ public final class AcquisitionResultStatus
    *          the message of the acquisition result, may be <code>null</code>.
    */
   public AcquisitionResultStatus( final ResultStatus aStatus, final String aMessage )
+  {
+    this( aStatus, aMessage, null /* aMetrics */);
+  }
+
+  /**
+   * Creates a new AcquisitionResultStatus instance.
+   * 
+   * @param aStatus
+   *          the status of the acquisition result, cannot be <code>null</code>;
+   * @param aMessage
+   *          the message of the acquisition result, may be <code>null</code>;
+   * @param aMetrics
+   *          the performance metrics of the acquisition, may be
+   *          <code>null</code>.
+   */
+  public AcquisitionResultStatus( final ResultStatus aStatus, final String aMessage, final AcquisitionMetrics aMetrics )
   {
     this.status = aStatus;
     this.message = aMessage;
+    this.metrics = aMetrics;
   }
 
   // METHODS
@@ -121,6 +139,20 @@ public final class AcquisitionResultStatus
     return true;
   }
 
+  /**
+   * Returns the <em>optional</em> performance metrics of the acquisition.
+   * <p>
+   * The metrics are not taken into account when comparing two statuses.
+   * </p>
+   * 
+   * @return the acquisition metrics, can be <code>null</code> if the device
+   *         does not provide them, or if the acquisition did not complete.
+   */
+  public AcquisitionMetrics getMetrics()
+  {
+    return this.metrics;
+  }
+
   /**
    * Returns an <em>optional</em> status message, for example, containing
    * details about why an acquisition failed.
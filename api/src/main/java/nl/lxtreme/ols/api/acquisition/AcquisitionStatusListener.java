@@ -34,7 +34,8 @@ public interface AcquisitionStatusListener
    * ended.
    * <p>
    * The framework will guarantee that this method will be called, and after all
-   * other methods of this interface.
+   * other methods of this interface. For continuous acquisitions, this method
+   * is called after each capture as well.
    * </p>
    */
   void acquisitionEnded( AcquisitionResultStatus aStatus );
@@ -0,0 +1,93 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+/**
+ * Can be implemented by an {@link AcquisitionResult} to provide access to its
+ * transitions by means of a long index.
+ * <p>
+ * The values and timestamps of {@link AcquisitionResult#getValues()} and
+ * {@link AcquisitionResult#getTimestamps()} are limited by the maximum size of
+ * a Java array. Results that are stored differently, for example in chunks,
+ * can hold more transitions than that, in which case those arrays are not
+ * available and only the accessors of this interface can be used.
+ * </p>
+ */
+public interface IndexedAcquisitionResult extends AcquisitionResult
+{
+  // METHODS
+
+  /**
+   * Returns the timestamp of the transition at the given index.
+   * 
+   * @param aIndex
+   *          the index of the transition, >= 0 && &lt;
+   *          {@link #getTransitionCount()}.
+   * @return the timestamp of the transition.
+   * @throws IndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  long getTimestamp( long aIndex );
+
+  /**
+   * Returns the number of transitions in this result.
+   * 
+   * @return a transition count, >= 0.
+   */
+  long getTransitionCount();
+
+  /**
+   * Returns the index of the transition for the given absolute time value.
+   * <p>
+   * This is the long-indexed equivalent of
+   * {@link AcquisitionResult#getSampleIndex(long)}, and yields the same index
+   * for results that fit in an array.
+   * </p>
+   * 
+   * @param aTimeValue
+   *          the (absolute) time value to convert to a transition index.
+   * @return a transition index, >= 0.
+   */
+  long getTransitionIndex( long aTimeValue );
+
+  /**
+   * Returns the value of the transition at the given index.
+   * 
+   * @param aIndex
+   *          the index of the transition, >= 0 && &lt;
+   *          {@link #getTransitionCount()}.
+   * @return the sample value of the transition.
+   * @throws IndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  int getValue( long aIndex );
+
+  /**
+   * Returns whether the transitions can be obtained as arrays, by means of
+   * {@link AcquisitionResult#getValues()} and
+   * {@link AcquisitionResult#getTimestamps()}.
+   * 
+   * @return <code>true</code> if the transitions fit in an array,
+   *         <code>false</code> otherwise.
+   */
+  boolean isArrayAccessible();
+}
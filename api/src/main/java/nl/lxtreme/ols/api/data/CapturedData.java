@@ -37,7 +37,7 @@ import nl.lxtreme.ols.api.acquisition.*;
  * @author Michael "Mr. Sump" Poppitz
  * @author J.W. Janssen
  */
-public class CapturedData implements AcquisitionResult
+public class CapturedData implements IndexedAcquisitionResult
 {
   // VARIABLES
 
@@ -77,6 +77,7 @@ public class CapturedData implements AcquisitionResult
    *          number of used channels
    * @param enabledChannels
    *          bit mask identifying used channels
+   * @see CapturedDataFactory#create(int[], long, int, int, int)
    */
   public CapturedData( final int[] values, final long triggerPosition, final int rate, final int channels,
       final int enabledChannels )
@@ -86,36 +87,10 @@ public class CapturedData implements AcquisitionResult
     this.channels = channels;
     this.enabledChannels = enabledChannels;
 
-    // calculate transitions
-    int tmp = values[0];
-    int count = 1; // first value is the initial value at time 0
-    for ( final int value : values )
-    {
-      if ( tmp != value )
-      {
-        count++;
-      }
-      tmp = value;
-    }
-
-    this.timestamps = new long[count];
-    this.values = new int[count];
-    this.timestamps[0] = 0;
-    this.values[0] = values[0];
-
-    tmp = values[0];
-    count = 1;
-    for ( int i = 0; i < values.length; i++ )
-    {
-      if ( tmp != values[i] )
-      {
-        // store only transitions
-        this.timestamps[count] = i;
-        this.values[count] = values[i];
-        count++;
-      }
-      tmp = values[i];
-    }
+    // calculate transitions, in a single pass
+    final TransitionBuffer transitions = CapturedDataFactory.compact( values );
+    this.values = transitions.getValues();
+    this.timestamps = transitions.getTimestamps();
 
     this.absoluteLength = values.length;
   }
@@ -304,6 +279,15 @@ public class CapturedData implements AcquisitionResult
     return this.rate;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTimestamp(long)
+   */
+  @Override
+  public final long getTimestamp( final long aIndex )
+  {
+    return this.timestamps[checkIndex( aIndex )];
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTimestamps()
    */
@@ -313,6 +297,24 @@ public class CapturedData implements AcquisitionResult
     return this.timestamps;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTransitionCount()
+   */
+  @Override
+  public final long getTransitionCount()
+  {
+    return this.values.length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTransitionIndex(long)
+   */
+  @Override
+  public final long getTransitionIndex( final long aTimeValue )
+  {
+    return getSampleIndex( aTimeValue );
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTriggerPosition()
    */
@@ -322,6 +324,15 @@ public class CapturedData implements AcquisitionResult
     return this.triggerPosition;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getValue(long)
+   */
+  @Override
+  public final int getValue( final long aIndex )
+  {
+    return this.values[checkIndex( aIndex )];
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getValues()
    */
@@ -349,4 +360,28 @@ public class CapturedData implements AcquisitionResult
     return ( this.triggerPosition != Ols.NOT_AVAILABLE );
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#isArrayAccessible()
+   */
+  @Override
+  public final boolean isArrayAccessible()
+  {
+    return true;
+  }
+
+  /**
+   * Checks whether the given long index is a valid array index.
+   * 
+   * @param aIndex
+   *          the index to check.
+   * @return the index as integer.
+   */
+  private int checkIndex( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex >= this.values.length ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + this.values.length );
+    }
+    return ( int )aIndex;
+  }
 }
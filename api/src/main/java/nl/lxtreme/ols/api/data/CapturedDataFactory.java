@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a factory for creating {@link CapturedData} from absolute sample
+ * data, that is, an array with one value for each sample.
+ * <p>
+ * The samples are compacted into transitions in a single pass, collecting the
+ * transitions in a {@link TransitionBuffer}. Large sample arrays are split in
+ * chunks that are compacted in parallel, after which the chunks are stitched
+ * together, dropping the first transition of each chunk that turns out not to
+ * be a transition at all.
+ * </p>
+ */
+public final class CapturedDataFactory
+{
+  // CONSTANTS
+
+  /**
+   * The minimal number of samples for which the compaction is done in
+   * parallel; smaller arrays are not worth the overhead of the threads.
+   */
+  static final int PARALLEL_THRESHOLD = 1 << 20;
+
+  /** The minimal number of samples in a single chunk. */
+  private static final int MIN_CHUNK_SIZE = 1 << 18;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CapturedDataFactory instance, never used.
+   */
+  private CapturedDataFactory()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new {@link CapturedData} instance for the given absolute sample
+   * data.
+   * 
+   * @param aSamples
+   *          the sample values, one for each sample, cannot be
+   *          <code>null</code>;
+   * @param aTriggerPosition
+   *          the position of the trigger as time value;
+   * @param aRate
+   *          the sample rate (may be set to <code>NOT_AVAILABLE</code>);
+   * @param aChannels
+   *          the number of used channels;
+   * @param aEnabledChannels
+   *          the bit mask identifying the used channels.
+   * @return a new {@link CapturedData} instance, never <code>null</code>.
+   */
+  public static CapturedData create( final int[] aSamples, final long aTriggerPosition, final int aRate,
+      final int aChannels, final int aEnabledChannels )
+  {
+    final TransitionBuffer transitions;
+    final int threadCount = Runtime.getRuntime().availableProcessors();
+    if ( ( aSamples.length >= PARALLEL_THRESHOLD ) && ( threadCount > 1 ) )
+    {
+      transitions = compactParallel( aSamples, threadCount );
+    }
+    else
+    {
+      transitions = compact( aSamples );
+    }
+
+    return new CapturedData( transitions.getValues(), transitions.getTimestamps(), aTriggerPosition, aRate,
+        aChannels, aEnabledChannels, aSamples.length );
+  }
+
+  /**
+   * Compacts the given samples into transitions, in a single pass.
+   * 
+   * @param aSamples
+   *          the samples to compact, cannot be <code>null</code>.
+   * @return the transitions, never <code>null</code>.
+   */
+  static TransitionBuffer compact( final int[] aSamples )
+  {
+    final TransitionBuffer result = new TransitionBuffer();
+    result.addSamples( aSamples, 0, aSamples.length );
+    return result;
+  }
+
+  /**
+   * Compacts the given samples into transitions, by compacting chunks of
+   * samples in parallel.
+   * 
+   * @param aSamples
+   *          the samples to compact, cannot be <code>null</code>;
+   * @param aThreadCount
+   *          the number of threads to use, > 0.
+   * @return the transitions, never <code>null</code>.
+   */
+  static TransitionBuffer compactParallel( final int[] aSamples, final int aThreadCount )
+  {
+    final int chunkSize = Math.max( MIN_CHUNK_SIZE, ( aSamples.length + aThreadCount - 1 ) / aThreadCount );
+    final int chunkCount = ( aSamples.length + chunkSize - 1 ) / chunkSize;
+    if ( chunkCount <= 1 )
+    {
+      return compact( aSamples );
+    }
+
+    final ExecutorService executor = HostUtils.getSharedThreadPool();
+
+    final List<Future<TransitionBuffer>> futures = new ArrayList<Future<TransitionBuffer>>( chunkCount );
+    try
+    {
+      for ( int i = 0; i < chunkCount; i++ )
+      {
+        final int chunkStart = i * chunkSize;
+        final int chunkEnd = Math.min( aSamples.length, chunkStart + chunkSize );
+
+        futures.add( executor.submit( new Callable<TransitionBuffer>()
+        {
+          @Override
+          public TransitionBuffer call() throws Exception
+          {
+            final TransitionBuffer chunk = new TransitionBuffer();
+            chunk.addSamples( aSamples, chunkStart, chunkEnd );
+            return chunk;
+          }
+        } ) );
+      }
+
+      final List<TransitionBuffer> chunks = new ArrayList<TransitionBuffer>( chunkCount );
+      int size = 0;
+      for ( Future<TransitionBuffer> future : futures )
+      {
+        final TransitionBuffer chunk = HostUtils.getUninterruptibly( future );
+        chunks.add( chunk );
+        size += chunk.getSize();
+      }
+
+      final TransitionBuffer result = new TransitionBuffer( Math.max( 1, size ) );
+      for ( TransitionBuffer chunk : chunks )
+      {
+        result.addAll( chunk );
+      }
+      return result;
+    }
+    finally
+    {
+      // only has effect in case compacting a chunk failed...
+      HostUtils.cancelAll( futures );
+    }
+  }
+
+}
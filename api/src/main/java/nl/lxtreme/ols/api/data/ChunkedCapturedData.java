@@ -0,0 +1,307 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+import java.lang.ref.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides captured data that is backed by a {@link TransitionStore}, allowing
+ * captures with more transitions than fit in a single array, and captures
+ * whose transitions are kept off-heap or compressed.
+ * <p>
+ * The transitions are read from the store itself. For compatibility,
+ * {@link #getValues()} and {@link #getTimestamps()} are still supported for
+ * captures that fit in an array. These arrays are only created upon request,
+ * and are only softly referenced, so they can be reclaimed when memory runs
+ * low; they are recreated when requested again.
+ * </p>
+ * <p>
+ * Closing this data closes its store, if that holds any resources. Afterwards,
+ * this data should no longer be used.
+ * </p>
+ */
+public class ChunkedCapturedData implements IndexedAcquisitionResult, Closeable
+{
+  // VARIABLES
+
+  private final TransitionStore store;
+  private final long triggerPosition;
+  private final int rate;
+  private final int channels;
+  private final int enabledChannels;
+  private final long absoluteLength;
+
+  private volatile SoftReference<int[]> values;
+  private volatile SoftReference<long[]> timestamps;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ChunkedCapturedData instance.
+   * 
+   * @param aStore
+   *          the store with the transitions, cannot be <code>null</code>. The
+   *          store should no longer be modified;
+   * @param aTriggerPosition
+   *          position of trigger as time value;
+   * @param aRate
+   *          sampling rate (may be set to <code>NOT_AVAILABLE</code>);
+   * @param aChannels
+   *          number of used channels;
+   * @param aEnabledChannels
+   *          bit mask identifying used channels;
+   * @param aAbsoluteLength
+   *          absolute number of samples.
+   */
+  public ChunkedCapturedData( final TransitionStore aStore, final long aTriggerPosition, final int aRate,
+      final int aChannels, final int aEnabledChannels, final long aAbsoluteLength )
+  {
+    if ( aStore == null )
+    {
+      throw new IllegalArgumentException( "Store cannot be null!" );
+    }
+
+    this.store = aStore;
+    this.triggerPosition = aTriggerPosition;
+    this.rate = aRate;
+    this.channels = aChannels;
+    this.enabledChannels = aEnabledChannels;
+    this.absoluteLength = aAbsoluteLength;
+  }
+
+  // METHODS
+
+  /**
+   * Closes the store of this data, if it holds any resources, such as a
+   * memory-mapped file.
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException
+  {
+    this.values = null;
+    this.timestamps = null;
+
+    if ( this.store instanceof Closeable )
+    {
+      ( ( Closeable )this.store ).close();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getAbsoluteLength()
+  {
+    return this.absoluteLength;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getChannels()
+  {
+    return this.channels;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getEnabledChannels()
+  {
+    return this.enabledChannels;
+  }
+
+  /**
+   * {@inheritDoc}
+   * 
+   * @throws IllegalStateException
+   *           in case the index does not fit in an integer.
+   */
+  @Override
+  public final int getSampleIndex( final long aTimeValue )
+  {
+    final long index = this.store.indexOf( aTimeValue );
+    if ( index > Integer.MAX_VALUE )
+    {
+      throw new IllegalStateException( "Sample index too large: " + index );
+    }
+    return ( int )index;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getSampleRate()
+  {
+    return this.rate;
+  }
+
+  /**
+   * Returns the store backing this data.
+   * 
+   * @return the transition store, never <code>null</code>.
+   */
+  public final TransitionStore getStore()
+  {
+    return this.store;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getTimestamp( final long aIndex )
+  {
+    return this.store.getTimestamp( aIndex );
+  }
+
+  /**
+   * {@inheritDoc}
+   * 
+   * @throws IllegalStateException
+   *           in case there are too many transitions to fit in an array.
+   */
+  @Override
+  public final long[] getTimestamps()
+  {
+    final SoftReference<long[]> ref = this.timestamps;
+    long[] result = ( ref != null ) ? ref.get() : null;
+    if ( result == null )
+    {
+      checkArrayAccessible();
+
+      result = this.store.toTimestampArray();
+      this.timestamps = new SoftReference<long[]>( result );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getTransitionCount()
+  {
+    return this.store.getSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getTransitionIndex( final long aTimeValue )
+  {
+    return this.store.indexOf( aTimeValue );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final int getValue( final long aIndex )
+  {
+    return this.store.getValue( aIndex );
+  }
+
+  /**
+   * {@inheritDoc}
+   * 
+   * @throws IllegalStateException
+   *           in case there are too many transitions to fit in an array.
+   */
+  @Override
+  public final int[] getValues()
+  {
+    final SoftReference<int[]> ref = this.values;
+    int[] result = ( ref != null ) ? ref.get() : null;
+    if ( result == null )
+    {
+      checkArrayAccessible();
+
+      result = this.store.toValueArray();
+      this.values = new SoftReference<int[]>( result );
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final boolean hasTimingData()
+  {
+    return ( this.rate != Ols.NOT_AVAILABLE );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final boolean hasTriggerData()
+  {
+    return ( this.triggerPosition != Ols.NOT_AVAILABLE );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public final boolean isArrayAccessible()
+  {
+    return this.store.isArrayAccessible();
+  }
+
+  /**
+   * Checks whether the transitions of this data fit in an array.
+   * 
+   * @throws IllegalStateException
+   *           in case there are too many transitions to fit in an array.
+   */
+  private void checkArrayAccessible()
+  {
+    if ( !isArrayAccessible() )
+    {
+      throw new IllegalStateException( "Too many transitions to fit in an array: " + getTransitionCount()
+          + "; use the indexed accessors instead!" );
+    }
+  }
+}
@@ -0,0 +1,251 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static nl.lxtreme.ols.api.data.TransitionSegments.*;
+
+import java.util.*;
+
+
+/**
+ * Stores transitions on the heap, in fixed-size segments, addressed by a long
+ * index.
+ * <p>
+ * As each segment is a separate pair of arrays, the number of transitions is
+ * not limited by the maximum size of a Java array, and the store never needs
+ * one large contiguous block of memory. Growing the store only allocates a
+ * new segment; existing transitions are never copied.
+ * </p>
+ */
+public final class ChunkedTransitionStore implements TransitionStore
+{
+  // CONSTANTS
+
+  /** The number of bits of the index within a segment. */
+  static final int SEGMENT_SHIFT = 20;
+  /** The number of transitions in a single segment. */
+  static final int SEGMENT_SIZE = 1 << SEGMENT_SHIFT;
+
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  // VARIABLES
+
+  private final List<int[]> valueSegments;
+  private final List<long[]> timestampSegments;
+  private long size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, ChunkedTransitionStore instance.
+   */
+  public ChunkedTransitionStore()
+  {
+    this.valueSegments = new ArrayList<int[]>();
+    this.timestampSegments = new ArrayList<long[]>();
+    this.size = 0L;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add( final int aValue, final long aTimestamp )
+  {
+    final int offset = ( int )( this.size & SEGMENT_MASK );
+    if ( offset == 0 )
+    {
+      this.valueSegments.add( new int[SEGMENT_SIZE] );
+      this.timestampSegments.add( new long[SEGMENT_SIZE] );
+    }
+
+    final int segment = this.valueSegments.size() - 1;
+    this.valueSegments.set( segment, untrim( this.valueSegments.get( segment ), offset, SEGMENT_SIZE ) );
+    this.timestampSegments.set( segment, untrim( this.timestampSegments.get( segment ), offset, SEGMENT_SIZE ) );
+    this.valueSegments.get( segment )[offset] = aValue;
+    this.timestampSegments.get( segment )[offset] = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getTimestamp( final long aIndex )
+  {
+    checkIndex( aIndex );
+    return this.timestampSegments.get( ( int )( aIndex >>> SEGMENT_SHIFT ) )[( int )( aIndex & SEGMENT_MASK )];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getValue( final long aIndex )
+  {
+    checkIndex( aIndex );
+    return this.valueSegments.get( ( int )( aIndex >>> SEGMENT_SHIFT ) )[( int )( aIndex & SEGMENT_MASK )];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long indexOf( final long aTimestamp )
+  {
+    if ( this.size == 0L )
+    {
+      return 0L;
+    }
+
+    // Find the last segment that starts at or before the given timestamp...
+    int low = 0;
+    int high = this.timestampSegments.size() - 1;
+    while ( low < high )
+    {
+      final int mid = ( low + high + 1 ) >>> 1;
+      if ( this.timestampSegments.get( mid )[0] <= aTimestamp )
+      {
+        low = mid;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+
+    final int segment = low;
+    final int segmentLength = getSegmentLength( segment );
+    int idx = Arrays.binarySearch( this.timestampSegments.get( segment ), 0, segmentLength, aTimestamp );
+    if ( idx < 0 )
+    {
+      idx = -( idx + 1 );
+    }
+
+    final long result = ( ( long )segment << SEGMENT_SHIFT ) + idx;
+    return Math.min( result, this.size - 1L );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isArrayAccessible()
+  {
+    return this.size <= MAX_ARRAY_SIZE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long[] toTimestampArray()
+  {
+    final long[] result = new long[getArraySize()];
+    for ( int i = 0, offset = 0; offset < result.length; i++ )
+    {
+      final int length = Math.min( SEGMENT_SIZE, result.length - offset );
+      System.arraycopy( this.timestampSegments.get( i ), 0, result, offset, length );
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] toValueArray()
+  {
+    final int[] result = new int[getArraySize()];
+    for ( int i = 0, offset = 0; offset < result.length; i++ )
+    {
+      final int length = Math.min( SEGMENT_SIZE, result.length - offset );
+      System.arraycopy( this.valueSegments.get( i ), 0, result, offset, length );
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void trimToSize()
+  {
+    final int segment = this.valueSegments.size() - 1;
+    if ( segment < 0 )
+    {
+      return;
+    }
+
+    final int length = getSegmentLength( segment );
+    if ( length < this.valueSegments.get( segment ).length )
+    {
+      this.valueSegments.set( segment, Arrays.copyOf( this.valueSegments.get( segment ), length ) );
+      this.timestampSegments.set( segment, Arrays.copyOf( this.timestampSegments.get( segment ), length ) );
+    }
+  }
+
+  /**
+   * Checks whether the given index is valid.
+   */
+  private void checkIndex( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex >= this.size ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + this.size );
+    }
+  }
+
+  /**
+   * @return the size of this store as array size.
+   */
+  private int getArraySize()
+  {
+    if ( !isArrayAccessible() )
+    {
+      throw new IllegalStateException( "Too many transitions to fit in an array: " + this.size );
+    }
+    return ( int )this.size;
+  }
+
+  /**
+   * @return the number of used entries of the given segment.
+   */
+  private int getSegmentLength( final int aSegment )
+  {
+    return ( int )Math.min( SEGMENT_SIZE, this.size - ( ( long )aSegment << SEGMENT_SHIFT ) );
+  }
+}
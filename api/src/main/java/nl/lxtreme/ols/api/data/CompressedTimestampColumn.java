@@ -0,0 +1,396 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+
+/**
+ * Provides a compressed, append-only, column of increasing timestamps.
+ * <p>
+ * The timestamps are stored in blocks of {@value #BLOCK_SIZE} entries. The
+ * first timestamp of each block is stored as absolute value (its anchor); the
+ * others as the difference to their predecessor, encoded as variable-length
+ * integer of 7 bits per byte. As successive timestamps are usually close
+ * together, most of them take only one or two bytes instead of eight.
+ * </p>
+ * <p>
+ * Looking up a timestamp by its index decodes at most one block; looking up
+ * the index of a timestamp is a binary search on the block anchors, followed
+ * by decoding at most one block. For sequential access, use a
+ * {@link Cursor}, which decodes each timestamp only once.
+ * </p>
+ */
+public final class CompressedTimestampColumn
+{
+  // INNER TYPES
+
+  /**
+   * Provides sequential access to the timestamps of a column.
+   */
+  public final class Cursor
+  {
+    // VARIABLES
+
+    private long index;
+    private long timestamp;
+    private byte[] page;
+    private int position;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Cursor instance.
+     */
+    Cursor( final long aIndex )
+    {
+      this.index = aIndex & ~BLOCK_MASK;
+      while ( this.index < aIndex )
+      {
+        next();
+      }
+    }
+
+    // METHODS
+
+    /**
+     * @return <code>true</code> if there are more timestamps,
+     *         <code>false</code> otherwise.
+     */
+    public boolean hasNext()
+    {
+      return this.index < CompressedTimestampColumn.this.size;
+    }
+
+    /**
+     * @return the index of the timestamp returned by the next call to
+     *         {@link #next()}.
+     */
+    public long nextIndex()
+    {
+      return this.index;
+    }
+
+    /**
+     * Returns the next timestamp.
+     * 
+     * @return a timestamp.
+     * @throws NoSuchElementException
+     *           in case there are no more timestamps.
+     */
+    public long next()
+    {
+      if ( !hasNext() )
+      {
+        throw new NoSuchElementException();
+      }
+
+      if ( ( this.index & BLOCK_MASK ) == 0L )
+      {
+        final int block = ( int )( this.index >>> BLOCK_SHIFT );
+        final long offset = CompressedTimestampColumn.this.offsets[block];
+        this.timestamp = CompressedTimestampColumn.this.anchors[block];
+        this.page = CompressedTimestampColumn.this.pages.get( ( int )( offset >>> PAGE_SHIFT ) );
+        this.position = ( int )( offset & PAGE_MASK );
+      }
+      else
+      {
+        // Decode the variable-length delta...
+        long delta = 0L;
+        int shift = 0;
+        byte b;
+        do
+        {
+          b = this.page[this.position++];
+          delta |= ( long )( b & 0x7F ) << shift;
+          shift += 7;
+        }
+        while ( b < 0 );
+
+        this.timestamp += delta;
+      }
+
+      this.index++;
+      return this.timestamp;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of timestamps in a single block. */
+  public static final int BLOCK_SIZE = 128;
+
+  private static final int BLOCK_SHIFT = 7;
+  private static final long BLOCK_MASK = BLOCK_SIZE - 1;
+
+  private static final int PAGE_SHIFT = 16;
+  private static final int PAGE_SIZE = 1 << PAGE_SHIFT;
+  private static final long PAGE_MASK = PAGE_SIZE - 1;
+
+  /** The maximum number of bytes a single block can occupy. */
+  private static final int MAX_BLOCK_BYTES = ( BLOCK_SIZE - 1 ) * 10;
+
+  private static final int INITIAL_BLOCK_CAPACITY = 16;
+
+  // VARIABLES
+
+  private final List<byte[]> pages;
+  private long[] anchors;
+  private long[] offsets;
+  private int pagePosition;
+  private long lastTimestamp;
+  private long size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, CompressedTimestampColumn instance.
+   */
+  public CompressedTimestampColumn()
+  {
+    this.pages = new ArrayList<byte[]>();
+    this.anchors = new long[INITIAL_BLOCK_CAPACITY];
+    this.offsets = new long[INITIAL_BLOCK_CAPACITY];
+    this.pagePosition = 0;
+    this.lastTimestamp = 0L;
+    this.size = 0L;
+  }
+
+  // METHODS
+
+  /**
+   * Appends a timestamp to this column.
+   * 
+   * @param aTimestamp
+   *          the timestamp to add, should be equal to or larger than the last
+   *          added timestamp.
+   * @throws IllegalArgumentException
+   *           in case the given timestamp lies before the last added
+   *           timestamp.
+   */
+  public void add( final long aTimestamp )
+  {
+    if ( ( this.size > 0L ) && ( aTimestamp < this.lastTimestamp ) )
+    {
+      throw new IllegalArgumentException( "Timestamps should be increasing!" );
+    }
+
+    if ( ( this.size & BLOCK_MASK ) == 0L )
+    {
+      startBlock( aTimestamp );
+    }
+    else
+    {
+      long delta = aTimestamp - this.lastTimestamp;
+
+      final byte[] page = getWritablePage();
+      while ( delta >= 0x80L )
+      {
+        page[this.pagePosition++] = ( byte )( ( delta & 0x7F ) | 0x80 );
+        delta >>>= 7;
+      }
+      page[this.pagePosition++] = ( byte )delta;
+    }
+
+    this.lastTimestamp = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * Returns the timestamp at the given index.
+   * 
+   * @param aIndex
+   *          the index of the timestamp, >= 0 && &lt; {@link #getSize()}.
+   * @return the timestamp.
+   * @throws IndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  public long get( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex >= this.size ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + this.size );
+    }
+
+    final Cursor cursor = new Cursor( aIndex );
+    return cursor.next();
+  }
+
+  /**
+   * Returns the (approximate) number of bytes used by this column.
+   * 
+   * @return a memory size, in bytes.
+   */
+  public long getMemoryUsage()
+  {
+    long result = 8L * ( this.anchors.length + this.offsets.length );
+    for ( byte[] page : this.pages )
+    {
+      result += page.length;
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of timestamps in this column.
+   * 
+   * @return a timestamp count, >= 0.
+   */
+  public long getSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns the index of the given timestamp, or, if it is not present, of the
+   * first timestamp after it. The result is limited to the last timestamp in
+   * this column.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search for.
+   * @return an index, >= 0.
+   * @see TransitionStore#indexOf(long)
+   */
+  public long indexOf( final long aTimestamp )
+  {
+    if ( this.size == 0L )
+    {
+      return 0L;
+    }
+
+    // Find the last block whose anchor lies before the given timestamp...
+    int low = 0;
+    int high = getBlockCount() - 1;
+    while ( low < high )
+    {
+      final int mid = ( low + high + 1 ) >>> 1;
+      if ( this.anchors[mid] < aTimestamp )
+      {
+        low = mid;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+
+    // Scan the block for the first timestamp at or after the given one...
+    final long blockEnd = Math.min( this.size, ( ( long )low + 1L ) << BLOCK_SHIFT );
+    final Cursor cursor = new Cursor( ( long )low << BLOCK_SHIFT );
+    while ( cursor.nextIndex() < blockEnd )
+    {
+      final long index = cursor.nextIndex();
+      if ( cursor.next() >= aTimestamp )
+      {
+        return index;
+      }
+    }
+    return Math.min( blockEnd, this.size - 1L );
+  }
+
+  /**
+   * Creates a cursor for sequentially reading the timestamps of this column.
+   * 
+   * @param aIndex
+   *          the index of the first timestamp to read, >= 0 && &lt;=
+   *          {@link #getSize()}.
+   * @return a new cursor, never <code>null</code>.
+   */
+  public Cursor iterator( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex > this.size ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + this.size );
+    }
+    return new Cursor( aIndex );
+  }
+
+  /**
+   * Releases the unused capacity of this column. Timestamps can still be
+   * added afterwards.
+   */
+  public void trimToSize()
+  {
+    final int blockCount = getBlockCount();
+    this.anchors = Arrays.copyOf( this.anchors, Math.max( 1, blockCount ) );
+    this.offsets = Arrays.copyOf( this.offsets, Math.max( 1, blockCount ) );
+
+    final int lastPage = this.pages.size() - 1;
+    if ( ( lastPage >= 0 ) && ( this.pagePosition < PAGE_SIZE ) )
+    {
+      this.pages.set( lastPage, Arrays.copyOf( this.pages.get( lastPage ), this.pagePosition ) );
+    }
+  }
+
+  /**
+   * @return the number of (partially) filled blocks.
+   */
+  private int getBlockCount()
+  {
+    return ( int )( ( this.size + BLOCK_MASK ) >>> BLOCK_SHIFT );
+  }
+
+  /**
+   * @return the last page, restored to its full size if it was trimmed
+   *         earlier.
+   */
+  private byte[] getWritablePage()
+  {
+    final int lastPage = this.pages.size() - 1;
+    byte[] page = this.pages.get( lastPage );
+    if ( page.length < PAGE_SIZE )
+    {
+      page = Arrays.copyOf( page, PAGE_SIZE );
+      this.pages.set( lastPage, page );
+    }
+    return page;
+  }
+
+  /**
+   * Starts a new block with the given anchor.
+   */
+  private void startBlock( final long aAnchor )
+  {
+    final int block = ( int )( this.size >>> BLOCK_SHIFT );
+    if ( block == this.anchors.length )
+    {
+      final int newCapacity = block + ( block >> 1 ) + 1;
+      this.anchors = Arrays.copyOf( this.anchors, newCapacity );
+      this.offsets = Arrays.copyOf( this.offsets, newCapacity );
+    }
+
+    // Make sure the entire block fits in the current page...
+    final int lastPage = this.pages.size() - 1;
+    if ( ( lastPage < 0 ) || ( ( this.pagePosition + MAX_BLOCK_BYTES ) > PAGE_SIZE ) )
+    {
+      this.pages.add( new byte[PAGE_SIZE] );
+      this.pagePosition = 0;
+    }
+    else
+    {
+      getWritablePage();
+    }
+
+    this.anchors[block] = aAnchor;
+    this.offsets[block] = ( ( long )( this.pages.size() - 1 ) << PAGE_SHIFT ) | this.pagePosition;
+  }
+}
@@ -0,0 +1,225 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static nl.lxtreme.ols.api.data.TransitionSegments.*;
+
+import java.util.*;
+
+
+/**
+ * Stores transitions on the heap, with their timestamps in a
+ * {@link CompressedTimestampColumn}.
+ * <p>
+ * The values are stored in fixed-size segments, like the
+ * {@link ChunkedTransitionStore}, but as the timestamps usually take only one
+ * or two bytes instead of eight, a transition takes roughly half the memory.
+ * </p>
+ */
+public final class CompressedTransitionStore implements TransitionStore
+{
+  // CONSTANTS
+
+  private static final int SEGMENT_SHIFT = ChunkedTransitionStore.SEGMENT_SHIFT;
+  private static final int SEGMENT_SIZE = ChunkedTransitionStore.SEGMENT_SIZE;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  // VARIABLES
+
+  private final List<int[]> valueSegments;
+  private final CompressedTimestampColumn timestamps;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, CompressedTransitionStore instance.
+   */
+  public CompressedTransitionStore()
+  {
+    this.valueSegments = new ArrayList<int[]>();
+    this.timestamps = new CompressedTimestampColumn();
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add( final int aValue, final long aTimestamp )
+  {
+    final long size = this.timestamps.getSize();
+    final int offset = ( int )( size & SEGMENT_MASK );
+    if ( offset == 0 )
+    {
+      this.valueSegments.add( new int[SEGMENT_SIZE] );
+    }
+
+    final int segment = this.valueSegments.size() - 1;
+    this.valueSegments.set( segment, untrim( this.valueSegments.get( segment ), offset, SEGMENT_SIZE ) );
+
+    // Add the timestamp first, as it validates the given timestamp...
+    this.timestamps.add( aTimestamp );
+    this.valueSegments.get( segment )[offset] = aValue;
+  }
+
+  /**
+   * Returns the (approximate) number of bytes used by this store.
+   * 
+   * @return a memory size, in bytes.
+   */
+  public long getMemoryUsage()
+  {
+    long result = this.timestamps.getMemoryUsage();
+    for ( int[] segment : this.valueSegments )
+    {
+      result += 4L * segment.length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getSize()
+  {
+    return this.timestamps.getSize();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getTimestamp( final long aIndex )
+  {
+    return this.timestamps.get( aIndex );
+  }
+
+  /**
+   * Returns the column with all timestamps of this store, for sequential
+   * access to the timestamps.
+   * 
+   * @return the timestamp column, never <code>null</code>.
+   */
+  public CompressedTimestampColumn getTimestampColumn()
+  {
+    return this.timestamps;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getValue( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex >= getSize() ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + getSize() );
+    }
+    return this.valueSegments.get( ( int )( aIndex >>> SEGMENT_SHIFT ) )[( int )( aIndex & SEGMENT_MASK )];
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long indexOf( final long aTimestamp )
+  {
+    return this.timestamps.indexOf( aTimestamp );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isArrayAccessible()
+  {
+    return getSize() <= MAX_ARRAY_SIZE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long[] toTimestampArray()
+  {
+    final long[] result = new long[getArraySize()];
+
+    final CompressedTimestampColumn.Cursor cursor = this.timestamps.iterator( 0L );
+    for ( int i = 0; i < result.length; i++ )
+    {
+      result[i] = cursor.next();
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] toValueArray()
+  {
+    final int[] result = new int[getArraySize()];
+    for ( int i = 0, offset = 0; offset < result.length; i++ )
+    {
+      final int length = Math.min( SEGMENT_SIZE, result.length - offset );
+      System.arraycopy( this.valueSegments.get( i ), 0, result, offset, length );
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void trimToSize()
+  {
+    this.timestamps.trimToSize();
+
+    final int segment = this.valueSegments.size() - 1;
+    if ( segment < 0 )
+    {
+      return;
+    }
+
+    final int length = ( int )Math.min( SEGMENT_SIZE, getSize() - ( ( long )segment << SEGMENT_SHIFT ) );
+    if ( length < this.valueSegments.get( segment ).length )
+    {
+      this.valueSegments.set( segment, Arrays.copyOf( this.valueSegments.get( segment ), length ) );
+    }
+  }
+
+  /**
+   * @return the size of this store as array size.
+   */
+  private int getArraySize()
+  {
+    if ( !isArrayAccessible() )
+    {
+      throw new IllegalStateException( "Too many transitions to fit in an array: " + getSize() );
+    }
+    return ( int )getSize();
+  }
+}
@@ -41,7 +41,7 @@ import nl.lxtreme.ols.api.data.project.*;
  * the class is the same. A value is 32bits long. The value is encoded in hex
  * and each value is followed by a new line.
  */
-public final class DataContainer implements AcquisitionResult
+public final class DataContainer implements IndexedAcquisitionResult
 {
   // VARIABLES
 
@@ -355,6 +355,20 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getSampleRate() : Ols.NOT_AVAILABLE;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTimestamp(long)
+   */
+  @Override
+  public long getTimestamp( final long aIndex )
+  {
+    final AcquisitionResult capturedData = getAcquisitionData();
+    if ( capturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )capturedData ).getTimestamp( aIndex );
+    }
+    return getTimestamps()[toArrayIndex( aIndex )];
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTimestamps()
    */
@@ -364,6 +378,34 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().getTimestamps() : new long[0];
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTransitionCount()
+   */
+  @Override
+  public long getTransitionCount()
+  {
+    final AcquisitionResult capturedData = getAcquisitionData();
+    if ( capturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )capturedData ).getTransitionCount();
+    }
+    return getValues().length;
+  }
+
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getTransitionIndex(long)
+   */
+  @Override
+  public long getTransitionIndex( final long aTimeValue )
+  {
+    final AcquisitionResult capturedData = getAcquisitionData();
+    if ( capturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )capturedData ).getTransitionIndex( aTimeValue );
+    }
+    return getSampleIndex( aTimeValue );
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getTriggerPosition()
    */
@@ -373,6 +415,20 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() && hasTriggerData() ? getAcquisitionData().getTriggerPosition() : Ols.NOT_AVAILABLE;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#getValue(long)
+   */
+  @Override
+  public int getValue( final long aIndex )
+  {
+    final AcquisitionResult capturedData = getAcquisitionData();
+    if ( capturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )capturedData ).getValue( aIndex );
+    }
+    return getValues()[toArrayIndex( aIndex )];
+  }
+
   /**
    * @see nl.lxtreme.ols.api.data.CapturedData#getValues()
    */
@@ -411,6 +467,20 @@ public final class DataContainer implements AcquisitionResult
     return hasCapturedData() ? getAcquisitionData().hasTriggerData() : false;
   }
 
+  /**
+   * @see nl.lxtreme.ols.api.acquisition.IndexedAcquisitionResult#isArrayAccessible()
+   */
+  @Override
+  public boolean isArrayAccessible()
+  {
+    final AcquisitionResult capturedData = getAcquisitionData();
+    if ( capturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )capturedData ).isArrayAccessible();
+    }
+    return true;
+  }
+
   /**
    * Returns whether a channel label is set or not.
    * 
@@ -475,6 +545,12 @@ public final class DataContainer implements AcquisitionResult
   {
     this.projectManager.getCurrentProject().setCapturedData( aData );
     this.annotations.clear();
+
+    if ( aData != null )
+    {
+      // Start summarizing the new data in the background...
+      MinMaxPyramid.getInstance( aData );
+    }
   }
 
   /**
@@ -603,4 +679,20 @@ public final class DataContainer implements AcquisitionResult
   {
     return this.projectManager.getCurrentProject().getCursorPositions();
   }
+
+  /**
+   * Converts the given long index to an array index.
+   * 
+   * @param aIndex
+   *          the index to convert.
+   * @return the index as integer.
+   */
+  private static int toArrayIndex( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex > Integer.MAX_VALUE ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex );
+    }
+    return ( int )aIndex;
+  }
 }
@@ -0,0 +1,368 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides an index of the edges of each channel in the transitions of an
+ * acquisition result.
+ * <p>
+ * Most transitions of a capture are caused by other channels than the one or
+ * two a decoder is interested in. Instead of testing each transition against a
+ * channel mask, a decoder can use this index to visit only the transitions at
+ * which one of its channels actually changes.
+ * </p>
+ * <p>
+ * The index of a channel is built when it is first requested, and is kept for
+ * as long as the transitions of the acquisition result are in use. When more
+ * channels are requested at once, they are indexed in parallel.
+ * </p>
+ */
+public final class EdgeIndex
+{
+  // INNER TYPES
+
+  /**
+   * Iterates over the edges of one or more channels, in ascending order of
+   * their transition index.
+   */
+  public static final class Cursor
+  {
+    // VARIABLES
+
+    private final int[][] channelEdges;
+    private final int[] positions;
+    private final int endIndex;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Cursor instance.
+     */
+    Cursor( final int[][] aChannelEdges, final int aStartIndex, final int aEndIndex )
+    {
+      this.channelEdges = aChannelEdges;
+      this.positions = new int[aChannelEdges.length];
+      this.endIndex = aEndIndex;
+
+      for ( int i = 0; i < aChannelEdges.length; i++ )
+      {
+        this.positions[i] = indexOf( aChannelEdges[i], aStartIndex );
+      }
+    }
+
+    // METHODS
+
+    /**
+     * @return <code>true</code> if there are more edges, <code>false</code>
+     *         otherwise.
+     */
+    public boolean hasNext()
+    {
+      return peek() < this.endIndex;
+    }
+
+    /**
+     * Returns the transition index of the next edge. In case multiple channels
+     * have an edge at the same transition, this index is returned only once.
+     * 
+     * @return a transition index, >= 0.
+     * @throws NoSuchElementException
+     *           in case there are no more edges.
+     */
+    public int next()
+    {
+      final int result = peek();
+      if ( result >= this.endIndex )
+      {
+        throw new NoSuchElementException();
+      }
+
+      for ( int i = 0; i < this.channelEdges.length; i++ )
+      {
+        final int[] edges = this.channelEdges[i];
+        if ( ( this.positions[i] < edges.length ) && ( edges[this.positions[i]] == result ) )
+        {
+          this.positions[i]++;
+        }
+      }
+      return result;
+    }
+
+    /**
+     * @return the transition index of the next edge, or
+     *         {@link Integer#MAX_VALUE} if there are no more edges.
+     */
+    private int peek()
+    {
+      int result = Integer.MAX_VALUE;
+      for ( int i = 0; i < this.channelEdges.length; i++ )
+      {
+        final int[] edges = this.channelEdges[i];
+        if ( this.positions[i] < edges.length )
+        {
+          result = Math.min( result, edges[this.positions[i]] );
+        }
+      }
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The number of transitions from which channels are indexed in parallel. */
+  static final int PARALLEL_THRESHOLD = 1 << 16;
+
+  /**
+   * The indices, keyed by the transitions they are built for. As the indices
+   * do not refer to their transitions, they are removed once the transitions
+   * are no longer in use.
+   */
+  private static final Map<int[], EdgeIndex> INDICES = new WeakHashMap<int[], EdgeIndex>();
+
+  // VARIABLES
+
+  private final int[][] edges;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, EdgeIndex instance.
+   */
+  private EdgeIndex()
+  {
+    this.edges = new int[Ols.MAX_CHANNELS][];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the edge index for the given acquisition result, in which at least
+   * the given channels are indexed.
+   * 
+   * @param aData
+   *          the acquisition result to return the edge index for, cannot be
+   *          <code>null</code>;
+   * @param aChannelMask
+   *          the mask of the channels that should be indexed.
+   * @return the edge index, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the transitions of the given acquisition result do not
+   *           fit in an array.
+   */
+  public static EdgeIndex getInstance( final AcquisitionResult aData, final int aChannelMask )
+  {
+    final int[] values = aData.getValues();
+
+    EdgeIndex result;
+    synchronized ( INDICES )
+    {
+      result = INDICES.get( values );
+      if ( result == null )
+      {
+        result = new EdgeIndex();
+        INDICES.put( values, result );
+      }
+    }
+
+    result.index( values, aChannelMask );
+    return result;
+  }
+
+  /**
+   * Returns the transition indices at which the given channel changes, given
+   * the transition values. The first transition is never considered an edge.
+   * 
+   * @param aValues
+   *          the transition values;
+   * @param aChannel
+   *          the channel to index, >= 0 && &lt; 32.
+   * @return the sorted transition indices of the edges, never
+   *         <code>null</code>.
+   */
+  static int[] indexChannel( final int[] aValues, final int aChannel )
+  {
+    final int mask = 1 << aChannel;
+
+    int count = 0;
+    for ( int i = 1; i < aValues.length; i++ )
+    {
+      if ( ( ( aValues[i] ^ aValues[i - 1] ) & mask ) != 0 )
+      {
+        count++;
+      }
+    }
+
+    final int[] result = new int[count];
+    for ( int i = 1, j = 0; j < count; i++ )
+    {
+      if ( ( ( aValues[i] ^ aValues[i - 1] ) & mask ) != 0 )
+      {
+        result[j++] = i;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the position of the first edge at or after the given transition
+   * index.
+   * 
+   * @param aEdges
+   *          the sorted transition indices of the edges;
+   * @param aIndex
+   *          the transition index to search for.
+   * @return a position, >= 0 && &lt;= the number of edges.
+   */
+  static int indexOf( final int[] aEdges, final int aIndex )
+  {
+    int low = 0;
+    int high = aEdges.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( aEdges[mid] < aIndex )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
+  /**
+   * Returns the number of edges of the given channel.
+   * 
+   * @param aChannel
+   *          the channel to return the number of edges for, >= 0 && &lt; 32.
+   * @return an edge count, >= 0.
+   * @throws IllegalStateException
+   *           in case the given channel is not indexed.
+   */
+  public int getEdgeCount( final int aChannel )
+  {
+    return getEdges( aChannel ).length;
+  }
+
+  /**
+   * Creates a cursor over the edges of the given channels, that lie between
+   * the given transition indices.
+   * 
+   * @param aChannelMask
+   *          the mask of the channels to iterate the edges of, all of these
+   *          channels should be indexed;
+   * @param aStartIndex
+   *          the transition index of the first edge to return (inclusive);
+   * @param aEndIndex
+   *          the transition index of the last edge to return (exclusive).
+   * @return a new cursor, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case one of the given channels is not indexed.
+   */
+  public Cursor iterator( final int aChannelMask, final int aStartIndex, final int aEndIndex )
+  {
+    final int[][] channelEdges = new int[Integer.bitCount( aChannelMask )][];
+    for ( int channel = 0, i = 0; i < channelEdges.length; channel++ )
+    {
+      if ( ( aChannelMask & ( 1 << channel ) ) != 0 )
+      {
+        channelEdges[i++] = getEdges( channel );
+      }
+    }
+    return new Cursor( channelEdges, aStartIndex, aEndIndex );
+  }
+
+  /**
+   * @return the sorted transition indices of the edges of the given channel.
+   */
+  private synchronized int[] getEdges( final int aChannel )
+  {
+    if ( ( aChannel < 0 ) || ( aChannel >= Ols.MAX_CHANNELS ) || ( this.edges[aChannel] == null ) )
+    {
+      throw new IllegalStateException( "Channel " + aChannel + " is not indexed!" );
+    }
+    return this.edges[aChannel];
+  }
+
+  /**
+   * Indexes all given channels that are not indexed yet.
+   */
+  private synchronized void index( final int[] aValues, final int aChannelMask )
+  {
+    final List<Integer> channels = new ArrayList<Integer>();
+    for ( int channel = 0; channel < Ols.MAX_CHANNELS; channel++ )
+    {
+      if ( ( ( aChannelMask & ( 1 << channel ) ) != 0 ) && ( this.edges[channel] == null ) )
+      {
+        channels.add( Integer.valueOf( channel ) );
+      }
+    }
+
+    final int threadCount = Math.min( channels.size(), Runtime.getRuntime().availableProcessors() );
+    if ( ( threadCount <= 1 ) || ( aValues.length < PARALLEL_THRESHOLD ) )
+    {
+      for ( Integer channel : channels )
+      {
+        this.edges[channel.intValue()] = indexChannel( aValues, channel.intValue() );
+      }
+      return;
+    }
+
+    final ExecutorService executor = HostUtils.getSharedThreadPool();
+
+    final List<Future<int[]>> futures = new ArrayList<Future<int[]>>( channels.size() );
+    try
+    {
+      for ( final Integer channel : channels )
+      {
+        futures.add( executor.submit( new Callable<int[]>()
+        {
+          @Override
+          public int[] call() throws Exception
+          {
+            return indexChannel( aValues, channel.intValue() );
+          }
+        } ) );
+      }
+
+      for ( int i = 0; i < channels.size(); i++ )
+      {
+        this.edges[channels.get( i ).intValue()] = HostUtils.getUninterruptibly( futures.get( i ) );
+      }
+    }
+    finally
+    {
+      // only has effect in case indexing a channel failed...
+      HostUtils.cancelAll( futures );
+    }
+  }
+}
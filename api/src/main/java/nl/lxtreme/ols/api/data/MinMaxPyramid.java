@@ -0,0 +1,493 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.beans.*;
+import java.util.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides a multi-resolution summary of the transitions of an acquisition
+ * result, allowing large captures to be rendered or summarized without
+ * visiting each transition.
+ * <p>
+ * The summary consists of several levels. Each level divides the time of the
+ * capture in buckets of 2<sup>k</sup> time units, and keeps for each bucket
+ * the minimum and maximum level of each channel, the channels that change
+ * within the bucket, and the number of transitions in the bucket. Each next
+ * level has buckets that are twice as large as the previous level.
+ * </p>
+ * <p>
+ * The levels are built in the background, finest level first, and become
+ * available as soon as they are built. Small captures, for which visiting
+ * each transition is fast enough, are not summarized at all.
+ * </p>
+ * <p>
+ * Listeners are notified (on the building thread) each time a level becomes
+ * available, and once the pyramid is complete. As the pyramids are cached,
+ * all listeners are removed once the pyramid is complete.
+ * </p>
+ */
+public final class MinMaxPyramid
+{
+  // INNER TYPES
+
+  /**
+   * Provides a single level of the pyramid.
+   */
+  public static final class Level
+  {
+    // VARIABLES
+
+    private final int shift;
+    private final int[] minimum;
+    private final int[] maximum;
+    private final int[] activity;
+    private final int[] transitionCounts;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new Level instance.
+     */
+    Level( final int aShift, final int aBucketCount )
+    {
+      this.shift = aShift;
+      this.minimum = new int[aBucketCount];
+      this.maximum = new int[aBucketCount];
+      this.activity = new int[aBucketCount];
+      this.transitionCounts = new int[aBucketCount];
+    }
+
+    // METHODS
+
+    /**
+     * Returns the channels that change within the given bucket.
+     * 
+     * @param aBucket
+     *          the bucket index, >= 0 && &lt; {@link #getBucketCount()}.
+     * @return a bit mask of the channels that have at least one edge within
+     *         the given bucket.
+     */
+    public int getActivity( final int aBucket )
+    {
+      return this.activity[aBucket];
+    }
+
+    /**
+     * Returns the bucket that contains the given time value.
+     * 
+     * @param aTimeValue
+     *          the time value to return the bucket for.
+     * @return a bucket index, >= 0 && &lt; {@link #getBucketCount()}.
+     */
+    public int getBucket( final long aTimeValue )
+    {
+      if ( aTimeValue < 0L )
+      {
+        return 0;
+      }
+      return ( int )Math.min( this.minimum.length - 1, aTimeValue >> this.shift );
+    }
+
+    /**
+     * @return the number of buckets in this level, > 0.
+     */
+    public int getBucketCount()
+    {
+      return this.minimum.length;
+    }
+
+    /**
+     * @return the number of time units covered by a single bucket, > 0.
+     */
+    public long getBucketWidth()
+    {
+      return 1L << this.shift;
+    }
+
+    /**
+     * Returns the maximum level of all channels within the given bucket.
+     * 
+     * @param aBucket
+     *          the bucket index, >= 0 && &lt; {@link #getBucketCount()}.
+     * @return a bit mask of the channels that are high somewhere within the
+     *         given bucket.
+     */
+    public int getMaximum( final int aBucket )
+    {
+      return this.maximum[aBucket];
+    }
+
+    /**
+     * Returns the minimum level of all channels within the given bucket.
+     * 
+     * @param aBucket
+     *          the bucket index, >= 0 && &lt; {@link #getBucketCount()}.
+     * @return a bit mask of the channels that are high during the entire
+     *         bucket.
+     */
+    public int getMinimum( final int aBucket )
+    {
+      return this.minimum[aBucket];
+    }
+
+    /**
+     * Returns the number of transitions within the given bucket.
+     * 
+     * @param aBucket
+     *          the bucket index, >= 0 && &lt; {@link #getBucketCount()}.
+     * @return a transition count, >= 0.
+     */
+    public int getTransitionCount( final int aBucket )
+    {
+      return this.transitionCounts[aBucket];
+    }
+
+    /**
+     * Creates the next, twice as coarse, level from this level.
+     */
+    Level createNextLevel()
+    {
+      final Level result = new Level( this.shift + 1, ( this.minimum.length + 1 ) / 2 );
+      for ( int i = 0; i < result.minimum.length; i++ )
+      {
+        final int first = 2 * i;
+        final int second = Math.min( first + 1, this.minimum.length - 1 );
+
+        result.minimum[i] = this.minimum[first] & this.minimum[second];
+        result.maximum[i] = this.maximum[first] | this.maximum[second];
+        result.activity[i] = this.activity[first] | this.activity[second];
+        result.transitionCounts[i] = this.transitionCounts[first]
+            + ( ( second != first ) ? this.transitionCounts[second] : 0 );
+      }
+      return result;
+    }
+  }
+
+  // CONSTANTS
+
+  /** The property that changes each time a level becomes available. */
+  public static final String PROPERTY_LEVELS = "levels";
+  /** The property that changes once all levels are built. */
+  public static final String PROPERTY_COMPLETE = "complete";
+
+  private static final Logger LOG = Logger.getLogger( MinMaxPyramid.class.getName() );
+
+  /** The number of transitions from which a capture is summarized. */
+  static final int MIN_TRANSITIONS = 1 << 12;
+  /** The average number of transitions per bucket of the finest level. */
+  static final int TRANSITIONS_PER_BUCKET = 4;
+  /** The maximum number of buckets of the finest level. */
+  static final int MAX_BUCKETS = 1 << 20;
+
+  /**
+   * The pyramids, keyed by the transitions they are built for. As the
+   * pyramids do not refer to their transitions, they are removed once the
+   * transitions are no longer in use.
+   */
+  private static final Map<int[], MinMaxPyramid> PYRAMIDS = new WeakHashMap<int[], MinMaxPyramid>();
+
+  // VARIABLES
+
+  private final PropertyChangeSupport propertyChangeSupport;
+
+  private volatile Level[] levels;
+  private volatile boolean complete;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new, empty, MinMaxPyramid instance.
+   */
+  MinMaxPyramid()
+  {
+    this.propertyChangeSupport = new PropertyChangeSupport( this );
+
+    this.levels = new Level[0];
+    this.complete = false;
+  }
+
+  // METHODS
+
+  /**
+   * Returns the pyramid for the given acquisition result. If it does not exist
+   * yet, it is created and built in the background.
+   * 
+   * @param aData
+   *          the acquisition result to return the pyramid for, cannot be
+   *          <code>null</code>.
+   * @return the pyramid, never <code>null</code>. Its levels might not be
+   *         available yet.
+   */
+  public static MinMaxPyramid getInstance( final AcquisitionResult aData )
+  {
+    if ( ( aData instanceof IndexedAcquisitionResult ) && !( ( IndexedAcquisitionResult )aData ).isArrayAccessible() )
+    {
+      // Too large to summarize from its arrays...
+      final MinMaxPyramid result = new MinMaxPyramid();
+      result.complete = true;
+      return result;
+    }
+
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final long absoluteLength = aData.getAbsoluteLength();
+
+    final MinMaxPyramid result;
+    synchronized ( PYRAMIDS )
+    {
+      final MinMaxPyramid existing = PYRAMIDS.get( values );
+      if ( existing != null )
+      {
+        return existing;
+      }
+
+      result = new MinMaxPyramid();
+      PYRAMIDS.put( values, result );
+    }
+
+    if ( values.length < MIN_TRANSITIONS )
+    {
+      result.complete = true;
+    }
+    else
+    {
+      // Each pyramid is built on its own thread, which ends once the pyramid
+      // is complete...
+      final Thread builder = new Thread( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          try
+          {
+            result.build( values, timestamps, absoluteLength );
+          }
+          catch ( RuntimeException exception )
+          {
+            LOG.log( java.util.logging.Level.WARNING, "Failed to build min/max pyramid!", exception );
+            result.setComplete();
+          }
+        }
+      }, "Min/max pyramid builder" );
+      builder.setDaemon( true );
+      builder.setPriority( Thread.MIN_PRIORITY );
+      builder.start();
+    }
+    return result;
+  }
+
+  /**
+   * Creates the finest level of the pyramid for the given transitions.
+   * 
+   * @param aValues
+   *          the transition values;
+   * @param aTimestamps
+   *          the transition timestamps;
+   * @param aAbsoluteLength
+   *          the absolute length of the capture, in time units.
+   * @return the finest level, or <code>null</code> if the transitions are too
+   *         sparse to summarize.
+   */
+  static Level createBaseLevel( final int[] aValues, final long[] aTimestamps, final long aAbsoluteLength )
+  {
+    final int n = aValues.length;
+    if ( ( n == 0 ) || ( aTimestamps[0] < 0L ) )
+    {
+      return null;
+    }
+
+    final long endTime = Math.max( aAbsoluteLength, aTimestamps[n - 1] + 1L );
+    final long maxBuckets = Math.min( MAX_BUCKETS, n / TRANSITIONS_PER_BUCKET );
+    if ( maxBuckets < 2L )
+    {
+      return null;
+    }
+
+    int shift = 0;
+    while ( ( ( ( endTime - 1L ) >> shift ) + 1L ) > maxBuckets )
+    {
+      shift++;
+    }
+
+    final Level result = new Level( shift, ( int )( ( ( endTime - 1L ) >> shift ) + 1L ) );
+
+    // The value that is in effect at the start of the current bucket...
+    int value = aValues[0];
+    int bucket = 0;
+    result.minimum[0] = value;
+    result.maximum[0] = value;
+
+    for ( int i = 1; i < n; i++ )
+    {
+      final int transitionBucket = ( int )( aTimestamps[i] >> shift );
+      while ( bucket < transitionBucket )
+      {
+        // Buckets without transitions keep the current value...
+        bucket++;
+        result.minimum[bucket] = value;
+        result.maximum[bucket] = value;
+      }
+
+      final int newValue = aValues[i];
+      result.minimum[bucket] &= newValue;
+      result.maximum[bucket] |= newValue;
+      result.activity[bucket] |= ( value ^ newValue );
+      result.transitionCounts[bucket]++;
+      value = newValue;
+    }
+
+    while ( bucket < ( result.minimum.length - 1 ) )
+    {
+      bucket++;
+      result.minimum[bucket] = value;
+      result.maximum[bucket] = value;
+    }
+
+    return result;
+  }
+
+  /**
+   * Adds a listener that is notified when a level becomes available, or when
+   * this pyramid is complete. Listeners are not added to a complete pyramid,
+   * as it will not change anymore.
+   * 
+   * @param aListener
+   *          the listener to add, cannot be <code>null</code>.
+   */
+  public synchronized void addPropertyChangeListener( final PropertyChangeListener aListener )
+  {
+    if ( !this.complete )
+    {
+      this.propertyChangeSupport.addPropertyChangeListener( aListener );
+    }
+  }
+
+  /**
+   * Returns the coarsest available level whose buckets are not larger than the
+   * given width.
+   * 
+   * @param aBucketWidth
+   *          the maximum bucket width, in time units.
+   * @return a level, or <code>null</code> if no such level is available (yet).
+   */
+  public Level getLevel( final long aBucketWidth )
+  {
+    final Level[] available = this.levels;
+
+    Level result = null;
+    for ( Level level : available )
+    {
+      if ( level.getBucketWidth() > aBucketWidth )
+      {
+        break;
+      }
+      result = level;
+    }
+    return result;
+  }
+
+  /**
+   * @return the number of levels that are currently available, >= 0.
+   */
+  public int getLevelCount()
+  {
+    return this.levels.length;
+  }
+
+  /**
+   * Returns whether all levels of this pyramid are built.
+   * 
+   * @return <code>true</code> if this pyramid is complete, <code>false</code>
+   *         if it is still being built.
+   */
+  public boolean isComplete()
+  {
+    return this.complete;
+  }
+
+  /**
+   * Removes a listener added with
+   * {@link #addPropertyChangeListener(PropertyChangeListener)}.
+   * 
+   * @param aListener
+   *          the listener to remove, cannot be <code>null</code>.
+   */
+  public void removePropertyChangeListener( final PropertyChangeListener aListener )
+  {
+    this.propertyChangeSupport.removePropertyChangeListener( aListener );
+  }
+
+  /**
+   * Builds all levels of this pyramid, making each level available as soon
+   * as it is built.
+   */
+  void build( final int[] aValues, final long[] aTimestamps, final long aAbsoluteLength )
+  {
+    Level level = createBaseLevel( aValues, aTimestamps, aAbsoluteLength );
+    if ( level != null )
+    {
+      final List<Level> built = new ArrayList<Level>();
+      built.add( level );
+      publish( built );
+
+      while ( level.getBucketCount() > 1 )
+      {
+        level = level.createNextLevel();
+        built.add( level );
+        publish( built );
+      }
+    }
+
+    setComplete();
+  }
+
+  /**
+   * Makes the given levels available, and notifies all listeners.
+   */
+  private void publish( final List<Level> aLevels )
+  {
+    final Level[] old = this.levels;
+    this.levels = aLevels.toArray( new Level[aLevels.size()] );
+
+    this.propertyChangeSupport.firePropertyChange( PROPERTY_LEVELS, old, this.levels );
+  }
+
+  /**
+   * Marks this pyramid as complete, notifies all listeners, and removes them
+   * afterwards; this pyramid will not change anymore.
+   */
+  private synchronized void setComplete()
+  {
+    this.complete = true;
+
+    this.propertyChangeSupport.firePropertyChange( PROPERTY_COMPLETE, false, true );
+    for ( PropertyChangeListener listener : this.propertyChangeSupport.getPropertyChangeListeners() )
+    {
+      this.propertyChangeSupport.removePropertyChangeListener( listener );
+    }
+  }
+}
@@ -0,0 +1,382 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static nl.lxtreme.ols.api.data.TransitionSegments.*;
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+import java.util.logging.*;
+
+
+/**
+ * Stores transitions outside the Java heap, in fixed-size segments addressed
+ * by a long index.
+ * <p>
+ * The segments are either regions of a memory-mapped temporary file, which
+ * allows the operating system to page them in and out as they are used, or
+ * direct byte buffers. In both cases, the transitions do not add to the heap
+ * usage (and garbage collection times) of the JVM.
+ * </p>
+ * <p>
+ * The temporary file is removed as soon as possible; on platforms that do not
+ * allow removing an open file, it is removed when this store is closed, or
+ * when the JVM exits.
+ * </p>
+ */
+public final class OffHeapTransitionStore implements TransitionStore, Closeable
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( OffHeapTransitionStore.class.getName() );
+
+  private static final int SEGMENT_SHIFT = ChunkedTransitionStore.SEGMENT_SHIFT;
+  private static final int SEGMENT_SIZE = ChunkedTransitionStore.SEGMENT_SIZE;
+  private static final int SEGMENT_MASK = SEGMENT_SIZE - 1;
+
+  private static final int VALUES_BYTES = SEGMENT_SIZE * 4;
+  private static final int SEGMENT_BYTES = SEGMENT_SIZE * ( 4 + 8 );
+  private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+  // VARIABLES
+
+  private final List<IntBuffer> valueSegments;
+  private final List<LongBuffer> timestampSegments;
+  private final File file;
+  private final RandomAccessFile raf;
+  private final FileChannel channel;
+  private long size;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new OffHeapTransitionStore instance that uses direct byte
+   * buffers as storage.
+   */
+  public OffHeapTransitionStore()
+  {
+    this.valueSegments = new ArrayList<IntBuffer>();
+    this.timestampSegments = new ArrayList<LongBuffer>();
+    this.file = null;
+    this.raf = null;
+    this.channel = null;
+    this.size = 0L;
+  }
+
+  /**
+   * Creates a new OffHeapTransitionStore instance that uses a memory-mapped
+   * temporary file as storage.
+   * 
+   * @param aDirectory
+   *          the directory to create the temporary file in, or
+   *          <code>null</code> to use the default temporary directory.
+   * @throws IOException
+   *           in case the temporary file could not be created.
+   */
+  public OffHeapTransitionStore( final File aDirectory ) throws IOException
+  {
+    this.valueSegments = new ArrayList<IntBuffer>();
+    this.timestampSegments = new ArrayList<LongBuffer>();
+    this.file = File.createTempFile( "ols-capture", ".tmp", aDirectory );
+    this.raf = new RandomAccessFile( this.file, "rw" );
+    this.channel = this.raf.getChannel();
+    this.size = 0L;
+
+    // Most platforms allow an open file to be removed, which ensures it is
+    // cleaned up, regardless of how this store is disposed...
+    if ( !this.file.delete() )
+    {
+      this.file.deleteOnExit();
+    }
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void add( final int aValue, final long aTimestamp ) throws IOException
+  {
+    final int offset = ( int )( this.size & SEGMENT_MASK );
+    if ( offset == 0 )
+    {
+      allocateSegment();
+    }
+
+    final int segment = this.valueSegments.size() - 1;
+    this.valueSegments.set( segment, untrim( this.valueSegments.get( segment ), offset, SEGMENT_SIZE ) );
+    this.timestampSegments.set( segment, untrim( this.timestampSegments.get( segment ), offset, SEGMENT_SIZE ) );
+
+    this.valueSegments.get( segment ).put( offset, aValue );
+    this.timestampSegments.get( segment ).put( offset, aTimestamp );
+    this.size++;
+  }
+
+  /**
+   * Closes this store, releasing its temporary file (if any). This store
+   * cannot be used after it is closed.
+   * 
+   * @see java.io.Closeable#close()
+   */
+  @Override
+  public void close() throws IOException
+  {
+    this.valueSegments.clear();
+    this.timestampSegments.clear();
+    this.size = 0L;
+
+    if ( this.raf != null )
+    {
+      this.raf.close();
+      if ( this.file.exists() && !this.file.delete() )
+      {
+        LOG.log( Level.FINE, "Failed to remove temporary file {0}; will be removed on exit.", this.file );
+      }
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long getTimestamp( final long aIndex )
+  {
+    checkIndex( aIndex );
+    return this.timestampSegments.get( ( int )( aIndex >>> SEGMENT_SHIFT ) ).get( ( int )( aIndex & SEGMENT_MASK ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getValue( final long aIndex )
+  {
+    checkIndex( aIndex );
+    return this.valueSegments.get( ( int )( aIndex >>> SEGMENT_SHIFT ) ).get( ( int )( aIndex & SEGMENT_MASK ) );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long indexOf( final long aTimestamp )
+  {
+    if ( this.size == 0L )
+    {
+      return 0L;
+    }
+
+    // Find the last segment that starts at or before the given timestamp...
+    int low = 0;
+    int high = this.timestampSegments.size() - 1;
+    while ( low < high )
+    {
+      final int mid = ( low + high + 1 ) >>> 1;
+      if ( this.timestampSegments.get( mid ).get( 0 ) <= aTimestamp )
+      {
+        low = mid;
+      }
+      else
+      {
+        high = mid - 1;
+      }
+    }
+
+    final int segment = low;
+    final LongBuffer timestamps = this.timestampSegments.get( segment );
+
+    // Find the first timestamp at or after the given timestamp...
+    int idxLow = 0;
+    int idxHigh = getSegmentLength( segment );
+    while ( idxLow < idxHigh )
+    {
+      final int mid = ( idxLow + idxHigh ) >>> 1;
+      if ( timestamps.get( mid ) < aTimestamp )
+      {
+        idxLow = mid + 1;
+      }
+      else
+      {
+        idxHigh = mid;
+      }
+    }
+
+    final long result = ( ( long )segment << SEGMENT_SHIFT ) + idxLow;
+    return Math.min( result, this.size - 1L );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public boolean isArrayAccessible()
+  {
+    return this.size <= MAX_ARRAY_SIZE;
+  }
+
+  /**
+   * Returns whether this store is backed by a memory-mapped file.
+   * 
+   * @return <code>true</code> if memory-mapped, <code>false</code> if backed
+   *         by direct byte buffers.
+   */
+  public boolean isMemoryMapped()
+  {
+    return this.channel != null;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public long[] toTimestampArray()
+  {
+    final long[] result = new long[getArraySize()];
+    for ( int i = 0, offset = 0; offset < result.length; i++ )
+    {
+      final int length = Math.min( SEGMENT_SIZE, result.length - offset );
+      final LongBuffer segment = this.timestampSegments.get( i ).duplicate();
+      segment.clear();
+      segment.get( result, offset, length );
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int[] toValueArray()
+  {
+    final int[] result = new int[getArraySize()];
+    for ( int i = 0, offset = 0; offset < result.length; i++ )
+    {
+      final int length = Math.min( SEGMENT_SIZE, result.length - offset );
+      final IntBuffer segment = this.valueSegments.get( i ).duplicate();
+      segment.clear();
+      segment.get( result, offset, length );
+      offset += length;
+    }
+    return result;
+  }
+
+  /**
+   * {@inheritDoc}
+   * <p>
+   * For memory-mapped stores, this is a no-op, as the unused part of the file
+   * is never touched, and hence never paged in.
+   * </p>
+   */
+  @Override
+  public void trimToSize()
+  {
+    final int segment = this.valueSegments.size() - 1;
+    if ( ( segment < 0 ) || isMemoryMapped() )
+    {
+      return;
+    }
+
+    final int length = getSegmentLength( segment );
+    if ( length < this.valueSegments.get( segment ).capacity() )
+    {
+      this.valueSegments.set( segment, copyOf( this.valueSegments.get( segment ), length ) );
+      this.timestampSegments.set( segment, copyOf( this.timestampSegments.get( segment ), length ) );
+    }
+  }
+
+  /**
+   * Allocates a new segment, either by mapping a new region of the temporary
+   * file, or as direct buffers.
+   * 
+   * @throws IOException
+   *           in case the temporary file could not be mapped.
+   */
+  private void allocateSegment() throws IOException
+  {
+    final ByteBuffer values;
+    final ByteBuffer timestamps;
+
+    if ( isMemoryMapped() )
+    {
+      final long position = ( long )this.valueSegments.size() * SEGMENT_BYTES;
+      final MappedByteBuffer region = this.channel.map( MapMode.READ_WRITE, position, SEGMENT_BYTES );
+
+      region.limit( VALUES_BYTES );
+      values = region.slice();
+      region.clear().position( VALUES_BYTES );
+      timestamps = region.slice();
+    }
+    else
+    {
+      values = ByteBuffer.allocateDirect( VALUES_BYTES );
+      timestamps = ByteBuffer.allocateDirect( SEGMENT_BYTES - VALUES_BYTES );
+    }
+
+    this.valueSegments.add( values.order( ByteOrder.nativeOrder() ).asIntBuffer() );
+    this.timestampSegments.add( timestamps.order( ByteOrder.nativeOrder() ).asLongBuffer() );
+  }
+
+  /**
+   * Checks whether the given index is valid.
+   */
+  private void checkIndex( final long aIndex )
+  {
+    if ( ( aIndex < 0L ) || ( aIndex >= this.size ) )
+    {
+      throw new IndexOutOfBoundsException( "Invalid index: " + aIndex + "; size: " + this.size );
+    }
+  }
+
+  /**
+   * @return the size of this store as array size.
+   */
+  private int getArraySize()
+  {
+    if ( !isArrayAccessible() )
+    {
+      throw new IllegalStateException( "Too many transitions to fit in an array: " + this.size );
+    }
+    return ( int )this.size;
+  }
+
+  /**
+   * @return the number of used entries of the given segment.
+   */
+  private int getSegmentLength( final int aSegment )
+  {
+    return ( int )Math.min( SEGMENT_SIZE, this.size - ( ( long )aSegment << SEGMENT_SHIFT ) );
+  }
+}
@@ -57,6 +57,11 @@ public final class OlsDataHelper
 
   /**
    * Reads the data from a given reader.
+   * <p>
+   * Large captures are kept off-heap, see {@link TransitionStoreFactory}. The
+   * resulting captured data then holds a temporary file or direct buffers,
+   * which are released by closing it.
+   * </p>
    * 
    * @param aProject
    *          the project to read the settings to;
@@ -65,10 +70,28 @@ public final class OlsDataHelper
    * @throws IOException
    *           in case of I/O problems.
    */
-  @SuppressWarnings( "boxing" )
   public static void read( final Project aProject, final Reader aReader ) throws IOException
   {
-    int size = -1;
+    read( aProject, aReader, TransitionStoreFactory.OFF_HEAP_THRESHOLD );
+  }
+
+  /**
+   * Reads the data from a given reader.
+   * 
+   * @param aProject
+   *          the project to read the settings to;
+   * @param aReader
+   *          the reader to read the data from, cannot be <code>null</code>;
+   * @param aOffHeapThreshold
+   *          the number of transitions from which the data is kept off-heap,
+   *          or a negative value to always keep it on the heap.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  @SuppressWarnings( "boxing" )
+  static void read( final Project aProject, final Reader aReader, final long aOffHeapThreshold ) throws IOException
+  {
+    long size = -1L;
     Integer rate = null, channels = null, enabledChannels = null;
     long triggerPos = -1L;
     long absLen = -1L;
@@ -86,10 +109,14 @@ public final class OlsDataHelper
       LOG.info( "Parsing OLS captured data from stream..." );
     }
 
+    // Parse the samples directly into a transition store, which backs the
+    // resulting data; the store is created upon the first sample, as the size
+    // instruction precedes the samples...
+    TransitionStore dataValues = null;
+    long lastTimestamp = Long.MIN_VALUE;
+
     try
     {
-      final List<String[]> dataValues = new ArrayList<String[]>();
-
       String line;
       while ( ( line = br.readLine() ) != null )
       {
@@ -99,8 +126,29 @@ public final class OlsDataHelper
 
         if ( dataMatcher.matches() )
         {
-          final String[] dataPair = new String[] { dataMatcher.group( 1 ), dataMatcher.group( 2 ) };
-          dataValues.add( dataPair );
+          try
+          {
+            final int value = ( int )Long.parseLong( dataMatcher.group( 1 ), 16 );
+            final long timestamp = Long.parseLong( dataMatcher.group( 2 ), 10 ) & Long.MAX_VALUE;
+            // Not all stores validate their timestamps, so do it here...
+            if ( timestamp < lastTimestamp )
+            {
+              throw new IllegalArgumentException( "Timestamps should be non-decreasing!" );
+            }
+            lastTimestamp = timestamp;
+
+            if ( dataValues == null )
+            {
+              dataValues = TransitionStoreFactory.create( Math.max( 0L, size ), aOffHeapThreshold,
+                  TransitionStoreFactory.COMPRESS_TIMESTAMPS );
+            }
+            dataValues.add( value, timestamp );
+          }
+          catch ( final IllegalArgumentException exception )
+          {
+            // Also covers NumberFormatExceptions...
+            throw new IOException( "Invalid data encountered.", exception );
+          }
         }
         else if ( instructionMatcher.matches() )
         {
@@ -110,7 +158,7 @@ public final class OlsDataHelper
 
           if ( "Size".equals( instrKey ) )
           {
-            size = safeParseInt( instrValue );
+            size = safeParseLong( instrValue );
           }
           else if ( "Rate".equals( instrKey ) )
           {
@@ -161,7 +209,7 @@ public final class OlsDataHelper
 
       // Perform some sanity checks, make it not possible to import invalid
       // data...
-      if ( dataValues.isEmpty() )
+      if ( ( dataValues == null ) || ( dataValues.getSize() == 0L ) )
       {
         throw new IOException( "Data file does not contain any sample data!" );
       }
@@ -171,11 +219,11 @@ public final class OlsDataHelper
       }
       // In case the size is not provided (as of 0.9.4 no longer mandatory),
       // take the length of the data values as size indicator...
-      if ( size < 0 )
+      if ( size < 0L )
       {
-        size = dataValues.size();
+        size = dataValues.getSize();
       }
-      if ( size != dataValues.size() )
+      if ( size != dataValues.getSize() )
       {
         throw new IOException( "Data file is corrupt?! Data size does not match sample count!" );
       }
@@ -193,34 +241,23 @@ public final class OlsDataHelper
         enabledChannels = NumberUtils.getBitMask( channels );
       }
 
-      int[] values = new int[size];
-      long[] timestamps = new long[size];
-
-      try
-      {
-        for ( int i = 0; i < size; i++ )
-        {
-          final String[] dataPair = dataValues.get( i );
-
-          values[i] = ( int )Long.parseLong( dataPair[0], 16 );
-          timestamps[i] = Long.parseLong( dataPair[1], 10 ) & Long.MAX_VALUE;
-        }
-      }
-      catch ( final NumberFormatException exception )
-      {
-        throw new IOException( "Invalid data encountered.", exception );
-      }
-
       // Allow the absolute length to be undefined, in which case the last
       // time stamp is used (+ some margin to be able to see the last
       // sample)...
-      long absoluteLength = Math.max( absLen, timestamps[size - 1] + ABS_TIME_MARGIN );
+      long absoluteLength = Math.max( absLen, dataValues.getTimestamp( size - 1L ) + ABS_TIME_MARGIN );
 
       // Finally set the captured data, and notify all event listeners...
-      result = new CapturedData( values, timestamps, triggerPos, rate, channels, enabledChannels, absoluteLength );
+      dataValues.trimToSize();
+      result = new ChunkedCapturedData( dataValues, triggerPos, rate, channels, enabledChannels, absoluteLength );
     }
     finally
     {
+      // The store is kept by the resulting data; only release it in case the
+      // data could not be read...
+      if ( ( result == null ) && ( dataValues instanceof Closeable ) )
+      {
+        HostUtils.closeResource( ( Closeable )dataValues );
+      }
       aProject.setCapturedData( result );
       aProject.setCursorPositions( cursorPositions );
       aProject.setCursorsEnabled( cursors );
@@ -249,11 +286,10 @@ public final class OlsDataHelper
 
     try
     {
-      final int[] values = capturedData.getValues();
-      final long[] timestamps = capturedData.getTimestamps();
+      final long size = getTransitionCount( capturedData );
 
       bw.write( ";Size: " );
-      bw.write( Integer.toString( values.length ) );
+      bw.write( Long.toString( size ) );
       bw.newLine();
 
       bw.write( ";Rate: " );
@@ -296,10 +332,26 @@ public final class OlsDataHelper
           bw.newLine();
         }
       }
-      for ( int i = 0; i < values.length; i++ )
+      if ( capturedData instanceof IndexedAcquisitionResult )
       {
-        bw.write( formatSample( values[i], timestamps[i] ) );
-        bw.newLine();
+        // Use the long-indexed accessors, as the data might not fit in an
+        // array...
+        final IndexedAcquisitionResult indexedData = ( IndexedAcquisitionResult )capturedData;
+        for ( long i = 0; i < size; i++ )
+        {
+          bw.write( formatSample( indexedData.getValue( i ), indexedData.getTimestamp( i ) ) );
+          bw.newLine();
+        }
+      }
+      else
+      {
+        final int[] values = capturedData.getValues();
+        final long[] timestamps = capturedData.getTimestamps();
+        for ( int i = 0; i < values.length; i++ )
+        {
+          bw.write( formatSample( values[i], timestamps[i] ) );
+          bw.newLine();
+        }
       }
     }
     finally
@@ -308,6 +360,23 @@ public final class OlsDataHelper
     }
   }
 
+  /**
+   * Returns the number of transitions of the given captured data.
+   * 
+   * @param aCapturedData
+   *          the captured data to get the transition count for, cannot be
+   *          <code>null</code>.
+   * @return a transition count, >= 0.
+   */
+  private static long getTransitionCount( final AcquisitionResult aCapturedData )
+  {
+    if ( aCapturedData instanceof IndexedAcquisitionResult )
+    {
+      return ( ( IndexedAcquisitionResult )aCapturedData ).getTransitionCount();
+    }
+    return aCapturedData.getValues().length;
+  }
+
   /**
    * Formats the given value and timestamp into a single sample string.
    * 
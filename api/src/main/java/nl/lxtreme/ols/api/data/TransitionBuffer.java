@@ -0,0 +1,317 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.util.*;
+
+
+/**
+ * Collects transitions (sample value changes) in growable primitive arrays.
+ * <p>
+ * This buffer is meant for building captured data without keeping an array
+ * with all samples around: only the values that differ from their predecessor
+ * are stored, together with their timestamp. The arrays grow by roughly 50%
+ * when full, and are trimmed to their actual size when they are retrieved, so
+ * they can directly be used for {@link CapturedData}.
+ * </p>
+ * <p>
+ * This class is not thread-safe; buffers filled by different threads can be
+ * joined using {@link #addAll(TransitionBuffer)}.
+ * </p>
+ */
+public final class TransitionBuffer
+{
+  // CONSTANTS
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final int MAX_CAPACITY = Integer.MAX_VALUE - 8;
+  /** The number of bytes needed for a single transition. */
+  private static final int TRANSITION_SIZE = 4 + 8;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private int size;
+  private long peakMemoryUsage;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionBuffer instance with a default initial capacity.
+   */
+  public TransitionBuffer()
+  {
+    this( DEFAULT_CAPACITY );
+  }
+
+  /**
+   * Creates a new TransitionBuffer instance.
+   * 
+   * @param aInitialCapacity
+   *          the initial number of transitions this buffer can hold, &gt; 0.
+   * @throws IllegalArgumentException
+   *           in case the given capacity was zero or negative.
+   */
+  public TransitionBuffer( final int aInitialCapacity )
+  {
+    if ( aInitialCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Initial capacity should be greater than zero!" );
+    }
+
+    this.values = new int[aInitialCapacity];
+    this.timestamps = new long[aInitialCapacity];
+    this.size = 0;
+    this.peakMemoryUsage = ( long )aInitialCapacity * TRANSITION_SIZE;
+  }
+
+  // METHODS
+
+  /**
+   * Appends the given value and timestamp, regardless of the value of the
+   * previous transition.
+   * 
+   * @param aValue
+   *          the sample value;
+   * @param aTimestamp
+   *          the timestamp of the sample, should be later than the timestamp
+   *          of the last transition.
+   * @throws IllegalStateException
+   *           in case this buffer cannot hold any more transitions.
+   */
+  public void add( final int aValue, final long aTimestamp )
+  {
+    if ( this.size == this.values.length )
+    {
+      ensureCapacity( this.size + 1 );
+    }
+
+    this.values[this.size] = aValue;
+    this.timestamps[this.size] = aTimestamp;
+    this.size++;
+  }
+
+  /**
+   * Appends all transitions of the given buffer, which should directly follow
+   * the transitions of this buffer in time. Its first transition is dropped in
+   * case it turns out not to be a transition at all.
+   * 
+   * @param aBuffer
+   *          the transitions to append, cannot be <code>null</code>.
+   * @throws IllegalStateException
+   *           in case this buffer cannot hold any more transitions.
+   */
+  public void addAll( final TransitionBuffer aBuffer )
+  {
+    int offset = 0;
+    if ( ( this.size > 0 ) && ( aBuffer.size > 0 ) && ( aBuffer.values[0] == this.values[this.size - 1] ) )
+    {
+      // Not a transition after all...
+      offset = 1;
+    }
+
+    final int length = aBuffer.size - offset;
+    ensureCapacity( this.size + length );
+
+    System.arraycopy( aBuffer.values, offset, this.values, this.size, length );
+    System.arraycopy( aBuffer.timestamps, offset, this.timestamps, this.size, length );
+    this.size += length;
+  }
+
+  /**
+   * Adds the transitions of the given range of samples, using the sample index
+   * as timestamp.
+   * 
+   * @param aSamples
+   *          the sample values;
+   * @param aFromIndex
+   *          the index of the first sample (inclusive);
+   * @param aToIndex
+   *          the index of the last sample (exclusive).
+   * @throws IllegalStateException
+   *           in case this buffer cannot hold any more transitions.
+   */
+  public void addSamples( final int[] aSamples, final int aFromIndex, final int aToIndex )
+  {
+    if ( aFromIndex >= aToIndex )
+    {
+      return;
+    }
+
+    int last = aSamples[aFromIndex];
+    addTransition( last, aFromIndex );
+
+    for ( int i = aFromIndex + 1; i < aToIndex; i++ )
+    {
+      final int value = aSamples[i];
+      if ( value != last )
+      {
+        add( value, i );
+        last = value;
+      }
+    }
+  }
+
+  /**
+   * Adds the given sample, if its value differs from the value of the last
+   * transition.
+   * <p>
+   * A sample with the same timestamp as the last transition replaces that
+   * transition, which is dropped altogether if the sample turns out to have
+   * the same value as the transition before it.
+   * </p>
+   * 
+   * @param aValue
+   *          the sample value;
+   * @param aTimestamp
+   *          the timestamp of the sample, should be equal to or later than the
+   *          timestamp of the last transition.
+   * @throws IllegalStateException
+   *           in case this buffer cannot hold any more transitions.
+   */
+  public void addTransition( final int aValue, final long aTimestamp )
+  {
+    final int last = this.size - 1;
+    if ( last >= 0 )
+    {
+      if ( this.timestamps[last] == aTimestamp )
+      {
+        if ( ( last > 0 ) && ( this.values[last - 1] == aValue ) )
+        {
+          this.size--;
+        }
+        else
+        {
+          this.values[last] = aValue;
+        }
+        return;
+      }
+      if ( this.values[last] == aValue )
+      {
+        return;
+      }
+    }
+
+    add( aValue, aTimestamp );
+  }
+
+  /**
+   * Returns the value of the last transition.
+   * 
+   * @return the last sample value.
+   * @throws IllegalStateException
+   *           in case this buffer is empty.
+   */
+  public int getLastValue()
+  {
+    if ( this.size == 0 )
+    {
+      throw new IllegalStateException( "No transitions!" );
+    }
+    return this.values[this.size - 1];
+  }
+
+  /**
+   * Returns the peak amount of memory used by this buffer so far.
+   * 
+   * @return a memory size, in bytes.
+   */
+  public long getPeakMemoryUsage()
+  {
+    return this.peakMemoryUsage;
+  }
+
+  /**
+   * Returns the number of transitions.
+   * 
+   * @return a transition count, &gt;= 0.
+   */
+  public int getSize()
+  {
+    return this.size;
+  }
+
+  /**
+   * Returns the timestamps of all transitions, trimming this buffer to its
+   * actual size.
+   * 
+   * @return the timestamps, with a length of exactly {@link #getSize()}. The
+   *         array is shared with this buffer, and should no longer be used
+   *         once this buffer is modified.
+   */
+  public long[] getTimestamps()
+  {
+    trimToSize();
+    return this.timestamps;
+  }
+
+  /**
+   * Returns the values of all transitions, trimming this buffer to its actual
+   * size.
+   * 
+   * @return the values, with a length of exactly {@link #getSize()}. The array
+   *         is shared with this buffer, and should no longer be used once this
+   *         buffer is modified.
+   */
+  public int[] getValues()
+  {
+    trimToSize();
+    return this.values;
+  }
+
+  /**
+   * Ensures there is room for at least the given number of transitions.
+   */
+  private void ensureCapacity( final int aCapacity )
+  {
+    if ( aCapacity <= this.values.length )
+    {
+      return;
+    }
+    if ( ( aCapacity < 0 ) || ( aCapacity > MAX_CAPACITY ) )
+    {
+      throw new IllegalStateException( "Too many transitions!" );
+    }
+
+    // Grow by (roughly) 50%...
+    final long grown = this.values.length + ( this.values.length >> 1 ) + 1L;
+    final int newCapacity = ( int )Math.max( aCapacity, Math.min( MAX_CAPACITY, grown ) );
+    // while copying, both the old and new arrays are in use...
+    this.peakMemoryUsage = Math.max( this.peakMemoryUsage, ( ( long )this.values.length + newCapacity )
+        * TRANSITION_SIZE );
+    this.values = Arrays.copyOf( this.values, newCapacity );
+    this.timestamps = Arrays.copyOf( this.timestamps, newCapacity );
+  }
+
+  /**
+   * Trims the arrays of this buffer to its actual size.
+   */
+  private void trimToSize()
+  {
+    if ( this.size != this.values.length )
+    {
+      this.values = Arrays.copyOf( this.values, this.size );
+      this.timestamps = Arrays.copyOf( this.timestamps, this.size );
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.nio.*;
+import java.util.*;
+
+
+/**
+ * Provides some utility methods for the fixed-size segments used by the
+ * {@link TransitionStore} implementations.
+ * <p>
+ * A store trims its last segment upon {@link TransitionStore#trimToSize()},
+ * but can still be appended to afterwards; in that case, the last segment is
+ * to be restored to its full size first.
+ * </p>
+ */
+final class TransitionSegments
+{
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionSegments instance, never used.
+   */
+  private TransitionSegments()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Creates a copy of the given buffer in a new direct buffer.
+   * 
+   * @param aBuffer
+   *          the buffer to copy, cannot be <code>null</code>;
+   * @param aLength
+   *          the length of the copy, >= 0.
+   * @return a new direct buffer, never <code>null</code>.
+   */
+  static IntBuffer copyOf( final IntBuffer aBuffer, final int aLength )
+  {
+    final IntBuffer result = ByteBuffer.allocateDirect( aLength * 4 ).order( ByteOrder.nativeOrder() ).asIntBuffer();
+    final IntBuffer source = aBuffer.duplicate();
+    source.clear();
+    source.limit( Math.min( aLength, source.capacity() ) );
+    result.put( source );
+    result.clear();
+    return result;
+  }
+
+  /**
+   * Creates a copy of the given buffer in a new direct buffer.
+   * 
+   * @param aBuffer
+   *          the buffer to copy, cannot be <code>null</code>;
+   * @param aLength
+   *          the length of the copy, >= 0.
+   * @return a new direct buffer, never <code>null</code>.
+   */
+  static LongBuffer copyOf( final LongBuffer aBuffer, final int aLength )
+  {
+    final LongBuffer result = ByteBuffer.allocateDirect( aLength * 8 ).order( ByteOrder.nativeOrder() ).asLongBuffer();
+    final LongBuffer source = aBuffer.duplicate();
+    source.clear();
+    source.limit( Math.min( aLength, source.capacity() ) );
+    result.put( source );
+    result.clear();
+    return result;
+  }
+
+  /**
+   * Returns a segment that can hold an element at the given offset, restoring
+   * the full size of the given segment if it was trimmed earlier.
+   * 
+   * @param aSegment
+   *          the segment to write to, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset to write at, >= 0 && &lt; aSegmentSize;
+   * @param aSegmentSize
+   *          the full size of a segment, > 0.
+   * @return the given segment, or a full-size copy of it, never
+   *         <code>null</code>.
+   */
+  static int[] untrim( final int[] aSegment, final int aOffset, final int aSegmentSize )
+  {
+    return ( aOffset < aSegment.length ) ? aSegment : Arrays.copyOf( aSegment, aSegmentSize );
+  }
+
+  /**
+   * Returns a segment that can hold an element at the given offset, restoring
+   * the full size of the given segment if it was trimmed earlier.
+   * 
+   * @param aSegment
+   *          the segment to write to, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset to write at, >= 0 && &lt; aSegmentSize;
+   * @param aSegmentSize
+   *          the full size of a segment, > 0.
+   * @return the given segment, or a full-size copy of it, never
+   *         <code>null</code>.
+   */
+  static long[] untrim( final long[] aSegment, final int aOffset, final int aSegmentSize )
+  {
+    return ( aOffset < aSegment.length ) ? aSegment : Arrays.copyOf( aSegment, aSegmentSize );
+  }
+
+  /**
+   * Returns a segment that can hold an element at the given offset, restoring
+   * the full size of the given segment if it was trimmed earlier.
+   * 
+   * @param aSegment
+   *          the segment to write to, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset to write at, >= 0 && &lt; aSegmentSize;
+   * @param aSegmentSize
+   *          the full size of a segment, > 0.
+   * @return the given segment, or a full-size (direct) copy of it, never
+   *         <code>null</code>.
+   */
+  static IntBuffer untrim( final IntBuffer aSegment, final int aOffset, final int aSegmentSize )
+  {
+    return ( aOffset < aSegment.capacity() ) ? aSegment : copyOf( aSegment, aSegmentSize );
+  }
+
+  /**
+   * Returns a segment that can hold an element at the given offset, restoring
+   * the full size of the given segment if it was trimmed earlier.
+   * 
+   * @param aSegment
+   *          the segment to write to, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset to write at, >= 0 && &lt; aSegmentSize;
+   * @param aSegmentSize
+   *          the full size of a segment, > 0.
+   * @return the given segment, or a full-size (direct) copy of it, never
+   *         <code>null</code>.
+   */
+  static LongBuffer untrim( final LongBuffer aSegment, final int aOffset, final int aSegmentSize )
+  {
+    return ( aOffset < aSegment.capacity() ) ? aSegment : copyOf( aSegment, aSegmentSize );
+  }
+}
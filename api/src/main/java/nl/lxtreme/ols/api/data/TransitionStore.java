@@ -0,0 +1,128 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+
+
+/**
+ * Provides an append-only store of transitions, addressed by a long index.
+ * <p>
+ * Transitions are appended with {@link #add(int, long)}, with non-decreasing
+ * timestamps. Implementations need not be thread-safe while being filled;
+ * once filled, they can safely be read by multiple threads.
+ * </p>
+ * 
+ * @see TransitionStoreFactory
+ */
+public interface TransitionStore
+{
+  // METHODS
+
+  /**
+   * Appends a single transition to this store.
+   * 
+   * @param aValue
+   *          the sample value of the transition;
+   * @param aTimestamp
+   *          the timestamp of the transition, should be equal to or larger
+   *          than the timestamp of the last added transition.
+   * @throws IOException
+   *           in case the store failed to allocate space for the transition.
+   */
+  void add( int aValue, long aTimestamp ) throws IOException;
+
+  /**
+   * Returns the number of transitions in this store.
+   * 
+   * @return a transition count, >= 0.
+   */
+  long getSize();
+
+  /**
+   * Returns the timestamp of the transition at the given index.
+   * 
+   * @param aIndex
+   *          the index of the transition, >= 0 && &lt; {@link #getSize()}.
+   * @return a timestamp.
+   * @throws IndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  long getTimestamp( long aIndex );
+
+  /**
+   * Returns the value of the transition at the given index.
+   * 
+   * @param aIndex
+   *          the index of the transition, >= 0 && &lt; {@link #getSize()}.
+   * @return a sample value.
+   * @throws IndexOutOfBoundsException
+   *           in case the given index is invalid.
+   */
+  int getValue( long aIndex );
+
+  /**
+   * Returns the index of the transition with the given timestamp, or, if
+   * there is no such transition, of the first transition after it. The result
+   * is limited to the last transition in this store.
+   * 
+   * @param aTimestamp
+   *          the timestamp to search for.
+   * @return a transition index, >= 0.
+   * @see CapturedData#getSampleIndex(long)
+   */
+  long indexOf( long aTimestamp );
+
+  /**
+   * Returns whether all transitions fit in a single array.
+   * 
+   * @return <code>true</code> if {@link #toTimestampArray()} and
+   *         {@link #toValueArray()} can be used, <code>false</code> otherwise.
+   */
+  boolean isArrayAccessible();
+
+  /**
+   * Returns all timestamps as a single array.
+   * 
+   * @return a new array with all timestamps, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case this store holds too many transitions to fit in an
+   *           array.
+   */
+  long[] toTimestampArray();
+
+  /**
+   * Returns all values as a single array.
+   * 
+   * @return a new array with all values, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case this store holds too many transitions to fit in an
+   *           array.
+   */
+  int[] toValueArray();
+
+  /**
+   * Releases the unused capacity of this store, for example, once all
+   * transitions are added.
+   */
+  void trimToSize();
+}
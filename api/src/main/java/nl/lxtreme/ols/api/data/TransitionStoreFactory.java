@@ -0,0 +1,118 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import java.io.*;
+import java.util.logging.*;
+
+
+/**
+ * Provides a factory for creating {@link TransitionStore}s, choosing between
+ * an on-heap or an off-heap store based on the expected number of
+ * transitions. On-heap stores keep their timestamps compressed, unless
+ * disabled.
+ */
+public final class TransitionStoreFactory
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( TransitionStoreFactory.class.getName() );
+
+  /**
+   * The number of transitions from which the transitions are stored off-heap.
+   * Defaults to 8M transitions (= 96MB), and can be overridden with the
+   * system property "nl.lxtreme.ols.offHeapThreshold". A negative value
+   * disables off-heap storage altogether.
+   */
+  static final long OFF_HEAP_THRESHOLD = Long.getLong( "nl.lxtreme.ols.offHeapThreshold", 1L << 23 ).longValue();
+
+  /**
+   * Whether or not on-heap stores keep their timestamps compressed. As the
+   * stores back the data they are filled for, this roughly halves the memory
+   * used by such data, at the cost of decoding the timestamps upon access.
+   * Enabled by default, and can be disabled by setting the system property
+   * "nl.lxtreme.ols.compressTimestamps" to <code>false</code>.
+   */
+  static final boolean COMPRESS_TIMESTAMPS = !"false".equalsIgnoreCase( System.getProperty(
+      "nl.lxtreme.ols.compressTimestamps" ) );
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionStoreFactory instance, never used.
+   */
+  private TransitionStoreFactory()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new transition store for the given expected number of
+   * transitions.
+   * 
+   * @param aExpectedSize
+   *          the expected number of transitions, or 0 if unknown.
+   * @return a new, empty, transition store, never <code>null</code>.
+   */
+  public static TransitionStore create( final long aExpectedSize )
+  {
+    return create( aExpectedSize, OFF_HEAP_THRESHOLD, COMPRESS_TIMESTAMPS );
+  }
+
+  /**
+   * Creates a new transition store for the given expected number of
+   * transitions.
+   * 
+   * @param aExpectedSize
+   *          the expected number of transitions, or 0 if unknown;
+   * @param aThreshold
+   *          the number of transitions from which an off-heap store is to be
+   *          used, or a negative value to always use an on-heap store;
+   * @param aCompress
+   *          <code>true</code> if an on-heap store should compress its
+   *          timestamps, <code>false</code> otherwise.
+   * @return a new, empty, transition store, never <code>null</code>.
+   */
+  static TransitionStore create( final long aExpectedSize, final long aThreshold, final boolean aCompress )
+  {
+    if ( ( aThreshold < 0L ) || ( aExpectedSize < aThreshold ) )
+    {
+      if ( aCompress )
+      {
+        return new CompressedTransitionStore();
+      }
+      return new ChunkedTransitionStore();
+    }
+
+    try
+    {
+      return new OffHeapTransitionStore( null /* aDirectory */);
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Failed to create memory-mapped store; using direct buffers instead!", exception );
+      return new OffHeapTransitionStore();
+    }
+  }
+}
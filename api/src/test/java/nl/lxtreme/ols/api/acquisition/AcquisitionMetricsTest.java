@@ -0,0 +1,76 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.acquisition;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link AcquisitionMetrics}.
+ */
+public class AcquisitionMetricsTest
+{
+  // METHODS
+
+  /**
+   * Tests that the readout rates are derived from the readout time.
+   */
+  @Test
+  public void testReadoutRatesOk()
+  {
+    final AcquisitionMetrics metrics = new AcquisitionMetrics( 1000000L, 2000000L, 500000000L, 3000000L, 4096L,
+        1024L, 10L, 8192L );
+
+    assertEquals( 8192.0, metrics.getBytesPerSecond(), 0.001 );
+    assertEquals( 2048.0, metrics.getSamplesPerSecond(), 0.001 );
+  }
+
+  /**
+   * Tests that no rates are given without a readout time.
+   */
+  @Test
+  public void testReadoutRatesWithoutReadoutTimeOk()
+  {
+    final AcquisitionMetrics metrics = new AcquisitionMetrics( 0L, 0L, 0L, 0L, 4096L, 1024L, 0L, 0L );
+
+    assertEquals( 0.0, metrics.getBytesPerSecond(), 0.0 );
+    assertEquals( 0.0, metrics.getSamplesPerSecond(), 0.0 );
+  }
+
+  /**
+   * Tests that the string representation contains the most important metrics.
+   */
+  @Test
+  public void testToStringOk()
+  {
+    final AcquisitionMetrics metrics = new AcquisitionMetrics( 1000000L, 2000000L, 500000000L, 3000000L, 4096L,
+        1024L, 10L, 8192L );
+    final String str = metrics.toString();
+
+    assertTrue( str, str.contains( "arm latency: 1 ms" ) );
+    assertTrue( str, str.contains( "time to trigger: 2 ms" ) );
+    assertTrue( str, str.contains( "transitions: 10" ) );
+    assertTrue( str, str.contains( "peak buffer memory: 8 KiB" ) );
+  }
+}
@@ -0,0 +1,110 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CapturedDataFactory}.
+ */
+public class CapturedDataFactoryTest
+{
+  // METHODS
+
+  /**
+   * Tests that a run of equal samples spanning multiple chunks yields a single
+   * transition.
+   */
+  @Test
+  public void testCompactParallelStitchesChunkBoundaries()
+  {
+    final int[] samples = new int[CapturedDataFactory.PARALLEL_THRESHOLD * 2];
+    Arrays.fill( samples, 0, 10, 1 );
+    Arrays.fill( samples, 10, samples.length - 10, 2 );
+    Arrays.fill( samples, samples.length - 10, samples.length, 3 );
+
+    final TransitionBuffer transitions = CapturedDataFactory.compactParallel( samples, 8 );
+
+    assertArrayEquals( new int[] { 1, 2, 3 }, transitions.getValues() );
+    assertArrayEquals( new long[] { 0, 10, samples.length - 10 }, transitions.getTimestamps() );
+  }
+
+  /**
+   * Tests that the parallel compaction yields the same result as the
+   * sequential compaction.
+   */
+  @Test
+  public void testCompactParallelYieldsSameResultAsCompact()
+  {
+    final Random rnd = new Random( 1234L );
+
+    final int[] samples = new int[CapturedDataFactory.PARALLEL_THRESHOLD + 12345];
+    int value = 0;
+    for ( int i = 0; i < samples.length; i++ )
+    {
+      if ( rnd.nextInt( 100 ) == 0 )
+      {
+        value = rnd.nextInt( 4 );
+      }
+      samples[i] = value;
+    }
+
+    final TransitionBuffer expected = CapturedDataFactory.compact( samples );
+    final TransitionBuffer actual = CapturedDataFactory.compactParallel( samples, 4 );
+
+    assertEquals( expected.getSize(), actual.getSize() );
+    assertArrayEquals( expected.getValues(), actual.getValues() );
+    assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+  }
+
+  /**
+   * Tests that only value changes are kept, including the initial value.
+   */
+  @Test
+  public void testCompactKeepsOnlyTransitions()
+  {
+    final TransitionBuffer transitions = CapturedDataFactory.compact( new int[] { 5, 5, 6, 6, 6, 5, 7, 7 } );
+
+    assertArrayEquals( new int[] { 5, 6, 5, 7 }, transitions.getValues() );
+    assertArrayEquals( new long[] { 0, 2, 5, 6 }, transitions.getTimestamps() );
+  }
+
+  /**
+   * Tests that the created captured data has the length of the given samples.
+   */
+  @Test
+  public void testCreateCapturedData()
+  {
+    final CapturedData data = CapturedDataFactory.create( new int[] { 1, 1, 2, 2 }, 1L, 100, 8, 0xff );
+
+    assertArrayEquals( new int[] { 1, 2 }, data.getValues() );
+    assertArrayEquals( new long[] { 0, 2 }, data.getTimestamps() );
+    assertEquals( 4L, data.getAbsoluteLength() );
+    assertEquals( 1L, data.getTriggerPosition() );
+    assertEquals( 100, data.getSampleRate() );
+  }
+}
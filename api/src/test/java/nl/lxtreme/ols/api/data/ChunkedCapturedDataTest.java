@@ -0,0 +1,122 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ChunkedCapturedData}.
+ */
+public class ChunkedCapturedDataTest
+{
+  // METHODS
+
+  /**
+   * Tests that closing the data closes its store.
+   */
+  @Test
+  public void testCloseClosesStore() throws IOException
+  {
+    final OffHeapTransitionStore store = new OffHeapTransitionStore();
+    store.add( 1, 0L );
+
+    final ChunkedCapturedData data = new ChunkedCapturedData( store, -1L, 100, 8, 0xff, 10L );
+    assertEquals( 1L, data.getTransitionCount() );
+
+    data.close();
+
+    // a closed store has released all its transitions...
+    assertEquals( 0L, store.getSize() );
+  }
+
+  /**
+   * Tests that the transitions can be obtained both by their index and as
+   * arrays.
+   */
+  @Test
+  public void testGetTransitionsOk()
+  {
+    final ChunkedTransitionStore store = new ChunkedTransitionStore();
+    for ( int i = 0; i < 10; i++ )
+    {
+      store.add( i, 3L * i );
+    }
+
+    final ChunkedCapturedData data = new ChunkedCapturedData( store, -1L, 100, 8, 0xff, 30L );
+    assertEquals( 10L, data.getTransitionCount() );
+    assertEquals( 7, data.getValue( 7L ) );
+    assertEquals( 21L, data.getTimestamp( 7L ) );
+    assertEquals( 7L, data.getTransitionIndex( 20L ) );
+    assertEquals( 7, data.getSampleIndex( 21L ) );
+
+    final int[] values = data.getValues();
+    assertArrayEquals( new int[] { 0, 1, 2, 3, 4, 5, 6, 7, 8, 9 }, values );
+    // as long as it is not reclaimed, the same array is returned...
+    assertSame( values, data.getValues() );
+    assertEquals( 27L, data.getTimestamps()[9] );
+  }
+
+  /**
+   * Tests that the arrays are not available for captures that do not fit in
+   * an array, while the transitions still are.
+   */
+  @Test
+  public void testGetValuesOfLargeCaptureFails()
+  {
+    final TransitionStore store = mock( TransitionStore.class );
+    when( Boolean.valueOf( store.isArrayAccessible() ) ).thenReturn( Boolean.FALSE );
+    when( Long.valueOf( store.getSize() ) ).thenReturn( Long.valueOf( 1L << 31 ) );
+
+    final ChunkedCapturedData data = new ChunkedCapturedData( store, -1L, 100, 8, 0xff, 1L << 32 );
+    assertFalse( data.isArrayAccessible() );
+    assertEquals( 1L << 31, data.getTransitionCount() );
+
+    try
+    {
+      data.getValues();
+      fail( "IllegalStateException expected!" );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // Ok; expected...
+    }
+
+    try
+    {
+      data.getTimestamps();
+      fail( "IllegalStateException expected!" );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // Ok; expected...
+    }
+
+    verify( store, never() ).toValueArray();
+    verify( store, never() ).toTimestampArray();
+  }
+}
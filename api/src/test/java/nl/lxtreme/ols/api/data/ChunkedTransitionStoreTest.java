@@ -0,0 +1,133 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link ChunkedTransitionStore}.
+ */
+public class ChunkedTransitionStoreTest
+{
+  // CONSTANTS
+
+  private static final int SIZE = ( 2 * ChunkedTransitionStore.SEGMENT_SIZE ) + 10;
+
+  // VARIABLES
+
+  private ChunkedTransitionStore store;
+
+  // METHODS
+
+  /**
+   * Fills a store spanning three segments, with a transition at each even
+   * timestamp.
+   */
+  @Before
+  public void setUp()
+  {
+    this.store = new ChunkedTransitionStore();
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      this.store.add( i & 0xff, 2L * i );
+    }
+  }
+
+  /**
+   * Tests that adding after trimming the store still works.
+   */
+  @Test
+  public void testAddAfterTrimToSize()
+  {
+    this.store.trimToSize();
+    this.store.add( 0x1234, 2L * SIZE );
+
+    assertEquals( SIZE + 1, this.store.getSize() );
+    assertEquals( 0x1234, this.store.getValue( SIZE ) );
+    assertEquals( 2L * SIZE, this.store.getTimestamp( SIZE ) );
+  }
+
+  /**
+   * Tests that the transitions can be obtained by their long index.
+   */
+  @Test
+  public void testGetByIndex()
+  {
+    assertEquals( SIZE, this.store.getSize() );
+
+    for ( long i : new long[] { 0, 1, ChunkedTransitionStore.SEGMENT_SIZE - 1, ChunkedTransitionStore.SEGMENT_SIZE,
+        SIZE - 1 } )
+    {
+      assertEquals( i & 0xff, this.store.getValue( i ) );
+      assertEquals( 2L * i, this.store.getTimestamp( i ) );
+    }
+  }
+
+  /**
+   * Tests that invalid indexes are refused.
+   */
+  @Test( expected = IndexOutOfBoundsException.class )
+  public void testGetInvalidIndexFails()
+  {
+    this.store.getValue( SIZE );
+  }
+
+  /**
+   * Tests that the index lookup yields the same results as the lookup of
+   * {@link CapturedData}.
+   */
+  @Test
+  public void testIndexOfMatchesCapturedData()
+  {
+    final long[] timestamps = this.store.toTimestampArray();
+    final CapturedData data = new CapturedData( this.store.toValueArray(), timestamps, 0L, 1, 8, 0xff,
+        timestamps[SIZE - 1] + 1 );
+
+    for ( long time : new long[] { -1L, 0L, 1L, 2L, ( 2L * ChunkedTransitionStore.SEGMENT_SIZE ) - 1L,
+        2L * ChunkedTransitionStore.SEGMENT_SIZE, ( 2L * ChunkedTransitionStore.SEGMENT_SIZE ) + 1L,
+        timestamps[SIZE - 1], timestamps[SIZE - 1] + 10L } )
+    {
+      assertEquals( "Time: " + time, data.getSampleIndex( time ), this.store.indexOf( time ) );
+    }
+  }
+
+  /**
+   * Tests that the array views contain all transitions.
+   */
+  @Test
+  public void testToArrays()
+  {
+    final int[] values = this.store.toValueArray();
+    final long[] timestamps = this.store.toTimestampArray();
+
+    assertEquals( SIZE, values.length );
+    assertEquals( SIZE, timestamps.length );
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      assertEquals( i & 0xff, values[i] );
+      assertEquals( 2L * i, timestamps[i] );
+    }
+  }
+}
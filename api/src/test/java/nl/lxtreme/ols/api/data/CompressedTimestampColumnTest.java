@@ -0,0 +1,182 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CompressedTimestampColumn}.
+ */
+public class CompressedTimestampColumnTest
+{
+  // CONSTANTS
+
+  private static final int SIZE = 100000;
+
+  // VARIABLES
+
+  private long[] timestamps;
+  private CompressedTimestampColumn column;
+
+  // METHODS
+
+  /**
+   * Fills a column with increasing timestamps, with mostly small but
+   * occasionally very large differences.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random random = new Random( 1234L );
+
+    this.timestamps = new long[SIZE];
+    this.column = new CompressedTimestampColumn();
+
+    long timestamp = 5L;
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      if ( ( i % 1000 ) == 999 )
+      {
+        timestamp += Integer.MAX_VALUE * 3L;
+      }
+      else
+      {
+        timestamp += 1 + random.nextInt( 200 );
+      }
+      this.timestamps[i] = timestamp;
+      this.column.add( timestamp );
+    }
+  }
+
+  /**
+   * Tests that adding after trimming the column still works.
+   */
+  @Test
+  public void testAddAfterTrimToSize()
+  {
+    this.column.trimToSize();
+    this.column.add( this.timestamps[SIZE - 1] + 1L );
+    this.column.add( this.timestamps[SIZE - 1] + 1000L );
+
+    assertEquals( SIZE + 2, this.column.getSize() );
+    assertEquals( this.timestamps[SIZE - 1], this.column.get( SIZE - 1 ) );
+    assertEquals( this.timestamps[SIZE - 1] + 1L, this.column.get( SIZE ) );
+    assertEquals( this.timestamps[SIZE - 1] + 1000L, this.column.get( SIZE + 1 ) );
+  }
+
+  /**
+   * Tests that a decreasing timestamp is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testAddDecreasingTimestampFails()
+  {
+    this.column.add( this.timestamps[SIZE - 1] - 1L );
+  }
+
+  /**
+   * Tests that all timestamps can be obtained by their index.
+   */
+  @Test
+  public void testGetByIndex()
+  {
+    assertEquals( SIZE, this.column.getSize() );
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      assertEquals( this.timestamps[i], this.column.get( i ) );
+    }
+  }
+
+  /**
+   * Tests that the index of a timestamp is the same as a binary search would
+   * yield.
+   */
+  @Test
+  public void testIndexOf()
+  {
+    assertEquals( 0L, this.column.indexOf( Long.MIN_VALUE ) );
+    assertEquals( 0L, this.column.indexOf( 0L ) );
+    assertEquals( SIZE - 1, this.column.indexOf( Long.MAX_VALUE ) );
+
+    for ( int i = 0; i < SIZE; i += 7 )
+    {
+      assertEquals( i, this.column.indexOf( this.timestamps[i] ) );
+
+      final int expected = Math.min( i + 1, SIZE - 1 );
+      if ( this.timestamps[i] != this.timestamps[expected] )
+      {
+        assertEquals( expected, this.column.indexOf( this.timestamps[i] + 1L ) );
+      }
+    }
+  }
+
+  /**
+   * Tests that equal timestamps yield the index of the first one.
+   */
+  @Test
+  public void testIndexOfEqualTimestamps()
+  {
+    final CompressedTimestampColumn equalColumn = new CompressedTimestampColumn();
+    for ( int i = 0; i < 3 * CompressedTimestampColumn.BLOCK_SIZE; i++ )
+    {
+      equalColumn.add( 10L );
+    }
+    equalColumn.add( 20L );
+
+    assertEquals( 0L, equalColumn.indexOf( 10L ) );
+    assertEquals( 3L * CompressedTimestampColumn.BLOCK_SIZE, equalColumn.indexOf( 11L ) );
+  }
+
+  /**
+   * Tests that a cursor can start halfway a block and reads all subsequent
+   * timestamps.
+   */
+  @Test
+  public void testIteratorFromIndex()
+  {
+    final int start = ( 3 * CompressedTimestampColumn.BLOCK_SIZE ) + 17;
+
+    final CompressedTimestampColumn.Cursor cursor = this.column.iterator( start );
+    for ( int i = start; i < SIZE; i++ )
+    {
+      assertTrue( cursor.hasNext() );
+      assertEquals( i, cursor.nextIndex() );
+      assertEquals( this.timestamps[i], cursor.next() );
+    }
+    assertFalse( cursor.hasNext() );
+  }
+
+  /**
+   * Tests that the column takes considerably less memory than a plain array
+   * of timestamps.
+   */
+  @Test
+  public void testMemoryUsage()
+  {
+    this.column.trimToSize();
+    assertTrue( this.column.getMemoryUsage() < ( 8L * SIZE ) / 3L );
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CompressedTransitionStore}.
+ */
+public class CompressedTransitionStoreTest
+{
+  // CONSTANTS
+
+  private static final int SIZE = ChunkedTransitionStore.SEGMENT_SIZE + 10;
+
+  // VARIABLES
+
+  private CompressedTransitionStore store;
+
+  // METHODS
+
+  /**
+   * Fills a store spanning two segments, with a transition at each even
+   * timestamp.
+   */
+  @Before
+  public void setUp()
+  {
+    this.store = new CompressedTransitionStore();
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      this.store.add( i & 0xff, 2L * i );
+    }
+  }
+
+  /**
+   * Tests that adding after trimming the store still works.
+   */
+  @Test
+  public void testAddAfterTrimToSize()
+  {
+    this.store.trimToSize();
+    this.store.add( 0x1234, 2L * SIZE );
+
+    assertEquals( SIZE + 1, this.store.getSize() );
+    assertEquals( 0x1234, this.store.getValue( SIZE ) );
+    assertEquals( 2L * SIZE, this.store.getTimestamp( SIZE ) );
+  }
+
+  /**
+   * Tests that the store yields the same arrays and indices as a chunked
+   * store.
+   */
+  @Test
+  public void testSameAsChunkedStore()
+  {
+    final ChunkedTransitionStore expected = new ChunkedTransitionStore();
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      expected.add( i & 0xff, 2L * i );
+    }
+
+    assertArrayEquals( expected.toValueArray(), this.store.toValueArray() );
+    assertArrayEquals( expected.toTimestampArray(), this.store.toTimestampArray() );
+
+    for ( long ts : new long[] { -1L, 0L, 1L, 255L, 256L, 2L * SIZE - 2L, 2L * SIZE, Long.MAX_VALUE } )
+    {
+      assertEquals( expected.indexOf( ts ), this.store.indexOf( ts ) );
+    }
+  }
+
+  /**
+   * Tests that the store takes less memory than a chunked store.
+   */
+  @Test
+  public void testMemoryUsage()
+  {
+    this.store.trimToSize();
+    assertTrue( this.store.getMemoryUsage() < 6L * SIZE );
+  }
+}
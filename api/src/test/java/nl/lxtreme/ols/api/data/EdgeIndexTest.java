@@ -0,0 +1,131 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link EdgeIndex}.
+ */
+public class EdgeIndexTest
+{
+  // VARIABLES
+
+  private CapturedData data;
+
+  // METHODS
+
+  /**
+   * Creates random transitions, enough to index them in parallel.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random random = new Random( 4321L );
+
+    final int size = EdgeIndex.PARALLEL_THRESHOLD + 100;
+    final int[] values = new int[size];
+    final long[] timestamps = new long[size];
+    for ( int i = 0; i < size; i++ )
+    {
+      // Channel 0 changes often, channel 5 seldom...
+      values[i] = random.nextInt( 16 ) | ( ( random.nextInt( 100 ) == 0 ) ? 0x20 : 0 );
+      timestamps[i] = 2L * i;
+    }
+
+    this.data = new CapturedData( values, timestamps, -1L, 100, 8, 0xFF, 2L * size );
+  }
+
+  /**
+   * Tests that the same index is returned for the same transitions.
+   */
+  @Test
+  public void testGetInstanceIsCached()
+  {
+    final EdgeIndex index = EdgeIndex.getInstance( this.data, 0x01 );
+    assertSame( index, EdgeIndex.getInstance( this.data, 0x02 ) );
+
+    // Both channels should be indexed now...
+    assertTrue( index.getEdgeCount( 0 ) > 0 );
+    assertTrue( index.getEdgeCount( 1 ) > 0 );
+  }
+
+  /**
+   * Tests that the edges of a single channel are found.
+   */
+  @Test
+  public void testIterateSingleChannel()
+  {
+    final EdgeIndex index = EdgeIndex.getInstance( this.data, 0xFF );
+    for ( int channel = 0; channel < 8; channel++ )
+    {
+      assertEdges( index, 1 << channel, 0, this.data.getValues().length );
+    }
+  }
+
+  /**
+   * Tests that the edges of multiple channels are merged, and that only edges
+   * in the given range are returned.
+   */
+  @Test
+  public void testIterateMultipleChannelsInRange()
+  {
+    final EdgeIndex index = EdgeIndex.getInstance( this.data, 0x21 );
+    assertEdges( index, 0x21, 0, this.data.getValues().length );
+    assertEdges( index, 0x21, 1000, 5000 );
+    assertEdges( index, 0x20, 1234, 1235 );
+  }
+
+  /**
+   * Tests that iterating a channel that is not indexed fails.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testIterateUnindexedChannelFails()
+  {
+    EdgeIndex.getInstance( this.data, 0x01 ).iterator( 0x80000000, 0, 10 );
+  }
+
+  /**
+   * Asserts that the given index yields the same edges as a plain scan of the
+   * transitions.
+   */
+  private void assertEdges( final EdgeIndex aIndex, final int aMask, final int aStart, final int aEnd )
+  {
+    final int[] values = this.data.getValues();
+
+    final EdgeIndex.Cursor cursor = aIndex.iterator( aMask, aStart, aEnd );
+    for ( int i = Math.max( 1, aStart ); i < aEnd; i++ )
+    {
+      if ( ( ( values[i] ^ values[i - 1] ) & aMask ) != 0 )
+      {
+        assertTrue( cursor.hasNext() );
+        assertEquals( i, cursor.next() );
+      }
+    }
+    assertFalse( cursor.hasNext() );
+  }
+}
@@ -0,0 +1,191 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.beans.*;
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link MinMaxPyramid}.
+ */
+public class MinMaxPyramidTest
+{
+  // CONSTANTS
+
+  private static final int SIZE = 50000;
+
+  // VARIABLES
+
+  private int[] values;
+  private long[] timestamps;
+  private long absoluteLength;
+
+  // METHODS
+
+  /**
+   * Creates random transitions, with irregular gaps between them.
+   */
+  @Before
+  public void setUp()
+  {
+    final Random random = new Random( 1111L );
+
+    this.values = new int[SIZE];
+    this.timestamps = new long[SIZE];
+
+    long timestamp = 0L;
+    for ( int i = 0; i < SIZE; i++ )
+    {
+      this.values[i] = random.nextInt( 256 );
+      this.timestamps[i] = timestamp;
+      timestamp += 1 + random.nextInt( ( ( i % 500 ) == 0 ) ? 5000 : 20 );
+    }
+    this.absoluteLength = timestamp;
+  }
+
+  /**
+   * Tests that all levels are built, each twice as coarse as the previous.
+   */
+  @Test
+  public void testBuildAllLevels()
+  {
+    final MinMaxPyramid pyramid = new MinMaxPyramid();
+    pyramid.build( this.values, this.timestamps, this.absoluteLength );
+
+    assertTrue( pyramid.isComplete() );
+    assertTrue( pyramid.getLevelCount() > 1 );
+
+    final MinMaxPyramid.Level finest = pyramid.getLevel( 0L );
+    assertNull( finest );
+
+    final MinMaxPyramid.Level coarsest = pyramid.getLevel( Long.MAX_VALUE );
+    assertEquals( 1, coarsest.getBucketCount() );
+    assertEquals( SIZE - 1, coarsest.getTransitionCount( 0 ) );
+    assertEquals( 0xFF, coarsest.getMaximum( 0 ) );
+    assertEquals( 0x00, coarsest.getMinimum( 0 ) );
+
+    MinMaxPyramid.Level previous = null;
+    for ( long width = 1L; width <= coarsest.getBucketWidth(); width <<= 1 )
+    {
+      final MinMaxPyramid.Level level = pyramid.getLevel( width );
+      if ( ( level != null ) && ( previous != null ) && ( level != previous ) )
+      {
+        assertEquals( 2L * previous.getBucketWidth(), level.getBucketWidth() );
+        assertEquals( ( previous.getBucketCount() + 1 ) / 2, level.getBucketCount() );
+      }
+      previous = level;
+    }
+  }
+
+  /**
+   * Tests that the buckets of the finest level summarize the transitions.
+   */
+  @Test
+  public void testCreateBaseLevel()
+  {
+    final MinMaxPyramid.Level level = MinMaxPyramid.createBaseLevel( this.values, this.timestamps,
+        this.absoluteLength );
+    assertNotNull( level );
+    assertTrue( level.getBucketCount() <= ( SIZE / MinMaxPyramid.TRANSITIONS_PER_BUCKET ) );
+
+    final long width = level.getBucketWidth();
+    int i = 0;
+    for ( int bucket = 0; bucket < level.getBucketCount(); bucket++ )
+    {
+      final long end = ( bucket + 1 ) * width;
+
+      // The value in effect at the start of the bucket...
+      int value = this.values[Math.max( 0, i - 1 )];
+      int minimum = value;
+      int maximum = value;
+      int activity = 0;
+      int count = 0;
+      for ( ; ( i < SIZE ) && ( this.timestamps[i] < end ); i++ )
+      {
+        if ( i > 0 )
+        {
+          minimum &= this.values[i];
+          maximum |= this.values[i];
+          activity |= value ^ this.values[i];
+          count++;
+        }
+        value = this.values[i];
+      }
+
+      assertEquals( "Minimum of bucket " + bucket, minimum, level.getMinimum( bucket ) );
+      assertEquals( "Maximum of bucket " + bucket, maximum, level.getMaximum( bucket ) );
+      assertEquals( "Activity of bucket " + bucket, activity, level.getActivity( bucket ) );
+      assertEquals( "Count of bucket " + bucket, count, level.getTransitionCount( bucket ) );
+    }
+  }
+
+  /**
+   * Tests that listeners are notified of each level, and of the completion of
+   * the pyramid, after which they are removed.
+   */
+  @Test
+  public void testListenersNotifiedOfEachLevel()
+  {
+    final List<String> events = new ArrayList<String>();
+    final MinMaxPyramid pyramid = new MinMaxPyramid();
+    pyramid.addPropertyChangeListener( new PropertyChangeListener()
+    {
+      @Override
+      public void propertyChange( final PropertyChangeEvent aEvent )
+      {
+        events.add( aEvent.getPropertyName() );
+      }
+    } );
+
+    pyramid.build( this.values, this.timestamps, this.absoluteLength );
+
+    assertEquals( pyramid.getLevelCount() + 1, events.size() );
+    assertEquals( Collections.nCopies( pyramid.getLevelCount(), MinMaxPyramid.PROPERTY_LEVELS ),
+        events.subList( 0, pyramid.getLevelCount() ) );
+    assertEquals( MinMaxPyramid.PROPERTY_COMPLETE, events.get( pyramid.getLevelCount() ) );
+
+    // The listener is removed upon completion...
+    pyramid.build( this.values, this.timestamps, this.absoluteLength );
+    assertEquals( pyramid.getLevelCount() + 1, events.size() );
+  }
+
+  /**
+   * Tests that a small capture is not summarized.
+   */
+  @Test
+  public void testSmallCaptureHasNoLevels()
+  {
+    final CapturedData data = new CapturedData( new int[] { 0, 1, 0 }, new long[] { 0L, 10L, 20L }, -1L, 100, 8, 0xFF,
+        30L );
+
+    final MinMaxPyramid pyramid = MinMaxPyramid.getInstance( data );
+    assertTrue( pyramid.isComplete() );
+    assertEquals( 0, pyramid.getLevelCount() );
+    assertNull( pyramid.getLevel( Long.MAX_VALUE ) );
+    assertSame( pyramid, MinMaxPyramid.getInstance( data ) );
+  }
+}
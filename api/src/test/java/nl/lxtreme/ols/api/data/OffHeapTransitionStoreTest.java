@@ -0,0 +1,151 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link OffHeapTransitionStore}.
+ */
+public class OffHeapTransitionStoreTest
+{
+  // CONSTANTS
+
+  private static final int SIZE = ( 2 * ChunkedTransitionStore.SEGMENT_SIZE ) + 10;
+
+  // VARIABLES
+
+  private OffHeapTransitionStore store;
+
+  // METHODS
+
+  /**
+   * Closes the store under test.
+   */
+  @After
+  public void tearDown() throws IOException
+  {
+    if ( this.store != null )
+    {
+      this.store.close();
+    }
+  }
+
+  /**
+   * Tests that a direct buffer store can be trimmed and still be appended to.
+   */
+  @Test
+  public void testDirectStoreAddAfterTrimToSize() throws IOException
+  {
+    this.store = new OffHeapTransitionStore();
+    fill( this.store, 10 );
+
+    this.store.trimToSize();
+    this.store.add( 0x1234, 1000L );
+
+    assertFalse( this.store.isMemoryMapped() );
+    assertEquals( 11, this.store.getSize() );
+    assertEquals( 9, this.store.getValue( 9 ) );
+    assertEquals( 0x1234, this.store.getValue( 10 ) );
+    assertEquals( 1000L, this.store.getTimestamp( 10 ) );
+  }
+
+  /**
+   * Tests that a direct buffer store yields the same results as a heap store.
+   */
+  @Test
+  public void testDirectStoreMatchesHeapStore() throws IOException
+  {
+    this.store = new OffHeapTransitionStore();
+    assertMatchesHeapStore( this.store );
+  }
+
+  /**
+   * Tests that invalid indexes are refused.
+   */
+  @Test( expected = IndexOutOfBoundsException.class )
+  public void testGetInvalidIndexFails() throws IOException
+  {
+    this.store = new OffHeapTransitionStore();
+    fill( this.store, 10 );
+
+    this.store.getTimestamp( 10 );
+  }
+
+  /**
+   * Tests that a memory-mapped store yields the same results as a heap store.
+   */
+  @Test
+  public void testMappedStoreMatchesHeapStore() throws IOException
+  {
+    this.store = new OffHeapTransitionStore( null );
+    assertTrue( this.store.isMemoryMapped() );
+
+    assertMatchesHeapStore( this.store );
+  }
+
+  /**
+   * Fills both the given store and a heap store with the same transitions,
+   * and asserts that both yield the same results.
+   */
+  private static void assertMatchesHeapStore( final TransitionStore aStore ) throws IOException
+  {
+    final ChunkedTransitionStore expected = new ChunkedTransitionStore();
+    fill( expected, SIZE );
+    fill( aStore, SIZE );
+    aStore.trimToSize();
+
+    assertEquals( expected.getSize(), aStore.getSize() );
+    for ( long i : new long[] { 0, 1, ChunkedTransitionStore.SEGMENT_SIZE - 1, ChunkedTransitionStore.SEGMENT_SIZE,
+        SIZE - 1 } )
+    {
+      assertEquals( expected.getValue( i ), aStore.getValue( i ) );
+      assertEquals( expected.getTimestamp( i ), aStore.getTimestamp( i ) );
+    }
+
+    for ( long time : new long[] { -1L, 0L, 1L, 2L, ( 3L * ChunkedTransitionStore.SEGMENT_SIZE ) - 1L,
+        3L * ChunkedTransitionStore.SEGMENT_SIZE, ( 3L * ChunkedTransitionStore.SEGMENT_SIZE ) + 1L,
+        3L * ( SIZE - 1 ), 3L * SIZE } )
+    {
+      assertEquals( "Time: " + time, expected.indexOf( time ), aStore.indexOf( time ) );
+    }
+
+    assertArrayEquals( expected.toValueArray(), aStore.toValueArray() );
+    assertArrayEquals( expected.toTimestampArray(), aStore.toTimestampArray() );
+  }
+
+  /**
+   * Adds the given number of transitions, each three time units apart.
+   */
+  private static void fill( final TransitionStore aStore, final int aCount ) throws IOException
+  {
+    for ( int i = 0; i < aCount; i++ )
+    {
+      aStore.add( i, 3L * i );
+    }
+  }
+}
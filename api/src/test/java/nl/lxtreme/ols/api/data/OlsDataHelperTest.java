@@ -27,6 +27,7 @@ import java.io.*;
 import java.net.*;
 import java.util.*;
 
+import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.util.*;
 
@@ -198,6 +199,69 @@ public class OlsDataHelperTest
     this.project.assertValues( 0 );
   }
 
+  /**
+   * Test method for {@link OlsDataHelper#read(Project, Reader)}.
+   */
+  @Test( expected = IOException.class )
+  public void testReadDataFileDecreasingTimestampsFail() throws Exception
+  {
+    final String snippet = MINIMAL_HEADER + ";Size: 3\n0@0\n1@3\n3@1";
+
+    final StringReader reader = new StringReader( snippet );
+    OlsDataHelper.read( this.project, reader );
+
+    this.project.assertTimeStamps( 0 );
+    this.project.assertValues( 0 );
+  }
+
+  /**
+   * Test method for {@link OlsDataHelper#read(Project, Reader)}.
+   */
+  @Test
+  public void testReadDataFileKeepsTransitionStoreOk() throws Exception
+  {
+    final String snippet = MINIMAL_HEADER + ";Size: 3\n0@0\n1@1\n3@3";
+
+    final StringReader reader = new StringReader( snippet );
+    OlsDataHelper.read( this.project, reader );
+
+    // the data is read from the store, rather than copied into arrays...
+    final AcquisitionResult data = this.project.getCapturedData();
+    assertTrue( data instanceof ChunkedCapturedData );
+
+    final IndexedAcquisitionResult indexedData = ( IndexedAcquisitionResult )data;
+    assertEquals( 3L, indexedData.getTransitionCount() );
+    assertEquals( 3, indexedData.getValue( 2L ) );
+    assertEquals( 3L, indexedData.getTimestamp( 2L ) );
+    assertEquals( 1L, indexedData.getTransitionIndex( 1L ) );
+
+    // the timestamps are kept compressed, unless disabled...
+    final TransitionStore store = ( ( ChunkedCapturedData )data ).getStore();
+    assertEquals( Boolean.valueOf( TransitionStoreFactory.COMPRESS_TIMESTAMPS ),
+        Boolean.valueOf( store instanceof CompressedTransitionStore ) );
+  }
+
+  /**
+   * Test method for {@link OlsDataHelper#read(Project, Reader, long)}.
+   */
+  @Test
+  public void testReadDataFileOffHeapOk() throws Exception
+  {
+    final String snippet = MINIMAL_HEADER + ";Size: 3\n0@0\n1@1\n3@3";
+
+    final StringReader reader = new StringReader( snippet );
+    OlsDataHelper.read( this.project, reader, 0L /* aOffHeapThreshold */);
+
+    // the off-heap store is kept open, and not copied onto the heap...
+    final ChunkedCapturedData data = ( ChunkedCapturedData )this.project.getCapturedData();
+    assertTrue( data.getStore() instanceof OffHeapTransitionStore );
+
+    this.project.assertTimeStamps( 0, 1, 3 );
+    this.project.assertValues( 0, 1, 3 );
+
+    data.close();
+  }
+
   /**
    * Test method for {@link OlsDataHelper#read(Project, Reader)}.
    */
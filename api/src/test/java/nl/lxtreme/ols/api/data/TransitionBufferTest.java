@@ -0,0 +1,182 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionBuffer}.
+ */
+public class TransitionBufferTest
+{
+  // METHODS
+
+  /**
+   * Tests that the buffer grows beyond its initial capacity and is trimmed
+   * when its arrays are retrieved.
+   */
+  @Test
+  public void testGrowAndTrimOk()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer( 2 );
+    for ( int i = 0; i < 11; i++ )
+    {
+      buffer.add( i * 3, i * 10L );
+    }
+
+    assertEquals( 11, buffer.getSize() );
+    assertEquals( 11, buffer.getValues().length );
+    assertEquals( 11, buffer.getTimestamps().length );
+    assertEquals( 30, buffer.getValues()[10] );
+    assertEquals( 100L, buffer.getTimestamps()[10] );
+    assertSame( buffer.getValues(), buffer.getValues() );
+
+    // Adding after trimming grows the buffer again...
+    buffer.add( 33, 110L );
+    assertEquals( 12, buffer.getValues().length );
+    assertEquals( 33, buffer.getLastValue() );
+  }
+
+  /**
+   * Tests that the peak memory usage accounts for the arrays being copied
+   * while growing.
+   */
+  @Test
+  public void testPeakMemoryUsageOk()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer( 2 );
+    assertEquals( 2 * 12L, buffer.getPeakMemoryUsage() );
+
+    for ( int i = 0; i < 3; i++ )
+    {
+      buffer.add( i, i );
+    }
+
+    // grown from 2 to 4 transitions...
+    assertEquals( ( 2 + 4 ) * 12L, buffer.getPeakMemoryUsage() );
+  }
+
+  /**
+   * Tests that only value changes are added as transition.
+   */
+  @Test
+  public void testAddTransitionKeepsOnlyValueChanges()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    buffer.addTransition( 5, 0L );
+    buffer.addTransition( 5, 1L );
+    buffer.addTransition( 6, 2L );
+    buffer.addTransition( 6, 3L );
+    buffer.addTransition( 5, 4L );
+
+    assertArrayEquals( new int[] { 5, 6, 5 }, buffer.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 4L }, buffer.getTimestamps() );
+  }
+
+  /**
+   * Tests that a transition at the same timestamp as the last one replaces it,
+   * or removes it if it restores the previous value.
+   */
+  @Test
+  public void testAddTransitionAtSameTimestampReplacesLast()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+    buffer.addTransition( 1, 0L );
+    buffer.addTransition( 2, 0L );
+    buffer.addTransition( 3, 5L );
+    buffer.addTransition( 4, 5L );
+
+    assertArrayEquals( new int[] { 2, 4 }, buffer.getValues() );
+    assertArrayEquals( new long[] { 0L, 5L }, buffer.getTimestamps() );
+
+    buffer.addTransition( 2, 5L );
+
+    assertArrayEquals( new int[] { 2 }, buffer.getValues() );
+    assertArrayEquals( new long[] { 0L }, buffer.getTimestamps() );
+  }
+
+  /**
+   * Tests that the transitions of a range of samples are added, using the
+   * sample index as timestamp.
+   */
+  @Test
+  public void testAddSamplesOk()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer( 1 );
+    buffer.addSamples( new int[] { 9, 5, 5, 6, 6, 6, 5, 7, 7 }, 1, 8 );
+
+    assertArrayEquals( new int[] { 5, 6, 5, 7 }, buffer.getValues() );
+    assertArrayEquals( new long[] { 1L, 3L, 6L, 7L }, buffer.getTimestamps() );
+  }
+
+  /**
+   * Tests that appending a buffer drops its first transition in case it does
+   * not change the value.
+   */
+  @Test
+  public void testAddAllDropsFalseTransition()
+  {
+    final TransitionBuffer first = new TransitionBuffer();
+    first.addSamples( new int[] { 1, 1, 2, 2 }, 0, 4 );
+
+    final TransitionBuffer second = new TransitionBuffer();
+    second.addSamples( new int[] { 0, 0, 0, 0, 2, 3 }, 4, 6 );
+
+    first.addAll( second );
+
+    assertArrayEquals( new int[] { 1, 2, 3 }, first.getValues() );
+    assertArrayEquals( new long[] { 0L, 2L, 5L }, first.getTimestamps() );
+  }
+
+  /**
+   * Tests that an empty buffer yields empty arrays.
+   */
+  @Test
+  public void testEmptyBufferOk()
+  {
+    final TransitionBuffer buffer = new TransitionBuffer();
+
+    assertEquals( 0, buffer.getValues().length );
+    assertEquals( 0, buffer.getTimestamps().length );
+  }
+
+  /**
+   * Tests that the last value of an empty buffer cannot be retrieved.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testGetLastValueOfEmptyBufferFail()
+  {
+    new TransitionBuffer().getLastValue();
+  }
+
+  /**
+   * Tests that an invalid initial capacity is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidCapacityFail()
+  {
+    new TransitionBuffer( 0 );
+  }
+}
@@ -0,0 +1,76 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.api.data;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionStoreFactory}.
+ */
+public class TransitionStoreFactoryTest
+{
+  // METHODS
+
+  /**
+   * Tests that a negative threshold disables off-heap storage.
+   */
+  @Test
+  public void testNegativeThresholdCreatesHeapStore()
+  {
+    assertTrue( TransitionStoreFactory.create( Long.MAX_VALUE, -1L, false ) instanceof ChunkedTransitionStore );
+  }
+
+  /**
+   * Tests that on-heap stores compress their timestamps, if requested.
+   */
+  @Test
+  public void testCompressCreatesCompressedStore()
+  {
+    assertTrue( TransitionStoreFactory.create( Long.MAX_VALUE, -1L, true ) instanceof CompressedTransitionStore );
+    assertTrue( TransitionStoreFactory.create( 99L, 100L, true ) instanceof CompressedTransitionStore );
+  }
+
+  /**
+   * Tests that the threshold determines the type of store.
+   */
+  @Test
+  public void testThresholdSelectsStore() throws IOException
+  {
+    assertTrue( TransitionStoreFactory.create( 99L, 100L, false ) instanceof ChunkedTransitionStore );
+    assertTrue( TransitionStoreFactory.create( 0L, 100L, false ) instanceof ChunkedTransitionStore );
+
+    final TransitionStore store = TransitionStoreFactory.create( 100L, 100L, true );
+    try
+    {
+      assertTrue( store instanceof OffHeapTransitionStore );
+    }
+    finally
+    {
+      ( ( OffHeapTransitionStore )store ).close();
+    }
+  }
+}
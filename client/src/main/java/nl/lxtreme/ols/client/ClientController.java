@@ -54,7 +54,7 @@ import org.osgi.framework.*;
  * Denotes a front-end controller for the client.
  */
 public final class ClientController implements ActionProvider, AcquisitionProgressListener, AcquisitionStatusListener,
-    AcquisitionDataListener, AnnotationListener, ApplicationCallback
+    AcquisitionArmedListener, AcquisitionDataListener, AnnotationListener, ApplicationCallback
 {
   // INNER TYPES
 
@@ -283,6 +283,15 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     zoomToFit();
   }
 
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquisitionArmed()
+  {
+    setStatusOnEDT( "Device armed, waiting for trigger ..." );
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -480,6 +489,48 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
     }
   }
 
+  /**
+   * Starts capturing data continuously from the current device, using its
+   * current settings, until the capture is cancelled.
+   * 
+   * @param aParent
+   *          the parent window to use, can be <code>null</code>.
+   * @return <code>true</code> if the capture is started successfully,
+   *         <code>false</code> otherwise.
+   */
+  public boolean continuousCaptureData( final Window aParent )
+  {
+    final DataAcquisitionService acquisitionService = getDataAcquisitionService();
+    final Device devCtrl = getDevice();
+    if ( ( devCtrl == null ) || ( acquisitionService == null ) )
+    {
+      return false;
+    }
+
+    try
+    {
+      setStatusOnEDT( "Continuous capture from {0} started at {1,date,medium} {1,time,medium} ...",
+          devCtrl.getName(), new Date() );
+
+      acquisitionService.acquireDataContinuously( devCtrl );
+
+      return true;
+    }
+    catch ( final IOException exception )
+    {
+      setStatusOnEDT( "I/O problem: " + exception.getMessage() );
+
+      // Make sure to handle IO-interrupted exceptions properly!
+      HostUtils.handleInterruptedException( exception );
+
+      return false;
+    }
+    finally
+    {
+      updateActionsOnEDT();
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -1619,9 +1670,10 @@ public final class ClientController implements ActionProvider, AcquisitionProgre
         final boolean deviceCapturing = ( acquisitionService != null ) && acquisitionService.isAcquiring();
         final boolean deviceSetup = deviceControllerSet && !deviceCapturing && device.isSetup();
 
-        getAction( CaptureAction.ID ).setEnabled( deviceControllerSet );
+        getAction( CaptureAction.ID ).setEnabled( deviceControllerSet && !deviceCapturing );
         getAction( CancelCaptureAction.ID ).setEnabled( deviceCapturing );
         getAction( RepeatCaptureAction.ID ).setEnabled( deviceSetup );
+        getAction( ContinuousCaptureAction.ID ).setEnabled( deviceSetup );
 
         final boolean projectChanged = isProjectChanged();
         final boolean projectSavedBefore = !isAnonymousProject();
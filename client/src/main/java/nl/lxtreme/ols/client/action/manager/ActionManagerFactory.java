@@ -79,6 +79,7 @@ public final class ActionManagerFactory
     aActionManager.add( new CaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new CancelCaptureAction( aController ) ).setEnabled( false );
     aActionManager.add( new RepeatCaptureAction( aController ) ).setEnabled( false );
+    aActionManager.add( new ContinuousCaptureAction( aController ) ).setEnabled( false );
 
     aActionManager.add( new ZoomInAction( aController ) ).setEnabled( false );
     aActionManager.add( new ZoomOutAction( aController ) ).setEnabled( false );
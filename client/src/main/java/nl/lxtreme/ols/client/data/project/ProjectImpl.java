@@ -30,6 +30,7 @@ import nl.lxtreme.ols.api.*;
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.project.*;
 import nl.lxtreme.ols.client.data.settings.*;
+import nl.lxtreme.ols.util.*;
 
 
 /**
@@ -89,6 +90,19 @@ final class ProjectImpl implements Project, ProjectProperties
     this.propertyChangeSupport.addPropertyChangeListener( aListener );
   }
 
+  /**
+   * Releases the resources held by the captured data of this project, if any,
+   * such as the temporary file of an off-heap capture. The captured data
+   * should no longer be used afterwards.
+   */
+  void closeCapturedData()
+  {
+    if ( this.capturedData instanceof Closeable )
+    {
+      HostUtils.closeResource( ( Closeable )this.capturedData );
+    }
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -207,6 +221,12 @@ final class ProjectImpl implements Project, ProjectProperties
 
     this.propertyChangeSupport.firePropertyChange( PROPERTY_CAPTURED_DATA, old, aCapturedData );
 
+    // The replaced data is no longer used; release its resources...
+    if ( ( old != aCapturedData ) && ( old instanceof Closeable ) )
+    {
+      HostUtils.closeResource( ( Closeable )old );
+    }
+
     // Mark this project as modified...
     setChanged( true );
   }
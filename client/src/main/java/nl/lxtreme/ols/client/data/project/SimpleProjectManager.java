@@ -163,6 +163,12 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
     finally
     {
       HostUtils.closeResource( zipIS );
+
+      // In case the project could not be loaded, release its data...
+      if ( this.project != newProject )
+      {
+        newProject.closeCapturedData();
+      }
     }
   }
 
@@ -502,6 +508,12 @@ public class SimpleProjectManager implements ProjectManager, ProjectProperties
       this.project.removePropertyChangeListener( listener );
       aProject.addPropertyChangeListener( listener );
     }
+    // The data of the replaced project is no longer used...
+    if ( this.project.getCapturedData() != aProject.getCapturedData() )
+    {
+      this.project.closeCapturedData();
+    }
+
     this.project = aProject;
     return aProject;
   }
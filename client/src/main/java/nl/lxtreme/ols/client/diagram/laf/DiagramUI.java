@@ -23,6 +23,7 @@ package nl.lxtreme.ols.client.diagram.laf;
 
 import java.awt.*;
 import java.awt.event.*;
+import java.beans.*;
 import java.util.*;
 import java.util.logging.*;
 
@@ -433,6 +434,9 @@ public class DiagramUI extends ComponentUI
   private final Cursor cursorDefault;
   private final Cursor cursorDrag;
 
+  private MinMaxPyramid pyramid;
+  private PropertyChangeListener pyramidListener;
+
   // CONSTRUCTORS
 
   /**
@@ -641,6 +645,44 @@ public class DiagramUI extends ComponentUI
     aCanvas.drawLine( aClipArea.x, aYoffset, aClipArea.x + aClipArea.width, aYoffset );
   }
 
+  /**
+   * Repaints the given diagram each time a level of the given pyramid becomes
+   * available. Listens to the most recently painted pyramid only.
+   * <p>
+   * Levels that become available before the listener is added are already
+   * seen by the current paint.
+   * </p>
+   * 
+   * @param aDiagram
+   *          the diagram to repaint;
+   * @param aPyramid
+   *          the pyramid to listen to.
+   */
+  private void listenToPyramid( final Diagram aDiagram, final MinMaxPyramid aPyramid )
+  {
+    if ( aPyramid == this.pyramid )
+    {
+      return;
+    }
+
+    if ( this.pyramid != null )
+    {
+      this.pyramid.removePropertyChangeListener( this.pyramidListener );
+    }
+
+    this.pyramid = aPyramid;
+    this.pyramidListener = new PropertyChangeListener()
+    {
+      @Override
+      public void propertyChange( final PropertyChangeEvent aEvent )
+      {
+        aDiagram.repaint();
+      }
+    };
+    // Does nothing for complete pyramids...
+    aPyramid.addPropertyChangeListener( this.pyramidListener );
+  }
+
   /**
    * Draws all signals, byte values and scopes.
    * 
@@ -695,38 +737,25 @@ public class DiagramUI extends ComponentUI
 
     // Search the first sample index the is right before the to-be-displayed
     // from index...
-    int dataStartIndex = 0;
-    do
-    {
-      if ( timestamps[dataStartIndex] >= aFromIndex )
-      {
-        // Found it; use this as starting time-index...
-        break;
-      }
-      dataStartIndex++;
-    }
-    while ( dataStartIndex < timestamps.length );
+    int dataStartIndex = searchTimestamp( timestamps, aFromIndex );
     // Make sure everything is inside the expected ranges...
     dataStartIndex = Math.min( timestamps.length - 1, Math.max( 0, dataStartIndex - 1 ) );
 
     // Search the last sample index the is right before the to-be-displayed
     // to index...
-    int dataEndIndex = dataStartIndex;
-    do
-    {
-      if ( timestamps[dataEndIndex] >= aToIndex )
-      {
-        // Found it; use this as starting time-index...
-        break;
-      }
-      dataEndIndex++;
-    }
-    while ( dataEndIndex < timestamps.length );
+    int dataEndIndex = searchTimestamp( timestamps, aToIndex );
     // Make sure everything is inside the expected ranges...
     dataEndIndex = Math.min( timestamps.length - 1, Math.max( 0, dataEndIndex - 1 ) );
 
     final long triggerPosition = dataContainer.getTriggerPosition();
 
+    // When zoomed out far enough, each pixel covers many transitions; in that
+    // case, paint the signals from their summary instead...
+    final MinMaxPyramid pyramid = MinMaxPyramid.getInstance( dataContainer );
+    listenToPyramid( aDiagram, pyramid );
+
+    final MinMaxPyramid.Level summaryLevel = pyramid.getLevel( ( long )( 1.0 / scale ) );
+
     int yofs = 0;
 
     final int blockCnt = dataContainer.getBlockCount();
@@ -741,7 +770,7 @@ public class DiagramUI extends ComponentUI
 
       if ( settings.isShowChannels( block ) )
       {
-        final SignalPolyline polyline = new SignalPolyline( n );
+        final SignalPolyline polyline = ( summaryLevel == null ) ? new SignalPolyline( n ) : null;
 
         // draw actual data
         final int channelsPerBlock = dataContainer.getChannelsForBlock( block );
@@ -769,44 +798,55 @@ public class DiagramUI extends ComponentUI
             aCanvas.setComposite( oldComposite );
           }
 
-          int dataIndex = dataStartIndex;
-          long currentSample = timestamps[dataIndex];
-          int pIdx = 0;
+          if ( summaryLevel != null )
+          {
+            final int yHigh = py1 + signalOffset;
+            final int yLow = yHigh + signalHeight;
 
-          while ( dataIndex <= dataEndIndex )
+            aCanvas.setColor( signalColor );
+            paintSummarizedSignal( aCanvas, summaryLevel, aClipArea, scale, channelIdx, yHigh, yLow );
+          }
+          else
           {
-            final long nextSample;
+            int dataIndex = dataStartIndex;
+            long currentSample = timestamps[dataIndex];
+            int pIdx = 0;
 
-            final int currentValue = ( values[dataIndex] >> channelIdx ) & 0x01;
-            if ( dataIndex >= ( values.length - 1 ) )
-            {
-              nextSample = aToIndex + 1;
-            }
-            else
+            while ( dataIndex <= dataEndIndex )
             {
-              nextSample = timestamps[dataIndex + 1];
+              final long nextSample;
+
+              final int currentValue = ( values[dataIndex] >> channelIdx ) & 0x01;
+              if ( dataIndex >= ( values.length - 1 ) )
+              {
+                nextSample = aToIndex + 1;
+              }
+              else
+              {
+                nextSample = timestamps[dataIndex + 1];
+              }
+
+              // Calculate display coordinates...
+              int x1 = ( int )( ( scale * currentSample ) - edgeX );
+              int x2 = ( int )( ( scale * ( nextSample - 1 ) ) + edgeX );
+              final int y1 = py1 + ( signalHeight * ( 1 - currentValue ) ) + signalOffset;
+
+              polyline.x[pIdx] = x1;
+              polyline.y[pIdx] = y1;
+              polyline.x[pIdx + 1] = x2;
+              polyline.y[pIdx + 1] = y1;
+
+              pIdx += 2;
+
+              // Update loop administration...
+              dataIndex++;
+              currentSample = nextSample;
             }
 
-            // Calculate display coordinates...
-            int x1 = ( int )( ( scale * currentSample ) - edgeX );
-            int x2 = ( int )( ( scale * ( nextSample - 1 ) ) + edgeX );
-            final int y1 = py1 + ( signalHeight * ( 1 - currentValue ) ) + signalOffset;
-
-            polyline.x[pIdx] = x1;
-            polyline.y[pIdx] = y1;
-            polyline.x[pIdx + 1] = x2;
-            polyline.y[pIdx + 1] = y1;
-
-            pIdx += 2;
-
-            // Update loop administration...
-            dataIndex++;
-            currentSample = nextSample;
+            aCanvas.setColor( signalColor );
+            aCanvas.drawPolyline( polyline.x, polyline.y, pIdx );
           }
 
-          aCanvas.setColor( signalColor );
-          aCanvas.drawPolyline( polyline.x, polyline.y, pIdx );
-
           // Create a new canvas instance so we can paint our annotations
           // without having to restore anything...
           final Graphics2D newCanvas = ( Graphics2D )aCanvas.create();
@@ -970,4 +1010,112 @@ public class DiagramUI extends ComponentUI
       }
     }
   }
+
+  /**
+   * Paints a single channel from its summary, making the number of painted
+   * lines proportional to the width of the clip area instead of the number of
+   * transitions.
+   * 
+   * @param aCanvas
+   *          the canvas to paint on;
+   * @param aLevel
+   *          the summary level to use, whose buckets are not larger than a
+   *          single pixel;
+   * @param aClipArea
+   *          the clip area to paint;
+   * @param aScale
+   *          the current scale (pixels per sample);
+   * @param aChannelIdx
+   *          the index of the channel to paint;
+   * @param aYhigh
+   *          the Y-coordinate of a high signal level;
+   * @param aYlow
+   *          the Y-coordinate of a low signal level.
+   */
+  private void paintSummarizedSignal( final Graphics2D aCanvas, final MinMaxPyramid.Level aLevel,
+      final Rectangle aClipArea, final double aScale, final int aChannelIdx, final int aYhigh, final int aYlow )
+  {
+    final int mask = 1 << aChannelIdx;
+    final int xEnd = aClipArea.x + aClipArea.width;
+
+    int runStart = -1;
+    int runY = 0;
+
+    for ( int x = aClipArea.x; x <= xEnd; x++ )
+    {
+      final long startTime = ( long )( x / aScale );
+      final long endTime = Math.max( startTime, ( long )( ( x + 1 ) / aScale ) - 1L );
+
+      int minimum = -1;
+      int maximum = 0;
+      int activity = 0;
+      for ( int bucket = aLevel.getBucket( startTime ), last = aLevel.getBucket( endTime ); bucket <= last; bucket++ )
+      {
+        minimum &= aLevel.getMinimum( bucket );
+        maximum |= aLevel.getMaximum( bucket );
+        activity |= aLevel.getActivity( bucket );
+      }
+
+      if ( ( ( activity | ( minimum ^ maximum ) ) & mask ) != 0 )
+      {
+        // The signal changes within this pixel; draw it as a vertical bar...
+        if ( runStart >= 0 )
+        {
+          aCanvas.drawLine( runStart, runY, x, runY );
+          runStart = -1;
+        }
+        aCanvas.drawLine( x, aYhigh, x, aYlow );
+      }
+      else
+      {
+        final int y = ( ( maximum & mask ) != 0 ) ? aYhigh : aYlow;
+        if ( runStart < 0 )
+        {
+          runStart = x;
+        }
+        else if ( y != runY )
+        {
+          aCanvas.drawLine( runStart, runY, x, runY );
+          aCanvas.drawLine( x, runY, x, y );
+          runStart = x;
+        }
+        runY = y;
+      }
+    }
+
+    if ( runStart >= 0 )
+    {
+      aCanvas.drawLine( runStart, runY, xEnd, runY );
+    }
+  }
+
+  /**
+   * Searches for the first timestamp that is at or after the given time value.
+   * 
+   * @param aTimestamps
+   *          the (sorted) timestamps to search;
+   * @param aTimeValue
+   *          the time value to search for.
+   * @return the index of the first timestamp that is at or after the given
+   *         time value, or the number of timestamps if there is no such
+   *         timestamp.
+   */
+  private static int searchTimestamp( final long[] aTimestamps, final long aTimeValue )
+  {
+    int low = 0;
+    int high = aTimestamps.length;
+    while ( low < high )
+    {
+      final int mid = ( low + high ) >>> 1;
+      if ( aTimestamps[mid] < aTimeValue )
+      {
+        low = mid + 1;
+      }
+      else
+      {
+        high = mid;
+      }
+    }
+    return low;
+  }
 }
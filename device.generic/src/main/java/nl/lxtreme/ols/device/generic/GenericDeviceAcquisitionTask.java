@@ -22,6 +22,8 @@ package nl.lxtreme.ols.device.generic;
 
 
 import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.*;
@@ -33,6 +35,13 @@ import nl.lxtreme.ols.util.*;
 
 /**
  * Provides a generic acquisition task that can read from any file-based source.
+ * <p>
+ * The samples are read in large blocks, and are directly compacted into
+ * transitions (sample value changes), so large captures of slowly changing
+ * signals only take a fraction of the memory of their raw samples. In replay
+ * mode, the source is a raw sample dump that is memory mapped and scanned in
+ * parallel, see {@link MappedSampleScanner}.
+ * </p>
  */
 public final class GenericDeviceAcquisitionTask implements AcquisitionTask
 {
@@ -40,12 +49,15 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
 
   private static final Logger LOG = Logger.getLogger( GenericDeviceAcquisitionTask.class.getName() );
 
+  /** The (minimal) number of bytes read at once. */
+  private static final int READ_BLOCK_SIZE = 256 * 1024;
+
   // VARIABLES
 
   private final AcquisitionProgressListener progressListener;
   private final GenericDeviceConfigDialog deviceConfig;
 
-  private InputStream inputStream;
+  private FileInputStream inputStream;
 
   // CONSTRUCTORS
 
@@ -74,41 +86,36 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
   public AcquisitionResult call() throws IOException
   {
     final int width = this.deviceConfig.getSampleWidth();
-    final int depth = this.deviceConfig.getSampleDepth();
     final int rate = this.deviceConfig.getSampleRate();
     final int channels = this.deviceConfig.getChannelCount();
 
-    final int count = depth * width;
-
-    final int[] values = new int[count];
-    final long[] timestamps = new long[count];
-
-    try
+    if ( ( width < 1 ) || ( width > 4 ) )
     {
-      int idx = 0;
-      while ( !Thread.currentThread().isInterrupted() && ( idx < count ) )
-      {
-        final int sample = readSample( width );
-
-        if ( LOG.isLoggable( Level.FINE ) )
-        {
-          LOG.log( Level.FINE, "Read: 0x{0}", Integer.toHexString( sample ) );
-        }
-
-        values[idx] = sample;
-        timestamps[idx] = idx;
+      throw new IllegalArgumentException( "Invalid sample width: " + width );
+    }
 
-        // Update the progress...
-        this.progressListener.acquisitionInProgress( ( int )( ( idx++ * 100.0 ) / count ) );
-      }
+    final long startTime = System.nanoTime();
 
-      return new CapturedData( values, timestamps, Ols.NOT_AVAILABLE, rate, channels, channels, idx );
+    final TransitionBuffer transitions = new TransitionBuffer();
+    final long sampleCount;
+    if ( this.deviceConfig.isReplayMode() )
+    {
+      sampleCount = replaySamples( transitions, width );
+    }
+    else
+    {
+      sampleCount = readSamples( transitions, width, this.deviceConfig.getSampleDepth() );
     }
-    catch ( IOException exception )
+
+    if ( LOG.isLoggable( Level.FINE ) )
     {
-      // Rethrow the caught exception...
-      throw exception;
+      LOG.log( Level.FINE, "Read {0} samples ({1} transitions) in {2} ms ...", new Object[] {
+          Long.valueOf( sampleCount ), Integer.valueOf( transitions.getSize() ),
+          Long.valueOf( ( System.nanoTime() - startTime ) / 1000000L ) } );
     }
+
+    return new CapturedData( transitions.getValues(), transitions.getTimestamps(), Ols.NOT_AVAILABLE, rate,
+        channels, channels, sampleCount );
   }
 
   /**
@@ -130,33 +137,106 @@ public final class GenericDeviceAcquisitionTask implements AcquisitionTask
   }
 
   /**
-   * Reads <code>channels</code> / 8 bytes from stream and compiles them into a
-   * single integer.
+   * Reads the given number of samples from the input stream, and compacts
+   * them into transitions.
    * 
-   * @param aChannelCount
-   *          number of channels to read (must be multiple of 8)
-   * @return integer containing four bytes read
+   * @param aTransitions
+   *          the buffer to add the transitions to;
+   * @param aSampleWidth
+   *          the width of a single sample, in bytes (1..4);
+   * @param aSampleCount
+   *          the number of samples to read.
+   * @return the number of samples actually read, which is less than the given
+   *         sample count in case the current thread is interrupted.
    * @throws IOException
-   *           if stream reading fails
+   *           in case reading from the stream failed, or the end of the stream
+   *           was reached before all samples were read.
    */
-  private int readSample( final int aSampleWidth ) throws IOException
+  private long readSamples( final TransitionBuffer aTransitions, final int aSampleWidth, final int aSampleCount )
+      throws IOException
   {
-    int v, value = 0;
+    final ReadableByteChannel channel = this.inputStream.getChannel();
 
-    for ( int i = 0; !Thread.currentThread().isInterrupted() && ( i < aSampleWidth ); i++ )
-    {
-      v = this.inputStream.read();
+    // Always read whole samples...
+    final ByteBuffer buffer = ByteBuffer.allocateDirect( ( READ_BLOCK_SIZE / aSampleWidth ) * aSampleWidth );
 
-      // Any timeouts/interrupts occurred?
-      if ( v < 0 )
+    long idx = 0;
+    int lastPercentage = -1;
+
+    try
+    {
+      while ( ( idx < aSampleCount ) && !Thread.currentThread().isInterrupted() )
       {
-        throw new EOFException( "Data readout interrupted: EOF." );
-      }
+        // Do not read beyond the last sample; note that the bytes of a
+        // partially read sample are already in the buffer...
+        final long remaining = ( aSampleCount - idx ) * aSampleWidth;
+        if ( remaining < buffer.capacity() )
+        {
+          buffer.limit( ( int )remaining );
+        }
 
-      value |= v << ( 8 * i );
+        if ( channel.read( buffer ) < 0 )
+        {
+          throw new EOFException( "Data readout interrupted: EOF." );
+        }
+        buffer.flip();
+
+        idx += SampleReader.addSamples( aTransitions, buffer, aSampleWidth, idx );
+
+        // Keep the bytes of a partially read sample...
+        buffer.compact();
+
+        // Update the progress...
+        final int percentage = ( int )( ( idx * 100.0 ) / aSampleCount );
+        if ( percentage != lastPercentage )
+        {
+          this.progressListener.acquisitionInProgress( percentage );
+          lastPercentage = percentage;
+        }
+      }
+    }
+    catch ( ClosedByInterruptException exception )
+    {
+      // The channel is closed by the interrupt; return the samples read so
+      // far, like we do for interrupts between two reads...
+      Thread.currentThread().interrupt();
     }
 
-    return value;
+    return idx;
   }
 
+  /**
+   * Replays the samples of a raw sample dump, starting at the configured
+   * offset.
+   * 
+   * @param aTransitions
+   *          the buffer to add the transitions to;
+   * @param aSampleWidth
+   *          the width of a single sample, in bytes (1..4).
+   * @return the number of samples replayed.
+   * @throws IOException
+   *           in case the file could not be mapped or read, or in case the
+   *           start offset lies beyond the end of the file.
+   */
+  private long replaySamples( final TransitionBuffer aTransitions, final int aSampleWidth ) throws IOException
+  {
+    final FileChannel channel = this.inputStream.getChannel();
+
+    final long startOffset = this.deviceConfig.getReplayOffset();
+    final long fileSize = channel.size();
+    if ( ( startOffset < 0L ) || ( startOffset > fileSize ) )
+    {
+      throw new IOException( "Start offset beyond end of file!" );
+    }
+
+    long sampleCount = ( fileSize - startOffset ) / aSampleWidth;
+    final long length = this.deviceConfig.getReplayLength();
+    if ( length > 0L )
+    {
+      sampleCount = Math.min( sampleCount, length );
+    }
+
+    final MappedSampleScanner scanner = new MappedSampleScanner( channel, startOffset, sampleCount, aSampleWidth );
+    return scanner.scan( aTransitions, this.progressListener );
+  }
 }
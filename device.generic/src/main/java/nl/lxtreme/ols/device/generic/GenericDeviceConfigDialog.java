@@ -54,6 +54,9 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
   private JTextField sampleDepth;
   private JTextField sampleWidth;
   private JTextField channelCount;
+  private JCheckBox replayMode;
+  private JTextField replayOffset;
+  private JTextField replayLength;
 
   private boolean setupConfirmed;
 
@@ -115,6 +118,27 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     return width;
   }
 
+  /**
+   * Returns the number of samples to replay from a raw sample dump.
+   *
+   * @return the number of samples to replay, or 0 to replay all samples up to
+   *         the end of the file.
+   */
+  public long getReplayLength()
+  {
+    return parseLong( this.replayLength.getText(), 0L );
+  }
+
+  /**
+   * Returns the offset of the first sample to replay from a raw sample dump.
+   *
+   * @return the offset, in bytes, >= 0.
+   */
+  public long getReplayOffset()
+  {
+    return parseLong( this.replayOffset.getText(), 0L );
+  }
+
   /**
    * Returns the number of samples to take.
    *
@@ -148,6 +172,18 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     return result;
   }
 
+  /**
+   * Returns whether the device path denotes a raw sample dump that should be
+   * replayed, instead of a device to read from.
+   *
+   * @return <code>true</code> if a raw sample dump is to be replayed,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isReplayMode()
+  {
+    return this.replayMode.isSelected();
+  }
+
   /**
    * @see nl.lxtreme.ols.api.Configurable#readPreferences(nl.lxtreme.ols.api.UserSettings)
    */
@@ -159,6 +195,11 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     this.sampleDepth.setText( aSettings.get( "sampleDepth", this.sampleDepth.getText() ) );
     this.sampleRate.setText( aSettings.get( "sampleRate", this.sampleRate.getText() ) );
     this.sampleWidth.setText( aSettings.get( "sampleWidth", this.sampleWidth.getText() ) );
+    this.replayMode.setSelected( aSettings.getBoolean( "replayMode", this.replayMode.isSelected() ) );
+    this.replayOffset.setText( aSettings.get( "replayOffset", this.replayOffset.getText() ) );
+    this.replayLength.setText( aSettings.get( "replayLength", this.replayLength.getText() ) );
+
+    updateReplayState();
   }
 
   /**
@@ -187,6 +228,30 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     aSettings.put( "sampleDepth", this.sampleDepth.getText() );
     aSettings.put( "sampleRate", this.sampleRate.getText() );
     aSettings.put( "sampleWidth", this.sampleWidth.getText() );
+    aSettings.putBoolean( "replayMode", this.replayMode.isSelected() );
+    aSettings.put( "replayOffset", this.replayOffset.getText() );
+    aSettings.put( "replayLength", this.replayLength.getText() );
+  }
+
+  /**
+   * Parses the given text as long value.
+   *
+   * @param aText
+   *          the text to parse;
+   * @param aDefault
+   *          the value to return in case the text could not be parsed.
+   * @return the parsed value, or the given default.
+   */
+  private static long parseLong( final String aText, final long aDefault )
+  {
+    try
+    {
+      return Long.parseLong( aText.trim() );
+    }
+    catch ( NumberFormatException exception )
+    {
+      return aDefault;
+    }
   }
 
   /**
@@ -214,6 +279,26 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     this.sampleWidth.setText( "1" );
     this.sampleWidth.setInputVerifier( JComponentInputVerifier.create( Integer.TYPE, "Invalid sample width!" ) );
 
+    this.replayMode = new JCheckBox();
+    this.replayMode.setToolTipText( "Memory map the file at the device path and replay it as raw sample dump." );
+    this.replayMode.addActionListener( new ActionListener()
+    {
+      @Override
+      public void actionPerformed( final ActionEvent aEvent )
+      {
+        updateReplayState();
+      }
+    } );
+
+    this.replayOffset = new JTextField( 10 );
+    this.replayOffset.setText( "0" );
+    this.replayOffset.setInputVerifier( JComponentInputVerifier.create( Long.TYPE, "Invalid start offset!" ) );
+
+    this.replayLength = new JTextField( 10 );
+    this.replayLength.setText( "0" );
+    this.replayLength.setToolTipText( "The number of samples to replay, 0 to replay up to the end of the file." );
+    this.replayLength.setInputVerifier( JComponentInputVerifier.create( Long.TYPE, "Invalid length!" ) );
+
     final JPanel result = new JPanel( new SpringLayout() );
 
     SpringLayoutUtils.addSeparator( result, "Acquisition settings" );
@@ -233,8 +318,21 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
     result.add( createRightAlignedLabel( "Sample width" ) );
     result.add( this.sampleWidth );
 
+    SpringLayoutUtils.addSeparator( result, "Replay settings" );
+
+    result.add( createRightAlignedLabel( "Replay raw dump" ) );
+    result.add( this.replayMode );
+
+    result.add( createRightAlignedLabel( "Start offset (bytes)" ) );
+    result.add( this.replayOffset );
+
+    result.add( createRightAlignedLabel( "Length (samples)" ) );
+    result.add( this.replayLength );
+
     SpringLayoutUtils.makeEditorGrid( result, 6, 6 );
 
+    updateReplayState();
+
     return result;
   }
 
@@ -262,4 +360,17 @@ public class GenericDeviceConfigDialog extends JDialog implements Configurable,
 
     SwingComponentUtils.setupDialogContentPane( this, contents, buttonPane, okButton );
   }
+
+  /**
+   * Enables the replay settings in replay mode, and the sample depth
+   * otherwise.
+   */
+  private void updateReplayState()
+  {
+    final boolean replay = this.replayMode.isSelected();
+
+    this.sampleDepth.setEnabled( !replay );
+    this.replayOffset.setEnabled( replay );
+    this.replayLength.setEnabled( replay );
+  }
 }
@@ -0,0 +1,202 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import java.io.*;
+import java.nio.*;
+import java.nio.channels.*;
+import java.nio.channels.FileChannel.MapMode;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Scans a (large) raw sample dump for transitions, by memory mapping the file
+ * in chunks and scanning these chunks in parallel.
+ * <p>
+ * As only the transitions are kept, the raw samples never need to be in
+ * memory as a whole, which allows dumps of several gigabytes to be replayed.
+ * </p>
+ */
+final class MappedSampleScanner
+{
+  // CONSTANTS
+
+  /** The default (maximum) size of a single chunk, in bytes. */
+  private static final int CHUNK_SIZE = 16 * 1024 * 1024;
+
+  // VARIABLES
+
+  private final FileChannel channel;
+  private final long startOffset;
+  private final long sampleCount;
+  private final int sampleWidth;
+  private final int samplesPerChunk;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new MappedSampleScanner instance.
+   * 
+   * @param aChannel
+   *          the file channel to scan, cannot be <code>null</code>;
+   * @param aStartOffset
+   *          the offset (in bytes) of the first sample in the file;
+   * @param aSampleCount
+   *          the number of samples to scan;
+   * @param aSampleWidth
+   *          the width of a single sample, in bytes (1..4).
+   */
+  public MappedSampleScanner( final FileChannel aChannel, final long aStartOffset, final long aSampleCount,
+      final int aSampleWidth )
+  {
+    this( aChannel, aStartOffset, aSampleCount, aSampleWidth, CHUNK_SIZE );
+  }
+
+  /**
+   * Creates a new MappedSampleScanner instance.
+   * 
+   * @param aChannel
+   *          the file channel to scan, cannot be <code>null</code>;
+   * @param aStartOffset
+   *          the offset (in bytes) of the first sample in the file;
+   * @param aSampleCount
+   *          the number of samples to scan;
+   * @param aSampleWidth
+   *          the width of a single sample, in bytes (1..4);
+   * @param aChunkSize
+   *          the (maximum) size of a single chunk, in bytes, &gt;= the sample
+   *          width.
+   */
+  MappedSampleScanner( final FileChannel aChannel, final long aStartOffset, final long aSampleCount,
+      final int aSampleWidth, final int aChunkSize )
+  {
+    this.channel = aChannel;
+    this.startOffset = aStartOffset;
+    this.sampleCount = aSampleCount;
+    this.sampleWidth = aSampleWidth;
+    this.samplesPerChunk = aChunkSize / aSampleWidth;
+  }
+
+  // METHODS
+
+  /**
+   * Scans the samples for transitions.
+   * 
+   * @param aTransitions
+   *          the buffer to add the found transitions to, cannot be
+   *          <code>null</code>;
+   * @param aProgressListener
+   *          the listener to report the progress to, cannot be
+   *          <code>null</code>.
+   * @return the number of samples scanned, which is less than the number of
+   *         requested samples in case the current thread is interrupted.
+   * @throws IOException
+   *           in case of I/O problems while mapping or reading the file.
+   */
+  public long scan( final TransitionBuffer aTransitions, final AcquisitionProgressListener aProgressListener )
+      throws IOException
+  {
+    final int chunkCount = ( int )( ( this.sampleCount + this.samplesPerChunk - 1 ) / this.samplesPerChunk );
+    final ExecutorService executor = HostUtils.getSharedThreadPool();
+
+    final List<Future<TransitionBuffer>> chunks = new ArrayList<Future<TransitionBuffer>>( chunkCount );
+    try
+    {
+      for ( int i = 0; i < chunkCount; i++ )
+      {
+        final long firstSample = ( long )i * this.samplesPerChunk;
+        final int chunkSamples = ( int )Math.min( this.samplesPerChunk, this.sampleCount - firstSample );
+
+        chunks.add( executor.submit( new Callable<TransitionBuffer>()
+        {
+          @Override
+          public TransitionBuffer call() throws IOException
+          {
+            return scanChunk( firstSample, chunkSamples );
+          }
+        } ) );
+      }
+
+      // Merge the chunks in order; each chunk only leads to a transition if
+      // its first value differs from the last value of its predecessor...
+      long scanned = 0L;
+      for ( int i = 0; i < chunkCount; i++ )
+      {
+        final TransitionBuffer chunk;
+        try
+        {
+          chunk = chunks.get( i ).get();
+        }
+        catch ( InterruptedException exception )
+        {
+          Thread.currentThread().interrupt();
+          break;
+        }
+        catch ( ExecutionException exception )
+        {
+          final Throwable cause = exception.getCause();
+          if ( cause instanceof IOException )
+          {
+            throw ( IOException )cause;
+          }
+          throw new IOException( "Scanning samples failed!", cause );
+        }
+
+        aTransitions.addAll( chunk );
+        scanned = Math.min( this.sampleCount, ( long )( i + 1 ) * this.samplesPerChunk );
+
+        aProgressListener.acquisitionInProgress( ( int )( ( ( i + 1 ) * 100L ) / chunkCount ) );
+      }
+
+      return scanned;
+    }
+    finally
+    {
+      // stops the remaining chunks in case of failures or interruption...
+      HostUtils.cancelAll( chunks );
+    }
+  }
+
+  /**
+   * Scans a single chunk for transitions.
+   * 
+   * @param aFirstSample
+   *          the index of the first sample of the chunk;
+   * @param aSampleCount
+   *          the number of samples in the chunk.
+   * @return the transitions of the chunk, never <code>null</code>.
+   */
+  final TransitionBuffer scanChunk( final long aFirstSample, final int aSampleCount ) throws IOException
+  {
+    final long position = this.startOffset + ( aFirstSample * this.sampleWidth );
+    final ByteBuffer buffer = this.channel.map( MapMode.READ_ONLY, position, ( long )aSampleCount * this.sampleWidth );
+
+    final TransitionBuffer result = new TransitionBuffer();
+    SampleReader.addSamples( result, buffer, this.sampleWidth, aFirstSample );
+    return result;
+  }
+}
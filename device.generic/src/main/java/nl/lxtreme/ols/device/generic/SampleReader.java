@@ -0,0 +1,103 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import java.nio.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides the conversion of raw (little endian) sample data into transitions.
+ */
+final class SampleReader
+{
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SampleReader instance, never used.
+   */
+  private SampleReader()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Adds the transitions of all whole samples remaining in the given buffer.
+   * 
+   * @param aTransitions
+   *          the buffer to add the transitions to, cannot be
+   *          <code>null</code>;
+   * @param aBuffer
+   *          the buffer with the (little endian) samples to add;
+   * @param aSampleWidth
+   *          the width of a sample, in bytes (1..4);
+   * @param aTimestamp
+   *          the timestamp of the first sample in the buffer.
+   * @return the number of samples added.
+   */
+  public static int addSamples( final TransitionBuffer aTransitions, final ByteBuffer aBuffer,
+      final int aSampleWidth, final long aTimestamp )
+  {
+    aBuffer.order( ByteOrder.LITTLE_ENDIAN );
+
+    int count = 0;
+    while ( aBuffer.remaining() >= aSampleWidth )
+    {
+      aTransitions.addTransition( readSample( aBuffer, aSampleWidth ), aTimestamp + count );
+      count++;
+    }
+    return count;
+  }
+
+  /**
+   * Reads a single sample of the given width from the given buffer, least
+   * significant byte first.
+   * 
+   * @param aBuffer
+   *          the buffer to read from;
+   * @param aSampleWidth
+   *          the width of a sample, in bytes (1..4).
+   * @return the sample value.
+   */
+  static int readSample( final ByteBuffer aBuffer, final int aSampleWidth )
+  {
+    switch ( aSampleWidth )
+    {
+      case 1:
+        return aBuffer.get() & 0xFF;
+      case 2:
+        return aBuffer.getShort() & 0xFFFF;
+      case 4:
+        return aBuffer.getInt();
+      default:
+        int value = 0;
+        for ( int i = 0; i < aSampleWidth; i++ )
+        {
+          value |= ( aBuffer.get() & 0xFF ) << ( 8 * i );
+        }
+        return value;
+    }
+  }
+}
@@ -0,0 +1,262 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link GenericDeviceAcquisitionTask}.
+ */
+public class GenericDeviceAcquisitionTaskTest
+{
+  // CONSTANTS
+
+  /** Spans several read blocks for all sample widths. */
+  private static final int SAMPLE_COUNT = 300000;
+
+  // VARIABLES
+
+  private File file;
+  private GenericDeviceConfigDialog config;
+  private AcquisitionProgressListener progressListener;
+
+  // METHODS
+
+  /**
+   * Returns the value of the sample at the given index; the value changes
+   * every seven samples, and uses all bytes of the sample.
+   */
+  static int getSampleValue( final long aIndex, final int aSampleWidth )
+  {
+    final int mask = ( aSampleWidth == 4 ) ? -1 : ( ( 1 << ( 8 * aSampleWidth ) ) - 1 );
+    return ( int )( ( aIndex / 7 ) * 0x9E3779B1L ) & mask;
+  }
+
+  /**
+   * Asserts that the given result contains exactly the transitions of the
+   * first given number of samples.
+   */
+  static void assertTransitions( final AcquisitionResult aResult, final long aSampleCount, final int aSampleWidth )
+  {
+    final int[] values = aResult.getValues();
+    final long[] timestamps = aResult.getTimestamps();
+
+    int t = 0;
+    for ( long i = 0; i < aSampleCount; i++ )
+    {
+      final int value = getSampleValue( i, aSampleWidth );
+      if ( ( i > 0 ) && ( value == getSampleValue( i - 1, aSampleWidth ) ) )
+      {
+        continue;
+      }
+      assertTrue( "Missing transition at " + i, t < values.length );
+      assertEquals( value, values[t] );
+      assertEquals( i, timestamps[t] );
+      t++;
+    }
+    assertEquals( t, values.length );
+    assertEquals( aSampleCount, aResult.getAbsoluteLength() );
+  }
+
+  /**
+   * Writes the given number of samples (little endian) to the given file.
+   */
+  static void writeSamples( final File aFile, final long aSampleCount, final int aSampleWidth, final int aExtraBytes )
+      throws IOException
+  {
+    final OutputStream os = new BufferedOutputStream( new FileOutputStream( aFile ) );
+    try
+    {
+      for ( long i = 0; i < aSampleCount; i++ )
+      {
+        final int value = getSampleValue( i, aSampleWidth );
+        for ( int j = 0; j < aSampleWidth; j++ )
+        {
+          os.write( value >>> ( 8 * j ) );
+        }
+      }
+      for ( int j = 0; j < aExtraBytes; j++ )
+      {
+        os.write( 0xFF );
+      }
+    }
+    finally
+    {
+      os.close();
+    }
+  }
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    this.file = File.createTempFile( "ols", ".bin" );
+    this.file.deleteOnExit();
+
+    this.config = mock( GenericDeviceConfigDialog.class );
+    when( this.config.getDevicePath() ).thenReturn( this.file.getAbsolutePath() );
+    when( this.config.getSampleRate() ).thenReturn( Integer.valueOf( 1000000 ) );
+    when( this.config.getChannelCount() ).thenReturn( Integer.valueOf( 8 ) );
+
+    this.progressListener = mock( AcquisitionProgressListener.class );
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown()
+  {
+    this.file.delete();
+  }
+
+  /**
+   * Tests that single byte samples are read correctly.
+   */
+  @Test
+  public void testReadOneByteSamplesOk() throws IOException
+  {
+    assertReadSamples( 1 );
+  }
+
+  /**
+   * Tests that two byte samples are read correctly.
+   */
+  @Test
+  public void testReadTwoByteSamplesOk() throws IOException
+  {
+    assertReadSamples( 2 );
+  }
+
+  /**
+   * Tests that three byte samples, which do not evenly divide the read block,
+   * are read correctly.
+   */
+  @Test
+  public void testReadThreeByteSamplesOk() throws IOException
+  {
+    assertReadSamples( 3 );
+  }
+
+  /**
+   * Tests that four byte samples are read correctly.
+   */
+  @Test
+  public void testReadFourByteSamplesOk() throws IOException
+  {
+    assertReadSamples( 4 );
+  }
+
+  /**
+   * Tests that no more samples than the sample depth are read.
+   */
+  @Test
+  public void testReadStopsAtSampleDepth() throws IOException
+  {
+    writeSamples( this.file, SAMPLE_COUNT, 3, 0 );
+
+    final AcquisitionResult result = acquire( 3, 1000 );
+
+    assertTransitions( result, 1000, 3 );
+    verify( this.progressListener ).acquisitionInProgress( 100 );
+  }
+
+  /**
+   * Tests that a partial sample at the end of the file is ignored when the
+   * sample depth is reached before it.
+   */
+  @Test
+  public void testReadIgnoresPartialLastSampleBeyondDepth() throws IOException
+  {
+    writeSamples( this.file, 1000, 3, 2 );
+
+    final AcquisitionResult result = acquire( 3, 1000 );
+
+    assertTransitions( result, 1000, 3 );
+  }
+
+  /**
+   * Tests that a partial last sample within the sample depth is reported as
+   * premature end of the data.
+   */
+  @Test( expected = EOFException.class )
+  public void testReadPartialLastSampleFails() throws IOException
+  {
+    writeSamples( this.file, 1000, 3, 2 );
+
+    acquire( 3, 1001 );
+  }
+
+  /**
+   * Tests that invalid sample widths are refused.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidSampleWidthFails() throws IOException
+  {
+    writeSamples( this.file, 10, 1, 0 );
+
+    acquire( 5, 10 );
+  }
+
+  /**
+   * Acquires the given number of samples from the test file.
+   */
+  private AcquisitionResult acquire( final int aSampleWidth, final int aSampleDepth ) throws IOException
+  {
+    when( this.config.getSampleWidth() ).thenReturn( Integer.valueOf( aSampleWidth ) );
+    when( this.config.getSampleDepth() ).thenReturn( Integer.valueOf( aSampleDepth ) );
+
+    final GenericDeviceAcquisitionTask task = new GenericDeviceAcquisitionTask( this.config, this.progressListener );
+    task.open();
+    try
+    {
+      return task.call();
+    }
+    finally
+    {
+      task.close();
+    }
+  }
+
+  /**
+   * Asserts that all samples of the given width are read from the test file.
+   */
+  private void assertReadSamples( final int aSampleWidth ) throws IOException
+  {
+    writeSamples( this.file, SAMPLE_COUNT, aSampleWidth, 0 );
+
+    final AcquisitionResult result = acquire( aSampleWidth, SAMPLE_COUNT );
+
+    assertTransitions( result, SAMPLE_COUNT, aSampleWidth );
+    verify( this.progressListener ).acquisitionInProgress( 100 );
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.generic;
+
+
+import static nl.lxtreme.ols.device.generic.GenericDeviceAcquisitionTaskTest.*;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+import java.nio.channels.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link MappedSampleScanner}.
+ */
+public class MappedSampleScannerTest
+{
+  // VARIABLES
+
+  private File file;
+  private FileInputStream inputStream;
+  private AcquisitionProgressListener progressListener;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws IOException
+  {
+    this.file = File.createTempFile( "ols", ".bin" );
+    this.file.deleteOnExit();
+
+    this.progressListener = mock( AcquisitionProgressListener.class );
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown() throws IOException
+  {
+    if ( this.inputStream != null )
+    {
+      this.inputStream.close();
+    }
+    this.file.delete();
+  }
+
+  /**
+   * Tests that scanning in many chunks yields the same transitions as
+   * scanning in a single chunk, also when the chunk size is not a multiple of
+   * the sample width.
+   */
+  @Test
+  public void testScanInChunksOk() throws IOException
+  {
+    writeSamples( this.file, 1000, 3, 0 );
+
+    // 10 samples per chunk, so values span chunks, and some transitions lie
+    // exactly on a chunk boundary (every 70 samples)...
+    final TransitionBuffer transitions = new TransitionBuffer();
+    assertEquals( 1000L, createScanner( 0L, 1000L, 3, 32 ).scan( transitions, this.progressListener ) );
+
+    assertTransitions( transitions, 0L, 1000L, 3 );
+    verify( this.progressListener ).acquisitionInProgress( 100 );
+  }
+
+  /**
+   * Tests that a last chunk with fewer samples is scanned correctly.
+   */
+  @Test
+  public void testScanWithPartialLastChunkOk() throws IOException
+  {
+    writeSamples( this.file, 1003, 2, 0 );
+
+    final TransitionBuffer transitions = new TransitionBuffer();
+    assertEquals( 1003L, createScanner( 0L, 1003L, 2, 20 ).scan( transitions, this.progressListener ) );
+
+    assertTransitions( transitions, 0L, 1003L, 2 );
+  }
+
+  /**
+   * Tests that a value that stays the same over a chunk boundary does not
+   * lead to a transition, while a change at a chunk boundary does.
+   */
+  @Test
+  public void testScanTransitionStraddlingChunksOk() throws IOException
+  {
+    final OutputStream os = new FileOutputStream( this.file );
+    try
+    {
+      // chunks of 4 samples: 1 1 1 1 | 1 1 2 2 | 3 3 3 3
+      os.write( new byte[] { 1, 1, 1, 1, 1, 1, 2, 2, 3, 3, 3, 3 } );
+    }
+    finally
+    {
+      os.close();
+    }
+
+    final TransitionBuffer transitions = new TransitionBuffer();
+    createScanner( 0L, 12L, 1, 4 ).scan( transitions, this.progressListener );
+
+    assertArrayEquals( new int[] { 1, 2, 3 }, transitions.getValues() );
+    assertArrayEquals( new long[] { 0L, 6L, 8L }, transitions.getTimestamps() );
+  }
+
+  /**
+   * Tests that only the requested samples are scanned, starting at an offset
+   * that is not a multiple of the sample width.
+   */
+  @Test
+  public void testScanWithOffsetAndLengthOk() throws IOException
+  {
+    writeSamples( this.file, 1000, 4, 0 );
+
+    // Skip the first 100 samples, and one byte extra...
+    final long offset = ( 100 * 4 ) + 1;
+
+    final TransitionBuffer transitions = new TransitionBuffer();
+    assertEquals( 500L, createScanner( offset, 500L, 4, 64 ).scan( transitions, this.progressListener ) );
+
+    // Compare with the samples read from the same offset...
+    final FileChannel channel = new RandomAccessFile( this.file, "r" ).getChannel();
+    try
+    {
+      final TransitionBuffer expected = new TransitionBuffer();
+      SampleReader.addSamples( expected, channel.map( FileChannel.MapMode.READ_ONLY, offset, 500 * 4 ), 4, 0L );
+
+      assertArrayEquals( expected.getValues(), transitions.getValues() );
+      assertArrayEquals( expected.getTimestamps(), transitions.getTimestamps() );
+    }
+    finally
+    {
+      channel.close();
+    }
+  }
+
+  /**
+   * Tests that the replay of a file with less than one sample yields no
+   * transitions at all.
+   */
+  @Test
+  public void testScanFileShorterThanOneSampleOk() throws IOException
+  {
+    writeSamples( this.file, 0, 4, 3 );
+
+    final long sampleCount = this.file.length() / 4;
+    final TransitionBuffer transitions = new TransitionBuffer();
+    assertEquals( 0L, createScanner( 0L, sampleCount, 4, 64 ).scan( transitions, this.progressListener ) );
+
+    assertEquals( 0, transitions.getSize() );
+  }
+
+  /**
+   * Asserts that the given buffer contains exactly the transitions of the
+   * given range of samples.
+   */
+  private void assertTransitions( final TransitionBuffer aTransitions, final long aFirstSample,
+      final long aSampleCount, final int aSampleWidth )
+  {
+    final TransitionBuffer expected = new TransitionBuffer();
+    for ( long i = 0; i < aSampleCount; i++ )
+    {
+      expected.addTransition( getSampleValue( aFirstSample + i, aSampleWidth ), i );
+    }
+
+    assertArrayEquals( expected.getValues(), aTransitions.getValues() );
+    assertArrayEquals( expected.getTimestamps(), aTransitions.getTimestamps() );
+  }
+
+  /**
+   * Creates a scanner for the test file.
+   */
+  private MappedSampleScanner createScanner( final long aStartOffset, final long aSampleCount,
+      final int aSampleWidth, final int aChunkSize ) throws IOException
+  {
+    this.inputStream = new FileInputStream( this.file );
+    return new MappedSampleScanner( this.inputStream.getChannel(), aStartOffset, aSampleCount, aSampleWidth,
+        aChunkSize );
+  }
+}
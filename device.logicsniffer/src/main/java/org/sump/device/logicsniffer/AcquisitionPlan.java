@@ -0,0 +1,281 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import org.sump.device.logicsniffer.sampleprocessor.*;
+
+
+/**
+ * Provides an immutable snapshot of all settings of a {@link LogicSnifferConfig}
+ * that are needed while reading and decoding the samples of a single capture.
+ * <p>
+ * Most of the getters of {@link LogicSnifferConfig} are derived from the
+ * current device profile and the sample rate, and are recalculated on each
+ * call. An acquisition plan calculates them once, when the capture is armed,
+ * so they can be used in the tight loops of the sample readout and -decoding.
+ * </p>
+ */
+public final class AcquisitionPlan
+{
+  // VARIABLES
+
+  private final int channelCount;
+  private final int enabledChannelsMask;
+  private final int groupCount;
+  private final int enabledGroupCount;
+  private final boolean[] enabledGroups;
+  private final boolean doubleDataRate;
+  private final boolean rleEnabled;
+  private final int rleDataWidth;
+  private final int rleCountValue;
+  private final int rleCountMask;
+  private final boolean samplesInReverseOrder;
+  private final boolean triggerEnabled;
+  private final int sampleCount;
+  private final int sampleRate;
+  private final int divider;
+  private final GroupPacker groupPacker;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new {@link AcquisitionPlan} instance.
+   *
+   * @param aConfig
+   *          the configuration to take the snapshot of, cannot be
+   *          <code>null</code>.
+   */
+  public AcquisitionPlan( final LogicSnifferConfig aConfig )
+  {
+    if ( aConfig == null )
+    {
+      throw new IllegalArgumentException( "Config cannot be null!" );
+    }
+
+    this.channelCount = aConfig.getChannelCount();
+    this.enabledChannelsMask = aConfig.getEnabledChannelsMask();
+    this.groupCount = aConfig.getGroupCount();
+    this.enabledGroupCount = aConfig.getEnabledGroupCount();
+    this.doubleDataRate = aConfig.isDoubleDataRateEnabled();
+    this.rleEnabled = aConfig.isRleEnabled();
+    this.rleDataWidth = aConfig.getRLEDataWidth();
+    this.samplesInReverseOrder = aConfig.isSamplesInReverseOrder();
+    this.triggerEnabled = aConfig.isTriggerEnabled();
+    this.sampleCount = aConfig.getSampleCount();
+    this.sampleRate = aConfig.getSampleRate();
+    this.divider = aConfig.getDivider();
+
+    switch ( this.rleDataWidth )
+    {
+      case 8:
+      case 16:
+      case 24:
+      case 32:
+        this.rleCountValue = 1 << ( this.rleDataWidth - 1 );
+        this.rleCountMask = this.rleCountValue - 1;
+        break;
+      default:
+        this.rleCountValue = 0;
+        this.rleCountMask = 0;
+        break;
+    }
+
+    this.enabledGroups = new boolean[this.groupCount];
+
+    int groupMask = 0;
+    for ( int i = 0; i < this.groupCount; i++ )
+    {
+      this.enabledGroups[i] = aConfig.isGroupEnabled( i );
+      if ( this.enabledGroups[i] )
+      {
+        groupMask |= ( 1 << i );
+      }
+    }
+
+    this.groupPacker = GroupPacker.forGroups( groupMask );
+  }
+
+  // METHODS
+
+  /**
+   * "Expands" the sample-bytes at the given offset into a single sample value,
+   * taking the enabled channel groups into consideration.
+   *
+   * @param aBuffer
+   *          the buffer with the raw sample bytes;
+   * @param aOffset
+   *          the offset of the first byte of the sample, the sample occupies
+   *          {@link #getEnabledGroupCount()} bytes.
+   * @return the sample value, in which disabled groups are zero.
+   */
+  public int expandSample( final byte[] aBuffer, final int aOffset )
+  {
+    return this.groupPacker.unpack( aBuffer, aOffset );
+  }
+
+  /**
+   * @see LogicSnifferConfig#getChannelCount()
+   */
+  public int getChannelCount()
+  {
+    return this.channelCount;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getDivider()
+   */
+  public int getDivider()
+  {
+    return this.divider;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getEnabledChannelsMask()
+   */
+  public int getEnabledChannelsMask()
+  {
+    return this.enabledChannelsMask;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getEnabledGroupCount()
+   */
+  public int getEnabledGroupCount()
+  {
+    return this.enabledGroupCount;
+  }
+
+  /**
+   * Returns the packer for the enabled channel groups of this capture.
+   *
+   * @return the group packer, never <code>null</code>.
+   */
+  public GroupPacker getGroupPacker()
+  {
+    return this.groupPacker;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getGroupCount()
+   */
+  public int getGroupCount()
+  {
+    return this.groupCount;
+  }
+
+  /**
+   * Returns the value of the bit that denotes a RLE-count.
+   *
+   * @return the RLE count-bit, or 0 if the RLE data width is invalid.
+   */
+  public int getRleCountValue()
+  {
+    return this.rleCountValue;
+  }
+
+  /**
+   * Returns the mask to obtain the actual count value of a RLE-count.
+   *
+   * @return the RLE count mask.
+   */
+  public int getRleCountMask()
+  {
+    return this.rleCountMask;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getRLEDataWidth()
+   */
+  public int getRLEDataWidth()
+  {
+    return this.rleDataWidth;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getSampleCount()
+   */
+  public int getSampleCount()
+  {
+    return this.sampleCount;
+  }
+
+  /**
+   * @see LogicSnifferConfig#getSampleRate()
+   */
+  public int getSampleRate()
+  {
+    return this.sampleRate;
+  }
+
+  /**
+   * @see LogicSnifferConfig#isDoubleDataRateEnabled()
+   */
+  public boolean isDoubleDataRateEnabled()
+  {
+    return this.doubleDataRate;
+  }
+
+  /**
+   * @see LogicSnifferConfig#isGroupEnabled(int)
+   */
+  public boolean isGroupEnabled( final int aGroupNr )
+  {
+    return ( aGroupNr >= 0 ) && ( aGroupNr < this.groupCount ) && this.enabledGroups[aGroupNr];
+  }
+
+  /**
+   * @see LogicSnifferConfig#isRleEnabled()
+   */
+  public boolean isRleEnabled()
+  {
+    return this.rleEnabled;
+  }
+
+  /**
+   * @see LogicSnifferConfig#isSamplesInReverseOrder()
+   */
+  public boolean isSamplesInReverseOrder()
+  {
+    return this.samplesInReverseOrder;
+  }
+
+  /**
+   * @see LogicSnifferConfig#isTriggerEnabled()
+   */
+  public boolean isTriggerEnabled()
+  {
+    return this.triggerEnabled;
+  }
+
+  /**
+   * Normalizes the given sample value to mask out the unused channel groups
+   * and get a sample value in the correct width.
+   *
+   * @param aSampleValue
+   *          the original sample to normalize.
+   * @return the normalized sample value.
+   */
+  public int normalizeSampleValue( final int aSampleValue )
+  {
+    return this.groupPacker.pack( aSampleValue );
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import javax.microedition.io.*;
+
+import nl.lxtreme.ols.util.*;
+
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Keeps connections to devices open between acquisitions.
+ * <p>
+ * Opening a serial port can take a considerable amount of time, as some
+ * devices need to be reset (by toggling DTR) and/or need some time to
+ * initialize after opening. A cached connection is kept open after it is
+ * closed by its user, and is reused when a new connection with the same
+ * options to the same port is requested. Before reusing it, the connection is
+ * validated by flushing its input and querying the device ID. A cached
+ * connection is closed after it is idle for too long, or when another
+ * connection to the same port is requested.
+ * </p>
+ */
+final class ConnectionCache implements Closeable
+{
+  // INNER TYPES
+
+  /**
+   * Opens new connections for this cache.
+   */
+  static interface ConnectionOpener
+  {
+    /**
+     * Opens a new connection.
+     * 
+     * @param aURI
+     *          the URI of the connection to open.
+     * @return the opened connection, never <code>null</code>.
+     * @throws IOException
+     *           in case the connection could not be opened.
+     */
+    StreamConnection open( String aURI ) throws IOException;
+  }
+
+  /**
+   * Provides a connection that is returned to its cache upon closing.
+   */
+  final class CachedConnection implements StreamConnection
+  {
+    // VARIABLES
+
+    final String portName;
+    final String uri;
+    final StreamConnection connection;
+
+    private InputStream inputStream;
+    private OutputStream outputStream;
+    private volatile boolean closed;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CachedConnection instance.
+     */
+    CachedConnection( final String aPortName, final String aURI, final StreamConnection aConnection )
+    {
+      this.portName = aPortName;
+      this.uri = aURI;
+      this.connection = aConnection;
+    }
+
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void close() throws IOException
+    {
+      if ( !this.closed )
+      {
+        this.closed = true;
+        release( this );
+      }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataInputStream openDataInputStream() throws IOException
+    {
+      return new DataInputStream( openInputStream() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public DataOutputStream openDataOutputStream() throws IOException
+    {
+      return new DataOutputStream( openOutputStream() );
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized InputStream openInputStream() throws IOException
+    {
+      if ( this.inputStream == null )
+      {
+        // closing the stream should not close the underlying connection...
+        this.inputStream = new FilterInputStream( this.connection.openInputStream() )
+        {
+          @Override
+          public void close()
+          {
+            // NO-op
+          }
+        };
+      }
+      return this.inputStream;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public synchronized OutputStream openOutputStream() throws IOException
+    {
+      if ( this.outputStream == null )
+      {
+        // closing the stream should not close the underlying connection...
+        this.outputStream = new FilterOutputStream( this.connection.openOutputStream() )
+        {
+          @Override
+          public void close() throws IOException
+          {
+            flush();
+          }
+
+          @Override
+          public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+          {
+            this.out.write( aBuffer, aOffset, aLength );
+          }
+        };
+      }
+      return this.outputStream;
+    }
+  }
+
+  /**
+   * Denotes an idle connection in this cache.
+   */
+  private static final class IdleConnection
+  {
+    // VARIABLES
+
+    final CachedConnection connection;
+    ScheduledFuture<?> closeTask;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new IdleConnection instance.
+     */
+    IdleConnection( final CachedConnection aConnection )
+    {
+      this.connection = aConnection;
+    }
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( ConnectionCache.class.getName() );
+
+  // VARIABLES
+
+  private final ConnectionOpener opener;
+  private final long idleTimeout;
+  private final Map<String, IdleConnection> idleConnections;
+  private final ScheduledExecutorService scheduler;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ConnectionCache instance.
+   * 
+   * @param aOpener
+   *          the opener of new connections, cannot be <code>null</code>;
+   * @param aIdleTimeout
+   *          the time (in milliseconds) an idle connection is kept open, > 0.
+   */
+  public ConnectionCache( final ConnectionOpener aOpener, final long aIdleTimeout )
+  {
+    if ( aOpener == null )
+    {
+      throw new IllegalArgumentException( "Opener cannot be null!" );
+    }
+    if ( aIdleTimeout <= 0L )
+    {
+      throw new IllegalArgumentException( "Idle timeout should be positive!" );
+    }
+
+    this.opener = aOpener;
+    this.idleTimeout = aIdleTimeout;
+    this.idleConnections = new HashMap<String, IdleConnection>();
+    this.scheduler = Executors.newSingleThreadScheduledExecutor( new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "LogicSniffer connection cache" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
+  // METHODS
+
+  /**
+   * Closes a given connection, logging any problems.
+   * 
+   * @param aConnection
+   *          the connection to close, cannot be <code>null</code>.
+   */
+  private static void closeConnection( final StreamConnection aConnection )
+  {
+    try
+    {
+      aConnection.close();
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.WARNING, "Closing cached connection failed!", exception );
+    }
+  }
+
+  /**
+   * Validates the given connection by querying the ID of the device.
+   * 
+   * @param aConnection
+   *          the connection to validate, cannot be <code>null</code>.
+   * @return <code>true</code> if the device responded with a valid ID,
+   *         <code>false</code> otherwise.
+   */
+  static boolean isValid( final StreamConnection aConnection )
+  {
+    try
+    {
+      final DataInputStream is = aConnection.openDataInputStream();
+      final OutputStream os = aConnection.openOutputStream();
+
+      HostUtils.flushInputStream( is );
+
+      // reset the device and ask for its ID...
+      os.write( new byte[] { SumpProtocolConstants.CMD_RESET, SumpProtocolConstants.CMD_RESET,
+          SumpProtocolConstants.CMD_RESET, SumpProtocolConstants.CMD_RESET, SumpProtocolConstants.CMD_RESET,
+          SumpProtocolConstants.CMD_ID } );
+      os.flush();
+
+      return is.readInt() == SumpProtocolConstants.SLA_V1;
+    }
+    catch ( IOException exception )
+    {
+      LOG.log( Level.FINE, "Validation of cached connection failed!", exception );
+      return false;
+    }
+  }
+
+  /**
+   * Returns a connection to the given port, reusing an idle connection if
+   * possible.
+   * 
+   * @param aPortName
+   *          the name of the port to connect to;
+   * @param aURI
+   *          the URI of the connection, denoting the port and its options.
+   * @return a connection, never <code>null</code>. Closing this connection
+   *         returns it to this cache.
+   * @throws IOException
+   *           in case no connection could be opened.
+   */
+  public StreamConnection acquire( final String aPortName, final String aURI ) throws IOException
+  {
+    final IdleConnection idle;
+    synchronized ( this.idleConnections )
+    {
+      idle = this.idleConnections.remove( aPortName );
+    }
+
+    if ( idle != null )
+    {
+      idle.closeTask.cancel( false /* mayInterruptIfRunning */);
+
+      final StreamConnection conn = idle.connection.connection;
+      if ( idle.connection.uri.equals( aURI ) && isValid( conn ) )
+      {
+        LOG.log( Level.FINE, "Reusing connection to {0} ...", aPortName );
+        return new CachedConnection( aPortName, aURI, conn );
+      }
+
+      LOG.log( Level.FINE, "Closing (stale) connection to {0} ...", aPortName );
+      closeConnection( conn );
+    }
+
+    return new CachedConnection( aPortName, aURI, this.opener.open( aURI ) );
+  }
+
+  /**
+   * Closes all idle connections and stops this cache.
+   */
+  @Override
+  public void close()
+  {
+    final List<IdleConnection> connections;
+    synchronized ( this.idleConnections )
+    {
+      connections = new ArrayList<IdleConnection>( this.idleConnections.values() );
+      this.idleConnections.clear();
+    }
+
+    this.scheduler.shutdownNow();
+
+    for ( IdleConnection idle : connections )
+    {
+      closeConnection( idle.connection.connection );
+    }
+  }
+
+  /**
+   * Returns the number of idle connections in this cache.
+   * 
+   * @return an idle connection count, >= 0.
+   */
+  int getIdleConnectionCount()
+  {
+    synchronized ( this.idleConnections )
+    {
+      return this.idleConnections.size();
+    }
+  }
+
+  /**
+   * Returns the given connection to this cache, and schedules it to be closed
+   * after the idle timeout.
+   * 
+   * @param aConnection
+   *          the connection to release, cannot be <code>null</code>.
+   */
+  void release( final CachedConnection aConnection )
+  {
+    final IdleConnection idle = new IdleConnection( aConnection );
+
+    final IdleConnection previous;
+    synchronized ( this.idleConnections )
+    {
+      if ( this.scheduler.isShutdown() )
+      {
+        closeConnection( aConnection.connection );
+        return;
+      }
+
+      previous = this.idleConnections.put( aConnection.portName, idle );
+      idle.closeTask = this.scheduler.schedule( new Runnable()
+      {
+        @Override
+        public void run()
+        {
+          closeIdleConnection( idle );
+        }
+      }, this.idleTimeout, TimeUnit.MILLISECONDS );
+    }
+
+    if ( previous != null )
+    {
+      previous.closeTask.cancel( false /* mayInterruptIfRunning */);
+      closeConnection( previous.connection.connection );
+    }
+  }
+
+  /**
+   * Closes the given idle connection, if it is still idle.
+   * 
+   * @param aIdle
+   *          the idle connection to close, cannot be <code>null</code>.
+   */
+  final void closeIdleConnection( final IdleConnection aIdle )
+  {
+    synchronized ( this.idleConnections )
+    {
+      if ( this.idleConnections.get( aIdle.connection.portName ) != aIdle )
+      {
+        return;
+      }
+      this.idleConnections.remove( aIdle.connection.portName );
+    }
+
+    LOG.log( Level.FINE, "Closing idle connection to {0} ...", aIdle.connection.portName );
+    closeConnection( aIdle.connection.connection );
+  }
+}
@@ -0,0 +1,121 @@
+/*
+ * OpenBench LogicSniffer / SUMP project
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ *
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import java.util.concurrent.*;
+
+
+/**
+ * Keeps the metadata, including the resolved device profile, of the devices
+ * detected on each port.
+ * <p>
+ * Detecting a device, that is, querying its ID and metadata, and resolving its
+ * device profile, takes a couple of round trips to the device. As long as the
+ * device on a port responds with a valid ID, it is considered to be the same
+ * device and its cached metadata can be used instead.
+ * </p>
+ */
+public final class DetectedDeviceCache
+{
+  // VARIABLES
+
+  private final ConcurrentMap<String, LogicSnifferMetadata> entries;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DetectedDeviceCache instance.
+   */
+  public DetectedDeviceCache()
+  {
+    this.entries = new ConcurrentHashMap<String, LogicSnifferMetadata>();
+  }
+
+  // METHODS
+
+  /**
+   * Creates the key for the given port name and baudrate.
+   */
+  private static String createKey( final String aPortName, final int aBaudrate )
+  {
+    return aPortName + "@" + aBaudrate;
+  }
+
+  /**
+   * Returns the cached metadata of the device on the given port.
+   * 
+   * @param aPortName
+   *          the name of the port the device is attached to;
+   * @param aBaudrate
+   *          the baudrate used to talk to the device.
+   * @return the cached metadata, or <code>null</code> if no device was detected
+   *         on the given port.
+   */
+  public LogicSnifferMetadata get( final String aPortName, final int aBaudrate )
+  {
+    if ( aPortName == null )
+    {
+      return null;
+    }
+    return this.entries.get( createKey( aPortName, aBaudrate ) );
+  }
+
+  /**
+   * Removes the cached metadata of the device on the given port, for example,
+   * because the device no longer responds.
+   * 
+   * @param aPortName
+   *          the name of the port the device is attached to;
+   * @param aBaudrate
+   *          the baudrate used to talk to the device.
+   */
+  public void invalidate( final String aPortName, final int aBaudrate )
+  {
+    if ( aPortName != null )
+    {
+      this.entries.remove( createKey( aPortName, aBaudrate ) );
+    }
+  }
+
+  /**
+   * Caches the metadata of the device detected on the given port.
+   * 
+   * @param aPortName
+   *          the name of the port the device is attached to;
+   * @param aBaudrate
+   *          the baudrate used to talk to the device;
+   * @param aMetadata
+   *          the metadata of the detected device, including its device
+   *          profile, cannot be <code>null</code>.
+   */
+  public void put( final String aPortName, final int aBaudrate, final LogicSnifferMetadata aMetadata )
+  {
+    if ( aMetadata == null )
+    {
+      throw new IllegalArgumentException( "Metadata cannot be null!" );
+    }
+    if ( aPortName != null )
+    {
+      this.entries.put( createKey( aPortName, aBaudrate ), aMetadata );
+    }
+  }
+}
@@ -22,7 +22,7 @@ package org.sump.device.logicsniffer;
 
 
 import java.io.*;
-import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 import javax.microedition.io.*;
@@ -42,22 +42,59 @@ import org.sump.device.logicsniffer.sampleprocessor.*;
  * Provides an acquisition task that uses the SUMP protocol for talking with a
  * LogicSniffer device on a serial/USB port.
  */
-public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, AcquisitionTask
+public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, AcquisitionTask, AcquisitionMetricsProvider
 {
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( LogicSnifferAcquisitionTask.class.getName() );
 
+  /** The number of samples to read at once, before reporting progress. */
+  private static final int READ_BLOCK_SIZE = 1024;
+  /** The number of blocks that can be read ahead of the sample processing. */
+  private static final int PIPELINE_BLOCK_COUNT = 64;
+
+  /**
+   * Whether or not the samples are processed while they are being read from
+   * the device. If disabled, all samples are read first and processed
+   * afterwards.
+   */
+  private static final boolean PIPELINED_PROCESSING = !Boolean.getBoolean( "nl.lxtreme.ols.acquisition.sequential" );
+
+  /**
+   * The minimal number of RLE-encoded samples for which it pays off to decode
+   * them in parallel once they are all read, rather than decoding them while
+   * they are being read. Can be overridden by the system property
+   * "nl.lxtreme.ols.logicsniffer.parallelRleThreshold".
+   */
+  private static final int PARALLEL_RLE_THRESHOLD = Integer.getInteger(
+      "nl.lxtreme.ols.logicsniffer.parallelRleThreshold", 1 << 20 ).intValue();
+
+  /**
+   * The interval (in milliseconds) in which is checked whether the trigger has
+   * fired, which also bounds the time it takes to cancel a capture while
+   * waiting for the trigger. Can be overridden by the system property
+   * "nl.lxtreme.ols.logicsniffer.triggerPollInterval"; a value of zero blocks
+   * on reading the first sample instead, for connections that cannot tell
+   * whether data is available.
+   */
+  private static final long TRIGGER_POLL_INTERVAL = Long.getLong( "nl.lxtreme.ols.logicsniffer.triggerPollInterval",
+      10L ).longValue();
+
   // VARIABLES
 
   private final DeviceProfileManager deviceProfileManager;
   private final AcquisitionProgressListener acquisitionProgressListener;
   private final LogicSnifferConfig config;
+  private final DetectedDeviceCache detectedDeviceCache;
 
   private StreamConnection connection;
   private SumpResultReader inputStream;
   private SumpCommandWriter outputStream;
+  private AcquisitionPlan plan;
   private int trigcount;
+  private boolean deviceDetected;
+  private long triggerTime;
+  private volatile AcquisitionMetrics acquisitionMetrics;
 
   // CONSTRUCTORS
 
@@ -66,10 +103,34 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
    */
   public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final StreamConnection aConnection,
       final DeviceProfileManager aDeviceProfileManager, final AcquisitionProgressListener aProgressListener )
+  {
+    this( aConfig, aConnection, aDeviceProfileManager, null /* aDetectedDeviceCache */, aProgressListener );
+  }
+
+  /**
+   * Creates a new LogicSnifferAcquisitionTask instance that uses the given
+   * cache to avoid detecting the same device over and over again.
+   * 
+   * @param aConfig
+   *          the configuration of the device to use;
+   * @param aConnection
+   *          the connection to the device;
+   * @param aDeviceProfileManager
+   *          the device profile manager to use;
+   * @param aDetectedDeviceCache
+   *          the cache with the metadata of detected devices, can be
+   *          <code>null</code>;
+   * @param aProgressListener
+   *          the listener to report the acquisition progress to.
+   */
+  public LogicSnifferAcquisitionTask( final LogicSnifferConfig aConfig, final StreamConnection aConnection,
+      final DeviceProfileManager aDeviceProfileManager, final DetectedDeviceCache aDetectedDeviceCache,
+      final AcquisitionProgressListener aProgressListener )
   {
     this.config = aConfig;
     this.connection = aConnection;
     this.deviceProfileManager = aDeviceProfileManager;
+    this.detectedDeviceCache = aDetectedDeviceCache;
     this.acquisitionProgressListener = aProgressListener;
   }
 
@@ -92,8 +153,19 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   {
     LOG.info( "Starting capture ..." );
 
-    // First try to find the logic sniffer itself...
-    detectDevice();
+    final long startTime = System.nanoTime();
+
+    // First try to find the logic sniffer itself; this only needs to be done
+    // once while the connection is open, unless a capture fails...
+    if ( this.deviceDetected )
+    {
+      this.inputStream.flush();
+    }
+    else if ( !verifyDetectedDevice() )
+    {
+      detectDevice();
+    }
+    this.deviceDetected = false;
 
     // check if data needs to be multiplexed
     final int channelCount = this.config.getChannelCount();
@@ -111,51 +183,73 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     // Setup/configure the device with the UI-settings...
     configureAndArmDevice();
 
-    final int[] buffer = new int[sampleCount];
-    int sampleIdx = awaitTrigger( buffer );
+    final long armedTime = System.nanoTime();
+    this.triggerTime = armedTime;
 
-    if ( LOG.isLoggable( Level.FINE ) && ( sampleIdx < sampleCount ) )
-    {
-      LOG.log( Level.FINE, "Trigger(s) fired! Reading {0} samples of {1} bytes ...",
-          new Object[] { Integer.valueOf( sampleCount ), Integer.valueOf( this.config.getEnabledGroupCount() ) } );
-    }
+    final AcquisitionPlan acquisitionPlan = this.plan;
 
-    // read all other samples
-    sampleIdx = readSamples( sampleIdx, buffer );
+    // The samples are processed while they are being read, the transitions are
+    // collected directly in primitive arrays...
+    final TransitionCollector transitions = new TransitionCollector();
+    final StreamingSampleProcessor processor = createStreamingSampleProcessor( sampleCount, transitions );
+    final SamplePipeline pipeline = new SamplePipeline( processor, READ_BLOCK_SIZE, PIPELINE_BLOCK_COUNT );
+    pipeline.start();
 
-    LOG.log( Level.FINE, "{0} samples read. Starting post processing...", Integer.valueOf( sampleCount - sampleIdx - 1 ) );
+    int samplesRead = 0;
+    long readoutEndTime = armedTime;
 
-    final List<Integer> values = new ArrayList<Integer>();
-    final List<Long> timestamps = new ArrayList<Long>();
+    boolean finished = false;
+    try
+    {
+      samplesRead = readSamples( pipeline, sampleCount );
+      readoutEndTime = System.nanoTime();
 
-    // collect additional information for CapturedData; we use arrays here,
-    // as their values are to be filled from anonymous inner classes...
-    final long[] absoluteLength = { 0L };
-    final long[] triggerPos = { Ols.NOT_AVAILABLE };
-    final int rate = this.config.getSampleRate();
+      LOG.log( Level.FINE, "{0} samples read. Finishing post processing...", Integer.valueOf( samplesRead ) );
 
-    final SampleProcessorCallback callback = new SampleProcessorCallback()
+      pipeline.finish();
+      finished = true;
+    }
+    finally
     {
-      public void addValue( final int aSampleValue, final long aTimestamp )
+      if ( !finished )
       {
-        values.add( Integer.valueOf( aSampleValue ) );
-        timestamps.add( Long.valueOf( aTimestamp ) );
+        pipeline.abort();
       }
+    }
 
-      public void ready( final long aAbsoluteLength, final long aTriggerPosition )
-      {
-        absoluteLength[0] = aAbsoluteLength;
-        if ( LogicSnifferAcquisitionTask.this.config.isTriggerEnabled() )
-        {
-          triggerPos[0] = aTriggerPosition;
-        }
-      }
-    };
-    // Process the actual samples...
-    createSampleProcessor( sampleCount, buffer, callback ).process();
+    long triggerPos = Ols.NOT_AVAILABLE;
+    if ( acquisitionPlan.isTriggerEnabled() )
+    {
+      triggerPos = transitions.getTriggerPosition();
+    }
+
+    this.deviceDetected = true;
+
+    long bufferMemory = ( long )READ_BLOCK_SIZE * PIPELINE_BLOCK_COUNT * 4L + transitions.getPeakMemoryUsage();
+    if ( processor instanceof BufferedSampleProcessor )
+    {
+      bufferMemory += 4L * sampleCount;
+    }
 
-    return new CapturedData( values, timestamps, triggerPos[0], rate, channelCount,
-        this.config.getEnabledChannelsMask(), absoluteLength[0] );
+    this.acquisitionMetrics = new AcquisitionMetrics( armedTime - startTime, this.triggerTime - armedTime,
+        readoutEndTime - this.triggerTime, pipeline.getProcessingTime(),
+        ( long )samplesRead * acquisitionPlan.getEnabledGroupCount(), samplesRead, transitions.getSize(), bufferMemory );
+
+    return new CapturedData( transitions.getValues(), transitions.getTimestamps(), triggerPos,
+        acquisitionPlan.getSampleRate(), channelCount, acquisitionPlan.getEnabledChannelsMask(),
+        transitions.getAbsoluteLength() );
+  }
+
+  /**
+   * Returns the metrics of the last successful capture of this task.
+   * 
+   * @return the acquisition metrics, or <code>null</code> if no capture has
+   *         completed yet.
+   */
+  @Override
+  public AcquisitionMetrics getAcquisitionMetrics()
+  {
+    return this.acquisitionMetrics;
   }
 
   /**
@@ -221,6 +315,7 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
           this.connection = null;
           this.outputStream = null;
           this.inputStream = null;
+          this.deviceDetected = false;
         }
       }
     }
@@ -252,6 +347,7 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
       this.outputStream = new SumpCommandWriter( this.config, conn.openDataOutputStream() );
       this.inputStream = new SumpResultReader( this.config, conn.openDataInputStream() );
+      this.deviceDetected = false;
 
       // We don't expect any data, so flush all data pending in the given
       // input stream. See issue #34.
@@ -275,16 +371,32 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
 
   /**
    * Configures the device and arms it so that it starts capturing.
+   * <p>
+   * This also takes a snapshot of the current configuration, which is used
+   * while reading and processing the samples of this capture.
+   * </p>
    * 
    * @throws IOException
    *           in case of I/O problems.
    */
   void configureAndArmDevice() throws IOException
   {
-    this.trigcount = this.outputStream.writeDeviceConfiguration();
+    this.plan = new AcquisitionPlan( this.config );
+
+    // Send the configuration and the run command as a single block, avoiding
+    // a separate (USB) transfer for each of the commands...
+    this.outputStream.beginBatch();
+    try
+    {
+      this.trigcount = this.outputStream.writeDeviceConfiguration();
 
-    // We're ready to process the samples from the device...
-    this.outputStream.writeCmdRun();
+      // We're ready to process the samples from the device...
+      this.outputStream.writeCmdRun();
+    }
+    finally
+    {
+      this.outputStream.endBatch();
+    }
   }
 
   /**
@@ -322,30 +434,55 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   /**
    * Waits until the trigger is fired, or when the first sample is available (in
    * case no triggers are defined).
+   * <p>
+   * While waiting, the availability of data is checked every poll interval, so
+   * the wait ends shortly after the current thread is interrupted (that is, the
+   * capture is cancelled).
+   * </p>
    * 
    * @param aBuffer
    *          the buffer to fill with the read sample.
-   * @return the sample index after the first read/trigger.
+   * @return the number of samples read, 0 or 1.
    * @throws IOException
-   *           in case of I/O problems;
-   * @throws InterruptedException
-   *           in case the acquisition is interrupted.
+   *           in case of I/O problems.
    */
-  private int awaitTrigger( final int[] aBuffer ) throws IOException, InterruptedException
+  private int awaitTrigger( final int[] aBuffer ) throws IOException
   {
-    int sampleIdx = aBuffer.length - 1;
-    boolean waiting = ( sampleIdx >= 0 );
+    int samplesRead = 0;
+    boolean waiting = ( aBuffer.length > 0 );
+
+    // without any enabled group, the device will never send us anything, and
+    // we would wait forever as no sample is ever read...
+    assert this.plan.getEnabledGroupCount() > 0 : "Internal error: enabled group count should be at least 1!";
 
     LOG.log( Level.FINE, "Awaiting trigger ..." );
 
+    if ( waiting && ( this.acquisitionProgressListener instanceof AcquisitionArmedListener ) )
+    {
+      ( ( AcquisitionArmedListener )this.acquisitionProgressListener ).acquisitionArmed();
+    }
+
+    final long startTime = System.nanoTime();
+
     // wait for first byte forever (trigger could cause long initial delays)
     while ( waiting && !Thread.currentThread().isInterrupted() )
     {
       try
       {
-        aBuffer[sampleIdx] = this.inputStream.readSample();
-        sampleIdx--;
-        waiting = false;
+        if ( ( TRIGGER_POLL_INTERVAL <= 0L ) || this.inputStream.isDataAvailable() )
+        {
+          samplesRead = this.inputStream.readSamples( this.plan, aBuffer, 0, 1 );
+          waiting = ( samplesRead == 0 );
+        }
+        else
+        {
+          Thread.sleep( TRIGGER_POLL_INTERVAL );
+        }
+      }
+      catch ( InterruptedException exception )
+      {
+        // Capture is cancelled; let our caller finish the capture...
+        Thread.currentThread().interrupt();
       }
       catch ( IOException exception )
       {
@@ -355,15 +492,15 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
           throw exception;
         }
       }
-      catch ( InterruptedException exception )
-      {
-        // When running, we simply have a timeout; this could be that the
-        // trigger is not fired yet... We keep waiting...
-        LOG.fine( "Interrupted while awaiting trigger; ignoring it & continue waiting..." );
-      }
     }
 
-    return sampleIdx;
+    if ( LOG.isLoggable( Level.FINE ) )
+    {
+      LOG.log( Level.FINE, "Waited {0} ms for trigger ...",
+          Long.valueOf( TimeUnit.NANOSECONDS.toMillis( System.nanoTime() - startTime ) ) );
+    }
+
+    return samplesRead;
   }
 
   /**
@@ -382,19 +519,80 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
       final SampleProcessorCallback aCallback )
   {
     final SampleProcessor processor;
-    if ( this.config.isRleEnabled() )
+    if ( this.plan.isRleEnabled() )
     {
       LOG.log( Level.INFO, "Decoding Run Length Encoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new RleDecoder( this.config, aSampleValues, this.trigcount, aCallback );
+      processor = new ParallelRleDecoder( this.plan, aSampleValues, this.trigcount, aCallback );
     }
     else
     {
       LOG.log( Level.INFO, "Decoding unencoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
-      processor = new EqualityFilter( this.config, aSampleValues, this.trigcount, aCallback );
+      processor = new EqualityFilter( this.plan, aSampleValues, this.trigcount, aCallback );
     }
     return processor;
   }
 
+  /**
+   * Factory method to create a sample processor that processes the samples
+   * while they are read from the device.
+   * <p>
+   * Devices that send their samples in "reverse" order actually send them in
+   * chronological order, and can be decoded in the common way. Otherwise, the
+   * samples are decoded from the tail of the capture. In case the samples
+   * cannot be processed while reading them (RLE in DDR mode for a device that
+   * sends its samples last sample first), or if pipelined processing is
+   * disabled, the samples are processed once they are all read.
+   * </p>
+   * <p>
+   * Large RLE-encoded captures are also processed once they are all read, as
+   * they can then be decoded in parallel, which outweighs the time saved by
+   * decoding them on a single thread during the read.
+   * </p>
+   * 
+   * @param aSampleCount
+   *          the sample count;
+   * @param aCallback
+   *          the processor callback to use.
+   * @return a streaming sample processor instance, never <code>null</code>.
+   */
+  private StreamingSampleProcessor createStreamingSampleProcessor( final int aSampleCount,
+      final SampleProcessorCallback aCallback )
+  {
+    final boolean chronological = this.plan.isSamplesInReverseOrder();
+    final boolean decodeRleInParallel = this.plan.isRleEnabled() && ( aSampleCount >= PARALLEL_RLE_THRESHOLD )
+        && ( Runtime.getRuntime().availableProcessors() > 1 );
+
+    if ( PIPELINED_PROCESSING && !decodeRleInParallel )
+    {
+      if ( this.plan.isRleEnabled() )
+      {
+        if ( chronological )
+        {
+          LOG.log( Level.INFO, "Decoding Run Length Encoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
+          return new RleDecoder( this.plan, aSampleCount, this.trigcount, aCallback );
+        }
+        else if ( !this.plan.isDoubleDataRateEnabled() )
+        {
+          LOG.log( Level.INFO, "Decoding Run Length Encoded data in reverse, sample count: {0}",
+              Integer.valueOf( aSampleCount ) );
+          return new ReverseRleDecoder( this.plan, aSampleCount, this.trigcount, aCallback );
+        }
+      }
+      else
+      {
+        LOG.log( Level.INFO, "Decoding unencoded data, sample count: {0}", Integer.valueOf( aSampleCount ) );
+        if ( chronological )
+        {
+          return new EqualityFilter( this.plan, aSampleCount, this.trigcount, aCallback );
+        }
+        return new ReverseEqualityFilter( this.plan, aSampleCount, this.trigcount, aCallback );
+      }
+    }
+
+    final int[] buffer = new int[aSampleCount];
+    return new BufferedSampleProcessor( buffer, !chronological, createSampleProcessor( aSampleCount, buffer, aCallback ) );
+  }
+
   /**
    * Tries to detect the LogicSniffer device.
    * 
@@ -464,7 +662,74 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
     {
       final DeviceProfile profile = getDeviceProfile( metadata );
       this.config.setDeviceProfile( profile );
+
+      metadata.setDeviceProfile( profile );
+      if ( this.detectedDeviceCache != null )
+      {
+        this.detectedDeviceCache.put( this.config.getPortName(), this.config.getBaudrate(), metadata );
+      }
+    }
+  }
+
+  /**
+   * Verifies whether the device on the current port is the one that was
+   * detected before, in which case its cached metadata is used.
+   * <p>
+   * Unlike {@link #detectDevice()}, this only does a single reset and ID query,
+   * without retries and without querying the metadata of the device.
+   * </p>
+   * 
+   * @return <code>true</code> if the cached metadata of the device is used,
+   *         <code>false</code> if the device needs to be detected.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private boolean verifyDetectedDevice() throws IOException
+  {
+    if ( this.detectedDeviceCache == null )
+    {
+      return false;
+    }
+
+    final String portName = this.config.getPortName();
+    final int baudrate = this.config.getBaudrate();
+
+    final LogicSnifferMetadata metadata = this.detectedDeviceCache.get( portName, baudrate );
+    if ( metadata == null )
+    {
+      return false;
+    }
+
+    // Make sure nothing is left in our input buffer...
+    this.inputStream.flush();
+
+    // reset the device first; to ensure it is in the proper initial state...
+    this.outputStream.writeCmdReset();
+    this.outputStream.writeCmdGetId();
+
+    int id = -1;
+    try
+    {
+      id = this.inputStream.readDeviceId();
+    }
+    catch ( final IOException exception )
+    {
+      // Make sure to handle IO-interrupted exceptions properly!
+      if ( !HostUtils.handleInterruptedException( exception ) )
+      {
+        LOG.log( Level.FINE, "Verification of detected device failed!", exception );
+      }
+    }
+
+    if ( id != SLA_V1 )
+    {
+      LOG.log( Level.INFO, "Device on {0} has changed; detecting it again ...", portName );
+      this.detectedDeviceCache.invalidate( portName, baudrate );
+      return false;
     }
+
+    this.config.setDeviceProfile( metadata.getDeviceProfile() );
+    return true;
   }
 
   /**
@@ -544,30 +809,62 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
   }
 
   /**
-   * Reads the remaining samples.
+   * Reads all samples from the device, and passes them in blocks to the given
+   * sample pipeline.
+   * <p>
+   * The samples are passed in the order as they are sent by the device.
+   * </p>
    * 
-   * @param aSampleIdx
-   *          the sample index where to start filling samples in the given
-   *          buffer;
-   * @param aBuffer
-   *          the buffer to fill with sample data.
-   * @return the final sample index, >= 0 && < aBuffer.length.
+   * @param aPipeline
+   *          the pipeline to pass the read samples to;
+   * @param aSampleCount
+   *          the number of samples to read.
+   * @return the total number of samples read, >= 0 && <= aSampleCount.
    * @throws IOException
-   *           in case of I/O problems;
-   * @throws InterruptedException
-   *           in case the current thread was interrupted.
+   *           in case of I/O problems.
    */
-  private int readSamples( int aSampleIdx, final int[] aBuffer ) throws IOException, InterruptedException
+  private int readSamples( final SamplePipeline aPipeline, final int aSampleCount ) throws IOException
   {
+    int[] block = aPipeline.acquireBlock();
+    int blockLength = awaitTrigger( block );
+    this.triggerTime = System.nanoTime();
+
+    if ( LOG.isLoggable( Level.FINE ) && ( blockLength > 0 ) )
+    {
+      LOG.log( Level.FINE, "Trigger(s) fired! Reading {0} samples of {1} bytes ...",
+          new Object[] { Integer.valueOf( aSampleCount ), Integer.valueOf( this.plan.getEnabledGroupCount() ) } );
+    }
+
+    int count = blockLength;
     try
     {
-      for ( ; ( aSampleIdx >= 0 ) && !Thread.currentThread().isInterrupted(); aSampleIdx-- )
+      while ( ( count < aSampleCount ) && !Thread.currentThread().isInterrupted() )
       {
-        aBuffer[aSampleIdx] = this.inputStream.readSample();
+        if ( blockLength == block.length )
+        {
+          aPipeline.submitBlock( block, blockLength );
+
+          block = aPipeline.acquireBlock();
+          blockLength = 0;
+        }
 
-        final int percentage = ( int )( 100.0 - ( ( 100.0 * aSampleIdx ) / aBuffer.length ) );
+        final int length = Math.min( block.length - blockLength, aSampleCount - count );
+        final int read = this.inputStream.readSamples( this.plan, block, blockLength, length );
+        blockLength += read;
+        count += read;
+
+        final int percentage = ( int )( ( 100.0 * count ) / aSampleCount );
         this.acquisitionProgressListener.acquisitionInProgress( percentage );
       }
+
+      if ( count < aSampleCount )
+      {
+        LOG.log( Level.WARNING, "Capture interrupted! Only {0} samples read ...", Integer.valueOf( count ) );
+
+        // Make sure the device is in a state were we can do something with
+        // it after this method is completed...
+        this.outputStream.writeCmdFinishNow();
+      }
     }
     catch ( IOException exception )
     {
@@ -577,30 +874,14 @@ public class LogicSnifferAcquisitionTask implements SumpProtocolConstants, Acqui
         throw exception;
       }
     }
-    catch ( InterruptedException exception )
-    {
-      LOG.log( Level.WARNING, "Capture interrupted! Only {0} samples read ...",
-          Integer.valueOf( aBuffer.length - aSampleIdx ) );
-
-      if ( Thread.currentThread().isInterrupted() )
-      {
-        // Make sure the device is in a state were we can do something with
-        // it after this method is completed...
-        this.outputStream.writeCmdFinishNow();
-      }
-    }
     finally
     {
       this.acquisitionProgressListener.acquisitionInProgress( 100 );
     }
 
-    // In case the device sends its samples in "reverse" order, we need to
-    // revert it now, before processing them further...
-    if ( this.config.isSamplesInReverseOrder() )
-    {
-      HostUtils.reverse( aBuffer );
-    }
+    // Pass the last (partial) block as well...
+    aPipeline.submitBlock( block, blockLength );
 
-    return aSampleIdx;
+    return count;
   }
 }
@@ -236,6 +236,7 @@ public final class LogicSnifferConfigDialog extends JDialog implements ActionLis
   // VARIABLES
 
   private final DeviceProfileManagerTracker deviceProfileManagerTracker;
+  private final DetectedDeviceCache detectedDeviceCache;
   private final StreamConnectionFactory connectionFactory;
 
   private LogicSnifferDeviceProfilePanel deviceProfilePanel;
@@ -287,15 +288,18 @@ public final class LogicSnifferConfigDialog extends JDialog implements ActionLis
    * @param aConfig
    *          the logic sniffer device to configure.
    * @param aStreamConnectionFactory
+   * @param aDetectedDeviceCache
+   *          the cache to store detected devices in.
    */
   public LogicSnifferConfigDialog( final Window aParent, final LogicSnifferConfig aConfig,
       final DeviceProfileManagerTracker aDeviceProfileManagerTracker,
-      final StreamConnectionFactory aStreamConnectionFactory )
+      final StreamConnectionFactory aStreamConnectionFactory, final DetectedDeviceCache aDetectedDeviceCache )
   {
     super( aParent, "OLS Capture settings", ModalityType.DOCUMENT_MODAL );
 
     this.deviceProfileManagerTracker = aDeviceProfileManagerTracker;
     this.connectionFactory = aStreamConnectionFactory;
+    this.detectedDeviceCache = aDetectedDeviceCache;
     this.config = aConfig;
 
     initDialog();
@@ -730,14 +734,17 @@ public final class LogicSnifferConfigDialog extends JDialog implements ActionLis
       private static final long serialVersionUID = 1L;
 
       @Override
-      protected StreamConnection getConnection() throws IOException
+      protected LogicSnifferDetectionTask createDetectionTask() throws IOException
       {
+        final LogicSnifferConfig cfg = LogicSnifferConfigDialog.this.config;
+
         // We've to create a new connection each, as the settings can be changed
         // on-the-fly by the user...
-        return LogicSnifferConfigDialog.this.connectionFactory.getConnection(
-            LogicSnifferConfigDialog.this.config.getPortName(), LogicSnifferConfigDialog.this.config.getBaudrate(),
-            LogicSnifferConfigDialog.this.config.isOpenPortDtr(),
-            LogicSnifferConfigDialog.this.config.getOpenPortDelay() );
+        final StreamConnection connection = LogicSnifferConfigDialog.this.connectionFactory.getConnection(
+            cfg.getPortName(), cfg.getBaudrate(), cfg.isOpenPortDtr(), cfg.getOpenPortDelay() );
+
+        return new LogicSnifferDetectionTask( getDeviceProfileManager(), connection,
+            LogicSnifferConfigDialog.this.detectedDeviceCache, cfg.getPortName(), cfg.getBaudrate() );
       }
 
       @Override
@@ -50,6 +50,9 @@ public class LogicSnifferDetectionTask implements Task<LogicSnifferMetadata>, Su
   private final StreamConnection connection;
   private final DataInputStream inputStream;
   private final DataOutputStream outputStream;
+  private final DetectedDeviceCache detectedDeviceCache;
+  private final String portName;
+  private final int baudrate;
 
   // CONSTRUCTORS
 
@@ -62,6 +65,33 @@ public class LogicSnifferDetectionTask implements Task<LogicSnifferMetadata>, Su
   public LogicSnifferDetectionTask( final DeviceProfileManager aManager, final StreamConnection aConnection )
       throws IOException
   {
+    this( aManager, aConnection, null /* aCache */, null /* aPortName */, 0 /* aBaudrate */);
+  }
+
+  /**
+   * Creates a new LogicSnifferDetectionTask instance that stores the detected
+   * metadata in the given cache.
+   * 
+   * @param aManager
+   *          the device profile manager to use;
+   * @param aConnection
+   *          the connection to the device;
+   * @param aCache
+   *          the cache to store the detected metadata in, can be
+   *          <code>null</code>;
+   * @param aPortName
+   *          the name of the port the device is attached to;
+   * @param aBaudrate
+   *          the baudrate used to talk to the device.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public LogicSnifferDetectionTask( final DeviceProfileManager aManager, final StreamConnection aConnection,
+      final DetectedDeviceCache aCache, final String aPortName, final int aBaudrate ) throws IOException
+  {
+    this.detectedDeviceCache = aCache;
+    this.portName = aPortName;
+    this.baudrate = aBaudrate;
     this.manager = aManager;
     this.connection = aConnection;
     this.inputStream = aConnection.openDataInputStream();
@@ -94,6 +124,12 @@ public class LogicSnifferDetectionTask implements Task<LogicSnifferMetadata>, Su
         // Determine the device profile based on the information of the
         // metadata; it will be placed in the given metadata object...
         getDeviceProfile( metadata );
+
+        // Allow succeeding acquisitions to skip the detection of the device...
+        if ( this.detectedDeviceCache != null )
+        {
+          this.detectedDeviceCache.put( this.portName, this.baudrate, metadata );
+        }
       }
 
       return metadata;
@@ -49,6 +49,7 @@ public class LogicSnifferDevice implements Device
   // VARIABLES
 
   private final LogicSnifferConfig deviceConfig;
+  private final DetectedDeviceCache detectedDeviceCache;
 
   private DeviceProfileManagerTracker deviceProfileManagerTracker;
   private StreamConnectionFactory streamConnectionFactory;
@@ -64,6 +65,7 @@ public class LogicSnifferDevice implements Device
   public LogicSnifferDevice()
   {
     this.deviceConfig = new LogicSnifferConfig();
+    this.detectedDeviceCache = new DetectedDeviceCache();
     this.setup = false;
   }
 
@@ -77,7 +79,7 @@ public class LogicSnifferDevice implements Device
       throws IOException
   {
     return new LogicSnifferAcquisitionTask( this.deviceConfig, getStreamConnection(), getDeviceProfileManager(),
-        aProgressListener );
+        this.detectedDeviceCache, aProgressListener );
   }
 
   /**
@@ -116,7 +118,7 @@ public class LogicSnifferDevice implements Device
     if ( this.configDialog == null )
     {
       this.configDialog = new LogicSnifferConfigDialog( aOwner, this.deviceConfig, this.deviceProfileManagerTracker,
-          this.streamConnectionFactory );
+          this.streamConnectionFactory, this.detectedDeviceCache );
     }
 
     this.setup = this.configDialog.showDialog();
@@ -27,7 +27,6 @@ import java.awt.*;
 import java.awt.event.*;
 import java.io.*;
 
-import javax.microedition.io.*;
 import javax.swing.*;
 
 import nl.lxtreme.ols.api.*;
@@ -285,7 +284,7 @@ public abstract class LogicSnifferDeviceProfilePanel implements Configurable
 
     try
     {
-      detectTask = new LogicSnifferDetectionTask( getDeviceProfileManager(), getConnection() );
+      detectTask = createDetectionTask();
 
       final LogicSnifferMetadata metadata = detectTask.call();
 
@@ -315,9 +314,13 @@ public abstract class LogicSnifferDeviceProfilePanel implements Configurable
   }
 
   /**
-   * @return
+   * Creates a new task for detecting the device type.
+   * 
+   * @return a new detection task, never <code>null</code>.
+   * @throws IOException
+   *           in case the connection to the device could not be opened.
    */
-  protected abstract StreamConnection getConnection() throws IOException;
+  protected abstract LogicSnifferDetectionTask createDetectionTask() throws IOException;
 
   /**
    * @return
@@ -22,6 +22,7 @@ package org.sump.device.logicsniffer;
 
 
 import java.io.*;
+import java.util.regex.*;
 
 import javax.microedition.io.*;
 
@@ -35,6 +36,28 @@ import org.osgi.util.tracker.*;
  */
 public class StreamConnectionFactory extends ServiceTracker
 {
+  // CONSTANTS
+
+  /**
+   * The time (in milliseconds) a connection is kept open after it is closed,
+   * in order to reuse it for a next acquisition. Connection reuse is disabled
+   * by default, and can be enabled with the system property
+   * "nl.lxtreme.ols.logicsniffer.connectionIdleTimeout".
+   */
+  private static final long CONNECTION_IDLE_TIMEOUT = Long.getLong(
+      "nl.lxtreme.ols.logicsniffer.connectionIdleTimeout", 0L ).longValue();
+
+  /**
+   * Matches port names that are complete connection URIs. The scheme should
+   * consist of at least two characters, in order not to mistake Windows drive
+   * letters for one.
+   */
+  private static final Pattern CONNECTION_URI_REGEX = Pattern.compile( "^[a-z][a-z0-9+.-]+:.+$" );
+
+  // VARIABLES
+
+  private final ConnectionCache connectionCache;
+
   // CONSTRUCTORS
 
   /**
@@ -45,22 +68,93 @@ public class StreamConnectionFactory extends ServiceTracker
   public StreamConnectionFactory( final BundleContext aContext )
   {
     super( aContext, ConnectorService.class.getName(), null /* aCustomizer */);
+
+    if ( CONNECTION_IDLE_TIMEOUT > 0L )
+    {
+      this.connectionCache = new ConnectionCache( new ConnectionCache.ConnectionOpener()
+      {
+        @Override
+        public StreamConnection open( final String aURI ) throws IOException
+        {
+          return openConnection( aURI );
+        }
+      }, CONNECTION_IDLE_TIMEOUT );
+    }
+    else
+    {
+      this.connectionCache = null;
+    }
   }
 
   // METHODS
 
   /**
-   * {@inheritDoc}
+   * Closes this factory, closing all connections that are kept open for
+   * reuse.
+   * 
+   * @see org.osgi.util.tracker.ServiceTracker#close()
+   */
+  @Override
+  public void close()
+  {
+    if ( this.connectionCache != null )
+    {
+      this.connectionCache.close();
+    }
+    super.close();
+  }
+
+  /**
+   * Returns a connection to the given port.
+   * <p>
+   * In case connection reuse is enabled, the returned connection might be the
+   * connection of a previous acquisition.
+   * </p>
+   * <p>
+   * A port name that already is a connection URI, such as
+   * <tt>socket://192.168.1.10:5000</tt> or <tt>virtual:dev0</tt>, is used
+   * as-is; all other port names are considered to be serial ports.
+   * </p>
    */
   public StreamConnection getConnection( final String aPortName, final int aPortRate, final boolean aDtrValue,
       final int aOpenDelay ) throws IOException
   {
-    final ConnectorService connectorService = ( ConnectorService )getService();
+    final String portUri;
+    if ( CONNECTION_URI_REGEX.matcher( aPortName ).matches() )
+    {
+      portUri = aPortName;
+    }
+    else
+    {
+      portUri = String.format(
+          "comm:%s;baudrate=%d;bitsperchar=8;parity=none;stopbits=1;flowcontrol=xon_xoff;dtr=%s;delay=%d",
+          aPortName, Integer.valueOf( aPortRate ), ( aDtrValue ? "on" : "off" ), Integer.valueOf( aOpenDelay ) );
+    }
+
+    if ( this.connectionCache != null )
+    {
+      return this.connectionCache.acquire( aPortName, portUri );
+    }
+    return openConnection( portUri );
+  }
 
-    final String portUri = String.format(
-        "comm:%s;baudrate=%d;bitsperchar=8;parity=none;stopbits=1;flowcontrol=xon_xoff;dtr=%s;delay=%d", aPortName,
-        Integer.valueOf( aPortRate ), ( aDtrValue ? "on" : "off" ), Integer.valueOf( aOpenDelay ) );
+  /**
+   * Opens a new connection for the given URI.
+   * 
+   * @param aURI
+   *          the URI of the connection to open.
+   * @return the opened connection, never <code>null</code>.
+   * @throws IOException
+   *           in case the connection could not be opened.
+   */
+  final StreamConnection openConnection( final String aURI ) throws IOException
+  {
+    final ConnectorService connectorService = ( ConnectorService )getService();
+    if ( connectorService == null )
+    {
+      throw new IOException( "No connector service available!" );
+    }
 
-    return ( StreamConnection )connectorService.open( portUri, ConnectorService.READ_WRITE, true /* timeouts */);
+    return ( StreamConnection )connectorService.open( aURI, ConnectorService.READ_WRITE, true /* timeouts */);
   }
 }
@@ -67,6 +67,156 @@ public final class DeviceProfile implements Cloneable
     SIMPLE, COMPLEX;
   }
 
+  /**
+   * Provides an immutable, parsed, representation of the properties of a
+   * device profile. The properties are parsed once, when they are set, instead
+   * of each time one of the getters of a device profile is called.
+   */
+  private static final class ProfileSettings
+  {
+    // VARIABLES
+
+    final Map<String, String> properties;
+
+    final String type;
+    final String description;
+    final DeviceInterface deviceInterface;
+    final int clockspeed;
+    final boolean ddrSupported;
+    final Integer[] sampleRates;
+    final CaptureClockSource[] captureClock;
+    final Integer[] captureSizes;
+    final boolean noiseFilterSupported;
+    final boolean rleSupported;
+    final boolean testModeSupported;
+    final boolean triggerSupported;
+    final int triggerStages;
+    final boolean complexTriggersSupported;
+    final int channelCount;
+    final int channelGroupCount;
+    final boolean captureSizeBound;
+    final NumberingScheme[] numberingSchemes;
+    final int openPortDelay;
+    final String[] metadataKeys;
+    final boolean samplesInReverseOrder;
+    final boolean openPortDtr;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ProfileSettings instance.
+     * 
+     * @param aProperties
+     *          the raw properties to parse, cannot be <code>null</code>.
+     * @throws IllegalArgumentException
+     *           in case one of the properties could not be parsed.
+     */
+    ProfileSettings( final Map<String, String> aProperties )
+    {
+      this.properties = Collections.unmodifiableMap( new HashMap<String, String>( aProperties ) );
+
+      final String typeValue = aProperties.get( DEVICE_TYPE );
+      this.type = ( typeValue == null ) ? "<unknown>" : typeValue;
+      final String descriptionValue = aProperties.get( DEVICE_DESCRIPTION );
+      this.description = ( descriptionValue == null ) ? "" : descriptionValue;
+
+      final String interfaceValue = aProperties.get( DEVICE_INTERFACE );
+      this.deviceInterface = ( interfaceValue == null ) ? null : DeviceInterface.valueOf( interfaceValue );
+
+      this.clockspeed = parseInt( aProperties.get( DEVICE_CLOCKSPEED ) );
+      this.triggerStages = parseInt( aProperties.get( DEVICE_TRIGGER_STAGES ) );
+      this.channelCount = parseInt( aProperties.get( DEVICE_CHANNEL_COUNT ) );
+      this.channelGroupCount = parseInt( aProperties.get( DEVICE_CHANNEL_GROUPS ) );
+      this.openPortDelay = parseInt( aProperties.get( DEVICE_OPEN_PORT_DELAY ) );
+
+      this.ddrSupported = Boolean.parseBoolean( aProperties.get( DEVICE_SUPPORTS_DDR ) );
+      this.noiseFilterSupported = Boolean.parseBoolean( aProperties.get( DEVICE_FEATURE_NOISEFILTER ) );
+      this.rleSupported = Boolean.parseBoolean( aProperties.get( DEVICE_FEATURE_RLE ) );
+      this.testModeSupported = Boolean.parseBoolean( aProperties.get( DEVICE_FEATURE_TEST_MODE ) );
+      this.triggerSupported = Boolean.parseBoolean( aProperties.get( DEVICE_FEATURE_TRIGGERS ) );
+      this.complexTriggersSupported = Boolean.parseBoolean( aProperties.get( DEVICE_TRIGGER_COMPLEX ) );
+      this.captureSizeBound = Boolean.parseBoolean( aProperties.get( DEVICE_CAPTURESIZE_BOUND ) );
+      this.samplesInReverseOrder = Boolean.parseBoolean( aProperties.get( DEVICE_SAMPLE_REVERSE_ORDER ) );
+      this.openPortDtr = Boolean.parseBoolean( aProperties.get( DEVICE_OPEN_PORT_DTR ) );
+
+      this.sampleRates = parseSortedIntegers( aProperties.get( DEVICE_SAMPLERATES ) );
+      this.captureSizes = parseSortedIntegers( aProperties.get( DEVICE_CAPTURESIZES ) );
+
+      final String[] clockValues = split( aProperties.get( DEVICE_CAPTURECLOCK ) );
+      this.captureClock = new CaptureClockSource[clockValues.length];
+      for ( int i = 0; i < clockValues.length; i++ )
+      {
+        this.captureClock[i] = CaptureClockSource.valueOf( clockValues[i] );
+      }
+
+      final String[] schemeValues = split( aProperties.get( DEVICE_CHANNEL_NUMBERING_SCHEMES ) );
+      this.numberingSchemes = new NumberingScheme[schemeValues.length];
+      for ( int i = 0; i < schemeValues.length; i++ )
+      {
+        this.numberingSchemes[i] = NumberingScheme.valueOf( schemeValues[i] );
+      }
+
+      final String metadataValue = aProperties.get( DEVICE_METADATA_KEYS );
+      this.metadataKeys = ( metadataValue == null ) ? new String[0] : StringUtils.tokenizeQuotedStrings(
+          metadataValue, ", " );
+    }
+
+    // METHODS
+
+    /**
+     * Parses the given value as integer.
+     * 
+     * @param aValue
+     *          the value to parse, can be <code>null</code>.
+     * @return the parsed value, or 0 if the given value was <code>null</code>.
+     */
+    private static int parseInt( final String aValue )
+    {
+      return ( aValue == null ) ? 0 : Integer.parseInt( aValue );
+    }
+
+    /**
+     * Parses the given comma separated value as integers and sorts them in
+     * descending order.
+     * 
+     * @param aValue
+     *          the value to parse, can be <code>null</code>.
+     * @return the parsed and sorted integers, never <code>null</code>.
+     */
+    private static Integer[] parseSortedIntegers( final String aValue )
+    {
+      final String[] values = split( aValue );
+      final List<Integer> result = new ArrayList<Integer>();
+      for ( String value : values )
+      {
+        result.add( Integer.valueOf( value ) );
+      }
+      Collections.sort( result, NumberUtils.<Integer> createNumberComparator( false /* aSortAscending */) );
+      return result.toArray( new Integer[result.size()] );
+    }
+
+    /**
+     * Splits the given comma separated value into its (trimmed) parts.
+     * 
+     * @param aValue
+     *          the value to split, can be <code>null</code>.
+     * @return the individual values, never <code>null</code>.
+     */
+    private static String[] split( final String aValue )
+    {
+      if ( aValue == null )
+      {
+        return new String[0];
+      }
+      final String[] result = aValue.split( ",\\s*" );
+      for ( int i = 0; i < result.length; i++ )
+      {
+        result[i] = result[i].trim();
+      }
+      return result;
+    }
+  }
+
   // CONSTANTS
 
   /** The short (single word) type of the device described in this profile */
@@ -153,7 +303,7 @@ public final class DeviceProfile implements Cloneable
 
   // VARIABLES
 
-  private final Map<String, String> properties;
+  private volatile ProfileSettings settings;
 
   // CONSTRUCTORS
 
@@ -162,7 +312,7 @@ public final class DeviceProfile implements Cloneable
    */
   public DeviceProfile()
   {
-    this.properties = new HashMap<String, String>();
+    this.settings = new ProfileSettings( Collections.<String, String> emptyMap() );
   }
 
   // METHODS
@@ -191,9 +341,8 @@ public final class DeviceProfile implements Cloneable
   {
     try
     {
-      DeviceProfile clone = ( DeviceProfile )super.clone();
-      clone.properties.putAll( this.properties );
-      return clone;
+      // The settings are immutable, so they can be shared safely...
+      return ( DeviceProfile )super.clone();
     }
     catch ( CloneNotSupportedException exception )
     {
@@ -217,7 +366,7 @@ public final class DeviceProfile implements Cloneable
     }
 
     final DeviceProfile other = ( DeviceProfile )aObject;
-    return this.properties.equals( other.properties );
+    return this.settings.properties.equals( other.settings.properties );
   }
 
   /**
@@ -227,14 +376,7 @@ public final class DeviceProfile implements Cloneable
    */
   public CaptureClockSource[] getCaptureClock()
   {
-    final String rawValue = this.properties.get( DEVICE_CAPTURECLOCK );
-    final String[] values = rawValue.split( ",\\s*" );
-    final CaptureClockSource[] result = new CaptureClockSource[values.length];
-    for ( int i = 0; i < values.length; i++ )
-    {
-      result[i] = CaptureClockSource.valueOf( values[i].trim() );
-    }
-    return result;
+    return this.settings.captureClock.clone();
   }
 
   /**
@@ -244,15 +386,7 @@ public final class DeviceProfile implements Cloneable
    */
   public Integer[] getCaptureSizes()
   {
-    final String rawValue = this.properties.get( DEVICE_CAPTURESIZES );
-    final String[] values = rawValue.split( ",\\s*" );
-    final List<Integer> result = new ArrayList<Integer>();
-    for ( String value : values )
-    {
-      result.add( Integer.valueOf( value.trim() ) );
-    }
-    Collections.sort( result, NumberUtils.<Integer> createNumberComparator( false /* aSortAscending */) );
-    return result.toArray( new Integer[result.size()] );
+    return this.settings.captureSizes.clone();
   }
 
   /**
@@ -262,8 +396,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getChannelCount()
   {
-    final String value = this.properties.get( DEVICE_CHANNEL_COUNT );
-    return Integer.parseInt( value );
+    return this.settings.channelCount;
   }
 
   /**
@@ -273,8 +406,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getChannelGroupCount()
   {
-    final String value = this.properties.get( DEVICE_CHANNEL_GROUPS );
-    return Integer.parseInt( value );
+    return this.settings.channelGroupCount;
   }
 
   /**
@@ -284,14 +416,7 @@ public final class DeviceProfile implements Cloneable
    */
   public NumberingScheme[] getChannelNumberingSchemes()
   {
-    final String rawValue = this.properties.get( DEVICE_CHANNEL_NUMBERING_SCHEMES );
-    final String[] values = rawValue.split( ",\\s*" );
-    final NumberingScheme[] result = new NumberingScheme[values.length];
-    for ( int i = 0; i < result.length; i++ )
-    {
-      result[i] = NumberingScheme.valueOf( values[i].trim() );
-    }
-    return result;
+    return this.settings.numberingSchemes.clone();
   }
 
   /**
@@ -301,8 +426,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getClockspeed()
   {
-    final String value = this.properties.get( DEVICE_CLOCKSPEED );
-    return Integer.parseInt( value );
+    return this.settings.clockspeed;
   }
 
   /**
@@ -312,8 +436,7 @@ public final class DeviceProfile implements Cloneable
    */
   public String getDescription()
   {
-    final String result = this.properties.get( DEVICE_DESCRIPTION );
-    return result == null ? "" : ( String )result;
+    return this.settings.description;
   }
 
   /**
@@ -329,19 +452,18 @@ public final class DeviceProfile implements Cloneable
    */
   public String[] getDeviceMetadataKeys()
   {
-    final String rawValue = this.properties.get( DEVICE_METADATA_KEYS );
-    return StringUtils.tokenizeQuotedStrings( rawValue, ", " );
+    return this.settings.metadataKeys.clone();
   }
 
   /**
    * Returns the interface over which the device communicates.
    * 
-   * @return the device interface, never <code>null</code>.
+   * @return the device interface, or <code>null</code> if this profile has no
+   *         properties set yet.
    */
   public DeviceInterface getInterface()
   {
-    final String value = this.properties.get( DEVICE_INTERFACE );
-    return DeviceInterface.valueOf( value );
+    return this.settings.deviceInterface;
   }
 
   /**
@@ -364,7 +486,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getMaximumCaptureSizeFor( final int aChannelGroups )
   {
-    final Integer[] sizes = getCaptureSizes();
+    final Integer[] sizes = this.settings.captureSizes;
     if ( ( sizes == null ) || ( sizes.length == 0 ) || ( aChannelGroups == 0 ) )
     {
       return -1;
@@ -399,8 +521,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getOpenPortDelay()
   {
-    final String value = this.properties.get( DEVICE_OPEN_PORT_DELAY );
-    return Integer.parseInt( value );
+    return this.settings.openPortDelay;
   }
 
   /**
@@ -410,16 +531,7 @@ public final class DeviceProfile implements Cloneable
    */
   public Integer[] getSampleRates()
   {
-    final String rawValue = this.properties.get( DEVICE_SAMPLERATES );
-    final String[] values = rawValue.split( ",\\s*" );
-    final List<Integer> result = new ArrayList<Integer>();
-    for ( String value : values )
-    {
-      result.add( Integer.valueOf( value.trim() ) );
-    }
-    Collections.sort( result, NumberUtils.<Integer> createNumberComparator( false /* aSortAscending */) );
-
-    return result.toArray( new Integer[result.size()] );
+    return this.settings.sampleRates.clone();
   }
 
   /**
@@ -429,8 +541,7 @@ public final class DeviceProfile implements Cloneable
    */
   public int getTriggerStages()
   {
-    final String value = this.properties.get( DEVICE_TRIGGER_STAGES );
-    return Integer.parseInt( value );
+    return this.settings.triggerStages;
   }
 
   /**
@@ -440,8 +551,7 @@ public final class DeviceProfile implements Cloneable
    */
   public String getType()
   {
-    final String result = this.properties.get( DEVICE_TYPE );
-    return result == null ? "<unknown>" : result;
+    return this.settings.type;
   }
 
   /**
@@ -452,7 +562,7 @@ public final class DeviceProfile implements Cloneable
   {
     final int prime = 31;
     int result = 1;
-    result = prime * result + ( ( this.properties == null ) ? 0 : this.properties.hashCode() );
+    result = prime * result + this.settings.properties.hashCode();
     return result;
   }
 
@@ -464,8 +574,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isCaptureSizeBoundToEnabledChannels()
   {
-    final String value = this.properties.get( DEVICE_CAPTURESIZE_BOUND );
-    return Boolean.parseBoolean( value );
+    return this.settings.captureSizeBound;
   }
 
   /**
@@ -476,8 +585,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isComplexTriggersSupported()
   {
-    final String value = this.properties.get( DEVICE_TRIGGER_COMPLEX );
-    return Boolean.parseBoolean( value );
+    return this.settings.complexTriggersSupported;
   }
 
   /**
@@ -489,8 +597,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isDoubleDataRateSupported()
   {
-    final String value = this.properties.get( DEVICE_SUPPORTS_DDR );
-    return Boolean.parseBoolean( value );
+    return this.settings.ddrSupported;
   }
 
   /**
@@ -501,8 +608,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isNoiseFilterSupported()
   {
-    final String value = this.properties.get( DEVICE_FEATURE_NOISEFILTER );
-    return Boolean.parseBoolean( value );
+    return this.settings.noiseFilterSupported;
   }
 
   /**
@@ -519,8 +625,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isOpenPortDtr()
   {
-    final String value = this.properties.get( DEVICE_OPEN_PORT_DTR );
-    return Boolean.parseBoolean( value );
+    return this.settings.openPortDtr;
   }
 
   /**
@@ -531,8 +636,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isRleSupported()
   {
-    final String value = this.properties.get( DEVICE_FEATURE_RLE );
-    return Boolean.parseBoolean( value );
+    return this.settings.rleSupported;
   }
 
   /**
@@ -543,8 +647,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isSamplesInReverseOrder()
   {
-    final String rawValue = this.properties.get( DEVICE_SAMPLE_REVERSE_ORDER );
-    return Boolean.parseBoolean( rawValue );
+    return this.settings.samplesInReverseOrder;
   }
 
   /**
@@ -555,8 +658,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isTestModeSupported()
   {
-    final String value = this.properties.get( DEVICE_FEATURE_TEST_MODE );
-    return Boolean.parseBoolean( value );
+    return this.settings.testModeSupported;
   }
 
   /**
@@ -567,8 +669,7 @@ public final class DeviceProfile implements Cloneable
    */
   public boolean isTriggerSupported()
   {
-    final String value = this.properties.get( DEVICE_FEATURE_TRIGGERS );
-    return Boolean.parseBoolean( value );
+    return this.settings.triggerSupported;
   }
 
   /**
@@ -587,7 +688,7 @@ public final class DeviceProfile implements Cloneable
    */
   final File getConfigurationFile()
   {
-    final String value = this.properties.get( FELIX_FILEINSTALL_FILENAME );
+    final String value = this.settings.properties.get( FELIX_FILEINSTALL_FILENAME );
     assert value != null : "Internal error: no fileinstall filename?!";
     return createFile( value );
   }
@@ -597,12 +698,17 @@ public final class DeviceProfile implements Cloneable
    */
   final Dictionary<String, String> getProperties()
   {
-    return new Hashtable<String, String>( this.properties );
+    return new Hashtable<String, String>( this.settings.properties );
   }
 
   /**
+   * Sets and parses the properties of this device profile.
+   * 
    * @param aProperties
    *          the updated properties.
+   * @throws IllegalArgumentException
+   *           in case the given properties are incomplete or could not be
+   *           parsed.
    */
   @SuppressWarnings( "rawtypes" )
   final void setProperties( final Dictionary aProperties )
@@ -631,13 +737,9 @@ public final class DeviceProfile implements Cloneable
       throw new IllegalArgumentException( "Profile settings not complete! Missing keys are: " + checkedKeys.toString() );
     }
 
-    synchronized ( this.properties )
-    {
-      this.properties.clear();
-      this.properties.putAll( newProps );
+    this.settings = new ProfileSettings( newProps );
 
-      LOG.log( Level.INFO, "New device profile settings applied for {1} ({0}) ...", //
-          new Object[] { getType(), getDescription() } );
-    }
+    LOG.log( Level.INFO, "New device profile settings applied for {1} ({0}) ...", //
+        new Object[] { getType(), getDescription() } );
   }
 }
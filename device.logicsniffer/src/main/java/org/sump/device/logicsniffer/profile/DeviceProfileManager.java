@@ -32,6 +32,118 @@ import org.osgi.service.cm.*;
  */
 public class DeviceProfileManager implements ManagedServiceFactory
 {
+  // INNER TYPES
+
+  /**
+   * Provides an immutable snapshot of a set of device profiles, allowing them
+   * to be looked up by their type or metadata keys without copying or cloning
+   * the profiles on each lookup.
+   */
+  static final class ProfileIndex
+  {
+    // VARIABLES
+
+    private final Map<String, DeviceProfile> byType;
+    private final DeviceProfile[] profiles;
+    private final String[][] metadataKeys;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new ProfileIndex instance.
+     * 
+     * @param aProfiles
+     *          the profiles to index, cannot be <code>null</code>.
+     */
+    ProfileIndex( final Collection<DeviceProfile> aProfiles )
+    {
+      this.byType = new HashMap<String, DeviceProfile>();
+      this.profiles = aProfiles.toArray( new DeviceProfile[aProfiles.size()] );
+      this.metadataKeys = new String[this.profiles.length][];
+
+      for ( int i = 0; i < this.profiles.length; i++ )
+      {
+        final DeviceProfile profile = this.profiles[i];
+        if ( !this.byType.containsKey( profile.getType() ) )
+        {
+          this.byType.put( profile.getType(), profile );
+        }
+        this.metadataKeys[i] = profile.getDeviceMetadataKeys();
+      }
+    }
+
+    // METHODS
+
+    /**
+     * Finds the first profile that has a metadata key with which the given
+     * identifier starts. If no such profile exists, the first profile with the
+     * wildcard metadata key is returned.
+     * 
+     * @param aIdentifier
+     *          the identifier to search for, cannot be <code>null</code>.
+     * @return the matching device profile, or <code>null</code> if no profile
+     *         matches.
+     */
+    DeviceProfile findProfile( final String aIdentifier )
+    {
+      boolean allowWildcardMatch = false;
+      for ( int tries = 0; tries < 2; tries++ )
+      {
+        for ( int i = 0; i < this.profiles.length; i++ )
+        {
+          if ( matches( aIdentifier, allowWildcardMatch, this.metadataKeys[i] ) )
+          {
+            return this.profiles[i];
+          }
+        }
+        // None of the device profiles matched exactly, so try with wildcards...
+        allowWildcardMatch = true;
+      }
+
+      return null;
+    }
+
+    /**
+     * Returns the device profile with the given type.
+     * 
+     * @param aType
+     *          the device type, cannot be <code>null</code>.
+     * @return the device profile, or <code>null</code> if no such profile
+     *         exists.
+     */
+    DeviceProfile getProfile( final String aType )
+    {
+      return this.byType.get( aType );
+    }
+
+    /**
+     * Tries to find the given identifier in the given set of metadata keys.
+     * 
+     * @param aIdentifier
+     *          the identifier to search for;
+     * @param aMetadataKeys
+     *          the metadata keys to search in.
+     * @return <code>true</code> if the given identifier is found,
+     *         <code>false</code> otherwise.
+     */
+    private static boolean matches( final String aIdentifier, final boolean aAllowWildcard,
+        final String... aMetadataKeys )
+    {
+      for ( String metadataKey : aMetadataKeys )
+      {
+        if ( aIdentifier.startsWith( metadataKey ) )
+        {
+          return true;
+        }
+        else if ( aAllowWildcard && WILDCARD.equals( metadataKey ) )
+        {
+          return true;
+        }
+      }
+      return false;
+    }
+  }
+
   // CONSTANTS
 
   public static final String SERVICE_PID = "ols.profile";
@@ -39,9 +151,13 @@ public class DeviceProfileManager implements ManagedServiceFactory
   /** The default profile type to use. See {@link #getProfile(String)}. */
   private static final String DEFAULT_PROFILE_TYPE = "OLS";
 
+  /** The metadata key that matches all devices. */
+  static final String WILDCARD = "*";
+
   // VARIABLES
 
   private final ConcurrentMap<String, DeviceProfile> profiles;
+  private volatile ProfileIndex index;
 
   // CONSTRUCTORS
 
@@ -51,6 +167,7 @@ public class DeviceProfileManager implements ManagedServiceFactory
   public DeviceProfileManager()
   {
     this.profiles = new ConcurrentHashMap<String, DeviceProfile>();
+    this.index = new ProfileIndex( this.profiles.values() );
   }
 
   // METHODS
@@ -64,6 +181,7 @@ public class DeviceProfileManager implements ManagedServiceFactory
     synchronized ( this.profiles )
     {
       this.profiles.remove( aPid );
+      this.index = new ProfileIndex( this.profiles.values() );
     }
   }
 
@@ -74,6 +192,9 @@ public class DeviceProfileManager implements ManagedServiceFactory
    * This method will use the {@link DeviceProfile#DEVICE_METADATA_KEYS} of each
    * known device profile to try to find a match with the given identifier.<br/>
    * Note if one of these metadata keys is the string "*", it will always match.
+   * The profiles are searched in the order in which the profile manager holds
+   * them, using a snapshot that is rebuilt each time the set of profiles
+   * changes.
    * </p>
    * 
    * @param aIdentifier
@@ -83,24 +204,7 @@ public class DeviceProfileManager implements ManagedServiceFactory
    */
   public DeviceProfile findProfile( final String aIdentifier )
   {
-    final Collection<DeviceProfile> allProfiles = getProfiles();
-
-    boolean allowWildcardMatch = false;
-    for ( int tries = 0; tries < 2; tries++ )
-    {
-      for ( DeviceProfile profile : allProfiles )
-      {
-        final String[] metadataKeys = profile.getDeviceMetadataKeys();
-        if ( matches( aIdentifier, allowWildcardMatch, metadataKeys ) )
-        {
-          return profile;
-        }
-      }
-      // None of the device profiles matched exactly, so try with wildcards...
-      allowWildcardMatch = true;
-    }
-
-    return null;
+    return this.index.findProfile( aIdentifier );
   }
 
   /**
@@ -135,16 +239,7 @@ public class DeviceProfileManager implements ManagedServiceFactory
    */
   public DeviceProfile getProfile( final String aType )
   {
-    final Collection<DeviceProfile> allProfiles = getProfiles();
-
-    for ( DeviceProfile profile : allProfiles )
-    {
-      if ( aType.equals( profile.getType() ) )
-      {
-        return profile;
-      }
-    }
-    return null;
+    return this.index.getProfile( aType );
   }
 
   /**
@@ -189,43 +284,28 @@ public class DeviceProfileManager implements ManagedServiceFactory
   {
     synchronized ( this.profiles )
     {
-      if ( this.profiles.containsKey( aPid ) )
+      try
       {
-        DeviceProfile profile = this.profiles.get( aPid );
-        profile.setProperties( aProperties );
+        if ( this.profiles.containsKey( aPid ) )
+        {
+          DeviceProfile profile = this.profiles.get( aPid );
+          profile.setProperties( aProperties );
+        }
+        else
+        {
+          DeviceProfile profile = new DeviceProfile();
+          profile.setProperties( aProperties );
+          this.profiles.put( aPid, profile );
+        }
       }
-      else
+      catch ( IllegalArgumentException exception )
       {
-        DeviceProfile profile = new DeviceProfile();
-        profile.setProperties( aProperties );
-        this.profiles.put( aPid, profile );
+        // Also covers NumberFormatException...
+        throw new ConfigurationException( null, "Invalid device profile: " + exception.getMessage(), exception );
       }
-    }
-  }
 
-  /**
-   * Tries to find the given identifier in the given set of metadata keys.
-   * 
-   * @param aIdentifier
-   *          the identifier to search for;
-   * @param aMetadataKeys
-   *          the metadata keys to search in.
-   * @return <code>true</code> if the given identifier is found,
-   *         <code>false</code> otherwise.
-   */
-  private boolean matches( final String aIdentifier, final boolean aAllowWildcard, final String... aMetadataKeys )
-  {
-    for ( String metadataKey : aMetadataKeys )
-    {
-      if ( aIdentifier.startsWith( metadataKey ) )
-      {
-        return true;
-      }
-      else if ( aAllowWildcard && "*".equals( metadataKey ) )
-      {
-        return true;
-      }
+      // The type and/or metadata keys might have been changed...
+      this.index = new ProfileIndex( this.profiles.values() );
     }
-    return false;
   }
 }
@@ -22,6 +22,7 @@ package org.sump.device.logicsniffer.protocol;
 
 
 import java.io.*;
+import java.util.*;
 
 import org.sump.device.logicsniffer.*;
 
@@ -34,6 +35,29 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
 {
   // INNER TYPES
 
+  /**
+   * Keeps a calculated LUT chain together with the arguments it is calculated
+   * from.
+   */
+  private static final class CachedChain
+  {
+    // VARIABLES
+
+    final int[] arguments;
+    final int[] chain;
+
+    // CONSTRUCTORS
+
+    /**
+     * Creates a new CachedChain instance.
+     */
+    CachedChain( final int[] aArguments, final int[] aChain )
+    {
+      this.arguments = aArguments;
+      this.chain = aChain;
+    }
+  }
+
   /**
    * Denotes one of the two edge-triggers.
    */
@@ -242,6 +266,15 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
   private static final int CMD_SELECT = 0x9E;
   private static final int CMD_CHAIN = 0x9F;
 
+  // VARIABLES
+
+  /**
+   * The last calculated LUT chain per LUT chain address; as the trigger
+   * configuration typically does not change between captures, the chains are
+   * only recalculated when their arguments change.
+   */
+  private final Map<Integer, CachedChain> chainCache;
+
   // CONSTRUCTORS
 
   /**
@@ -255,6 +288,8 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
   public DemonCoreCommandWriter( final LogicSnifferConfig aConfiguration, final DataOutputStream aOutputStream )
   {
     super( aConfiguration, aOutputStream );
+
+    this.chainCache = new HashMap<Integer, CachedChain>();
   }
 
   // METHODS
@@ -278,7 +313,179 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
   public void writeEdge( final TriggerEdge aEdge, final int aRisingEdge, final int aFallingEdge, final int aNeitherEdge )
       throws IOException
   {
-    writeSelect( aEdge.getLutChainAddress() );
+    final int address = aEdge.getLutChainAddress();
+
+    int[] chain = getCachedChain( address, aRisingEdge, aFallingEdge, aNeitherEdge );
+    if ( chain == null )
+    {
+      chain = calculateEdgeChain( aRisingEdge, aFallingEdge, aNeitherEdge );
+      putCachedChain( address, chain, aRisingEdge, aFallingEdge, aNeitherEdge );
+    }
+
+    writeLut( address, chain );
+  }
+
+  /**
+   * Setup LUT's for Range Detectors.
+   * 
+   * @param aRange
+   *          the trigger range selector;
+   * @param aTarget
+   *          the target upper/lower limit value to set;
+   * @param aMask
+   *          the target mask to set (indicates which bits should participate in
+   *          range compare).
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeRange( final TriggerRange aRange, final int aTarget, final int aMask ) throws IOException
+  {
+    final int address = aRange.getLutChainAddress();
+
+    int[] chain = getCachedChain( address, aTarget, aMask );
+    if ( chain == null )
+    {
+      chain = calculateRangeChain( aRange.isLowerRange(), aTarget, aMask );
+      putCachedChain( address, chain, aTarget, aMask );
+    }
+
+    writeLut( address, chain );
+  }
+
+  /**
+   * Setup LUT's for Trigger Term Inputs are 32-bit target & mask for comparing
+   * against captured analyzer data. If a mask bit is set, the corresponding
+   * target bit participates in the trigger.
+   * 
+   * @param aTerm
+   *          the trigger term to write;
+   * @param aTarget
+   *          the trigger target value;
+   * @param aMask
+   *          the trigger mask value.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public void writeTerm( final TriggerTerm aTerm, final int aTarget, final int aMask ) throws IOException
+  {
+    final int address = aTerm.getLutChainAddress();
+
+    int[] chain = getCachedChain( address, aTarget, aMask );
+    if ( chain == null )
+    {
+      chain = calculateTermChain( aTarget, aMask );
+      putCachedChain( address, chain, aTarget, aMask );
+    }
+
+    writeLut( address, chain );
+  }
+
+  /**
+   * Setup trigger timers.
+   * 
+   * @param aTimer
+   *          the trigger timer to set;
+   * @param aValue
+   *          the 36-bit timer value to set.
+   */
+  public void writeTriggerLimit( final TriggerTimer aTimer, final long aValue ) throws IOException
+  {
+    beginBatch();
+    try
+    {
+      writeSelect( aTimer.getLutChainAddress() );
+      writeChain( ( int )( aValue & 0xFFFFFFFF ) );
+      writeSelect( aTimer.getLutChainAddress() + 1 );
+      writeChain( ( int )( ( aValue >>> 32 ) & 0x0F ) );
+    }
+    finally
+    {
+      endBatch();
+    }
+  }
+
+  /**
+   * Setup trigger state. Specify trigger mode, timer controls, "else" state
+   * number, and necessary "obtain" count (number of hits needed before full hit
+   * observed).
+   */
+  public void writeTriggerState( final int aStateNumber, // 0 to 15
+      final boolean aLastState, final boolean aSetTrigger, //
+      final int aStartTimer, // bit0=timer1, bit1=timer2
+      final int aStopTimer, // bit0=timer1, bit1=timer2
+      final int aClearTimer, // bit0=timer1, bit1=timer2
+      final int aElseState, // 0 to 15
+      final int aOccurrenceCount ) throws IOException
+  {
+    int value = ( ( aElseState & TRIGSTATE_STATENUM_MASK ) << TRIGSTATE_ELSE_BITOFS )
+        | ( aOccurrenceCount & TRIGSTATE_OBTAIN_MASK );
+    if ( aLastState )
+    {
+      value |= TRIGSTATE_LASTSTATE;
+    }
+    if ( aSetTrigger )
+    {
+      value |= TRIGSTATE_TRIGGER_FLAG;
+    }
+    if ( ( aStartTimer & 1 ) != 0 )
+    {
+      value |= TRIGSTATE_START_TIMER0;
+    }
+    if ( ( aStartTimer & 2 ) != 0 )
+    {
+      value |= TRIGSTATE_START_TIMER1;
+    }
+    if ( ( aStopTimer & 1 ) != 0 )
+    {
+      value |= TRIGSTATE_STOP_TIMER0;
+    }
+    if ( ( aStopTimer & 2 ) != 0 )
+    {
+      value |= TRIGSTATE_STOP_TIMER1;
+    }
+    if ( ( aClearTimer & 1 ) != 0 )
+    {
+      value |= TRIGSTATE_CLEAR_TIMER0;
+    }
+    if ( ( aClearTimer & 2 ) != 0 )
+    {
+      value |= TRIGSTATE_CLEAR_TIMER1;
+    }
+
+    writeLut( aStateNumber & TRIGSTATE_STATENUM_MASK, value );
+  }
+
+  /**
+   * Setup trigger state term combinational sum. Operations for all 11 fields
+   * are merged & written. Uses table based lookups.
+   */
+  public void writeTriggerSum( final int aStateNumber, final int aStateTerm, final int op_ab, final int op_c_range1,
+      final int op_d_edge1, final int op_e_timer1, final int op_fg, final int op_h_range2, final int op_i_edge2,
+      final int op_j_timer2, final int op_mid1, final int op_mid2, final int op_final ) throws IOException
+  {
+    // { NOP ANY AND NAND OR NOR XOR NXOR A B }
+    int pairvalue[] = { 0x0000, 0xFFFF, 0x8000, 0x7FFF, 0xF888, 0x0777, 0x7888, 0x8777, 0x8888, 0xF000 };
+    int midvalue[] = { 0x0000, 0xFFFF, 0x8000, 0x7FFF, 0xFFFE, 0x0001, 0x0116, 0xFEE9, 0xEEEE, 0xFFF0 };
+    int finalvalue[] = { 0x0000, 0xFFFF, 0x0008, 0x0007, 0x000E, 0x0001, 0x0006, 0x0009, 0x0002, 0x0004 };
+
+    writeLut( 0x40 + ( aStateNumber * 4 ) + aStateTerm, //
+        finalvalue[op_final], //
+        ( midvalue[op_mid2] << 16 ) | midvalue[op_mid1], //
+        ( pairvalue[op_j_timer2] << 16 ) | pairvalue[op_i_edge2], //
+        ( pairvalue[op_h_range2] << 16 ) | pairvalue[op_fg], //
+        ( pairvalue[op_e_timer1] << 16 ) | pairvalue[op_d_edge1], //
+        ( pairvalue[op_c_range1] << 16 ) | pairvalue[op_ab] );
+  }
+
+  /**
+   * Calculates the LUT chain for an edge detector.
+   * 
+   * @return the 8 chain values, in the order they should be written.
+   */
+  private int[] calculateEdgeChain( final int aRisingEdge, final int aFallingEdge, final int aNeitherEdge )
+  {
+    final int[] chain = new int[8];
+    int idx = 0;
 
     int lutvalue = 0;
 
@@ -327,38 +534,31 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
       }
       else
       {
-        writeChain( lutvalue ); // write total of 256 bits
+        chain[idx++] = lutvalue; // total of 256 bits
         lutvalue = 0;
       }
     }
+
+    return chain;
   }
 
   /**
-   * Setup LUT's for Range Detectors.
+   * Calculates the LUT chain for a range detector.
    * 
-   * @param aRange
-   *          the trigger range selector;
-   * @param aTarget
-   *          the target upper/lower limit value to set;
-   * @param aMask
-   *          the target mask to set (indicates which bits should participate in
-   *          range compare).
-   * @throws IOException
-   *           in case of I/O problems.
+   * @return the 16 chain values, in the order they should be written.
    */
-  public void writeRange( final TriggerRange aRange, final int aTarget, int aMask ) throws IOException
+  private int[] calculateRangeChain( final boolean aLowerRange, final int aTarget, int aMask )
   {
+    final int[] chain = new int[16];
     long value;
     int lutValue = 0;
     int i;
 
-    writeSelect( aRange.getLutChainAddress() );
-
     // Count # of bits in mask...
     int bitcount = Integer.bitCount( aMask );
 
     // Prepare target value...
-    if ( aRange.isLowerRange() )
+    if ( aLowerRange )
     {
       // lower range value
       value = ~( aTarget - 1 ) & 0xFFFFFFFF;
@@ -398,25 +598,18 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
       }
       aMask <<= 1;
 
-      writeChain( lutValue );
+      chain[i] = lutValue;
     }
+
+    return chain;
   }
 
   /**
-   * Setup LUT's for Trigger Term Inputs are 32-bit target & mask for comparing
-   * against captured analyzer data. If a mask bit is set, the corresponding
-   * target bit participates in the trigger.
+   * Calculates the LUT chain for a trigger term.
    * 
-   * @param aTerm
-   *          the trigger term to write;
-   * @param aTarget
-   *          the trigger target value;
-   * @param aMask
-   *          the trigger mask value.
-   * @throws IOException
-   *           in case of I/O problems.
+   * @return the 4 chain values, in the order they should be written.
    */
-  public void writeTerm( final TriggerTerm aTerm, final int aTarget, final int aMask ) throws IOException
+  private int[] calculateTermChain( final int aTarget, final int aMask )
   {
     int bitmask = 1;
     int lutvalue0 = 0;
@@ -469,103 +662,45 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
       bitmask <<= 1;
     }
 
-    // Write data into LUT serial chain. MSB must goes in first.
-    // Total of 128 bits.
-    writeSelect( aTerm.getLutChainAddress() );
-    writeChain( lutvalue3 );
-    writeChain( lutvalue2 );
-    writeChain( lutvalue1 );
-    writeChain( lutvalue0 );
+    // Data goes into LUT serial chain MSB first. Total of 128 bits.
+    return new int[] { lutvalue3, lutvalue2, lutvalue1, lutvalue0 };
   }
 
   /**
-   * Setup trigger timers.
+   * Returns the cached LUT chain for the given address, provided it was
+   * calculated from the given arguments.
    * 
-   * @param aTimer
-   *          the trigger timer to set;
-   * @param aValue
-   *          the 36-bit timer value to set.
+   * @param aAddress
+   *          the LUT chain address;
+   * @param aArguments
+   *          the arguments the LUT chain is calculated from.
+   * @return the cached LUT chain, or <code>null</code> if no LUT chain is
+   *         cached for the given address and arguments.
    */
-  public void writeTriggerLimit( final TriggerTimer aTimer, final long aValue ) throws IOException
+  final int[] getCachedChain( final int aAddress, final int... aArguments )
   {
-    writeSelect( aTimer.getLutChainAddress() );
-    writeChain( ( int )( aValue & 0xFFFFFFFF ) );
-    writeSelect( aTimer.getLutChainAddress() + 1 );
-    writeChain( ( int )( ( aValue >>> 32 ) & 0x0F ) );
-  }
-
-  /**
-   * Setup trigger state. Specify trigger mode, timer controls, "else" state
-   * number, and necessary "obtain" count (number of hits needed before full hit
-   * observed).
-   */
-  public void writeTriggerState( final int aStateNumber, // 0 to 15
-      final boolean aLastState, final boolean aSetTrigger, //
-      final int aStartTimer, // bit0=timer1, bit1=timer2
-      final int aStopTimer, // bit0=timer1, bit1=timer2
-      final int aClearTimer, // bit0=timer1, bit1=timer2
-      final int aElseState, // 0 to 15
-      final int aOccurrenceCount ) throws IOException
-  {
-    writeSelect( aStateNumber & TRIGSTATE_STATENUM_MASK );
-
-    int value = ( ( aElseState & TRIGSTATE_STATENUM_MASK ) << TRIGSTATE_ELSE_BITOFS )
-        | ( aOccurrenceCount & TRIGSTATE_OBTAIN_MASK );
-    if ( aLastState )
-    {
-      value |= TRIGSTATE_LASTSTATE;
-    }
-    if ( aSetTrigger )
-    {
-      value |= TRIGSTATE_TRIGGER_FLAG;
-    }
-    if ( ( aStartTimer & 1 ) != 0 )
-    {
-      value |= TRIGSTATE_START_TIMER0;
-    }
-    if ( ( aStartTimer & 2 ) != 0 )
-    {
-      value |= TRIGSTATE_START_TIMER1;
-    }
-    if ( ( aStopTimer & 1 ) != 0 )
-    {
-      value |= TRIGSTATE_STOP_TIMER0;
-    }
-    if ( ( aStopTimer & 2 ) != 0 )
+    final CachedChain cached = this.chainCache.get( Integer.valueOf( aAddress ) );
+    if ( ( cached == null ) || !Arrays.equals( cached.arguments, aArguments ) )
     {
-      value |= TRIGSTATE_STOP_TIMER1;
+      return null;
     }
-    if ( ( aClearTimer & 1 ) != 0 )
-    {
-      value |= TRIGSTATE_CLEAR_TIMER0;
-    }
-    if ( ( aClearTimer & 2 ) != 0 )
-    {
-      value |= TRIGSTATE_CLEAR_TIMER1;
-    }
-    writeChain( value );
+    return cached.chain;
   }
 
   /**
-   * Setup trigger state term combinational sum. Operations for all 11 fields
-   * are merged & written. Uses table based lookups.
+   * Caches the given LUT chain for the given address, replacing any
+   * previously cached LUT chain for that address.
+   * 
+   * @param aAddress
+   *          the LUT chain address;
+   * @param aChain
+   *          the calculated LUT chain;
+   * @param aArguments
+   *          the arguments the LUT chain is calculated from.
    */
-  public void writeTriggerSum( final int aStateNumber, final int aStateTerm, final int op_ab, final int op_c_range1,
-      final int op_d_edge1, final int op_e_timer1, final int op_fg, final int op_h_range2, final int op_i_edge2,
-      final int op_j_timer2, final int op_mid1, final int op_mid2, final int op_final ) throws IOException
+  private void putCachedChain( final int aAddress, final int[] aChain, final int... aArguments )
   {
-    // { NOP ANY AND NAND OR NOR XOR NXOR A B }
-    int pairvalue[] = { 0x0000, 0xFFFF, 0x8000, 0x7FFF, 0xF888, 0x0777, 0x7888, 0x8777, 0x8888, 0xF000 };
-    int midvalue[] = { 0x0000, 0xFFFF, 0x8000, 0x7FFF, 0xFFFE, 0x0001, 0x0116, 0xFEE9, 0xEEEE, 0xFFF0 };
-    int finalvalue[] = { 0x0000, 0xFFFF, 0x0008, 0x0007, 0x000E, 0x0001, 0x0006, 0x0009, 0x0002, 0x0004 };
-
-    writeSelect( 0x40 + ( aStateNumber * 4 ) + aStateTerm );
-    writeChain( finalvalue[op_final] );
-    writeChain( ( midvalue[op_mid2] << 16 ) | midvalue[op_mid1] );
-    writeChain( ( pairvalue[op_j_timer2] << 16 ) | pairvalue[op_i_edge2] );
-    writeChain( ( pairvalue[op_h_range2] << 16 ) | pairvalue[op_fg] );
-    writeChain( ( pairvalue[op_e_timer1] << 16 ) | pairvalue[op_d_edge1] );
-    writeChain( ( pairvalue[op_c_range1] << 16 ) | pairvalue[op_ab] );
+    this.chainCache.put( Integer.valueOf( aAddress ), new CachedChain( aArguments, aChain ) );
   }
 
   /**
@@ -577,6 +712,34 @@ public class DemonCoreCommandWriter extends SumpCommandWriter
     sendCommand( CMD_CHAIN, aValue );
   }
 
+  /**
+   * Selects the given LUT chain and writes the given values to it as a single
+   * block.
+   * 
+   * @param aAddress
+   *          the LUT chain address to select;
+   * @param aChain
+   *          the chain values to write.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private void writeLut( final int aAddress, final int... aChain ) throws IOException
+  {
+    beginBatch();
+    try
+    {
+      writeSelect( aAddress );
+      for ( int value : aChain )
+      {
+        writeChain( value );
+      }
+    }
+    finally
+    {
+      endBatch();
+    }
+  }
+
   /**
    * @param aValue
    * @throws IOException
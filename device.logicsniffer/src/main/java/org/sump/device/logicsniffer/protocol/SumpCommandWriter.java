@@ -85,6 +85,8 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
 
   protected final LogicSnifferConfig config;
   private final DataOutputStream outputStream;
+  private final ByteArrayOutputStream commandBuffer;
+  private int batchLevel;
 
   // CONSTRUCTORS
 
@@ -100,6 +102,7 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
   {
     this.config = aConfiguration;
     this.outputStream = aOutputStream;
+    this.commandBuffer = new ByteArrayOutputStream( 256 );
   }
 
   // METHODS
@@ -128,6 +131,17 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     return NumberUtils.smartParseInt( System.getProperty( "nl.lxtreme.ols.rle.mode" ), 1 );
   }
 
+  /**
+   * Starts a batch of commands. All commands sent until the matching call to
+   * {@link #endBatch()} are collected and written to the device as a single
+   * block. Batches can be nested, in which case only the outermost batch
+   * writes its commands.
+   */
+  public final void beginBatch()
+  {
+    this.batchLevel++;
+  }
+
   /**
    * {@inheritDoc}
    */
@@ -137,6 +151,26 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
     this.outputStream.close();
   }
 
+  /**
+   * Ends a batch of commands started by {@link #beginBatch()}. If this ends
+   * the outermost batch, all collected commands are written and flushed in
+   * one go.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public final void endBatch() throws IOException
+  {
+    if ( this.batchLevel <= 0 )
+    {
+      throw new IllegalStateException( "No batch started!" );
+    }
+    if ( --this.batchLevel == 0 )
+    {
+      flushCommands();
+    }
+  }
+
   /**
    * @param aConfiguration
    * @throws IOException
@@ -172,9 +206,17 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
    */
   public void writeCmdReset() throws IOException
   {
-    for ( int i = 0; i < 5; i++ )
+    beginBatch();
+    try
     {
-      sendCommand( CMD_RESET );
+      for ( int i = 0; i < 5; i++ )
+      {
+        sendCommand( CMD_RESET );
+      }
+    }
+    finally
+    {
+      endBatch();
     }
   }
 
@@ -187,10 +229,146 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
   }
 
   /**
-   * @param aConfiguration
+   * Writes the complete device configuration (divider, triggers, capture size
+   * and flags) as a single block to the device.
+   * 
+   * @return the trigger count, as used for the sample processing.
    * @throws IOException
+   *           in case of I/O problems.
    */
   public int writeDeviceConfiguration() throws IOException
+  {
+    beginBatch();
+    try
+    {
+      return sendDeviceConfiguration();
+    }
+    finally
+    {
+      endBatch();
+    }
+  }
+
+  /**
+   * Sends a short command to the given stream. This method is intended to be
+   * used for short commands, but can also be called with long command opcodes
+   * if the data portion is to be set to 0.
+   * 
+   * @param aOpcode
+   *          one byte operation code
+   * @throws IOException
+   *           if writing to stream fails
+   */
+  protected final void sendCommand( final int aOpcode ) throws IOException
+  {
+    if ( LOG.isLoggable( Level.ALL ) || LOG.isLoggable( Level.FINE ) )
+    {
+      final byte opcode = ( byte )( aOpcode & 0xFF );
+      LOG.log( Level.FINE, "Sending short command: {0} ({1})",
+          new Object[] { Integer.toHexString( opcode ), Integer.toBinaryString( opcode ) } );
+    }
+
+    this.commandBuffer.write( aOpcode );
+    if ( this.batchLevel == 0 )
+    {
+      flushCommands();
+    }
+  }
+
+  /**
+   * Sends a long command to the given stream.
+   * 
+   * @param aOpcode
+   *          one byte operation code
+   * @param aData
+   *          four byte data portion
+   * @throws IOException
+   *           if writing to stream fails
+   */
+  protected final void sendCommand( final int aOpcode, final int aData ) throws IOException
+  {
+    if ( LOG.isLoggable( Level.ALL ) || LOG.isLoggable( Level.FINE ) )
+    {
+      final byte opcode = ( byte )( aOpcode & 0xFF );
+      LOG.log( Level.FINE, "Sending long command: {0} ({1}) with data {2} ({3})",
+          new Object[] { Integer.toHexString( opcode ), Integer.toBinaryString( opcode ), //
+              Integer.toHexString( aData ), Integer.toBinaryString( aData ) } );
+    }
+
+    this.commandBuffer.write( aOpcode );
+    this.commandBuffer.write( aData );
+    this.commandBuffer.write( aData >>> 8 );
+    this.commandBuffer.write( aData >>> 16 );
+    this.commandBuffer.write( aData >>> 24 );
+    if ( this.batchLevel == 0 )
+    {
+      flushCommands();
+    }
+  }
+
+  /**
+   * Sends the trigger mask, value and configuration to the OLS device.
+   * 
+   * @return the stop counter that is used for the trigger configuration.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private int configureTriggers() throws IOException
+  {
+    final int effectiveStopCounter;
+    if ( this.config.isTriggerEnabled() )
+    {
+      for ( int i = 0; i < this.config.getMaxTriggerStages(); i++ )
+      {
+        final int indexMask = 4 * i;
+        sendCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
+        sendCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
+        sendCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
+      }
+      effectiveStopCounter = this.config.getStopCounter();
+    }
+    else
+    {
+      sendCommand( SETTRIGMASK, 0 );
+      sendCommand( SETTRIGVAL, 0 );
+      sendCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
+      effectiveStopCounter = this.config.getReadCounter();
+    }
+
+    return effectiveStopCounter;
+  }
+
+  /**
+   * Writes all pending commands to the underlying stream and flushes it.
+   * 
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private void flushCommands() throws IOException
+  {
+    if ( this.commandBuffer.size() > 0 )
+    {
+      try
+      {
+        this.commandBuffer.writeTo( this.outputStream );
+      }
+      finally
+      {
+        // Never send the same commands twice...
+        this.commandBuffer.reset();
+      }
+      this.outputStream.flush();
+    }
+  }
+
+  /**
+   * Sends the divider, trigger, size and flags commands to the device.
+   * 
+   * @return the trigger count.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  private int sendDeviceConfiguration() throws IOException
   {
     int trigcount;
 
@@ -305,95 +483,4 @@ public class SumpCommandWriter implements SumpProtocolConstants, Closeable
 
     return trigcount;
   }
-
-  /**
-   * Sends a short command to the given stream. This method is intended to be
-   * used for short commands, but can also be called with long command opcodes
-   * if the data portion is to be set to 0.
-   * 
-   * @param aOpcode
-   *          one byte operation code
-   * @throws IOException
-   *           if writing to stream fails
-   */
-  protected final void sendCommand( final int aOpcode ) throws IOException
-  {
-    if ( LOG.isLoggable( Level.ALL ) || LOG.isLoggable( Level.FINE ) )
-    {
-      final byte opcode = ( byte )( aOpcode & 0xFF );
-      LOG.log( Level.FINE, "Sending short command: {0} ({1})",
-          new Object[] { Integer.toHexString( opcode ), Integer.toBinaryString( opcode ) } );
-    }
-
-    this.outputStream.writeByte( aOpcode );
-    this.outputStream.flush();
-  }
-
-  /**
-   * Sends a long command to the given stream.
-   * 
-   * @param aOpcode
-   *          one byte operation code
-   * @param aData
-   *          four byte data portion
-   * @throws IOException
-   *           if writing to stream fails
-   */
-  protected final void sendCommand( final int aOpcode, final int aData ) throws IOException
-  {
-    if ( LOG.isLoggable( Level.ALL ) || LOG.isLoggable( Level.FINE ) )
-    {
-      final byte opcode = ( byte )( aOpcode & 0xFF );
-      LOG.log( Level.FINE, "Sending long command: {0} ({1}) with data {2} ({3})",
-          new Object[] { Integer.toHexString( opcode ), Integer.toBinaryString( opcode ), //
-              Integer.toHexString( aData ), Integer.toBinaryString( aData ) } );
-    }
-
-    final byte[] raw = new byte[5];
-    int mask = 0xff;
-    int shift = 0;
-
-    raw[0] = ( byte )aOpcode;
-    for ( int i = 1; i < 5; i++ )
-    {
-      raw[i] = ( byte )( ( aData & mask ) >> shift );
-      mask = mask << 8;
-      shift += 8;
-    }
-
-    this.outputStream.write( raw );
-    this.outputStream.flush();
-  }
-
-  /**
-   * Sends the trigger mask, value and configuration to the OLS device.
-   * 
-   * @return the stop counter that is used for the trigger configuration.
-   * @throws IOException
-   *           in case of I/O problems.
-   */
-  private int configureTriggers() throws IOException
-  {
-    final int effectiveStopCounter;
-    if ( this.config.isTriggerEnabled() )
-    {
-      for ( int i = 0; i < this.config.getMaxTriggerStages(); i++ )
-      {
-        final int indexMask = 4 * i;
-        sendCommand( SETTRIGMASK | indexMask, this.config.getTriggerMask( i ) );
-        sendCommand( SETTRIGVAL | indexMask, this.config.getTriggerValue( i ) );
-        sendCommand( SETTRIGCFG | indexMask, this.config.getTriggerConfig( i ) );
-      }
-      effectiveStopCounter = this.config.getStopCounter();
-    }
-    else
-    {
-      sendCommand( SETTRIGMASK, 0 );
-      sendCommand( SETTRIGVAL, 0 );
-      sendCommand( SETTRIGCFG, LogicSnifferConfig.TRIGGER_CAPTURE );
-      effectiveStopCounter = this.config.getReadCounter();
-    }
-
-    return effectiveStopCounter;
-  }
 }
@@ -27,6 +27,7 @@ import java.util.logging.*;
 import nl.lxtreme.ols.util.*;
 
 import org.sump.device.logicsniffer.*;
+import org.sump.device.logicsniffer.sampleprocessor.*;
 
 
 /**
@@ -38,10 +39,14 @@ public class SumpResultReader implements Closeable, SumpProtocolConstants
 
   private static final Logger LOG = Logger.getLogger( SumpResultReader.class.getName() );
 
+  /** The size (in bytes) of the block buffer used for bulk reads. */
+  private static final int BLOCK_SIZE = 4096;
+
   // VARIABLES
 
   private final LogicSnifferConfig config;
   private final DataInputStream inputStream;
+  private final byte[] blockBuffer;
 
   // CONSTRUCTORS
 
@@ -58,6 +63,7 @@ public class SumpResultReader implements Closeable, SumpProtocolConstants
   {
     this.config = aConfiguration;
     this.inputStream = aInputStream;
+    this.blockBuffer = new byte[BLOCK_SIZE];
   }
 
   // METHODS
@@ -79,6 +85,19 @@ public class SumpResultReader implements Closeable, SumpProtocolConstants
     HostUtils.flushInputStream( this.inputStream );
   }
 
+  /**
+   * Returns whether or not data can be read without blocking.
+   * 
+   * @return <code>true</code> if at least one byte can be read without
+   *         blocking, <code>false</code> otherwise.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  public boolean isDataAvailable() throws IOException
+  {
+    return this.inputStream.available() > 0;
+  }
+
   /**
    * @return the found device ID, or -1 if no suitable device ID was found.
    * @throws IOException
@@ -158,4 +177,77 @@ public class SumpResultReader implements Closeable, SumpProtocolConstants
     return value;
   }
 
+  /**
+   * Reads a block of samples from the serial input stream.
+   * <p>
+   * This method reads the raw sample bytes in large blocks and "expands" them
+   * into sample values in the same way as {@link #readSample()} does, that is,
+   * taking the enabled channel groups into consideration as given by the
+   * acquisition plan.
+   * </p>
+   * 
+   * @param aPlan
+   *          the acquisition plan of the current capture, with at least one
+   *          enabled group, cannot be <code>null</code>;
+   * @param aBuffer
+   *          the buffer to store the read samples in, cannot be
+   *          <code>null</code>;
+   * @param aOffset
+   *          the offset in the given buffer where the first read sample is to
+   *          be stored;
+   * @param aLength
+   *          the number of samples to read, >= 0.
+   * @return the number of samples actually read, which is less than the given
+   *         length in case the current thread is interrupted.
+   * @throws IOException
+   *           if stream reading fails, or EOF is reached before all samples
+   *           are read.
+   */
+  public int readSamples( final AcquisitionPlan aPlan, final int[] aBuffer, final int aOffset, final int aLength )
+      throws IOException
+  {
+    final int enabledGroupCount = aPlan.getEnabledGroupCount();
+
+    final GroupPacker packer = aPlan.getGroupPacker();
+    final byte[] buf = this.blockBuffer;
+    final int samplesPerBlock = buf.length / enabledGroupCount;
+
+    int count = 0;
+    while ( count < aLength )
+    {
+      final int blockLength = enabledGroupCount * Math.min( samplesPerBlock, aLength - count );
+
+      int offset = 0;
+      boolean interrupted = false;
+      do
+      {
+        // Issue #81: always read whole samples; otherwise succeeding reads
+        // might fail and/or data offset errors could occur...
+        final int read = this.inputStream.read( buf, offset, blockLength - offset );
+        if ( read < 0 )
+        {
+          throw new EOFException( "Data readout interrupted: EOF." );
+        }
+        offset += read;
+        interrupted = Thread.currentThread().isInterrupted();
+      }
+      while ( !interrupted && ( offset < blockLength ) );
+
+      // "Expand" the read sample-bytes into sample values; in case a group is
+      // disabled, its value remains zero...
+      final int end = offset - ( offset % enabledGroupCount );
+      for ( int i = 0, idx = aOffset + count; i < end; i += enabledGroupCount, idx++ )
+      {
+        aBuffer[idx] = packer.unpack( buf, i );
+      }
+      count += end / enabledGroupCount;
+
+      if ( interrupted )
+      {
+        break;
+      }
+    }
+
+    return count;
+  }
 }
@@ -0,0 +1,104 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import nl.lxtreme.ols.util.*;
+
+
+/**
+ * Provides a {@link StreamingSampleProcessor} that collects all samples in a
+ * buffer and processes them at once, using a {@link SampleProcessor}, when all
+ * samples are read.
+ * <p>
+ * This is used in case the samples cannot be processed incrementally.
+ * </p>
+ */
+public final class BufferedSampleProcessor implements StreamingSampleProcessor
+{
+  // VARIABLES
+
+  private final int[] buffer;
+  private final boolean reverseChronological;
+  private final SampleProcessor processor;
+
+  private int sampleIdx;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BufferedSampleProcessor instance.
+   * 
+   * @param aBuffer
+   *          the buffer to collect the samples in, its length should equal the
+   *          number of samples to process, cannot be <code>null</code>;
+   * @param aReverseChronological
+   *          <code>true</code> if the samples are read in reverse chronological
+   *          order (that is, last sample first), <code>false</code> otherwise;
+   * @param aProcessor
+   *          the processor that processes the given buffer once all samples
+   *          are read, cannot be <code>null</code>.
+   */
+  public BufferedSampleProcessor( final int[] aBuffer, final boolean aReverseChronological,
+      final SampleProcessor aProcessor )
+  {
+    if ( aBuffer == null )
+    {
+      throw new IllegalArgumentException( "Buffer cannot be null!" );
+    }
+    if ( aProcessor == null )
+    {
+      throw new IllegalArgumentException( "Processor cannot be null!" );
+    }
+
+    this.buffer = aBuffer;
+    this.reverseChronological = aReverseChronological;
+    this.processor = aProcessor;
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    // In case the device sends its samples in reverse chronological order, we
+    // need to revert it now, before processing them further...
+    if ( this.reverseChronological )
+    {
+      HostUtils.reverse( this.buffer );
+    }
+
+    this.processor.process();
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#processSamples(int[], int, int)
+   */
+  @Override
+  public void processSamples( final int[] aSamples, final int aOffset, final int aLength )
+  {
+    System.arraycopy( aSamples, aOffset, this.buffer, this.sampleIdx, aLength );
+    this.sampleIdx += aLength;
+  }
+}
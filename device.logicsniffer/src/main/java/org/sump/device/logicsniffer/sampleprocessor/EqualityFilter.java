@@ -26,29 +26,40 @@ import org.sump.device.logicsniffer.*;
 
 /**
  * Processes all samples and only returns the actual changed sample values.
+ * <p>
+ * This filter can either process a complete buffer of samples at once, or
+ * process the samples incrementally as they are read from the device. In the
+ * latter case, the samples should be sent by the device in chronological order
+ * (that is, first sample first).
+ * </p>
  */
-public final class EqualityFilter implements SampleProcessor
+public final class EqualityFilter implements SampleProcessor, StreamingSampleProcessor
 {
   // VARIABLES
 
-  private final LogicSnifferConfig config;
+  private final AcquisitionPlan plan;
   private final int[] buffer;
+  private final int sampleCount;
   private final int trigCount;
   private final SampleProcessorCallback callback;
 
+  // the filter state, kept between subsequent blocks of samples...
+  private int oldSample;
+  private int sampleIdx;
+
   // CONSTRUCTORS
 
   /**
+   * @param aPlan
+   *          the acquisition plan of the capture;
    * @param aBuffer
    *          the buffer with sample data to decode.
    * @param aTrigCount
    *          the trigcount value;
    * @param aCallback
    *          the callback to use.
-   * @param aLogicSnifferDevice
-   *          TODO
    */
-  public EqualityFilter( final LogicSnifferConfig aConfig, final int[] aBuffer, final int aTrigCount,
+  public EqualityFilter( final AcquisitionPlan aPlan, final int[] aBuffer, final int aTrigCount,
       final SampleProcessorCallback aCallback )
   {
     if ( aBuffer == null )
@@ -56,47 +67,108 @@ public final class EqualityFilter implements SampleProcessor
       throw new IllegalArgumentException( "Buffer cannot be null!" );
     }
 
-    this.config = aConfig;
+    this.plan = aPlan;
     this.buffer = aBuffer;
+    this.sampleCount = aBuffer.length;
+    this.trigCount = aTrigCount;
+    this.callback = aCallback;
+  }
+
+  /**
+   * Creates a new EqualityFilter instance that processes its samples
+   * incrementally.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture;
+   * @param aSampleCount
+   *          the total number of samples that are to be processed;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   * @see #processSamples(int[], int, int)
+   */
+  public EqualityFilter( final AcquisitionPlan aPlan, final int aSampleCount, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    this.plan = aPlan;
+    this.buffer = null;
+    this.sampleCount = aSampleCount;
     this.trigCount = aTrigCount;
     this.callback = aCallback;
   }
 
   // METHODS
 
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    SampleProcessorUtils.processZeroSamples( this, this.sampleCount - this.sampleIdx );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( this.sampleCount, ( this.trigCount - getTriggerCorrection( this.plan ) ) );
+  }
+
   /**
    * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
    */
   @Override
   public final void process()
   {
-    long time = 0;
+    if ( this.buffer == null )
+    {
+      throw new IllegalStateException( "No buffer to process!" );
+    }
 
-    final int samples = this.buffer.length;
+    processSamples( this.buffer, 0, this.buffer.length );
+    finish();
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#processSamples(int[], int, int)
+   */
+  @Override
+  public void processSamples( final int[] aSamples, final int aOffset, final int aLength )
+  {
+    int oldSample = this.oldSample; // first value doesn't really matter
+    int time = this.sampleIdx;
 
-    int oldSample = 0; // first value doesn't really matter
-    for ( int i = 0; i < samples; i++ )
+    for ( int k = aOffset, end = aOffset + aLength; k < end; k++, time++ )
     {
-      final int newSample = this.buffer[i];
+      final int newSample = aSamples[k];
 
-      if ( ( i == 0 ) || ( oldSample != newSample ) )
+      if ( ( time == 0 ) || ( oldSample != newSample ) )
       {
         // add the read sample & add a timestamp value as well...
         this.callback.addValue( newSample, time );
       }
 
       oldSample = newSample;
-      time++;
     }
 
+    this.oldSample = oldSample;
+    this.sampleIdx = time;
+  }
+
+  /**
+   * Returns the correction to apply to the trigcount value to obtain the
+   * trigger position.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture.
+   * @return a trigger correction value.
+   */
+  static int getTriggerCorrection( final AcquisitionPlan aPlan )
+  {
     // XXX JaWi: why is this correction needed?
     int correction = 2;
-    if ( this.config.getDivider() <= 3 )
+    if ( aPlan.getDivider() <= 3 )
     {
       correction = 1;
     }
-
-    // Take the last seen time value as "absolete" length of this trace...
-    this.callback.ready( time, ( this.trigCount - correction ) );
+    return correction;
   }
 }
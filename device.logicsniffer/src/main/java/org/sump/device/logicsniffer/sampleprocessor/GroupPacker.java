@@ -0,0 +1,209 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+/**
+ * Provides a table-driven way to pack and unpack the enabled channel groups of
+ * sample values.
+ * <p>
+ * The device only sends the bytes of the enabled channel groups, which need to
+ * be "unpacked" to their actual position in the sample value. For RLE
+ * decoding, these values need to be "packed" again to find the RLE-count bit.
+ * As there are only four channel groups, there are only 16 possible
+ * combinations of enabled groups, each of which has at most two runs of
+ * consecutive enabled groups that move together. Hence, a packer is
+ * precomputed for each combination, packing or unpacking a value in at most
+ * two mask-and-shift steps.
+ * </p>
+ */
+public final class GroupPacker
+{
+  // CONSTANTS
+
+  /** The maximum number of channel groups. */
+  public static final int MAX_GROUPS = 4;
+
+  private static final GroupPacker[] PACKERS = new GroupPacker[1 << MAX_GROUPS];
+
+  static
+  {
+    for ( int i = 0; i < PACKERS.length; i++ )
+    {
+      PACKERS[i] = new GroupPacker( i );
+    }
+  }
+
+  // VARIABLES
+
+  private final int groupMask;
+  private final int groupCount;
+  // the masks of the runs of enabled groups in the unpacked sample value...
+  private final int lowRunMask;
+  private final int highRunMask;
+  // the number of bits each run of groups is shifted while (un)packing...
+  private final int lowRunShift;
+  private final int highRunShift;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new GroupPacker instance.
+   * 
+   * @param aGroupMask
+   *          the bit mask of enabled groups.
+   */
+  private GroupPacker( final int aGroupMask )
+  {
+    final int[] runMasks = new int[2];
+    final int[] runShifts = new int[2];
+
+    int count = 0;
+    int runs = 0;
+    for ( int i = 0; i < MAX_GROUPS; i++ )
+    {
+      if ( ( aGroupMask & ( 1 << i ) ) == 0 )
+      {
+        continue;
+      }
+
+      // all groups with the same number of disabled groups below them are
+      // shifted by the same amount, and thus belong to the same run...
+      final int shift = 8 * ( i - count );
+      if ( ( runs == 0 ) || ( runShifts[runs - 1] != shift ) )
+      {
+        runShifts[runs++] = shift;
+      }
+      runMasks[runs - 1] |= ( 0xFF << ( 8 * i ) );
+      count++;
+    }
+
+    this.groupMask = aGroupMask;
+    this.groupCount = count;
+    this.lowRunMask = runMasks[0];
+    this.lowRunShift = runShifts[0];
+    this.highRunMask = runMasks[1];
+    this.highRunShift = runShifts[1];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the packer for the given combination of enabled groups.
+   * 
+   * @param aGroupMask
+   *          the bit mask of enabled groups, bit 0 denoting the first group,
+   *          bit 3 the last group.
+   * @return a group packer, never <code>null</code>.
+   */
+  public static GroupPacker forGroups( final int aGroupMask )
+  {
+    if ( ( aGroupMask < 0 ) || ( aGroupMask >= PACKERS.length ) )
+    {
+      throw new IllegalArgumentException( "Invalid group mask: " + aGroupMask + "!" );
+    }
+    return PACKERS[aGroupMask];
+  }
+
+  /**
+   * Returns the number of enabled groups.
+   * 
+   * @return the enabled group count, >= 0 && <= 4.
+   */
+  public int getGroupCount()
+  {
+    return this.groupCount;
+  }
+
+  /**
+   * Returns the bit mask of enabled groups.
+   * 
+   * @return the group mask, bit 0 denoting the first group.
+   */
+  public int getGroupMask()
+  {
+    return this.groupMask;
+  }
+
+  /**
+   * Packs the enabled groups of the given sample value, by removing the
+   * disabled groups in between.
+   * 
+   * @param aSampleValue
+   *          the (unpacked) sample value to pack.
+   * @return the packed sample value.
+   */
+  public int pack( final int aSampleValue )
+  {
+    return ( ( aSampleValue & this.lowRunMask ) >>> this.lowRunShift )
+        | ( ( aSampleValue & this.highRunMask ) >>> this.highRunShift );
+  }
+
+  /**
+   * Unpacks the given packed sample-bytes into a sample value.
+   * 
+   * @param aBuffer
+   *          the buffer with the packed sample bytes, as read from the device;
+   * @param aOffset
+   *          the offset of the first byte of the sample, the sample occupies
+   *          {@link #getGroupCount()} bytes.
+   * @return the unpacked sample value, in which disabled groups are zero.
+   */
+  public int unpack( final byte[] aBuffer, final int aOffset )
+  {
+    final int value;
+    switch ( this.groupCount )
+    {
+      case 1:
+        value = ( aBuffer[aOffset] & 0xff );
+        break;
+      case 2:
+        value = ( aBuffer[aOffset] & 0xff ) | ( ( aBuffer[aOffset + 1] & 0xff ) << 8 );
+        break;
+      case 3:
+        value = ( aBuffer[aOffset] & 0xff ) | ( ( aBuffer[aOffset + 1] & 0xff ) << 8 )
+            | ( ( aBuffer[aOffset + 2] & 0xff ) << 16 );
+        break;
+      case 4:
+        value = ( aBuffer[aOffset] & 0xff ) | ( ( aBuffer[aOffset + 1] & 0xff ) << 8 )
+            | ( ( aBuffer[aOffset + 2] & 0xff ) << 16 ) | ( ( aBuffer[aOffset + 3] & 0xff ) << 24 );
+        break;
+      default:
+        value = 0;
+        break;
+    }
+    return unpack( value );
+  }
+
+  /**
+   * Unpacks the given packed sample value, by moving the enabled groups back
+   * to their original position.
+   * 
+   * @param aPackedValue
+   *          the packed sample value to unpack.
+   * @return the unpacked sample value, in which disabled groups are zero.
+   */
+  public int unpack( final int aPackedValue )
+  {
+    return ( ( aPackedValue << this.lowRunShift ) & this.lowRunMask )
+        | ( ( aPackedValue << this.highRunShift ) & this.highRunMask );
+  }
+}
@@ -0,0 +1,430 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.util.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides a RLE decoder that decodes large sample buffers in parallel.
+ * <p>
+ * The buffer is split into chunks that are decoded concurrently, each yielding
+ * its transitions with a time relative to the chunk, and the time spanned by
+ * the chunk. Afterwards, a prefix sum over the chunks is used to determine the
+ * absolute time values and the trigger position. The results are identical to
+ * those of the {@link RleDecoder}.
+ * </p>
+ * <p>
+ * In "double data rate" mode, RLE-counts span two samples, which might cross
+ * a chunk boundary. Each chunk therefore determines the sample its first
+ * token starts at by searching backwards for a point at which the stream is
+ * known to be in sync: the sample following two consecutive sample values.
+ * This search is bounded; if no such point is found nearby, the chunk start is
+ * derived from the start of the preceeding chunk instead.
+ * </p>
+ * <p>
+ * Note that this decoder needs all samples to be present, so it is used for
+ * large captures, which are decoded once they are read from the device, and
+ * when the samples cannot be decoded while they are read, that is, when
+ * pipelined processing is disabled or when a device sends its RLE data in DDR
+ * mode last sample first. Small captures are decoded by a streaming decoder
+ * while they are read.
+ * </p>
+ */
+public final class ParallelRleDecoder implements SampleProcessor
+{
+  // INNER TYPES
+
+  /**
+   * Provides the results of a single decoded chunk.
+   */
+  static final class ChunkResult
+  {
+    /** The transitions with a time relative to the first sample value. */
+    final TransitionBuffer transitions = new TransitionBuffer();
+    /** The RLE-counts seen before the first sample value of this chunk. */
+    long leadingCount;
+    /** The time spanned from the first sample value to the end. */
+    long timeSpan;
+    boolean hasValue;
+    int lastValue;
+    /** The (up to two) first transitions beyond the trigger. */
+    int trigTransitionCount;
+    final int[] trigTransitionIdx = new int[2];
+  }
+
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( ParallelRleDecoder.class.getName() );
+
+  /** The minimal number of samples per chunk. */
+  static final int MIN_CHUNK_SIZE = 65536;
+  /** The maximal number of samples to search backwards for a sync point. */
+  static final int MAX_SYNC_DISTANCE = 1024;
+
+  // VARIABLES
+
+  private final AcquisitionPlan plan;
+  private final GroupPacker packer;
+  private final int[] buffer;
+  private final int trigCount;
+  private final SampleProcessorCallback callback;
+  private final int chunkSize;
+  private final int threadCount;
+
+  private final int rleCountValue;
+  private final int rleCountMask;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ParallelRleDecoder instance.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture;
+   * @param aBuffer
+   *          the buffer with sample data to decode;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   */
+  public ParallelRleDecoder( final AcquisitionPlan aPlan, final int[] aBuffer, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    this( aPlan, aBuffer, aTrigCount, aCallback, MIN_CHUNK_SIZE, Runtime.getRuntime().availableProcessors() );
+  }
+
+  /**
+   * Creates a new ParallelRleDecoder instance.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture;
+   * @param aBuffer
+   *          the buffer with sample data to decode;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use;
+   * @param aMinChunkSize
+   *          the minimal number of samples per chunk, > 0;
+   * @param aThreadCount
+   *          the number of threads to decode with, > 0.
+   */
+  ParallelRleDecoder( final AcquisitionPlan aPlan, final int[] aBuffer, final int aTrigCount,
+      final SampleProcessorCallback aCallback, final int aMinChunkSize, final int aThreadCount )
+  {
+    if ( aBuffer == null )
+    {
+      throw new IllegalArgumentException( "Buffer cannot be null!" );
+    }
+
+    this.plan = aPlan;
+    this.packer = aPlan.getGroupPacker();
+    this.buffer = aBuffer;
+    this.trigCount = aTrigCount;
+    this.callback = aCallback;
+    this.threadCount = Math.max( 1, aThreadCount );
+    // use a couple of chunks per thread to balance the load...
+    this.chunkSize = Math.max( aMinChunkSize, ( aBuffer.length / ( 4 * this.threadCount ) ) + 1 );
+
+    this.rleCountValue = this.plan.getRleCountValue();
+    this.rleCountMask = this.plan.getRleCountMask();
+    if ( this.rleCountValue == 0 )
+    {
+      throw new IllegalArgumentException( "Illegal RLE width! Should be 8, 16, 24 or 32!" );
+    }
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
+   */
+  @Override
+  public void process()
+  {
+    final int chunkCount = ( this.buffer.length + this.chunkSize - 1 ) / this.chunkSize;
+    if ( ( chunkCount <= 1 ) || ( this.threadCount <= 1 ) )
+    {
+      // Not worth the effort...
+      new RleDecoder( this.plan, this.buffer, this.trigCount, this.callback ).process();
+      return;
+    }
+
+    LOG.log( Level.FINE, "Decoding RLE data in {0} chunks ...", Integer.valueOf( chunkCount ) );
+
+    final ChunkResult[] results = decodeChunks( chunkCount );
+
+    // Prefix sum over all chunks to determine the absolute time values...
+    long time = 0;
+    long rleTrigPos = 0;
+    int oldSample = -1;
+
+    for ( ChunkResult result : results )
+    {
+      if ( result.leadingCount > 0 )
+      {
+        if ( oldSample >= 0 )
+        {
+          time += result.leadingCount;
+        }
+        else
+        {
+          LOG.warning( "Ignoring RLE count without preceeding sample value: "
+              + Long.toHexString( result.leadingCount ) );
+        }
+      }
+
+      // The first sample value of a chunk is only a transition if it differs
+      // from the last sample value of the preceeding chunks...
+      final int[] values = result.transitions.getValues();
+      final long[] timestamps = result.transitions.getTimestamps();
+      final int first = ( result.hasValue && ( values[0] == oldSample ) ) ? 1 : 0;
+
+      if ( rleTrigPos == 0 )
+      {
+        for ( int i = 0; i < result.trigTransitionCount; i++ )
+        {
+          final int idx = result.trigTransitionIdx[i];
+          if ( ( idx >= first ) && ( ( time + timestamps[idx] ) != 0 ) )
+          {
+            rleTrigPos = time + timestamps[idx];
+            break;
+          }
+        }
+      }
+
+      for ( int i = first, size = result.transitions.getSize(); i < size; i++ )
+      {
+        this.callback.addValue( values[i], time + timestamps[i] );
+      }
+
+      time += result.timeSpan;
+      if ( result.hasValue )
+      {
+        oldSample = result.lastValue;
+      }
+    }
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( time, rleTrigPos - 1 );
+  }
+
+  /**
+   * Decodes a single chunk, starting at the given (token-aligned) sample index.
+   * 
+   * @param aStart
+   *          the index of the first sample of the chunk;
+   * @param aEnd
+   *          the index of the first sample of the next chunk.
+   * @return the chunk results, never <code>null</code>.
+   */
+  ChunkResult decodeChunk( final int aStart, final int aEnd )
+  {
+    final ChunkResult result = new ChunkResult();
+
+    final int lastSampleIdx = this.buffer.length - 1;
+    final int rleShiftBits = this.plan.getRLEDataWidth();
+    final boolean ddrMode = this.plan.isDoubleDataRateEnabled();
+
+    long time = 0;
+    boolean hasValue = false;
+    int oldSample = -1;
+
+    for ( int i = aStart; i < aEnd; i++ )
+    {
+      final int sampleValue = this.buffer[i];
+      final int normalizedSampleValue = this.packer.pack( sampleValue );
+
+      if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+      {
+        int count = ( normalizedSampleValue & this.rleCountMask );
+        if ( ddrMode && ( i < lastSampleIdx ) )
+        {
+          // see RleDecoder; the count might continue in the next chunk...
+          count = ( count << rleShiftBits ) | this.packer.pack( this.buffer[++i] );
+        }
+
+        if ( !hasValue )
+        {
+          result.leadingCount += count;
+        }
+        else if ( oldSample >= 0 )
+        {
+          time += count;
+        }
+        else
+        {
+          LOG.warning( "Ignoring RLE count without preceeding sample value: " + Integer.toHexString( count ) );
+        }
+      }
+      else
+      {
+        if ( !hasValue || ( sampleValue != oldSample ) )
+        {
+          if ( ( i >= this.trigCount ) && ( result.trigTransitionCount < result.trigTransitionIdx.length ) )
+          {
+            result.trigTransitionIdx[result.trigTransitionCount++] = result.transitions.getSize();
+          }
+
+          result.transitions.add( sampleValue, time );
+          oldSample = sampleValue;
+        }
+        hasValue = true;
+        time++;
+      }
+    }
+
+    result.timeSpan = time;
+    result.hasValue = hasValue;
+    result.lastValue = oldSample;
+
+    return result;
+  }
+
+  /**
+   * Determines the index of the first sample of the first token (a sample
+   * value or RLE-count) that starts at or after the given sample index.
+   * 
+   * @param aSampleIdx
+   *          the sample index to align;
+   * @param aTokenIdx
+   *          the index of a sample that is known to start a token, at or before
+   *          the given sample index.
+   * @return the aligned sample index, either the given index or the one after
+   *         it.
+   */
+  int alignToToken( final int aSampleIdx, final int aTokenIdx )
+  {
+    if ( !this.plan.isDoubleDataRateEnabled() || ( aSampleIdx <= 0 ) || ( aSampleIdx >= this.buffer.length ) )
+    {
+      return aSampleIdx;
+    }
+    if ( aTokenIdx >= aSampleIdx )
+    {
+      return aTokenIdx;
+    }
+
+    // Search backwards for a sample that is known to start a token: the first
+    // sample, or a sample following two consecutive sample values (as the
+    // first of those is either a value, or the second half of a count)...
+    final int limit = Math.max( aTokenIdx, aSampleIdx - MAX_SYNC_DISTANCE );
+    int syncIdx = aSampleIdx;
+    while ( ( syncIdx > limit ) && !isSyncPoint( syncIdx ) )
+    {
+      syncIdx--;
+    }
+    if ( ( syncIdx == limit ) && !isSyncPoint( syncIdx ) )
+    {
+      // No sync point nearby; walk from the given token...
+      syncIdx = aTokenIdx;
+    }
+
+    // Walk forward until we're at (or just beyond) the given sample index...
+    final int lastSampleIdx = this.buffer.length - 1;
+    int idx = syncIdx;
+    while ( idx < aSampleIdx )
+    {
+      idx += ( !isSampleValue( idx ) && ( idx < lastSampleIdx ) ) ? 2 : 1;
+    }
+    return idx;
+  }
+
+  /**
+   * Decodes all chunks in parallel.
+   * 
+   * @param aChunkCount
+   *          the number of chunks to decode.
+   * @return the results of each chunk, in order.
+   */
+  private ChunkResult[] decodeChunks( final int aChunkCount )
+  {
+    final ExecutorService executor = HostUtils.getSharedThreadPool();
+
+    final List<Future<ChunkResult>> futures = new ArrayList<Future<ChunkResult>>( aChunkCount );
+    try
+    {
+      // Each boundary is aligned relative to the previous one, which bounds
+      // the total amount of work in case there are no sync points...
+      final int[] boundaries = new int[aChunkCount + 1];
+      for ( int i = 1; i < aChunkCount; i++ )
+      {
+        boundaries[i] = alignToToken( i * this.chunkSize, boundaries[i - 1] );
+      }
+      boundaries[aChunkCount] = this.buffer.length;
+
+      for ( int i = 0; i < aChunkCount; i++ )
+      {
+        final int chunkStart = boundaries[i];
+        final int chunkEnd = boundaries[i + 1];
+
+        futures.add( executor.submit( new Callable<ChunkResult>()
+        {
+          @Override
+          public ChunkResult call() throws Exception
+          {
+            return decodeChunk( chunkStart, chunkEnd );
+          }
+        } ) );
+      }
+
+      final ChunkResult[] results = new ChunkResult[aChunkCount];
+      for ( int i = 0; i < aChunkCount; i++ )
+      {
+        results[i] = HostUtils.getUninterruptibly( futures.get( i ) );
+      }
+      return results;
+    }
+    finally
+    {
+      // only has effect in case decoding a chunk failed...
+      HostUtils.cancelAll( futures );
+    }
+  }
+
+  /**
+   * Returns whether the sample at the given index is known to start a token,
+   * that is, whether it follows two consecutive sample values.
+   */
+  private boolean isSyncPoint( final int aSampleIdx )
+  {
+    return ( aSampleIdx == 0 )
+        || ( isSampleValue( aSampleIdx - 1 ) && ( ( aSampleIdx == 1 ) || isSampleValue( aSampleIdx - 2 ) ) );
+  }
+
+  /**
+   * Returns whether the sample at the given index is a sample value, and not a
+   * RLE-count.
+   */
+  private boolean isSampleValue( final int aSampleIdx )
+  {
+    return ( this.packer.pack( this.buffer[aSampleIdx] ) & this.rleCountValue ) == 0;
+  }
+}
@@ -0,0 +1,131 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides an {@link EqualityFilter} for devices that send their samples in
+ * reverse chronological order (that is, last sample first).
+ * <p>
+ * The samples are filtered from the tail of the capture towards its head, as
+ * they are read from the device. The found transitions are reported to the
+ * callback, in chronological order, once all samples are processed.
+ * </p>
+ */
+public final class ReverseEqualityFilter implements StreamingSampleProcessor
+{
+  // VARIABLES
+
+  private final AcquisitionPlan plan;
+  private final int sampleCount;
+  private final int trigCount;
+  private final SampleProcessorCallback callback;
+  private final TransitionBuffer transitions;
+
+  // the chronological index of the next sample to process...
+  private int sampleIdx;
+  // the chronologically next sample value of the next sample to process...
+  private int nextSample;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ReverseEqualityFilter instance.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture;
+   * @param aSampleCount
+   *          the total number of samples that are to be processed;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   */
+  public ReverseEqualityFilter( final AcquisitionPlan aPlan, final int aSampleCount, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    this.plan = aPlan;
+    this.sampleCount = aSampleCount;
+    this.trigCount = aTrigCount;
+    this.callback = aCallback;
+    this.transitions = new TransitionBuffer();
+
+    this.sampleIdx = aSampleCount - 1;
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    SampleProcessorUtils.processZeroSamples( this, this.sampleIdx + 1 );
+
+    // The very first sample is always a transition...
+    if ( this.sampleCount > 0 )
+    {
+      this.transitions.add( this.nextSample, 0L );
+    }
+
+    final int[] values = this.transitions.getValues();
+    final long[] timestamps = this.transitions.getTimestamps();
+    for ( int i = this.transitions.getSize() - 1; i >= 0; i-- )
+    {
+      this.callback.addValue( values[i], timestamps[i] );
+    }
+
+    this.callback.ready( this.sampleCount, ( this.trigCount - EqualityFilter.getTriggerCorrection( this.plan ) ) );
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#processSamples(int[], int, int)
+   */
+  @Override
+  public void processSamples( final int[] aSamples, final int aOffset, final int aLength )
+  {
+    int nextSample = this.nextSample;
+    int i = this.sampleIdx;
+
+    for ( int k = aOffset, end = aOffset + aLength; k < end; k++, i-- )
+    {
+      final int sample = aSamples[k];
+
+      // A transition occurs at the chronologically next sample if it differs
+      // from the current one...
+      if ( ( i < ( this.sampleCount - 1 ) ) && ( sample != nextSample ) )
+      {
+        this.transitions.add( nextSample, i + 1 );
+      }
+
+      nextSample = sample;
+    }
+
+    this.nextSample = nextSample;
+    this.sampleIdx = i;
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.logging.*;
+
+import nl.lxtreme.ols.api.data.*;
+
+import org.sump.device.logicsniffer.*;
+
+
+/**
+ * Provides a {@link RleDecoder} for devices that send their samples in reverse
+ * chronological order (that is, last sample first).
+ * <p>
+ * The samples are decoded from the tail of the capture towards its head, as
+ * they are read from the device. As the absolute time of a sample is only
+ * known after all samples are seen, the time offsets relative to the end of
+ * the capture are kept until all samples are processed. The found transitions
+ * are then reported to the callback in chronological order.
+ * </p>
+ * <p>
+ * Note: this decoder does not support "double data rate" mode, as in that mode
+ * the RLE-counts span two samples, which can only be paired correctly when the
+ * samples are processed in chronological order.
+ * </p>
+ */
+public final class ReverseRleDecoder implements StreamingSampleProcessor
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( ReverseRleDecoder.class.getName() );
+
+  // VARIABLES
+
+  private final AcquisitionPlan plan;
+  private final GroupPacker packer;
+  private final int trigCount;
+  private final SampleProcessorCallback callback;
+  private final TransitionBuffer transitions;
+
+  private final int rleCountValue;
+  private final int rleCountMask;
+
+  // the chronological index of the next sample to process...
+  private int sampleIdx;
+  // the time spanned by all samples after the next sample to process...
+  private long timeSpan;
+  // the RLE-counts seen since the last sample value...
+  private long pendingCount;
+  // the chronologically next sample value, which is a transition if the next
+  // sample value to process differs from it...
+  private boolean hasCandidate;
+  private int candidateValue;
+  private int candidateIdx;
+  private long candidateOffset;
+  // the time offsets of the two first transitions beyond the trigger...
+  private long firstTrigOffset;
+  private long secondTrigOffset;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new ReverseRleDecoder instance.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture, cannot be in DDR mode;
+   * @param aSampleCount
+   *          the total number of samples that are to be processed;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   * @throws IllegalArgumentException
+   *           in case the given plan uses DDR mode, or has an invalid RLE data
+   *           width.
+   */
+  public ReverseRleDecoder( final AcquisitionPlan aPlan, final int aSampleCount, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    if ( aPlan.isDoubleDataRateEnabled() )
+    {
+      throw new IllegalArgumentException( "Reverse RLE decoding is not possible in DDR mode!" );
+    }
+
+    this.plan = aPlan;
+    this.packer = aPlan.getGroupPacker();
+    this.trigCount = aTrigCount;
+    this.callback = aCallback;
+    this.transitions = new TransitionBuffer();
+
+    this.rleCountValue = this.plan.getRleCountValue();
+    this.rleCountMask = this.plan.getRleCountMask();
+    if ( this.rleCountValue == 0 )
+    {
+      throw new IllegalArgumentException( "Illegal RLE width! Should be 8, 16, 24 or 32!" );
+    }
+
+    this.sampleIdx = aSampleCount - 1;
+    this.firstTrigOffset = -1L;
+    this.secondTrigOffset = -1L;
+  }
+
+  // METHODS
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    SampleProcessorUtils.processZeroSamples( this, this.sampleIdx + 1 );
+
+    // The chronologically first sample value is always a transition...
+    if ( this.hasCandidate )
+    {
+      addTransition( this.candidateValue, this.candidateIdx, this.candidateOffset );
+    }
+
+    if ( this.pendingCount > 0 )
+    {
+      LOG.warning( "Ignoring RLE count without preceeding sample value: " + Long.toHexString( this.pendingCount ) );
+    }
+
+    // Only now we know the total time, and can determine the absolute time
+    // values...
+    final long totalTime = this.timeSpan;
+
+    long rleTrigPos = 0;
+    if ( ( this.firstTrigOffset > 0 ) && ( this.firstTrigOffset != totalTime ) )
+    {
+      rleTrigPos = totalTime - this.firstTrigOffset;
+    }
+    else if ( this.secondTrigOffset > 0 )
+    {
+      // the first transition was at time zero, which is not regarded as
+      // trigger position...
+      rleTrigPos = totalTime - this.secondTrigOffset;
+    }
+
+    final int[] values = this.transitions.getValues();
+    final long[] offsets = this.transitions.getTimestamps();
+    for ( int i = this.transitions.getSize() - 1; i >= 0; i-- )
+    {
+      this.callback.addValue( values[i], totalTime - offsets[i] );
+    }
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( totalTime, rleTrigPos - 1 );
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#processSamples(int[], int, int)
+   */
+  @Override
+  public void processSamples( final int[] aSamples, final int aOffset, final int aLength )
+  {
+    int i = this.sampleIdx;
+
+    for ( int k = aOffset, end = aOffset + aLength; k < end; k++, i-- )
+    {
+      final int sampleValue = aSamples[k];
+      final int normalizedSampleValue = this.packer.pack( sampleValue );
+
+      if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+      {
+        // only counts that follow a sample value are taken into account; which
+        // is only known once we've seen the sample value preceeding it...
+        this.pendingCount += ( normalizedSampleValue & this.rleCountMask );
+      }
+      else
+      {
+        this.timeSpan += this.pendingCount;
+        this.pendingCount = 0L;
+
+        // the time of this sample is the total time minus this offset...
+        final long offset = this.timeSpan + 1L;
+
+        if ( this.hasCandidate && ( this.candidateValue != sampleValue ) )
+        {
+          addTransition( this.candidateValue, this.candidateIdx, this.candidateOffset );
+        }
+
+        this.hasCandidate = true;
+        this.candidateValue = sampleValue;
+        this.candidateIdx = i;
+        this.candidateOffset = offset;
+
+        this.timeSpan++;
+      }
+    }
+
+    this.sampleIdx = i;
+  }
+
+  /**
+   * Adds a transition, and keeps track of the trigger position.
+   * 
+   * @param aValue
+   *          the sample value of the transition;
+   * @param aSampleIdx
+   *          the chronological sample index of the transition;
+   * @param aOffset
+   *          the time offset of the transition, relative to the end.
+   */
+  private void addTransition( final int aValue, final int aSampleIdx, final long aOffset )
+  {
+    this.transitions.add( aValue, aOffset );
+
+    if ( aSampleIdx >= this.trigCount )
+    {
+      // transitions are seen in reverse order, so the last seen is the first
+      // transition beyond the trigger...
+      this.secondTrigOffset = this.firstTrigOffset;
+      this.firstTrigOffset = aOffset;
+    }
+  }
+}
@@ -26,8 +26,14 @@ import org.sump.device.logicsniffer.*;
 
 /**
  * Provides a RLE decoder.
+ * <p>
+ * This decoder can either process a complete buffer of samples at once, or
+ * process the samples incrementally as they are read from the device. In the
+ * latter case, the samples should be sent by the device in chronological order
+ * (that is, first sample first).
+ * </p>
  */
-public final class RleDecoder implements SampleProcessor
+public final class RleDecoder implements SampleProcessor, StreamingSampleProcessor
 {
   // CONSTANTS
 
@@ -35,110 +41,169 @@ public final class RleDecoder implements SampleProcessor
 
   // VARIABLES
 
-  private final LogicSnifferConfig config;
+  private final AcquisitionPlan plan;
+  private final GroupPacker packer;
   private final int[] buffer;
+  private final int sampleCount;
   private final int trigCount;
   private final SampleProcessorCallback callback;
 
   private final int rleCountValue;
   private final int rleCountMask;
 
+  // the decoding state, kept between subsequent blocks of samples...
+  private long time;
+  private long rleTrigPos;
+  private int oldSample;
+  private int sampleIdx;
+  private boolean ddrCountPending;
+  private int ddrCount;
+
   // CONSTRUCTORS
 
   /**
    * Creates a new RleDecoder instance.
-   * @param aConfig
+   * @param aPlan
    * @param aBuffer
    * @param aTrigCount
    * @param aCallback
    */
-  public RleDecoder( final LogicSnifferConfig aConfig, final int[] aBuffer, final int aTrigCount, final SampleProcessorCallback aCallback )
+  public RleDecoder( final AcquisitionPlan aPlan, final int[] aBuffer, final int aTrigCount, final SampleProcessorCallback aCallback )
   {
+    this( aPlan, aBuffer, ( aBuffer == null ) ? 0 : aBuffer.length, aTrigCount, aCallback );
+
     if ( aBuffer == null )
     {
       throw new IllegalArgumentException( "Buffer cannot be null!" );
     }
-    
-    this.config = aConfig;
+  }
+
+  /**
+   * Creates a new RleDecoder instance that processes its samples incrementally.
+   * 
+   * @param aPlan
+   *          the acquisition plan of the capture;
+   * @param aSampleCount
+   *          the total number of samples that are to be processed;
+   * @param aTrigCount
+   *          the trigcount value;
+   * @param aCallback
+   *          the callback to use.
+   * @see #processSamples(int[], int, int)
+   */
+  public RleDecoder( final AcquisitionPlan aPlan, final int aSampleCount, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    this( aPlan, null, aSampleCount, aTrigCount, aCallback );
+  }
+
+  /**
+   * Creates a new RleDecoder instance.
+   */
+  private RleDecoder( final AcquisitionPlan aPlan, final int[] aBuffer, final int aSampleCount, final int aTrigCount,
+      final SampleProcessorCallback aCallback )
+  {
+    this.plan = aPlan;
+    this.packer = aPlan.getGroupPacker();
     this.buffer = aBuffer;
+    this.sampleCount = aSampleCount;
     this.trigCount = aTrigCount;
     this.callback = aCallback;
 
     // enabled group count is "automatically" corrected for DDR/Demux mode...
-    final int width = this.config.getRLEDataWidth();
-    switch ( width )
+    this.rleCountValue = this.plan.getRleCountValue();
+    this.rleCountMask = this.plan.getRleCountMask();
+    if ( this.rleCountValue == 0 )
     {
-      case 32:
-        this.rleCountValue = 0x80000000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
-      case 24:
-        this.rleCountValue = 0x800000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
-      case 16:
-        this.rleCountValue = 0x8000;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
-      case 8:
-        this.rleCountValue = 0x80;
-        this.rleCountMask = this.rleCountValue - 1;
-        break;
-      default:
-        throw new IllegalArgumentException( "Illegal RLE width! Should be 8, 16, 24 or 32!" );
+      throw new IllegalArgumentException( "Illegal RLE width! Should be 8, 16, 24 or 32!" );
     }
+
+    this.time = 0;
+    this.rleTrigPos = 0;
+    this.oldSample = -1;
+    this.sampleIdx = 0;
+    this.ddrCountPending = false;
   }
 
   // METHODS
 
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#finish()
+   */
+  @Override
+  public void finish()
+  {
+    SampleProcessorUtils.processZeroSamples( this, this.sampleCount - this.sampleIdx );
+
+    // Take the last seen time value as "absolete" length of this trace...
+    this.callback.ready( this.time, this.rleTrigPos - 1 );
+  }
+
   /**
    * @see org.sump.device.logicsniffer.sampleprocessor.SampleProcessor#process()
    */
+  @Override
   public void process()
   {
-    long time = 0;
-    long rleTrigPos = 0;
-    int oldSample = -1;
+    if ( this.buffer == null )
+    {
+      throw new IllegalStateException( "No buffer to process!" );
+    }
+
+    processSamples( this.buffer, 0, this.buffer.length );
+    finish();
+  }
+
+  /**
+   * @see org.sump.device.logicsniffer.sampleprocessor.StreamingSampleProcessor#processSamples(int[], int, int)
+   */
+  @Override
+  public void processSamples( final int[] aSamples, final int aOffset, final int aLength )
+  {
+    long time = this.time;
+    long rleTrigPos = this.rleTrigPos;
+    int oldSample = this.oldSample;
+    boolean ddrCountPending = this.ddrCountPending;
+    int i = this.sampleIdx;
 
     // if msb set increment time by the count value
     // else save sample check trigger pos and increment time by 1
     // this should work for either dogsbody or rasmus bitstreams
 
-    final int samples = this.buffer.length;
+    final int lastSampleIdx = this.sampleCount - 1;
 
     // shiftBits needs to be 8 if 8 bit selected and 16 if 16 bit selected
-    final int rleShiftBits = this.config.getRLEDataWidth();
-    final boolean ddrMode = this.config.isDoubleDataRateEnabled();
+    final int rleShiftBits = this.plan.getRLEDataWidth();
+    final boolean ddrMode = this.plan.isDoubleDataRateEnabled();
 
-    for ( int i = 0; i < samples; i++ )
+    for ( int k = aOffset, end = aOffset + aLength; k < end; k++, i++ )
     {
-      final int sampleValue = this.buffer[i];
-      final int normalizedSampleValue = normalizeSampleValue( sampleValue );
+      final int sampleValue = aSamples[k];
+      final int normalizedSampleValue = this.packer.pack( sampleValue );
 
-      // if a count just add it to the time
-      if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+      int count;
+      if ( ddrCountPending )
       {
-        int count = ( normalizedSampleValue & this.rleCountMask );
-        if ( ddrMode && ( i < ( samples - 1 ) ) )
-        {
-          // In case of "double data rate", the RLE-counts are encoded as 16-
-          // resp. 32-bit values, so we need to take two samples for each
-          // count (as they are 8- or 16-bits in DDR mode).
-          // This should also solve issue #31...
-
-          // XXX should be multiplied by two, as suggested by DavidFrancis?!
-          // Tests with a 25MHz crystal show good results, without
-          // multiplication...
-          count = ( count << rleShiftBits ) | normalizeSampleValue( this.buffer[++i] );
-        }
-
-        if ( oldSample >= 0 )
-        {
-          time += count;
-        }
-        else
+        // In case of "double data rate", the RLE-counts are encoded as 16-
+        // resp. 32-bit values, so we need to take two samples for each
+        // count (as they are 8- or 16-bits in DDR mode).
+        // This should also solve issue #31...
+
+        // XXX should be multiplied by two, as suggested by DavidFrancis?!
+        // Tests with a 25MHz crystal show good results, without
+        // multiplication...
+        count = ( this.ddrCount << rleShiftBits ) | normalizedSampleValue;
+        ddrCountPending = false;
+      }
+      else if ( ( normalizedSampleValue & this.rleCountValue ) != 0 )
+      {
+        count = ( normalizedSampleValue & this.rleCountMask );
+        if ( ddrMode && ( i < lastSampleIdx ) )
         {
-          LOG.warning( "Ignoring RLE count without preceeding sample value: " + Integer.toHexString( count ) );
+          // the count is continued in the next sample...
+          this.ddrCount = count;
+          ddrCountPending = true;
+          continue;
         }
       }
       else
@@ -157,37 +222,24 @@ public final class RleDecoder implements SampleProcessor
           oldSample = sampleValue;
         }
         time++;
+        continue;
       }
-    }
 
-    // Take the last seen time value as "absolete" length of this trace...
-    this.callback.ready( time, rleTrigPos - 1 );
-  }
-
-  /**
-   * Normalizes the given sample value to mask out the unused channel groups
-   * and get a sample value in the correct width.
-   * 
-   * @param aSampleValue
-   *          the original sample to normalize.
-   * @return the normalized sample value.
-   */
-  private int normalizeSampleValue( final int aSampleValue )
-  {
-    int groupCount = this.config.getGroupCount();
-    int compdata = 0;
-
-    // to enable non contiguous channel groups
-    // need to remove zero data from unused groups
-    int indata = aSampleValue;
-    for ( int j = 0, outcount = 0; j < groupCount; j++ )
-    {
-      if ( this.config.isGroupEnabled( j ) )
+      // if a count just add it to the time
+      if ( oldSample >= 0 )
+      {
+        time += count;
+      }
+      else
       {
-        compdata |= ( ( indata & 0xff ) << ( 8 * outcount++ ) );
+        LOG.warning( "Ignoring RLE count without preceeding sample value: " + Integer.toHexString( count ) );
       }
-      indata >>= 8;
     }
-    return compdata;
+
+    this.time = time;
+    this.rleTrigPos = rleTrigPos;
+    this.oldSample = oldSample;
+    this.ddrCountPending = ddrCountPending;
+    this.sampleIdx = i;
   }
-}
\ No newline at end of file
+}
@@ -0,0 +1,339 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.concurrent.*;
+
+
+/**
+ * Provides a pipeline that lets a {@link StreamingSampleProcessor} process
+ * blocks of samples in a separate thread, while new samples are still being
+ * read from the device.
+ * <p>
+ * The pipeline uses a fixed number of sample blocks that are recycled, making
+ * it a bounded ring buffer between the reading and the processing thread. The
+ * reading thread obtains an empty block through {@link #acquireBlock()}, fills
+ * it and passes it to the processing thread through
+ * {@link #submitBlock(int[], int)}. Once all samples are read,
+ * {@link #finish()} waits until all samples are processed.
+ * </p>
+ * <p>
+ * The methods of the reading side wait <em>uninterruptibly</em> for the
+ * processing thread, as the processing of the samples read so far should be
+ * completed, even if the acquisition itself is interrupted. The interrupted
+ * status of the reading thread is preserved.
+ * </p>
+ */
+public final class SamplePipeline
+{
+  // INNER TYPES
+
+  /**
+   * Denotes a filled block of samples.
+   */
+  private static final class SampleBlock
+  {
+    final int[] samples;
+    final int length;
+
+    SampleBlock( final int[] aSamples, final int aLength )
+    {
+      this.samples = aSamples;
+      this.length = aLength;
+    }
+  }
+
+  // CONSTANTS
+
+  /** Denotes the end of the sample stream. */
+  private static final SampleBlock END_OF_STREAM = new SampleBlock( new int[0], -1 );
+
+  private static final long POLL_INTERVAL = 100L;
+
+  // VARIABLES
+
+  private final StreamingSampleProcessor processor;
+  private final BlockingQueue<int[]> freeBlocks;
+  private final BlockingQueue<SampleBlock> filledBlocks;
+  private final FutureTask<Void> task;
+  private final Thread thread;
+
+  private volatile long processingTime;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SamplePipeline instance.
+   * 
+   * @param aProcessor
+   *          the processor to process the samples with, cannot be
+   *          <code>null</code>;
+   * @param aBlockSize
+   *          the number of samples per block, > 0;
+   * @param aBlockCount
+   *          the number of blocks in the pipeline, > 0.
+   */
+  public SamplePipeline( final StreamingSampleProcessor aProcessor, final int aBlockSize, final int aBlockCount )
+  {
+    if ( aProcessor == null )
+    {
+      throw new IllegalArgumentException( "Processor cannot be null!" );
+    }
+    if ( ( aBlockSize <= 0 ) || ( aBlockCount <= 0 ) )
+    {
+      throw new IllegalArgumentException( "Block size and count should be greater than zero!" );
+    }
+
+    this.processor = aProcessor;
+
+    this.freeBlocks = new ArrayBlockingQueue<int[]>( aBlockCount );
+    for ( int i = 0; i < aBlockCount; i++ )
+    {
+      this.freeBlocks.add( new int[aBlockSize] );
+    }
+    // there's always room for all blocks *and* the end-of-stream marker...
+    this.filledBlocks = new ArrayBlockingQueue<SampleBlock>( aBlockCount + 1 );
+
+    this.task = new FutureTask<Void>( new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        processBlocks();
+        return null;
+      }
+    } );
+
+    this.thread = new Thread( this.task, "LogicSniffer sample processor" );
+    this.thread.setDaemon( true );
+  }
+
+  // METHODS
+
+  /**
+   * Aborts the processing of samples, without waiting for the processing
+   * thread to finish. The results of the processor are undefined afterwards.
+   */
+  public void abort()
+  {
+    this.task.cancel( true /* mayInterruptIfRunning */);
+  }
+
+  /**
+   * Returns an empty block of samples, waiting until one becomes available.
+   * 
+   * @return an empty block of samples, never <code>null</code>.
+   * @throws IllegalStateException
+   *           in case the processing of samples is aborted;
+   * @throws RuntimeException
+   *           in case the processing of samples failed.
+   */
+  public int[] acquireBlock()
+  {
+    boolean interrupted = false;
+    try
+    {
+      int[] block = null;
+      while ( block == null )
+      {
+        checkProcessingNotDone();
+
+        try
+        {
+          block = this.freeBlocks.poll( POLL_INTERVAL, TimeUnit.MILLISECONDS );
+        }
+        catch ( InterruptedException exception )
+        {
+          interrupted = true;
+        }
+      }
+      return block;
+    }
+    finally
+    {
+      if ( interrupted )
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Signals that all samples are read, and waits until they are all processed.
+   * 
+   * @throws IllegalStateException
+   *           in case the processing of samples is aborted;
+   * @throws RuntimeException
+   *           in case the processing of samples failed.
+   */
+  public void finish()
+  {
+    this.filledBlocks.add( END_OF_STREAM );
+
+    boolean interrupted = false;
+    try
+    {
+      while ( true )
+      {
+        try
+        {
+          this.task.get();
+          return;
+        }
+        catch ( InterruptedException exception )
+        {
+          interrupted = true;
+        }
+        catch ( CancellationException exception )
+        {
+          throw new IllegalStateException( "Sample processing aborted!" );
+        }
+        catch ( ExecutionException exception )
+        {
+          throw unwrap( exception );
+        }
+      }
+    }
+    finally
+    {
+      if ( interrupted )
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  /**
+   * Returns the time the processor spent on processing the samples so far.
+   * <p>
+   * This does not include the time the processing thread waited for samples
+   * to arrive. After {@link #finish()}, it includes the time needed to finish
+   * the processing as well.
+   * </p>
+   * 
+   * @return the processing time, in nanoseconds.
+   */
+  public long getProcessingTime()
+  {
+    return this.processingTime;
+  }
+
+  /**
+   * Starts the processing thread of this pipeline.
+   */
+  public void start()
+  {
+    this.thread.start();
+  }
+
+  /**
+   * Passes the given block of samples to the processing thread.
+   * 
+   * @param aBlock
+   *          the block of samples, as obtained by {@link #acquireBlock()};
+   * @param aLength
+   *          the number of samples in the given block, >= 0.
+   * @throws IllegalStateException
+   *           in case the processing of samples is aborted;
+   * @throws RuntimeException
+   *           in case the processing of samples failed.
+   */
+  public void submitBlock( final int[] aBlock, final int aLength )
+  {
+    checkProcessingNotDone();
+
+    // never blocks, as there's room for all blocks...
+    this.filledBlocks.add( new SampleBlock( aBlock, aLength ) );
+  }
+
+  /**
+   * Checks whether the processing thread has not terminated prematurely.
+   */
+  private void checkProcessingNotDone()
+  {
+    if ( this.task.isCancelled() )
+    {
+      throw new IllegalStateException( "Sample processing aborted!" );
+    }
+    if ( this.task.isDone() )
+    {
+      try
+      {
+        this.task.get();
+      }
+      catch ( InterruptedException exception )
+      {
+        // Cannot happen, as the task is done...
+        Thread.currentThread().interrupt();
+      }
+      catch ( ExecutionException exception )
+      {
+        throw unwrap( exception );
+      }
+      throw new IllegalStateException( "Sample processing already finished!" );
+    }
+  }
+
+  /**
+   * Processes all submitted blocks until the end of the sample stream.
+   * 
+   * @throws InterruptedException
+   *           in case the processing thread is interrupted.
+   */
+  private void processBlocks() throws InterruptedException
+  {
+    SampleBlock block;
+    while ( ( block = this.filledBlocks.take() ) != END_OF_STREAM )
+    {
+      final long start = System.nanoTime();
+      this.processor.processSamples( block.samples, 0, block.length );
+      this.processingTime += System.nanoTime() - start;
+
+      this.freeBlocks.offer( block.samples );
+    }
+
+    final long start = System.nanoTime();
+    this.processor.finish();
+    this.processingTime += System.nanoTime() - start;
+  }
+
+  /**
+   * Unwraps the cause of the given execution exception.
+   * 
+   * @param aException
+   *          the exception to unwrap.
+   * @return the unchecked exception to throw.
+   */
+  private RuntimeException unwrap( final ExecutionException aException )
+  {
+    final Throwable cause = aException.getCause();
+    if ( cause instanceof RuntimeException )
+    {
+      return ( RuntimeException )cause;
+    }
+    if ( cause instanceof Error )
+    {
+      throw ( Error )cause;
+    }
+    return new RuntimeException( "Sample processing failed!", cause );
+  }
+}
@@ -0,0 +1,71 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+/**
+ * Provides some utility methods for sample processors.
+ */
+final class SampleProcessorUtils
+{
+  // CONSTANTS
+
+  private static final int ZERO_BLOCK_SIZE = 1024;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SampleProcessorUtils instance, never used.
+   */
+  private SampleProcessorUtils()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Lets the given processor process the given number of zero-valued samples.
+   * <p>
+   * This is used for the samples that are not read from the device, for
+   * example, when the acquisition is cancelled. Those samples remain zero in
+   * the sample buffer of a non-streaming acquisition, and are processed as
+   * such.
+   * </p>
+   * 
+   * @param aProcessor
+   *          the processor to feed the samples to;
+   * @param aCount
+   *          the number of zero samples to process, >= 0.
+   */
+  static void processZeroSamples( final StreamingSampleProcessor aProcessor, final int aCount )
+  {
+    final int[] zeros = new int[Math.min( ZERO_BLOCK_SIZE, Math.max( 0, aCount ) )];
+
+    int remaining = aCount;
+    while ( remaining > 0 )
+    {
+      final int length = Math.min( zeros.length, remaining );
+      aProcessor.processSamples( zeros, 0, length );
+      remaining -= length;
+    }
+  }
+}
@@ -0,0 +1,53 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+/**
+ * Denotes a sample processor that processes its samples incrementally, in
+ * blocks, as they are read from the device.
+ * <p>
+ * The samples are given in the order they are sent by the device. Once all
+ * samples are processed, {@link #finish()} is to be called, which processes any
+ * samples that were not read (as zeros) and reports the results to the
+ * {@link SampleProcessorCallback}.
+ * </p>
+ */
+public interface StreamingSampleProcessor
+{
+  /**
+   * Finishes the processing of all samples and informs the callback that all
+   * samples are processed.
+   */
+  void finish();
+
+  /**
+   * Processes a block of samples.
+   * 
+   * @param aSamples
+   *          the samples to process, cannot be <code>null</code>;
+   * @param aOffset
+   *          the offset of the first sample to process;
+   * @param aLength
+   *          the number of samples to process.
+   */
+  void processSamples( final int[] aSamples, final int aOffset, final int aLength );
+}
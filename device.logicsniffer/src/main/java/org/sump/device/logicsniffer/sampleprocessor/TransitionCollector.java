@@ -0,0 +1,140 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Provides a {@link SampleProcessorCallback} that collects all transitions in
+ * a {@link TransitionBuffer}.
+ * <p>
+ * The returned arrays are trimmed to their actual size, so they can directly
+ * be used as captured data without any further copying.
+ * </p>
+ */
+public final class TransitionCollector implements SampleProcessorCallback
+{
+  // VARIABLES
+
+  private final TransitionBuffer transitions;
+  private long absoluteLength;
+  private long triggerPosition;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionCollector instance with a default initial
+   * capacity.
+   */
+  public TransitionCollector()
+  {
+    this.transitions = new TransitionBuffer();
+    this.absoluteLength = 0L;
+    this.triggerPosition = Ols.NOT_AVAILABLE;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void addValue( final int aSampleValue, final long aTimestamp )
+  {
+    this.transitions.add( aSampleValue, aTimestamp );
+  }
+
+  /**
+   * Returns the absolute length of the processed samples.
+   * 
+   * @return the absolute length, as given in {@link #ready(long, long)}.
+   */
+  public long getAbsoluteLength()
+  {
+    return this.absoluteLength;
+  }
+
+  /**
+   * Returns the peak amount of memory used for the transitions so far.
+   * 
+   * @return a memory size, in bytes.
+   */
+  public long getPeakMemoryUsage()
+  {
+    return this.transitions.getPeakMemoryUsage();
+  }
+
+  /**
+   * Returns the number of collected transitions.
+   * 
+   * @return a transition count, >= 0.
+   */
+  public int getSize()
+  {
+    return this.transitions.getSize();
+  }
+
+  /**
+   * Returns the collected timestamps.
+   * 
+   * @return the timestamps, with a length of exactly {@link #getSize()}, never
+   *         <code>null</code>.
+   */
+  public long[] getTimestamps()
+  {
+    return this.transitions.getTimestamps();
+  }
+
+  /**
+   * Returns the trigger position of the processed samples.
+   * 
+   * @return the trigger position, as given in {@link #ready(long, long)}, or
+   *         {@link Ols#NOT_AVAILABLE} if not yet ready.
+   */
+  public long getTriggerPosition()
+  {
+    return this.triggerPosition;
+  }
+
+  /**
+   * Returns the collected sample values.
+   * 
+   * @return the sample values, with a length of exactly {@link #getSize()},
+   *         never <code>null</code>.
+   */
+  public int[] getValues()
+  {
+    return this.transitions.getValues();
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void ready( final long aAbsoluteLength, final long aTriggerPosition )
+  {
+    this.absoluteLength = aAbsoluteLength;
+    this.triggerPosition = aTriggerPosition;
+  }
+}
@@ -0,0 +1,123 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link AcquisitionPlan}.
+ */
+public class AcquisitionPlanTest
+{
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.config = new LogicSnifferConfig();
+
+    VirtualLogicSnifferDevice device = new VirtualLogicSnifferDevice( this.config );
+    this.config.setDeviceProfile( device.addDeviceProfile( "MOCK", "MockedDevice" ) );
+
+    device.close();
+
+    this.config.setSampleRate( LogicSnifferAcquisitionTask.CLOCK );
+  }
+
+  /**
+   * Test method for {@link AcquisitionPlan#expandSample(byte[], int)}.
+   */
+  @Test
+  public void testExpandSample()
+  {
+    this.config.setEnabledChannels( 0xFF00FF00 );
+
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+    assertEquals( 2, plan.getEnabledGroupCount() );
+
+    final byte[] buf = { ( byte )0x12, ( byte )0x34, ( byte )0x56 };
+    assertEquals( 0x34001200, plan.expandSample( buf, 0 ) );
+    assertEquals( 0x56003400, plan.expandSample( buf, 1 ) );
+  }
+
+  /**
+   * Test method for {@link AcquisitionPlan#normalizeSampleValue(int)}.
+   */
+  @Test
+  public void testNormalizeSampleValue()
+  {
+    this.config.setEnabledChannels( 0x0000FFFF );
+    assertEquals( 0x5678, new AcquisitionPlan( this.config ).normalizeSampleValue( 0x12345678 ) );
+
+    this.config.setEnabledChannels( 0xFFFFFFFF );
+    assertEquals( 0x12345678, new AcquisitionPlan( this.config ).normalizeSampleValue( 0x12345678 ) );
+
+    this.config.setEnabledChannels( 0xFF00FF00 );
+    assertEquals( 0x1256, new AcquisitionPlan( this.config ).normalizeSampleValue( 0x12345678 ) );
+
+    this.config.setEnabledChannels( 0x00FF0000 );
+    assertEquals( 0x34, new AcquisitionPlan( this.config ).normalizeSampleValue( 0x12345678 ) );
+  }
+
+  /**
+   * Test method for {@link AcquisitionPlan#getRleCountValue()}.
+   */
+  @Test
+  public void testRleCountValue()
+  {
+    this.config.setEnabledChannels( 0x00FF00FF );
+
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+    assertEquals( 16, plan.getRLEDataWidth() );
+    assertEquals( 0x8000, plan.getRleCountValue() );
+    assertEquals( 0x7FFF, plan.getRleCountMask() );
+  }
+
+  /**
+   * Tests that a plan is not affected by changes made to its configuration.
+   */
+  @Test
+  public void testSnapshotIsNotAffectedByConfigChanges()
+  {
+    this.config.setEnabledChannels( 0x000000FF );
+    this.config.setRleEnabled( true );
+
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+    this.config.setEnabledChannels( 0xFFFFFFFF );
+    this.config.setRleEnabled( false );
+
+    assertEquals( 1, plan.getEnabledGroupCount() );
+    assertEquals( 0x000000FF, plan.getEnabledChannelsMask() );
+    assertTrue( plan.isRleEnabled() );
+  }
+}
@@ -0,0 +1,273 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import javax.microedition.io.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Test cases for {@link ConnectionCache}.
+ */
+public class ConnectionCacheTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides an in-memory connection to a device that responds to ID queries.
+   */
+  static final class FakeConnection implements StreamConnection
+  {
+    // VARIABLES
+
+    final LinkedList<Integer> response = new LinkedList<Integer>();
+    boolean responding = true;
+    boolean closed = false;
+
+    // METHODS
+
+    @Override
+    public void close()
+    {
+      this.closed = true;
+    }
+
+    @Override
+    public DataInputStream openDataInputStream()
+    {
+      return new DataInputStream( openInputStream() );
+    }
+
+    @Override
+    public DataOutputStream openDataOutputStream()
+    {
+      return new DataOutputStream( openOutputStream() );
+    }
+
+    @Override
+    public InputStream openInputStream()
+    {
+      return new InputStream()
+      {
+        @Override
+        public int available()
+        {
+          return FakeConnection.this.response.size();
+        }
+
+        @Override
+        public int read()
+        {
+          return FakeConnection.this.response.isEmpty() ? -1 : FakeConnection.this.response.removeFirst().intValue();
+        }
+
+        @Override
+        public void close()
+        {
+          FakeConnection.this.closed = true;
+        }
+      };
+    }
+
+    @Override
+    public OutputStream openOutputStream()
+    {
+      return new OutputStream()
+      {
+        @Override
+        public void write( final int aByte )
+        {
+          if ( ( aByte == SumpProtocolConstants.CMD_ID ) && FakeConnection.this.responding )
+          {
+            for ( int i = 24; i >= 0; i -= 8 )
+            {
+              FakeConnection.this.response.add( Integer.valueOf( ( SumpProtocolConstants.SLA_V1 >>> i ) & 0xFF ) );
+            }
+          }
+        }
+
+        @Override
+        public void close()
+        {
+          FakeConnection.this.closed = true;
+        }
+      };
+    }
+  }
+
+  // VARIABLES
+
+  private List<FakeConnection> opened;
+  private ConnectionCache cache;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.opened = new ArrayList<FakeConnection>();
+    this.cache = new ConnectionCache( new ConnectionCache.ConnectionOpener()
+    {
+      @Override
+      public StreamConnection open( final String aURI )
+      {
+        final FakeConnection result = new FakeConnection();
+        ConnectionCacheTest.this.opened.add( result );
+        return result;
+      }
+    }, 60000L );
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown()
+  {
+    this.cache.close();
+  }
+
+  /**
+   * Tests that closing the cache closes all idle connections.
+   */
+  @Test
+  public void testCloseCacheClosesIdleConnections() throws IOException
+  {
+    this.cache.acquire( "port", "uri" ).close();
+    assertFalse( this.opened.get( 0 ).closed );
+
+    this.cache.close();
+    assertTrue( this.opened.get( 0 ).closed );
+    assertEquals( 0, this.cache.getIdleConnectionCount() );
+  }
+
+  /**
+   * Tests that an idle connection is closed after the idle timeout.
+   */
+  @Test
+  public void testIdleConnectionIsClosedAfterTimeout() throws Exception
+  {
+    final ConnectionCache shortLived = new ConnectionCache( new ConnectionCache.ConnectionOpener()
+    {
+      @Override
+      public StreamConnection open( final String aURI )
+      {
+        final FakeConnection result = new FakeConnection();
+        ConnectionCacheTest.this.opened.add( result );
+        return result;
+      }
+    }, 10L );
+
+    try
+    {
+      shortLived.acquire( "port", "uri" ).close();
+
+      final long deadline = System.currentTimeMillis() + 5000L;
+      while ( !this.opened.get( 0 ).closed && ( System.currentTimeMillis() < deadline ) )
+      {
+        Thread.sleep( 5L );
+      }
+
+      assertTrue( this.opened.get( 0 ).closed );
+      assertEquals( 0, shortLived.getIdleConnectionCount() );
+    }
+    finally
+    {
+      shortLived.close();
+    }
+  }
+
+  /**
+   * Tests that closing the streams of a cached connection does not close the
+   * connection itself.
+   */
+  @Test
+  public void testStreamsAreKeptOpen() throws IOException
+  {
+    final StreamConnection conn = this.cache.acquire( "port", "uri" );
+    conn.openDataInputStream().close();
+    conn.openDataOutputStream().close();
+    conn.close();
+
+    assertFalse( this.opened.get( 0 ).closed );
+    assertEquals( 1, this.cache.getIdleConnectionCount() );
+  }
+
+  /**
+   * Tests that a connection with other options is not reused.
+   */
+  @Test
+  public void testConnectionWithOtherOptionsIsNotReused() throws IOException
+  {
+    this.cache.acquire( "port", "uri1" ).close();
+    this.cache.acquire( "port", "uri2" ).close();
+
+    assertEquals( 2, this.opened.size() );
+    assertTrue( this.opened.get( 0 ).closed );
+    assertFalse( this.opened.get( 1 ).closed );
+  }
+
+  /**
+   * Tests that a connection to an unresponsive device is not reused.
+   */
+  @Test
+  public void testInvalidConnectionIsNotReused() throws IOException
+  {
+    this.cache.acquire( "port", "uri" ).close();
+    this.opened.get( 0 ).responding = false;
+
+    this.cache.acquire( "port", "uri" ).close();
+
+    assertEquals( 2, this.opened.size() );
+    assertTrue( this.opened.get( 0 ).closed );
+  }
+
+  /**
+   * Tests that a validated connection is reused.
+   */
+  @Test
+  public void testValidConnectionIsReused() throws IOException
+  {
+    final StreamConnection conn1 = this.cache.acquire( "port", "uri" );
+    conn1.close();
+    // closing twice should not matter...
+    conn1.close();
+
+    final StreamConnection conn2 = this.cache.acquire( "port", "uri" );
+    assertEquals( 1, this.opened.size() );
+    assertEquals( 0, this.cache.getIdleConnectionCount() );
+
+    conn2.close();
+    assertEquals( 1, this.cache.getIdleConnectionCount() );
+    assertFalse( this.opened.get( 0 ).closed );
+  }
+}
@@ -0,0 +1,84 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link DetectedDeviceCache}.
+ */
+public class DetectedDeviceCacheTest
+{
+  // VARIABLES
+
+  private DetectedDeviceCache cache;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.cache = new DetectedDeviceCache();
+  }
+
+  /**
+   * Tests that the metadata is cached per port and baudrate.
+   */
+  @Test
+  public void testMetadataIsCachedPerPortAndBaudrate()
+  {
+    final LogicSnifferMetadata metadata = new LogicSnifferMetadata();
+    this.cache.put( "/dev/ttyACM0", 115200, metadata );
+
+    assertSame( metadata, this.cache.get( "/dev/ttyACM0", 115200 ) );
+    assertNull( this.cache.get( "/dev/ttyACM0", 921600 ) );
+    assertNull( this.cache.get( "/dev/ttyACM1", 115200 ) );
+    assertNull( this.cache.get( null, 115200 ) );
+  }
+
+  /**
+   * Tests that invalidating removes the cached metadata.
+   */
+  @Test
+  public void testInvalidateOk()
+  {
+    this.cache.put( "/dev/ttyACM0", 115200, new LogicSnifferMetadata() );
+    this.cache.invalidate( "/dev/ttyACM0", 115200 );
+
+    assertNull( this.cache.get( "/dev/ttyACM0", 115200 ) );
+  }
+
+  /**
+   * Tests that caching no metadata is not allowed.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testPutWithoutMetadataFail()
+  {
+    this.cache.put( "/dev/ttyACM0", 115200, null );
+  }
+}
@@ -39,7 +39,15 @@ import org.sump.device.logicsniffer.protocol.*;
 
 
 /**
- * Provides a "virtual" LogicSniffer device.
+ * Provides a "virtual" LogicSniffer device for the unit tests of this bundle.
+ * <p>
+ * Unlike the runtime emulator of the <tt>device.virtual</tt> bundle, this test
+ * double runs in-process as an {@link LogicSnifferAcquisitionTask} itself, and
+ * records the divider, size and flags sent to it, so tests can assert on the
+ * exact commands written by the acquisition task. Its {@link SampleProvider}s
+ * allow tests to feed hand-crafted (and deliberately malformed) sample data,
+ * something the runtime emulator does not offer.
+ * </p>
  */
 public class VirtualLogicSnifferDevice extends LogicSnifferAcquisitionTask
 {
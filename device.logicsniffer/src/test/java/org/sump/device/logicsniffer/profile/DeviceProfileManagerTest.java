@@ -71,6 +71,54 @@ public class DeviceProfileManagerTest
     assertEquals( "OLS", profile.getType() );
   }
 
+  /**
+   * Test method for {@link DeviceProfileManager#findProfile(String)}.
+   */
+  @Test
+  public void testFindProfileByPrefix() throws ConfigurationException
+  {
+    DeviceProfileManager manager = new DeviceProfileManager();
+    manager.updated( "1", getMockedProperties( "OLS", "\"Open Logic Sniffer\"" ) );
+    manager.updated( "2", getMockedProperties( "SUMP", "\"Sump v1.01\"" ) );
+
+    assertEquals( "SUMP", manager.findProfile( "Sump v1.01 (rev. 2)" ).getType() );
+    assertEquals( "OLS", manager.findProfile( "Open Logic Sniffer v2" ).getType() );
+    assertNull( manager.findProfile( "Open Logic" ) );
+  }
+
+  /**
+   * Tests that an invalid profile is reported as configuration problem.
+   */
+  @Test( expected = ConfigurationException.class )
+  public void testUpdatedWithInvalidProfileFails() throws ConfigurationException
+  {
+    DeviceProfileManager manager = new DeviceProfileManager();
+    Properties properties = getMockedProperties( "OLS", "\"Open Logic Sniffer\"" );
+    properties.put( DeviceProfile.DEVICE_CLOCKSPEED, "fast" );
+    manager.updated( "1", properties );
+  }
+
+  /**
+   * Tests that the profile lookup reflects updated and deleted profiles.
+   */
+  @Test
+  public void testFindProfileAfterUpdateAndDelete() throws ConfigurationException
+  {
+    DeviceProfileManager manager = new DeviceProfileManager();
+    manager.updated( "1", getMockedProperties( "SUMP", "\"Sump\"" ) );
+    manager.updated( "2", getMockedProperties( "OLS", "\"*\"" ) );
+
+    assertEquals( "SUMP", manager.findProfile( "Sump" ).getType() );
+
+    manager.updated( "1", getMockedProperties( "SUMP", "\"Sump v2\"" ) );
+    assertEquals( "OLS", manager.findProfile( "Sump" ).getType() );
+    assertEquals( "SUMP", manager.findProfile( "Sump v2" ).getType() );
+
+    manager.deleted( "2" );
+    assertNull( manager.findProfile( "Sump" ) );
+    assertNull( manager.getProfile( "OLS" ) );
+  }
+
   /**
    * Test method for {@link DeviceProfileManager#getProfile(String)}.
    */
@@ -21,7 +21,13 @@
 package org.sump.device.logicsniffer.protocol;
 
 
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
 import org.junit.*;
+import org.sump.device.logicsniffer.protocol.DemonCoreCommandWriter.*;
 
 
 /**
@@ -29,6 +35,52 @@ import org.junit.*;
  */
 public class DemonCoreCommandWriterTest
 {
+  // INNER TYPES
+
+  /**
+   * Keeps track of the number of flushes.
+   */
+  static final class FlushCountingOutputStream extends ByteArrayOutputStream
+  {
+    int flushCount;
+
+    @Override
+    public void flush() throws IOException
+    {
+      this.flushCount++;
+    }
+  }
+
+  /**
+   * Fails the first write, and collects all other written bytes.
+   */
+  static final class FailingOnceOutputStream extends OutputStream
+  {
+    final ByteArrayOutputStream written = new ByteArrayOutputStream();
+    boolean failed;
+
+    @Override
+    public void write( final int aByte ) throws IOException
+    {
+      write( new byte[] { ( byte )aByte }, 0, 1 );
+    }
+
+    @Override
+    public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+    {
+      if ( !this.failed )
+      {
+        this.failed = true;
+        throw new IOException( "Write failed!" );
+      }
+      this.written.write( aBuffer, aOffset, aLength );
+    }
+  }
+
+  // VARIABLES
+
+  private FlushCountingOutputStream stream;
+  private DemonCoreCommandWriter writer;
 
   /**
    * @throws java.lang.Exception
@@ -36,6 +88,121 @@ public class DemonCoreCommandWriterTest
   @Before
   public void setUp() throws Exception
   {
+    this.stream = new FlushCountingOutputStream();
+    this.writer = new DemonCoreCommandWriter( null, new DataOutputStream( this.stream ) );
+  }
+
+  /**
+   * Tests that ending a batch that was never started fails.
+   */
+  @Test( expected = IllegalStateException.class )
+  public void testEndBatchWithoutBeginFails() throws IOException
+  {
+    this.writer.endBatch();
+  }
+
+  /**
+   * Tests that commands that could not be written are not sent along with the
+   * next commands.
+   */
+  @Test
+  public void testFailedWriteDiscardsPendingCommands() throws IOException
+  {
+    final FailingOnceOutputStream failingStream = new FailingOnceOutputStream();
+    this.writer = new DemonCoreCommandWriter( null, new DataOutputStream( failingStream ) );
+
+    try
+    {
+      this.writer.writeTerm( TriggerTerm.TERM_A, 0, 0 );
+      fail( "IOException expected!" );
+    }
+    catch ( IOException exception )
+    {
+      // Ok; expected...
+    }
+
+    this.writer.writeCmdReset();
+
+    assertArrayEquals( new byte[5], failingStream.written.toByteArray() );
+  }
+
+  /**
+   * Tests that nested batches are only written when the outermost batch ends.
+   */
+  @Test
+  public void testNestedBatchesAreWrittenOnce() throws IOException
+  {
+    this.writer.beginBatch();
+    this.writer.writeCmdReset();
+    this.writer.writeTerm( TriggerTerm.TERM_B, 0x12345678, 0xff00ff00 );
+    this.writer.writeEdge( TriggerEdge.EDGE_1, 0x01, 0x02, 0 );
+    this.writer.writeRange( TriggerRange.RANGE_1_LOWER, 0x10, 0xff );
+
+    assertEquals( 0, this.stream.size() );
+    assertEquals( 0, this.stream.flushCount );
+
+    this.writer.endBatch();
+
+    // 5 resets + 5 term commands + 9 edge commands + 17 range commands...
+    assertEquals( 5 + ( 31 * 5 ), this.stream.size() );
+    assertEquals( 1, this.stream.flushCount );
+  }
+
+  /**
+   * Tests that the LUT chains are cached per trigger configuration, and are
+   * recalculated when the configuration changes.
+   */
+  @Test
+  public void testLutChainsAreCachedPerConfiguration() throws IOException
+  {
+    final int address = TriggerTerm.TERM_B.getLutChainAddress();
+
+    this.writer.writeTerm( TriggerTerm.TERM_B, 0x12345678, 0xff00ff00 );
+    final int[] chain = this.writer.getCachedChain( address, 0x12345678, 0xff00ff00 );
+    assertNotNull( chain );
+
+    this.writer.writeTerm( TriggerTerm.TERM_B, 0x12345678, 0xff00ff00 );
+    assertSame( chain, this.writer.getCachedChain( address, 0x12345678, 0xff00ff00 ) );
+    assertNull( this.writer.getCachedChain( address, 0x12345678, 0x00ff00ff ) );
+
+    this.writer.writeTerm( TriggerTerm.TERM_B, 0x12345678, 0x00ff00ff );
+    assertNull( this.writer.getCachedChain( address, 0x12345678, 0xff00ff00 ) );
+    assertNotNull( this.writer.getCachedChain( address, 0x12345678, 0x00ff00ff ) );
+
+    // Both writes of the same configuration yield the same bytes...
+    final byte[] written = this.stream.toByteArray();
+    assertArrayEquals( Arrays.copyOfRange( written, 0, 25 ), Arrays.copyOfRange( written, 25, 50 ) );
+  }
+
+  /**
+   * Tests that a trigger term LUT chain is written as a single block.
+   */
+  @Test
+  public void testWriteTermIsWrittenAsSingleBlock() throws IOException
+  {
+    this.writer.writeTerm( TriggerTerm.TERM_A, 0, 0 );
+
+    assertArrayEquals( new byte[] { ( byte )0x9E, 0x20, 0, 0, 0, //
+        ( byte )0x9F, -1, -1, -1, -1, //
+        ( byte )0x9F, -1, -1, -1, -1, //
+        ( byte )0x9F, -1, -1, -1, -1, //
+        ( byte )0x9F, -1, -1, -1, -1 }, this.stream.toByteArray() );
+    assertEquals( 1, this.stream.flushCount );
+  }
+
+  /**
+   * Tests that a trigger limit is written as a single block.
+   */
+  @Test
+  public void testWriteTriggerLimitIsWrittenAsSingleBlock() throws IOException
+  {
+    this.writer.writeTriggerLimit( TriggerTimer.TIMER_2, 0x312345678L );
+
+    assertArrayEquals( new byte[] { ( byte )0x9E, 0x3A, 0, 0, 0, //
+        ( byte )0x9F, 0x78, 0x56, 0x34, 0x12, //
+        ( byte )0x9E, 0x3B, 0, 0, 0, //
+        ( byte )0x9F, 0x03, 0, 0, 0 }, this.stream.toByteArray() );
+    assertEquals( 1, this.stream.flushCount );
   }
 
   @Test
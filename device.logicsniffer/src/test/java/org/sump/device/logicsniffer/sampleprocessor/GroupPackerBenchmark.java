@@ -0,0 +1,193 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import java.util.*;
+
+
+/**
+ * Micro-benchmark comparing the {@link GroupPacker} with (un)packing the
+ * channel groups one group at a time.
+ * <p>
+ * This is not a unit test; run it manually, for example with:
+ * <code>java -cp target/classes:target/test-classes
+ * org.sump.device.logicsniffer.sampleprocessor.GroupPackerBenchmark</code>.
+ * </p>
+ */
+public final class GroupPackerBenchmark
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_COUNT = 1 << 20;
+  private static final int ROUNDS = 50;
+  private static final int[] GROUP_MASKS = { 0x01, 0x03, 0x05, 0x0A, 0x0F };
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new GroupPackerBenchmark instance.
+   */
+  private GroupPackerBenchmark()
+  {
+    // NO-op
+  }
+
+  // METHODS
+
+  /**
+   * Runs the benchmark.
+   * 
+   * @param aArgs
+   *          the (ignored) command line arguments.
+   */
+  public static void main( final String[] aArgs )
+  {
+    final Random random = new Random( 1L );
+    final int[] values = new int[SAMPLE_COUNT];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      values[i] = random.nextInt();
+    }
+    final byte[] bytes = new byte[GroupPacker.MAX_GROUPS * SAMPLE_COUNT];
+    random.nextBytes( bytes );
+
+    for ( int mask : GROUP_MASKS )
+    {
+      final GroupPacker packer = GroupPacker.forGroups( mask );
+      final int[] shifts = createShifts( mask );
+
+      long loopPack = Long.MAX_VALUE, tablePack = Long.MAX_VALUE;
+      long loopUnpack = Long.MAX_VALUE, tableUnpack = Long.MAX_VALUE;
+      int checksum = 0;
+
+      for ( int round = 0; round < ROUNDS; round++ )
+      {
+        long start = System.nanoTime();
+        checksum += packByGroup( shifts, values );
+        loopPack = Math.min( loopPack, System.nanoTime() - start );
+
+        start = System.nanoTime();
+        checksum -= packByTable( packer, values );
+        tablePack = Math.min( tablePack, System.nanoTime() - start );
+
+        start = System.nanoTime();
+        checksum += unpackByGroup( shifts, bytes );
+        loopUnpack = Math.min( loopUnpack, System.nanoTime() - start );
+
+        start = System.nanoTime();
+        checksum -= unpackByTable( packer, bytes );
+        tableUnpack = Math.min( tableUnpack, System.nanoTime() - start );
+      }
+
+      System.out.printf( "groups 0x%X: pack %.2f -> %.2f ns/sample, unpack %.2f -> %.2f ns/sample (checksum %d)%n",
+          Integer.valueOf( mask ), nsPerSample( loopPack ), nsPerSample( tablePack ), nsPerSample( loopUnpack ),
+          nsPerSample( tableUnpack ), Integer.valueOf( checksum ) );
+    }
+  }
+
+  /**
+   * Creates the bit-shifts of each enabled group, as used by the per-group
+   * (un)packing.
+   */
+  private static int[] createShifts( final int aGroupMask )
+  {
+    final int[] shifts = new int[Integer.bitCount( aGroupMask )];
+    for ( int i = 0, j = 0; i < GroupPacker.MAX_GROUPS; i++ )
+    {
+      if ( ( aGroupMask & ( 1 << i ) ) != 0 )
+      {
+        shifts[j++] = 8 * i;
+      }
+    }
+    return shifts;
+  }
+
+  /**
+   * Converts the given duration to nanoseconds per sample.
+   */
+  private static Double nsPerSample( final long aDuration )
+  {
+    return Double.valueOf( ( double )aDuration / SAMPLE_COUNT );
+  }
+
+  /**
+   * Packs all values one group at a time.
+   */
+  private static int packByGroup( final int[] aShifts, final int[] aValues )
+  {
+    int checksum = 0;
+    for ( int value : aValues )
+    {
+      int result = 0;
+      for ( int i = 0; i < aShifts.length; i++ )
+      {
+        result |= ( ( ( value >>> aShifts[i] ) & 0xff ) << ( 8 * i ) );
+      }
+      checksum += result;
+    }
+    return checksum;
+  }
+
+  /**
+   * Packs all values with the given packer.
+   */
+  private static int packByTable( final GroupPacker aPacker, final int[] aValues )
+  {
+    int checksum = 0;
+    for ( int value : aValues )
+    {
+      checksum += aPacker.pack( value );
+    }
+    return checksum;
+  }
+
+  /**
+   * Unpacks all samples one group at a time.
+   */
+  private static int unpackByGroup( final int[] aShifts, final byte[] aBytes )
+  {
+    int checksum = 0;
+    for ( int i = 0, offset = 0; i < SAMPLE_COUNT; i++, offset += aShifts.length )
+    {
+      int result = 0;
+      for ( int j = 0; j < aShifts.length; j++ )
+      {
+        result |= ( ( aBytes[offset + j] & 0xff ) << aShifts[j] );
+      }
+      checksum += result;
+    }
+    return checksum;
+  }
+
+  /**
+   * Unpacks all samples with the given packer.
+   */
+  private static int unpackByTable( final GroupPacker aPacker, final byte[] aBytes )
+  {
+    int checksum = 0;
+    for ( int i = 0, offset = 0, stride = aPacker.getGroupCount(); i < SAMPLE_COUNT; i++, offset += stride )
+    {
+      checksum += aPacker.unpack( aBytes, offset );
+    }
+    return checksum;
+  }
+}
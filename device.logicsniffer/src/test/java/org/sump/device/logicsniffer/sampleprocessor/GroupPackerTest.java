@@ -0,0 +1,134 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link GroupPacker}.
+ */
+public class GroupPackerTest
+{
+  // METHODS
+
+  /**
+   * Packs the given sample value the "classic" way, one group at a time.
+   */
+  private static int packByGroup( final int aGroupMask, final int aSampleValue )
+  {
+    int result = 0;
+    for ( int i = 0, j = 0; i < GroupPacker.MAX_GROUPS; i++ )
+    {
+      if ( ( aGroupMask & ( 1 << i ) ) != 0 )
+      {
+        result |= ( ( ( aSampleValue >>> ( 8 * i ) ) & 0xff ) << ( 8 * j++ ) );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Unpacks the given sample bytes the "classic" way, one group at a time.
+   */
+  private static int unpackByGroup( final int aGroupMask, final byte[] aBuffer, final int aOffset )
+  {
+    int result = 0;
+    for ( int i = 0, j = aOffset; i < GroupPacker.MAX_GROUPS; i++ )
+    {
+      if ( ( aGroupMask & ( 1 << i ) ) != 0 )
+      {
+        result |= ( ( aBuffer[j++] & 0xff ) << ( 8 * i ) );
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Tests that the group count matches the number of enabled groups.
+   */
+  @Test
+  public void testGroupCountOk()
+  {
+    for ( int mask = 0; mask < 16; mask++ )
+    {
+      final GroupPacker packer = GroupPacker.forGroups( mask );
+      assertEquals( mask, packer.getGroupMask() );
+      assertEquals( Integer.bitCount( mask ), packer.getGroupCount() );
+    }
+  }
+
+  /**
+   * Tests that an invalid group mask is rejected.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidGroupMaskFail()
+  {
+    GroupPacker.forGroups( 16 );
+  }
+
+  /**
+   * Tests that packing yields the same results as packing each group.
+   */
+  @Test
+  public void testPackOk()
+  {
+    final Random random = new Random( 1L );
+    for ( int mask = 0; mask < 16; mask++ )
+    {
+      final GroupPacker packer = GroupPacker.forGroups( mask );
+      for ( int i = 0; i < 1000; i++ )
+      {
+        final int value = random.nextInt();
+        assertEquals( packByGroup( mask, value ), packer.pack( value ) );
+        // packing and unpacking should only clear the disabled groups...
+        assertEquals( packer.unpack( packer.pack( value ) ), packer.unpack( packByGroup( mask, value ) ) );
+        assertEquals( packer.pack( value ), packer.pack( packer.unpack( packer.pack( value ) ) ) );
+      }
+    }
+  }
+
+  /**
+   * Tests that unpacking sample bytes yields the same results as unpacking
+   * each group.
+   */
+  @Test
+  public void testUnpackBytesOk()
+  {
+    final Random random = new Random( 2L );
+    final byte[] buffer = new byte[64];
+    for ( int mask = 0; mask < 16; mask++ )
+    {
+      final GroupPacker packer = GroupPacker.forGroups( mask );
+      for ( int i = 0; i < 100; i++ )
+      {
+        random.nextBytes( buffer );
+        final int offset = random.nextInt( buffer.length - GroupPacker.MAX_GROUPS );
+        assertEquals( unpackByGroup( mask, buffer, offset ), packer.unpack( buffer, offset ) );
+      }
+    }
+  }
+}
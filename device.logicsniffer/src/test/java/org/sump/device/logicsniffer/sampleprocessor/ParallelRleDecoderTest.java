@@ -0,0 +1,201 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.*;
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Test cases for {@link ParallelRleDecoder}, which should yield the same
+ * results as the {@link RleDecoder}.
+ */
+public class ParallelRleDecoderTest
+{
+  // CONSTANTS
+
+  private static final int[] CHANNEL_MASKS = { 0x000000FF, 0x0000FFFF, 0x00FF00FF, 0xFFFFFFFF };
+
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+  private Random random;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.config = new LogicSnifferConfig();
+    this.config.setRleEnabled( true );
+
+    this.random = new Random( 4321L );
+  }
+
+  /**
+   * Tests that the parallel decoder yields the same results as the sequential
+   * decoder.
+   */
+  @Test
+  public void testDecodeInChunksOk()
+  {
+    this.config.setSampleRate( SumpProtocolConstants.CLOCK );
+    assertDecodedEqually( 0.5 );
+  }
+
+  /**
+   * Tests that the parallel decoder yields the same results as the sequential
+   * decoder in DDR mode, in which RLE-counts might cross chunk boundaries.
+   */
+  @Test
+  public void testDecodeInChunksWithDoubleDataRateOk()
+  {
+    this.config.setSampleRate( 2 * SumpProtocolConstants.CLOCK );
+    assertDecodedEqually( 0.5 );
+    // lots of consecutive RLE-counts makes it harder to find the chunk starts...
+    assertDecodedEqually( 0.95 );
+  }
+
+  /**
+   * Tests that chunks are aligned properly in DDR mode, even if there are no
+   * two consecutive sample values in the vicinity of the chunk boundaries.
+   */
+  @Test
+  public void testDecodeWithoutNearbySyncPointsOk()
+  {
+    this.config.setSampleRate( 2 * SumpProtocolConstants.CLOCK );
+    this.config.setEnabledChannels( 0x000000FF );
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+    // value, count (high), count (low), value, ...; the low part of each count
+    // has the RLE-flag set as well, so there are no sync points at all...
+    final int[] samples = new int[30001];
+    for ( int i = 0; i < samples.length; i += 3 )
+    {
+      samples[i] = ( i / 3 ) & 0x7F;
+      if ( ( i + 2 ) < samples.length )
+      {
+        samples[i + 1] = 0x80;
+        samples[i + 2] = 0x80 | ( i & 0x7F );
+      }
+    }
+
+    final TransitionCollector expected = new TransitionCollector();
+    new RleDecoder( plan, samples, 0, expected ).process();
+
+    final TransitionCollector actual = new TransitionCollector();
+    new ParallelRleDecoder( plan, samples, 0, actual, ParallelRleDecoder.MAX_SYNC_DISTANCE + 1, 3 ).process();
+
+    assertArrayEquals( expected.getValues(), actual.getValues() );
+    assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+    assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+  }
+
+  /**
+   * Tests that a small buffer is decoded as well.
+   */
+  @Test
+  public void testDecodeSmallBufferOk()
+  {
+    this.config.setSampleRate( SumpProtocolConstants.CLOCK );
+    this.config.setEnabledChannels( 0x000000FF );
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+    final TransitionCollector actual = new TransitionCollector();
+    new ParallelRleDecoder( plan, new int[] { 0x01, 0x83, 0x02 }, 0, actual ).process();
+
+    assertArrayEquals( new int[] { 0x01, 0x02 }, actual.getValues() );
+    assertArrayEquals( new long[] { 0L, 4L }, actual.getTimestamps() );
+    assertEquals( 5L, actual.getAbsoluteLength() );
+  }
+
+  /**
+   * Decodes random samples with both decoders and compares their results.
+   */
+  private void assertDecodedEqually( final double aCountRatio )
+  {
+    for ( int mask : CHANNEL_MASKS )
+    {
+      this.config.setEnabledChannels( mask );
+      final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+      if ( plan.getRleCountValue() == 0 )
+      {
+        continue;
+      }
+
+      for ( int run = 0; run < 20; run++ )
+      {
+        final int[] samples = createSamples( plan, 1 + this.random.nextInt( 5000 ), aCountRatio );
+        final int trigCount = this.random.nextInt( samples.length );
+
+        final TransitionCollector expected = new TransitionCollector();
+        new RleDecoder( plan, samples, trigCount, expected ).process();
+
+        final TransitionCollector actual = new TransitionCollector();
+        new ParallelRleDecoder( plan, samples, trigCount, actual, 1 + this.random.nextInt( 200 ), 3 ).process();
+
+        assertArrayEquals( expected.getValues(), actual.getValues() );
+        assertArrayEquals( expected.getTimestamps(), actual.getTimestamps() );
+        assertEquals( expected.getAbsoluteLength(), actual.getAbsoluteLength() );
+        assertEquals( expected.getTriggerPosition(), actual.getTriggerPosition() );
+      }
+    }
+  }
+
+  /**
+   * Creates random RLE-encoded samples, as read from the device, with a limited
+   * number of distinct sample values.
+   */
+  private int[] createSamples( final AcquisitionPlan aPlan, final int aCount, final double aCountRatio )
+  {
+    final int mask = aPlan.getEnabledChannelsMask();
+    final int[] distinct = { this.random.nextInt() & mask, this.random.nextInt() & mask, this.random.nextInt() & mask };
+
+    // the RLE-count flag is the MSB of the highest enabled group...
+    final int countValue = Integer.highestOneBit( mask );
+
+    final int[] result = new int[aCount];
+    for ( int i = 0; i < aCount; i++ )
+    {
+      int value = this.random.nextBoolean() ? distinct[this.random.nextInt( distinct.length )]
+          : ( this.random.nextInt() & mask );
+      if ( this.random.nextDouble() < aCountRatio )
+      {
+        value |= countValue;
+      }
+      else
+      {
+        value &= ~countValue;
+      }
+      result[i] = value;
+    }
+    return result;
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.util.*;
+
+import org.junit.*;
+import org.sump.device.logicsniffer.*;
+import org.sump.device.logicsniffer.protocol.*;
+
+
+/**
+ * Test cases for the {@link StreamingSampleProcessor} implementations, which
+ * should yield the same results as processing the complete sample buffer.
+ */
+public class StreamingSampleProcessorTest
+{
+  // CONSTANTS
+
+  private static final int[] CHANNEL_MASKS = { 0x000000FF, 0x0000FFFF, 0x00FF00FF, 0xFF000000, 0xFFFFFFFF };
+
+  // VARIABLES
+
+  private LogicSnifferConfig config;
+  private Random random;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.config = new LogicSnifferConfig();
+    this.config.setSampleRate( SumpProtocolConstants.CLOCK );
+    this.config.setRleEnabled( true );
+
+    this.random = new Random( 1234L );
+  }
+
+  /**
+   * Tests that {@link EqualityFilter} yields the same results when processing
+   * its samples in blocks.
+   */
+  @Test
+  public void testEqualityFilterInBlocksOk()
+  {
+    for ( int mask : CHANNEL_MASKS )
+    {
+      this.config.setEnabledChannels( mask );
+      final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+      for ( int run = 0; run < 20; run++ )
+      {
+        final int[] samples = createSamples( plan, 1 + this.random.nextInt( 3000 ) );
+        final int trigCount = this.random.nextInt( samples.length );
+        final int readCount = readCount( samples.length );
+
+        final TransitionCollector expected = new TransitionCollector();
+        new EqualityFilter( plan, truncate( samples, readCount ), trigCount, expected ).process();
+
+        final TransitionCollector actual = new TransitionCollector();
+        feedInBlocks( new EqualityFilter( plan, samples.length, trigCount, actual ), samples, readCount );
+
+        assertTransitionsEqual( expected, actual );
+      }
+    }
+  }
+
+  /**
+   * Tests that {@link RleDecoder} yields the same results when processing its
+   * samples in blocks, also in DDR mode.
+   */
+  @Test
+  public void testRleDecoderInBlocksOk()
+  {
+    for ( int ddr = 0; ddr < 2; ddr++ )
+    {
+      this.config.setSampleRate( SumpProtocolConstants.CLOCK * ( ddr + 1 ) );
+
+      for ( int mask : CHANNEL_MASKS )
+      {
+        this.config.setEnabledChannels( mask );
+        final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+        if ( plan.getRleCountValue() == 0 )
+        {
+          continue;
+        }
+
+        for ( int run = 0; run < 20; run++ )
+        {
+          final int[] samples = createSamples( plan, 1 + this.random.nextInt( 3000 ) );
+          final int trigCount = this.random.nextInt( samples.length );
+          final int readCount = readCount( samples.length );
+
+          final TransitionCollector expected = new TransitionCollector();
+          new RleDecoder( plan, truncate( samples, readCount ), trigCount, expected ).process();
+
+          final TransitionCollector actual = new TransitionCollector();
+          feedInBlocks( new RleDecoder( plan, samples.length, trigCount, actual ), samples, readCount );
+
+          assertTransitionsEqual( expected, actual );
+        }
+      }
+    }
+  }
+
+  /**
+   * Tests that {@link ReverseEqualityFilter} yields the same results as the
+   * {@link EqualityFilter} on the reversed samples.
+   */
+  @Test
+  public void testReverseEqualityFilterOk()
+  {
+    for ( int mask : CHANNEL_MASKS )
+    {
+      this.config.setEnabledChannels( mask );
+      final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+      for ( int run = 0; run < 20; run++ )
+      {
+        final int[] stream = createSamples( plan, 1 + this.random.nextInt( 3000 ) );
+        final int trigCount = this.random.nextInt( stream.length );
+        final int readCount = readCount( stream.length );
+
+        final TransitionCollector expected = new TransitionCollector();
+        new EqualityFilter( plan, reverse( stream, readCount ), trigCount, expected ).process();
+
+        final TransitionCollector actual = new TransitionCollector();
+        feedInBlocks( new ReverseEqualityFilter( plan, stream.length, trigCount, actual ), stream, readCount );
+
+        assertTransitionsEqual( expected, actual );
+      }
+    }
+  }
+
+  /**
+   * Tests that {@link ReverseRleDecoder} yields the same results as the
+   * {@link RleDecoder} on the reversed samples.
+   */
+  @Test
+  public void testReverseRleDecoderOk()
+  {
+    for ( int mask : CHANNEL_MASKS )
+    {
+      this.config.setEnabledChannels( mask );
+      final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+      for ( int run = 0; run < 20; run++ )
+      {
+        final int[] stream = createSamples( plan, 1 + this.random.nextInt( 3000 ) );
+        final int trigCount = this.random.nextInt( stream.length );
+        final int readCount = readCount( stream.length );
+
+        final TransitionCollector expected = new TransitionCollector();
+        new RleDecoder( plan, reverse( stream, readCount ), trigCount, expected ).process();
+
+        final TransitionCollector actual = new TransitionCollector();
+        feedInBlocks( new ReverseRleDecoder( plan, stream.length, trigCount, actual ), stream, readCount );
+
+        assertTransitionsEqual( expected, actual );
+      }
+    }
+  }
+
+  /**
+   * Tests that {@link ReverseRleDecoder} does not accept DDR mode.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testReverseRleDecoderInDdrModeFail()
+  {
+    this.config.setSampleRate( SumpProtocolConstants.CLOCK * 2 );
+    this.config.setEnabledChannels( 0x0000FFFF );
+
+    new ReverseRleDecoder( new AcquisitionPlan( this.config ), 10, 0, new TransitionCollector() );
+  }
+
+  /**
+   * Tests that the {@link SamplePipeline} yields the same results as
+   * processing the samples directly.
+   */
+  @Test
+  public void testSamplePipelineOk()
+  {
+    this.config.setEnabledChannels( 0x0000FFFF );
+    final AcquisitionPlan plan = new AcquisitionPlan( this.config );
+
+    final int[] samples = createSamples( plan, 100000 );
+
+    final TransitionCollector expected = new TransitionCollector();
+    new RleDecoder( plan, samples, 10, expected ).process();
+
+    final TransitionCollector actual = new TransitionCollector();
+    final SamplePipeline pipeline = new SamplePipeline( new RleDecoder( plan, samples.length, 10, actual ), 100, 4 );
+    pipeline.start();
+
+    int offset = 0;
+    while ( offset < samples.length )
+    {
+      final int[] block = pipeline.acquireBlock();
+      final int length = Math.min( block.length, samples.length - offset );
+      System.arraycopy( samples, offset, block, 0, length );
+      pipeline.submitBlock( block, length );
+      offset += length;
+    }
+    pipeline.finish();
+
+    assertTransitionsEqual( expected, actual );
+    assertTrue( pipeline.getProcessingTime() > 0L );
+  }
+
+  /**
+   * Asserts the given transitions are equal.
+   */
+  private void assertTransitionsEqual( final TransitionCollector aExpected, final TransitionCollector aActual )
+  {
+    assertArrayEquals( aExpected.getValues(), aActual.getValues() );
+    assertArrayEquals( aExpected.getTimestamps(), aActual.getTimestamps() );
+    assertEquals( aExpected.getAbsoluteLength(), aActual.getAbsoluteLength() );
+    assertEquals( aExpected.getTriggerPosition(), aActual.getTriggerPosition() );
+  }
+
+  /**
+   * Creates random samples, as read from the device, with a limited number of
+   * distinct values to obtain equal sample runs.
+   */
+  private int[] createSamples( final AcquisitionPlan aPlan, final int aCount )
+  {
+    final int mask = aPlan.getEnabledChannelsMask();
+    final int[] distinct = { this.random.nextInt() & mask, this.random.nextInt() & mask, this.random.nextInt() & mask };
+
+    final int[] result = new int[aCount];
+    for ( int i = 0; i < aCount; i++ )
+    {
+      result[i] = this.random.nextBoolean() ? distinct[this.random.nextInt( distinct.length )]
+          : ( this.random.nextInt() & mask );
+    }
+    return result;
+  }
+
+  /**
+   * Feeds the first given number of samples in randomly sized blocks to the
+   * given processor, and finishes it.
+   */
+  private void feedInBlocks( final StreamingSampleProcessor aProcessor, final int[] aSamples, final int aCount )
+  {
+    int offset = 0;
+    while ( offset < aCount )
+    {
+      final int length = Math.min( aCount - offset, 1 + this.random.nextInt( 100 ) );
+      aProcessor.processSamples( aSamples, offset, length );
+      offset += length;
+    }
+    aProcessor.finish();
+  }
+
+  /**
+   * Returns the number of samples that are "read", which in some cases is less
+   * than the given count, as if the acquisition was interrupted.
+   */
+  private int readCount( final int aCount )
+  {
+    return this.random.nextInt( 4 ) == 0 ? this.random.nextInt( aCount + 1 ) : aCount;
+  }
+
+  /**
+   * Returns the sample buffer as would be created for the given stream of
+   * which only the given number of samples is read, in reverse.
+   */
+  private int[] reverse( final int[] aStream, final int aCount )
+  {
+    final int[] result = truncate( aStream, aCount );
+    HostUtils.reverse( result );
+    return result;
+  }
+
+  /**
+   * Returns the sample buffer as would be created for the given stream of
+   * which only the given number of samples is read.
+   */
+  private int[] truncate( final int[] aStream, final int aCount )
+  {
+    final int[] result = new int[aStream.length];
+    System.arraycopy( aStream, 0, result, 0, aCount );
+    return result;
+  }
+}
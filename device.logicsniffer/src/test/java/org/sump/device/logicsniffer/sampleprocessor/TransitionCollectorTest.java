@@ -0,0 +1,71 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 J.W. Janssen, www.lxtreme.nl
+ */
+package org.sump.device.logicsniffer.sampleprocessor;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link TransitionCollector}.
+ */
+public class TransitionCollectorTest
+{
+  // METHODS
+
+  /**
+   * Tests that all values are collected, together with the absolute length
+   * and trigger position given when ready.
+   */
+  @Test
+  public void testCollectOk()
+  {
+    final TransitionCollector buffer = new TransitionCollector();
+    for ( int i = 0; i < 11; i++ )
+    {
+      buffer.addValue( i * 3, i * 10L );
+    }
+    buffer.ready( 123L, 45L );
+
+    assertEquals( 11, buffer.getSize() );
+    assertEquals( 11, buffer.getValues().length );
+    assertEquals( 11, buffer.getTimestamps().length );
+    assertEquals( 30, buffer.getValues()[10] );
+    assertEquals( 100L, buffer.getTimestamps()[10] );
+    assertEquals( 123L, buffer.getAbsoluteLength() );
+    assertEquals( 45L, buffer.getTriggerPosition() );
+  }
+
+  /**
+   * Tests that an empty collector yields empty arrays.
+   */
+  @Test
+  public void testEmptyBufferOk()
+  {
+    final TransitionCollector buffer = new TransitionCollector();
+    buffer.ready( 0L, -1L );
+
+    assertEquals( 0, buffer.getValues().length );
+    assertEquals( 0, buffer.getTimestamps().length );
+  }
+}
@@ -0,0 +1,193 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Denotes the data functions of the test device, each providing its own
+ * {@link SignalGenerator}.
+ * <p>
+ * The order of the functions is significant, as the index of the selected
+ * function is stored in the user settings.
+ * </p>
+ */
+enum DataFunction
+{
+  // CONSTANTS
+
+  SAWTOOTH( "Sawtooth", true )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.SAWTOOTH, aChannels );
+    }
+  },
+  ZEROS( "All zeros", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.ZEROS, aChannels );
+    }
+  },
+  SINE( "Sine", true )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.SINE, aChannels );
+    }
+  },
+  ODD_EVEN( "odd-even", true )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.ODD_EVEN, aChannels );
+    }
+  },
+  ALTERNATING( "0x55-0xAA", true )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.ALTERNATING, aChannels );
+    }
+  },
+  RANDOM( "Random", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PatternGenerator( PatternGenerator.Pattern.RANDOM, aChannels );
+    }
+  },
+  I2C( "I2C sample", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new I2CGenerator( "Hello World, this is a sample I2C bit stream!" );
+    }
+  },
+  ONE_WIRE( "1-Wire sample", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new OneWireGenerator( "Hello World, this is a sample 1-wire bit stream!", true /* aStandard */);
+    }
+  },
+  UART( "UART sample", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new UartGenerator( "Hello World, this is a sample UART bit stream!\r\n" );
+    }
+  },
+  SPI( "SPI sample", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new SpiGenerator( "Hello World, this is a sample SPI bit stream!" );
+    }
+  },
+  JTAG( "JTAG sample", false )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new JtagGenerator();
+    }
+  },
+  PRBS( "PRBS", true )
+  {
+    @Override
+    SignalGenerator createGenerator( final int aChannels )
+    {
+      return new PrbsGenerator();
+    }
+  };
+
+  /**
+   * The maximum number of samples generated by functions that (can) change
+   * their value on (nearly) every sample; this keeps their transitions well
+   * within the default heap size.
+   */
+  static final int MAX_DENSE_DATA_LENGTH = 16777216;
+
+  // VARIABLES
+
+  private final String displayName;
+  private final boolean dense;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new DataFunction instance.
+   * 
+   * @param aDisplayName
+   *          the name to show to the user;
+   * @param aDense
+   *          <code>true</code> if the generated data changes on (nearly) every
+   *          sample, <code>false</code> otherwise.
+   */
+  private DataFunction( final String aDisplayName, final boolean aDense )
+  {
+    this.displayName = aDisplayName;
+    this.dense = aDense;
+  }
+
+  // METHODS
+
+  /**
+   * Creates a new signal generator for this data function.
+   * 
+   * @param aChannels
+   *          the number of channels.
+   * @return a new signal generator, never <code>null</code>.
+   */
+  abstract SignalGenerator createGenerator( final int aChannels );
+
+  /**
+   * Limits the given data length to what this data function can generate.
+   * 
+   * @param aDataLength
+   *          the requested data length, in samples.
+   * @return the data length to generate, in samples.
+   */
+  int limitDataLength( final int aDataLength )
+  {
+    return this.dense ? Math.min( aDataLength, MAX_DENSE_DATA_LENGTH ) : aDataLength;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public String toString()
+  {
+    return this.displayName;
+  }
+}
@@ -25,9 +25,9 @@ import java.util.*;
 
 
 /**
- * 
+ * Provides an I2C protocol data generator.
  */
-final class I2CGenerator
+final class I2CGenerator extends SignalGenerator
 {
   // CONSTANTS
 
@@ -42,17 +42,21 @@ final class I2CGenerator
   private final int sampleRate;
   private final int busSpeed;
   private final int tickSize;
-  private final List<Integer> data;
-  private int idx;
+  private final byte[] data;
+  private final Random random;
 
   // CONSTRUCTORS
 
   /**
    * Creates a new I2CGenerator instance.
+   * 
+   * @param aString
+   *          the data to write as bit stream, cannot be <code>null</code>.
    */
-  public I2CGenerator()
+  public I2CGenerator( final String aString )
   {
-    this.data = new ArrayList<Integer>();
+    this.data = aString.getBytes();
+    this.random = new Random( this.data.length );
 
     this.busSpeed = 1000000; // 1 MHz
     this.sampleRate = 4000000; // 4 MHz
@@ -65,36 +69,18 @@ final class I2CGenerator
   /**
    * @return
    */
-  public int[] getData()
-  {
-    final int size = this.data.size();
-    final int[] result = new int[size];
-    for ( int i = 0; i < size; i++ )
-    {
-      result[i] = this.data.get( i ).intValue();
-    }
-    return result;
-  }
-
-  /**
-   * @return
-   */
+  @Override
   public int getRate()
   {
     return this.sampleRate;
   }
 
   /**
-   * Writes a given string as bit-stream to the given data array.
-   * 
-   * @param aData
-   * @param aString
-   * @return the I2C clock speed.
+   * Writes the string of this generator as bit-stream.
    */
-  public void writeBitStream( final String aString )
+  @Override
+  protected void generateFrame() throws InterruptedException
   {
-    this.idx = 0;
-
     writeStartBit();
 
     writeByte( ( byte )0xf6 ); // write to address 0x1ff (10-bit)
@@ -103,11 +89,16 @@ final class I2CGenerator
     writeByte( ( byte )0xff );
     writeBit( ACK ); // ack
 
-    for ( byte b : aString.getBytes() )
+    for ( byte b : this.data )
     {
+      if ( isComplete() )
+      {
+        return;
+      }
+
       writeByte( b );
       // ack
-      writeBit( Math.random() > 0.8 ? NACK : ACK );
+      writeBit( this.random.nextDouble() > 0.8 ? NACK : ACK );
     }
     writeStopBit();
 
@@ -118,15 +109,21 @@ final class I2CGenerator
 
     writeByte( ( byte )'!' );
     // ack
-    writeBit( Math.random() > 0.8 ? NACK : ACK );
+    writeBit( this.random.nextDouble() > 0.8 ? NACK : ACK );
 
     writeStopBit();
 
-    int i = 20;
-    while ( i-- >= 0 )
-    {
-      this.data.add( Integer.valueOf( 0 ) );
-    }
+    addSample( 0 );
+    advance( 20 );
+  }
+
+  /**
+   * Adds a single sample with the given value.
+   */
+  private void addSample( final int aValue ) throws InterruptedException
+  {
+    setValue( aValue );
+    advance( 1 );
   }
 
   /**
@@ -134,30 +131,28 @@ final class I2CGenerator
    */
   private int getClock()
   {
-    final double nextTickMultiple = this.tickSize * Math.floor( this.idx / ( double )this.tickSize );
-    final double tickIdx = ( nextTickMultiple == 0.0 ) ? this.idx : Math.ceil( this.idx / nextTickMultiple );
+    final long idx = getTime() - 1;
+    final double nextTickMultiple = this.tickSize * Math.floor( idx / ( double )this.tickSize );
+    final double tickIdx = ( nextTickMultiple == 0.0 ) ? idx : Math.ceil( idx / nextTickMultiple );
     return ( ( tickIdx % 2 ) == 0 ) ? 1 : 0;
   }
 
   /**
-   * @param aData
    * @param aBit
    */
-  private void writeBit( final int aBit )
+  private void writeBit( final int aBit ) throws InterruptedException
   {
-    int val = this.data.get( this.idx ).intValue();
+    int val = getValue();
 
     // While SCL should be high, let it also keep SDA stable...
     while ( getClock() == 1 )
     {
-      this.data.add( Integer.valueOf( val | SCL ) );
-      this.idx++;
+      addSample( val | SCL );
     }
 
     // Clear SCL...
     val &= ~SCL;
-    this.data.remove( this.idx );
-    this.data.add( Integer.valueOf( val ) );
+    setPreviousValue( val );
 
     // One tick later, update SDA...
     if ( aBit == 0 )
@@ -168,22 +163,19 @@ final class I2CGenerator
     {
       val |= SDA;
     }
-    this.data.add( Integer.valueOf( val ) );
-    this.idx++;
+    addSample( val );
 
     // As long as SCL remains low, keep SDA stable...
     while ( getClock() == 0 )
     {
-      this.data.add( Integer.valueOf( val ) );
-      this.idx++;
+      addSample( val );
     }
   }
 
   /**
-   * @param aData
    * @param aValue
    */
-  private void writeByte( byte aValue )
+  private void writeByte( byte aValue ) throws InterruptedException
   {
     int bit;
 
@@ -198,43 +190,29 @@ final class I2CGenerator
    * Data transfer is initiated with the START bit when SDA is pulled low while
    * SCL stays high.
    */
-  private void writeStartBit()
+  private void writeStartBit() throws InterruptedException
   {
-    int i = this.tickSize - 1;
-    while ( i-- > 0 )
-    {
-      this.data.add( Integer.valueOf( SDA | SCL ) );
-    }
-    this.data.add( Integer.valueOf( SCL ) );
-
-    i = this.tickSize;
-    while ( i-- > 0 )
-    {
-      this.data.add( Integer.valueOf( SCL ) );
-    }
+    setValue( SDA | SCL );
+    advance( this.tickSize - 1 );
 
-    this.idx = this.data.size() - 1;
+    setValue( SCL );
+    advance( this.tickSize + 1 );
   }
 
   /**
    * When the transfer is complete, a STOP bit (P) is sent by releasing the data
    * line to allow it to be pulled up while SCL is constantly high.
    */
-  private void writeStopBit()
+  private void writeStopBit() throws InterruptedException
   {
     writeBit( -1 ); // stuff
 
     // SCL should become high now...
-    this.data.add( Integer.valueOf( SCL ) );
+    addSample( SCL );
 
     // One tick later also make SDA high...
-    int i = this.tickSize - 1;
-    while ( i-- > 0 )
-    {
-      this.data.add( Integer.valueOf( SDA | SCL ) );
-    }
-
-    this.idx = this.data.size() - 1;
+    setValue( SDA | SCL );
+    advance( this.tickSize - 1 );
   }
 
 }
@@ -0,0 +1,159 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Provides a JTAG data generator.
+ * <p>
+ * Each frame resets the TAP controller, shifts an instruction into the
+ * instruction register and shifts a 32-bit word through the selected data
+ * register. The data register is modelled as a plain shift register, so TDO
+ * yields the word that was shifted in during the previous frame.
+ * </p>
+ */
+final class JtagGenerator extends SignalGenerator
+{
+  // CONSTANTS
+
+  private static final int TCK = 0x01;
+  private static final int TMS = 0x02;
+  private static final int TDI = 0x04;
+  private static final int TDO = 0x08;
+
+  private static final int SAMPLE_RATE = 10000000; // 10 MHz
+  private static final int TCK_SPEED = 1000000; // 1 MHz
+  private static final int HALF_PERIOD = SAMPLE_RATE / ( 2 * TCK_SPEED );
+
+  private static final int IR_LENGTH = 4;
+  private static final int IR_INSTRUCTION = 0x0e; // IDCODE
+  private static final int IR_CAPTURE = 0x01;
+  private static final int DR_LENGTH = 32;
+
+  // VARIABLES
+
+  private int dataWord;
+  private int lastDataWord;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new JtagGenerator instance.
+   */
+  public JtagGenerator()
+  {
+    this.dataWord = 0x4ba00477;
+    this.lastDataWord = 0;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRate()
+  {
+    return SAMPLE_RATE;
+  }
+
+  /**
+   * Writes a single TAP reset, IR-scan and DR-scan.
+   */
+  @Override
+  protected void generateFrame() throws InterruptedException
+  {
+    // Test-Logic-Reset, followed by Run-Test/Idle...
+    for ( int i = 0; i < 5; i++ )
+    {
+      clock( true, false, false );
+    }
+    clock( false, false, false );
+
+    // Select-DR-Scan, Select-IR-Scan, Capture-IR, Shift-IR...
+    clock( true, false, false );
+    clock( true, false, false );
+    clock( false, false, false );
+    clock( false, false, false );
+    // Shift-IR, ending in Exit1-IR...
+    shift( IR_INSTRUCTION, IR_CAPTURE, IR_LENGTH );
+    // Update-IR, Run-Test/Idle...
+    clock( true, false, false );
+    clock( false, false, false );
+
+    // Select-DR-Scan, Capture-DR, Shift-DR...
+    clock( true, false, false );
+    clock( false, false, false );
+    clock( false, false, false );
+    // Shift-DR, ending in Exit1-DR...
+    shift( this.dataWord, this.lastDataWord, DR_LENGTH );
+    // Update-DR, Run-Test/Idle...
+    clock( true, false, false );
+    clock( false, false, false );
+
+    // Stay some time in Run-Test/Idle...
+    for ( int i = 0; i < 4; i++ )
+    {
+      clock( false, false, false );
+    }
+
+    this.lastDataWord = this.dataWord;
+    this.dataWord = ( this.dataWord * 1103515245 ) + 12345;
+  }
+
+  /**
+   * Writes a single TCK cycle; TMS, TDI and TDO change on the falling edge and
+   * are sampled on the rising edge.
+   */
+  private void clock( final boolean aTMS, final boolean aTDI, final boolean aTDO ) throws InterruptedException
+  {
+    int value = 0;
+    if ( aTMS )
+    {
+      value |= TMS;
+    }
+    if ( aTDI )
+    {
+      value |= TDI;
+    }
+    if ( aTDO )
+    {
+      value |= TDO;
+    }
+
+    setValue( value );
+    advance( HALF_PERIOD );
+    setValue( value | TCK );
+    advance( HALF_PERIOD );
+  }
+
+  /**
+   * Shifts the given number of bits (LSB first) through TDI and TDO, leaving
+   * the shift state on the last bit.
+   */
+  private void shift( final int aTDI, final int aTDO, final int aBits ) throws InterruptedException
+  {
+    for ( int i = 0; i < aBits; i++ )
+    {
+      clock( i == ( aBits - 1 ), ( ( aTDI >>> i ) & 0x01 ) != 0, ( ( aTDO >>> i ) & 0x01 ) != 0 );
+    }
+  }
+}
@@ -31,7 +31,7 @@ import java.util.*;
  * "1-Wire Communication Through Software" of Maxim (May 30, 2002).
  * </p>
  */
-final class OneWireGenerator
+final class OneWireGenerator extends SignalGenerator
 {
   // CONSTANTS
 
@@ -42,7 +42,8 @@ final class OneWireGenerator
   private final int sampleRate;
   private final int busSpeed;
   private final int tickSize;
-  private final List<Integer> data;
+  private final byte[] data;
+  private final Random random;
   private final int a, b, c, d, e, f, g, h, i, j;
 
   // CONSTRUCTORS
@@ -50,14 +51,17 @@ final class OneWireGenerator
   /**
    * Creates a new OneWireGenerator instance.
    * 
+   * @param aString
+   *          the data to write as bit stream, cannot be <code>null</code>;
    * @param aStandard
    *          <code>true</code> to use the "standard" bus timing mode (max. 16.3
    *          KBit/s), <code>false</code> to use the "overdrive" bus timing mode
    *          (max. 163 KBit/s).
    */
-  public OneWireGenerator( final boolean aStandard )
+  public OneWireGenerator( final String aString, final boolean aStandard )
   {
-    this.data = new ArrayList<Integer>();
+    this.data = aString.getBytes();
+    this.random = new Random( this.data.length );
 
     this.busSpeed = 1000000; // 1 MHz
     this.sampleRate = this.busSpeed * 4; // 4 MHz
@@ -94,39 +98,22 @@ final class OneWireGenerator
 
   // METHODS
 
-  /**
-   * Returns the sample data with the encoded 1-wire data.
-   * 
-   * @return a array of sample data, never <code>null</code>.
-   */
-  public int[] getData()
-  {
-    final int size = this.data.size();
-    final int[] result = new int[size];
-    for ( int i = 0; i < size; i++ )
-    {
-      result[i] = this.data.get( i ).intValue();
-    }
-    return result;
-  }
-
   /**
    * Returns the sample rate of this data generator.
    * 
    * @return a sample rate, defaults to 4 MHz.
    */
+  @Override
   public int getRate()
   {
     return this.sampleRate;
   }
 
   /**
-   * Writes a given string as 1-wire encoded bit-stream.
-   * 
-   * @param aString
-   *          the data to write as bit stream, cannot be <code>null</code>.
+   * Writes the string of this generator as 1-wire encoded bit-stream.
    */
-  public void writeBitStream( final String aString )
+  @Override
+  protected void generateFrame() throws InterruptedException
   {
     writeStuffData( 5, OW_LINE );
 
@@ -134,8 +121,13 @@ final class OneWireGenerator
 
     writeStuffData( 5, OW_LINE );
 
-    for ( byte b : aString.getBytes() )
+    for ( byte b : this.data )
     {
+      if ( isComplete() )
+      {
+        return;
+      }
+
       writeByte( b );
     }
 
@@ -149,25 +141,37 @@ final class OneWireGenerator
    * @return the read 1-wire bit value.
    */
   @SuppressWarnings( "unused" )
-  private int readBit()
+  private int readBit() throws InterruptedException
   {
     int result;
 
     // drive 1-wire line low...
-    this.data.add( Integer.valueOf( 0 ) );
+    addSample( 0 );
     tickDelay( this.a );
 
     // drive 1-wire line high...
-    this.data.add( Integer.valueOf( OW_LINE ) );
+    addSample( OW_LINE );
     tickDelay( this.e );
 
     // read 1-wire line (faked)...
-    result = Math.random() > 0.5 ? 1 : 0;
+    result = this.random.nextBoolean() ? 1 : 0;
     tickDelay( this.f );
 
     return result;
   }
 
+  /**
+   * Adds a single sample with the given value.
+   * 
+   * @param aValue
+   *          the sample value to add.
+   */
+  private void addSample( final int aValue ) throws InterruptedException
+  {
+    setValue( aValue );
+    advance( 1 );
+  }
+
   /**
    * "Delays" the signal for a certain amount of time by injecting
    * <tt>aValue</tt> data values.
@@ -177,10 +181,9 @@ final class OneWireGenerator
    */
   private void tickDelay( final int aValue )
   {
-    final Integer curValue = this.data.isEmpty() ? Integer.valueOf( 1 ) : this.data.get( this.data.size() - 1 );
-    for ( int i = 1; i < aValue; i++ )
+    if ( aValue > 1 )
     {
-      this.data.add( curValue );
+      advance( aValue - 1 );
     }
   }
 
@@ -191,24 +194,24 @@ final class OneWireGenerator
    *          <code>true</code> to write a one, <code>false</code> to write a
    *          zero.
    */
-  private void writeBit( final boolean aZeroOrOne )
+  private void writeBit( final boolean aZeroOrOne ) throws InterruptedException
   {
     if ( aZeroOrOne )
     {
       // write 1...
-      this.data.add( Integer.valueOf( 0 ) );
+      addSample( 0 );
       tickDelay( this.a );
 
-      this.data.add( Integer.valueOf( OW_LINE ) );
+      addSample( OW_LINE );
       tickDelay( this.b );
     }
     else
     {
       // write 0...
-      this.data.add( Integer.valueOf( 0 ) );
+      addSample( 0 );
       tickDelay( this.c );
 
-      this.data.add( Integer.valueOf( OW_LINE ) );
+      addSample( OW_LINE );
       tickDelay( this.d );
     }
   }
@@ -219,7 +222,7 @@ final class OneWireGenerator
    * @param aValue
    *          the byte value to write.
    */
-  private void writeByte( final byte aValue )
+  private void writeByte( final byte aValue ) throws InterruptedException
   {
     int value = aValue;
     for ( int loop = 0; loop < 8; loop++ )
@@ -232,24 +235,24 @@ final class OneWireGenerator
   /**
    * Generates a 1-wire reset.
    */
-  private void writeReset()
+  private void writeReset() throws InterruptedException
   {
     tickDelay( this.g );
     // drive 1-wire line low...
-    this.data.add( Integer.valueOf( 0 ) );
+    addSample( 0 );
 
     tickDelay( this.h );
     // drive 1-wire line high...
-    this.data.add( Integer.valueOf( OW_LINE ) );
+    addSample( OW_LINE );
 
     tickDelay( this.i - 1 );
     // drive 1-wire line low (signals device presence)...
-    this.data.add( Integer.valueOf( Math.random() > 0.3 ? 0 : OW_LINE ) );
+    addSample( this.random.nextDouble() > 0.3 ? 0 : OW_LINE );
 
     tickDelay( this.j - 1 );
     // drive 1-wire line high...
-    this.data.add( Integer.valueOf( OW_LINE ) );
-    this.data.add( Integer.valueOf( OW_LINE ) );
+    addSample( OW_LINE );
+    addSample( OW_LINE );
   }
 
   /**
@@ -260,9 +263,9 @@ final class OneWireGenerator
    * @param aValue
    *          the value to stuff the data with.
    */
-  private void writeStuffData( final int aDelay, final int aValue )
+  private void writeStuffData( final int aDelay, final int aValue ) throws InterruptedException
   {
-    this.data.add( Integer.valueOf( aValue ) );
+    addSample( aValue );
     tickDelay( aDelay );
   }
 }
@@ -0,0 +1,182 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+import java.util.*;
+
+
+/**
+ * Provides the generic (non-protocol) data patterns of the test device.
+ */
+final class PatternGenerator extends SignalGenerator
+{
+  // INNER TYPES
+
+  /**
+   * Denotes the various patterns.
+   */
+  static enum Pattern
+  {
+    SAWTOOTH, ZEROS, SINE, ODD_EVEN, ALTERNATING, RANDOM;
+  }
+
+  // CONSTANTS
+
+  private static final int SAMPLE_RATE = 1000000000; // 1 GHz
+  private static final long RANDOM_SEED = 0x5deece66dL;
+  /** The maximum number of samples a random value is held. */
+  private static final int MAX_RANDOM_RUN = 63;
+
+  // VARIABLES
+
+  private final Pattern pattern;
+  private final int channels;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new PatternGenerator instance.
+   * 
+   * @param aPattern
+   *          the pattern to generate, cannot be <code>null</code>;
+   * @param aChannels
+   *          the number of channels, used for scaling the sine pattern.
+   */
+  public PatternGenerator( final Pattern aPattern, final int aChannels )
+  {
+    this.pattern = aPattern;
+    this.channels = aChannels;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRate()
+  {
+    return SAMPLE_RATE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void generateFrame() throws InterruptedException
+  {
+    switch ( this.pattern )
+    {
+      case SAWTOOTH:
+        generateSawtooth();
+        break;
+      case SINE:
+        generateSine();
+        break;
+      case ODD_EVEN:
+        generateOddEven();
+        break;
+      case ALTERNATING:
+        generateAlternating();
+        break;
+      case RANDOM:
+        generateRandom();
+        break;
+      case ZEROS:
+      default:
+        setValue( 0x00 );
+        advance( getSampleCount() );
+        break;
+    }
+  }
+
+  /**
+   * Generates 0x55 on every fourth sample, and 0xAA on all others.
+   */
+  private void generateAlternating() throws InterruptedException
+  {
+    while ( !isComplete() )
+    {
+      setValue( 0x55 );
+      advance( 1 );
+      setValue( 0xAA );
+      advance( 3 );
+    }
+  }
+
+  /**
+   * Generates alternating 0x55 and 0xAA values.
+   */
+  private void generateOddEven() throws InterruptedException
+  {
+    while ( !isComplete() )
+    {
+      setValue( 0x55 );
+      advance( 1 );
+      setValue( 0xAA );
+      advance( 1 );
+    }
+  }
+
+  /**
+   * Generates (pseudo) random values, each held for a random number of
+   * samples. Changing the value on every sample would yield a transition per
+   * sample, which does not fit in memory for the larger data lengths.
+   */
+  private void generateRandom() throws InterruptedException
+  {
+    final Random rnd = new Random( RANDOM_SEED );
+    while ( !isComplete() )
+    {
+      setValue( rnd.nextInt() );
+      advance( 1 + rnd.nextInt( MAX_RANDOM_RUN ) );
+    }
+  }
+
+  /**
+   * Generates a counter in each byte, which changes every eight samples.
+   */
+  private void generateSawtooth() throws InterruptedException
+  {
+    while ( !isComplete() )
+    {
+      final int v = ( int )( ( getTime() / 8 ) & 0xff );
+      setValue( ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 ) );
+      advance( 8 );
+    }
+  }
+
+  /**
+   * Generates a sine wave spanning all channels.
+   */
+  private void generateSine() throws InterruptedException
+  {
+    final double halfWidth = ( 1L << ( this.channels - 1 ) ) / 2.0;
+    final double period = getSampleCount() / ( double )this.channels;
+
+    while ( !isComplete() )
+    {
+      setValue( ( int )( halfWidth + ( halfWidth * Math.sin( getTime() / period ) ) ) );
+      advance( 1 );
+    }
+  }
+}
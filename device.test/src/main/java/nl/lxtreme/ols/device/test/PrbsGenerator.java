@@ -0,0 +1,80 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Provides a pseudo-random binary sequence (PRBS) generator.
+ * <p>
+ * Channels 0 to 3 carry the PRBS-7, PRBS-15, PRBS-23 and PRBS-31 sequences
+ * (as defined by ITU-T O.150), advancing one bit per sample. This yields a
+ * deterministic worst case for decoders and rendering, as nearly every sample
+ * is a transition.
+ * </p>
+ */
+final class PrbsGenerator extends SignalGenerator
+{
+  // CONSTANTS
+
+  private static final int SAMPLE_RATE = 100000000; // 100 MHz
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRate()
+  {
+    return SAMPLE_RATE;
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  protected void generateFrame() throws InterruptedException
+  {
+    int prbs7 = 0x7f;
+    int prbs15 = 0x7fff;
+    int prbs23 = 0x7fffff;
+    int prbs31 = 0x7fffffff;
+
+    while ( !isComplete() )
+    {
+      // x^7 + x^6 + 1
+      final int bit7 = ( ( prbs7 >> 6 ) ^ ( prbs7 >> 5 ) ) & 0x01;
+      prbs7 = ( ( prbs7 << 1 ) | bit7 ) & 0x7f;
+      // x^15 + x^14 + 1
+      final int bit15 = ( ( prbs15 >> 14 ) ^ ( prbs15 >> 13 ) ) & 0x01;
+      prbs15 = ( ( prbs15 << 1 ) | bit15 ) & 0x7fff;
+      // x^23 + x^18 + 1
+      final int bit23 = ( ( prbs23 >> 22 ) ^ ( prbs23 >> 17 ) ) & 0x01;
+      prbs23 = ( ( prbs23 << 1 ) | bit23 ) & 0x7fffff;
+      // x^31 + x^28 + 1
+      final int bit31 = ( ( prbs31 >> 30 ) ^ ( prbs31 >> 27 ) ) & 0x01;
+      prbs31 = ( ( prbs31 << 1 ) | bit31 ) & 0x7fffffff;
+
+      setValue( bit7 | ( bit15 << 1 ) | ( bit23 << 2 ) | ( bit31 << 3 ) );
+      advance( 1 );
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Base class for the data generators of the test device.
+ * <p>
+ * A generator emits its signal as transitions directly into a
+ * {@link TransitionWriter}, so no sample arrays are needed, regardless of the
+ * number of samples that is generated. Generators keep track of the current
+ * sample time and value; a frame (e.g. a single protocol message) is repeated
+ * until all requested samples are generated. All generators are
+ * deterministic, so the same settings always yield the same data.
+ * </p>
+ */
+abstract class SignalGenerator
+{
+  // VARIABLES
+
+  private TransitionWriter writer;
+  private long time;
+  private int value;
+
+  // METHODS
+
+  /**
+   * Generates the signal of this generator into the given writer.
+   * 
+   * @param aWriter
+   *          the writer to write the transitions to, cannot be
+   *          <code>null</code>.
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  public final void generate( final TransitionWriter aWriter ) throws InterruptedException
+  {
+    this.writer = aWriter;
+    this.time = 0L;
+    this.value = 0;
+
+    try
+    {
+      do
+      {
+        generateFrame();
+      }
+      while ( !isComplete() );
+
+      aWriter.finish();
+    }
+    finally
+    {
+      this.writer = null;
+    }
+  }
+
+  /**
+   * Returns the sample rate of the generated signal.
+   * 
+   * @return a sample rate, in Hertz.
+   */
+  public abstract int getRate();
+
+  /**
+   * Advances the current time with the given number of samples, keeping the
+   * current value.
+   * 
+   * @param aSamples
+   *          the number of samples to advance, >= 0.
+   */
+  protected final void advance( final long aSamples )
+  {
+    this.time += aSamples;
+  }
+
+  /**
+   * Advances the current time to the given absolute time, keeping the current
+   * value.
+   * 
+   * @param aTime
+   *          the time to advance to, should not be before the current time.
+   */
+  protected final void advanceTo( final long aTime )
+  {
+    this.time = Math.max( this.time, aTime );
+  }
+
+  /**
+   * Generates a single frame of this generator, starting at the current time.
+   * 
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  protected abstract void generateFrame() throws InterruptedException;
+
+  /**
+   * Returns the current time.
+   * 
+   * @return the current time, in samples.
+   */
+  protected final long getTime()
+  {
+    return this.time;
+  }
+
+  /**
+   * Returns the current value.
+   * 
+   * @return the value at the current time.
+   */
+  protected final int getValue()
+  {
+    return this.value;
+  }
+
+  /**
+   * Returns whether all requested samples are generated.
+   * 
+   * @return <code>true</code> if the current time lies beyond the requested
+   *         samples, <code>false</code> otherwise.
+   */
+  protected final boolean isComplete()
+  {
+    return this.writer.isComplete( this.time );
+  }
+
+  /**
+   * Returns the total number of samples to generate.
+   * 
+   * @return a sample count, > 0.
+   */
+  protected final long getSampleCount()
+  {
+    return this.writer.getSampleCount();
+  }
+
+  /**
+   * Replaces the value of the sample directly before the current time.
+   * 
+   * @param aValue
+   *          the new value of the previous sample.
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  protected final void setPreviousValue( final int aValue ) throws InterruptedException
+  {
+    this.writer.write( Math.max( 0L, this.time - 1L ), aValue );
+    this.value = aValue;
+  }
+
+  /**
+   * Sets the value at the current time.
+   * 
+   * @param aValue
+   *          the new value.
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  protected final void setValue( final int aValue ) throws InterruptedException
+  {
+    this.writer.write( this.time, aValue );
+    this.value = aValue;
+  }
+}
@@ -0,0 +1,120 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Provides a SPI (mode 0, MSB first) data generator.
+ * <p>
+ * The master writes the string of this generator on MOSI, while the slave
+ * responds with an incrementing counter on MISO.
+ * </p>
+ */
+final class SpiGenerator extends SignalGenerator
+{
+  // CONSTANTS
+
+  private static final int CS = 0x01;
+  private static final int SCK = 0x02;
+  private static final int MOSI = 0x04;
+  private static final int MISO = 0x08;
+
+  private static final int SAMPLE_RATE = 20000000; // 20 MHz
+  private static final int BUS_SPEED = 1000000; // 1 MHz
+  private static final int HALF_PERIOD = SAMPLE_RATE / ( 2 * BUS_SPEED );
+
+  // VARIABLES
+
+  private final byte[] data;
+  private int counter;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SpiGenerator instance.
+   * 
+   * @param aString
+   *          the data to write on MOSI, cannot be <code>null</code>.
+   */
+  public SpiGenerator( final String aString )
+  {
+    this.data = aString.getBytes();
+    this.counter = 0;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRate()
+  {
+    return SAMPLE_RATE;
+  }
+
+  /**
+   * Writes a single transfer, with the chip select asserted for the entire
+   * string.
+   */
+  @Override
+  protected void generateFrame() throws InterruptedException
+  {
+    // Idle bus...
+    setValue( CS );
+    advance( 4 * HALF_PERIOD );
+
+    // Assert chip select...
+    setValue( 0 );
+    advance( HALF_PERIOD );
+
+    for ( byte b : this.data )
+    {
+      if ( isComplete() )
+      {
+        return;
+      }
+
+      final int miso = this.counter++ & 0xff;
+      for ( int bit = 7; bit >= 0; bit-- )
+      {
+        int value = 0;
+        if ( ( ( b >> bit ) & 0x01 ) != 0 )
+        {
+          value |= MOSI;
+        }
+        if ( ( ( miso >> bit ) & 0x01 ) != 0 )
+        {
+          value |= MISO;
+        }
+
+        // Data changes on the falling edge, and is sampled on the rising edge
+        setValue( value );
+        advance( HALF_PERIOD );
+        setValue( value | SCK );
+        advance( HALF_PERIOD );
+      }
+    }
+
+    setValue( 0 );
+    advance( HALF_PERIOD );
+  }
+}
@@ -21,10 +21,7 @@
 package nl.lxtreme.ols.device.test;
 
 
-import static nl.lxtreme.ols.device.test.TestDeviceDialog.*;
-
 import java.io.*;
-import java.util.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.data.*;
@@ -64,67 +61,17 @@ public class TestAcquisitionTask implements AcquisitionTask
   @Override
   public AcquisitionResult call() throws Exception
   {
-    final String dataFunction = this.configDialog.getDataFunction();
-    final int dataLength = this.configDialog.getDataLength();
+    final DataFunction dataFunction = this.configDialog.getDataFunction();
+    final int dataLength = dataFunction.limitDataLength( this.configDialog.getDataLength() );
     final int channels = this.configDialog.getChannels();
 
-    final int[] data;
-    int rate = 1000000000;
-
-    final double halfWidth = ( 1L << ( channels - 1 ) ) / 2.0;
-
-    if ( DATA_FUNCTIONS[6].equals( dataFunction ) )
-    {
-      final I2CGenerator generator = new I2CGenerator();
-      generator.writeBitStream( "Hello World, this is a sample I2C bit stream!" );
-      data = generator.getData();
-      rate = generator.getRate();
-    }
-    else if ( DATA_FUNCTIONS[7].equals( dataFunction ) )
-    {
-      final OneWireGenerator generator = new OneWireGenerator( true /* aStandard */);
-      generator.writeBitStream( "Hello World, this is a sample 1-wire bit stream!" );
-      data = generator.getData();
-      rate = generator.getRate();
-    }
-    else
-    {
-      final Random rnd = new Random();
-
-      data = new int[dataLength];
-      for ( int i = 0; i < data.length; i++ )
-      {
-        if ( DATA_FUNCTIONS[0].equals( dataFunction ) )
-        {
-          final int v = ( i / 8 ) & 0xff;
-          data[i] = ( 255 - v ) | ( v << 8 ) | ( ( 255 - v ) << 16 ) | ( v << 24 );
-        }
-        else if ( DATA_FUNCTIONS[1].equals( dataFunction ) )
-        {
-          data[i] = 0x00;
-        }
-        else if ( DATA_FUNCTIONS[2].equals( dataFunction ) )
-        {
-          data[i] = ( int )( halfWidth + ( halfWidth * Math.sin( i / ( data.length / ( double )channels ) ) ) );
-        }
-        else if ( DATA_FUNCTIONS[3].equals( dataFunction ) )
-        {
-          data[i] = ( ( i % 2 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[4].equals( dataFunction ) )
-        {
-          data[i] = ( ( i % 4 ) == 0 ) ? 0x55 : 0xAA;
-        }
-        else if ( DATA_FUNCTIONS[5].equals( dataFunction ) )
-        {
-          data[i] = rnd.nextInt();
-        }
+    final SignalGenerator generator = dataFunction.createGenerator( channels );
 
-        this.progressListener.acquisitionInProgress( ( int )( ( i * 100.0 ) / data.length ) );
-      }
-    }
+    final TransitionWriter writer = new TransitionWriter( dataLength, channels, this.progressListener );
+    generator.generate( writer );
 
-    return new CapturedData( data, 23, rate, channels, Integer.MAX_VALUE );
+    return new CapturedData( writer.getValues(), writer.getTimestamps(), 23, generator.getRate(), channels,
+        Integer.MAX_VALUE, dataLength );
   }
 
   /**
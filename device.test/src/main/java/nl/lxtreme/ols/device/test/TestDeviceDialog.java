@@ -41,15 +41,14 @@ public class TestDeviceDialog extends JDialog implements Configurable, Closeable
 
   private static final long serialVersionUID = 1L;
 
-  static final String[] DATA_FUNCTIONS = new String[] { "Sawtooth", "All zeros", "Sine", "odd-even", "0x55-0xAA",
-      "Random", "I2C sample", "1-Wire sample" };
   static final Integer[] CHANNELS = new Integer[] { 1, 4, 8, 16, 32 };
-  static final Integer[] DATA_LENGTH = new Integer[] { 16, 256, 1024, 4096, 8192, 16384, 32768, 65536, 131072 };
+  static final Integer[] DATA_LENGTH = new Integer[] { 16, 256, 1024, 4096, 8192, 16384, 32768, 65536, 131072,
+      1048576, 16777216, 134217728 };
 
   // VARIABLES
 
   private boolean setupConfirmed;
-  private String dataFunction;
+  private DataFunction dataFunction;
   private int channels;
   private int dataLength;
   private JComboBox dataFunctionCombo;
@@ -93,7 +92,7 @@ public class TestDeviceDialog extends JDialog implements Configurable, Closeable
   /**
    * @return the dataFunction
    */
-  public String getDataFunction()
+  public DataFunction getDataFunction()
   {
     return this.dataFunction;
   }
@@ -148,13 +147,13 @@ public class TestDeviceDialog extends JDialog implements Configurable, Closeable
    */
   private JPanel createContents()
   {
-    this.dataFunctionCombo = new JComboBox( DATA_FUNCTIONS );
+    this.dataFunctionCombo = new JComboBox( DataFunction.values() );
     this.dataFunctionCombo.addItemListener( new ItemListener()
     {
       @Override
       public void itemStateChanged( final ItemEvent aEvent )
       {
-        TestDeviceDialog.this.dataFunction = ( String )aEvent.getItem();
+        TestDeviceDialog.this.dataFunction = ( DataFunction )aEvent.getItem();
       }
     } );
 
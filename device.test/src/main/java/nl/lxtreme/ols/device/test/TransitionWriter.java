@@ -0,0 +1,210 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+
+
+/**
+ * Collects the transitions written by a {@link SignalGenerator} in a
+ * {@link TransitionBuffer}.
+ * <p>
+ * Only value changes are stored, so the memory used by a capture depends on
+ * the number of transitions instead of the number of samples. Writes are
+ * expected to have non-decreasing timestamps; a write to the same timestamp as
+ * the previous one replaces its value. Anything written beyond the requested
+ * sample count is ignored, and the written values are masked to the number of
+ * channels. In the meantime, the progress is reported.
+ * </p>
+ */
+final class TransitionWriter
+{
+  // VARIABLES
+
+  private final long sampleCount;
+  private final int channelMask;
+  private final AcquisitionProgressListener progressListener;
+
+  private final TransitionBuffer transitions;
+
+  private int progress;
+  private long nextProgressTimestamp;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new TransitionWriter instance.
+   * 
+   * @param aSampleCount
+   *          the total number of samples to generate, > 0;
+   * @param aChannels
+   *          the number of channels, values are masked to this number of
+   *          channels;
+   * @param aProgressListener
+   *          the listener to report the progress to, cannot be
+   *          <code>null</code>.
+   */
+  public TransitionWriter( final long aSampleCount, final int aChannels,
+      final AcquisitionProgressListener aProgressListener )
+  {
+    if ( aSampleCount <= 0L )
+    {
+      throw new IllegalArgumentException( "Sample count must be positive!" );
+    }
+
+    this.sampleCount = aSampleCount;
+    this.channelMask = ( aChannels >= 32 ) ? -1 : ( int )( ( 1L << aChannels ) - 1L );
+    this.progressListener = aProgressListener;
+
+    this.transitions = new TransitionBuffer();
+
+    this.progress = 0;
+    this.nextProgressTimestamp = getProgressTimestamp( 1 );
+  }
+
+  // METHODS
+
+  /**
+   * Returns the total number of samples.
+   * 
+   * @return the sample count, > 0.
+   */
+  public long getSampleCount()
+  {
+    return this.sampleCount;
+  }
+
+  /**
+   * Returns the number of transitions written so far.
+   * 
+   * @return a transition count, >= 0.
+   */
+  public int getSize()
+  {
+    return this.transitions.getSize();
+  }
+
+  /**
+   * Returns the written timestamps, including the initial value at timestamp
+   * 0.
+   * 
+   * @return the timestamps, never <code>null</code>.
+   */
+  public long[] getTimestamps()
+  {
+    if ( this.transitions.getSize() == 0 )
+    {
+      return new long[] { 0L };
+    }
+    return this.transitions.getTimestamps();
+  }
+
+  /**
+   * Returns the written values, including the initial value at timestamp 0.
+   * 
+   * @return the values, never <code>null</code>.
+   */
+  public int[] getValues()
+  {
+    if ( this.transitions.getSize() == 0 )
+    {
+      return new int[] { 0 };
+    }
+    return this.transitions.getValues();
+  }
+
+  /**
+   * Returns whether the given timestamp lies beyond the requested number of
+   * samples.
+   * 
+   * @param aTimestamp
+   *          the timestamp to test.
+   * @return <code>true</code> if no more samples are needed at or after the
+   *         given timestamp, <code>false</code> otherwise.
+   */
+  public boolean isComplete( final long aTimestamp )
+  {
+    return aTimestamp >= this.sampleCount;
+  }
+
+  /**
+   * Reports the acquisition as completed.
+   */
+  public void finish()
+  {
+    if ( this.progress < 100 )
+    {
+      this.progress = 100;
+      this.progressListener.acquisitionInProgress( 100 );
+    }
+  }
+
+  /**
+   * Writes the given value at the given timestamp.
+   * 
+   * @param aTimestamp
+   *          the timestamp of the value, should be equal to or larger than the
+   *          timestamp of the previous write;
+   * @param aValue
+   *          the sample value.
+   * @throws InterruptedException
+   *           in case the current thread is interrupted.
+   */
+  public void write( final long aTimestamp, final int aValue ) throws InterruptedException
+  {
+    if ( aTimestamp >= this.sampleCount )
+    {
+      return;
+    }
+    if ( aTimestamp >= this.nextProgressTimestamp )
+    {
+      updateProgress( aTimestamp );
+    }
+
+    this.transitions.addTransition( aValue & this.channelMask, aTimestamp );
+  }
+
+  /**
+   * Returns the timestamp at which the given progress percentage is reached.
+   */
+  private long getProgressTimestamp( final int aPercentage )
+  {
+    return ( this.sampleCount * aPercentage ) / 100L;
+  }
+
+  /**
+   * Reports the progress for the given timestamp, and checks whether the
+   * generation should be cancelled.
+   */
+  private void updateProgress( final long aTimestamp ) throws InterruptedException
+  {
+    if ( Thread.currentThread().isInterrupted() )
+    {
+      throw new InterruptedException();
+    }
+
+    this.progress = ( int )( ( aTimestamp * 100L ) / this.sampleCount );
+    this.nextProgressTimestamp = Math.max( aTimestamp + 1L, getProgressTimestamp( this.progress + 1 ) );
+    this.progressListener.acquisitionInProgress( this.progress );
+  }
+}
@@ -0,0 +1,114 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+/**
+ * Provides an asynchronous serial (UART) data generator, using 8 data bits, no
+ * parity and one stop bit (8N1).
+ * <p>
+ * The bit boundaries are calculated from the start of the signal, so the bit
+ * timing does not drift, even when the baud rate is not a whole divisor of the
+ * sample rate.
+ * </p>
+ */
+final class UartGenerator extends SignalGenerator
+{
+  // CONSTANTS
+
+  private static final int TXD = 0x01;
+
+  private static final int SAMPLE_RATE = 4000000; // 4 MHz
+  private static final int BAUD_RATE = 115200;
+
+  private static final int IDLE_BITS = 10;
+
+  // VARIABLES
+
+  private final byte[] data;
+  private long bitCount;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new UartGenerator instance.
+   * 
+   * @param aString
+   *          the data to transmit, cannot be <code>null</code>.
+   */
+  public UartGenerator( final String aString )
+  {
+    this.data = aString.getBytes();
+    this.bitCount = 0L;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public int getRate()
+  {
+    return SAMPLE_RATE;
+  }
+
+  /**
+   * Transmits the string of this generator, followed by some idle time.
+   */
+  @Override
+  protected void generateFrame() throws InterruptedException
+  {
+    writeBits( TXD, IDLE_BITS );
+
+    for ( byte b : this.data )
+    {
+      if ( isComplete() )
+      {
+        return;
+      }
+
+      // start bit...
+      writeBits( 0, 1 );
+
+      int value = b;
+      for ( int i = 0; i < 8; i++ )
+      {
+        writeBits( ( value & 0x01 ) != 0 ? TXD : 0, 1 );
+        value >>= 1;
+      }
+
+      // stop bit...
+      writeBits( TXD, 1 );
+    }
+  }
+
+  /**
+   * Writes the given value during the given number of bit times.
+   */
+  private void writeBits( final int aValue, final int aBits ) throws InterruptedException
+  {
+    setValue( aValue );
+
+    this.bitCount += aBits;
+    advanceTo( ( this.bitCount * SAMPLE_RATE ) / BAUD_RATE );
+  }
+}
@@ -0,0 +1,311 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.test;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.*;
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
+import nl.lxtreme.ols.api.tools.*;
+import nl.lxtreme.ols.test.data.*;
+import nl.lxtreme.ols.tool.i2c.*;
+import nl.lxtreme.ols.tool.jtag.*;
+import nl.lxtreme.ols.tool.onewire.*;
+import nl.lxtreme.ols.tool.spi.*;
+import nl.lxtreme.ols.tool.uart.*;
+import nl.lxtreme.ols.util.NumberUtils.BitOrder;
+
+import org.junit.*;
+
+
+/**
+ * Tests that the protocol generators of the test device yield signals that are
+ * decoded to the generated data by the corresponding protocol analysers.
+ */
+public class SignalGeneratorDecodingTest
+{
+  // CONSTANTS
+
+  private static final String DATA = "Hello World!";
+
+  // METHODS
+
+  /**
+   * Generates the given number of samples with the given generator.
+   */
+  private static AcquisitionResult generate( final SignalGenerator aGenerator, final int aSampleCount )
+      throws InterruptedException
+  {
+    final TransitionWriter writer = new TransitionWriter( aSampleCount, 8, mock( AcquisitionProgressListener.class ) );
+    aGenerator.generate( writer );
+
+    return new CapturedData( writer.getValues(), writer.getTimestamps(), Ols.NOT_AVAILABLE, aGenerator.getRate(), 8,
+        0xFF, aSampleCount );
+  }
+
+  /**
+   * Returns the tool context spanning all given data.
+   */
+  private static ToolContext createToolContext( final AcquisitionResult aData )
+  {
+    return DataTestUtils.createToolContext( aData, 0, aData.getValues().length - 1 );
+  }
+
+  /**
+   * Returns the bits of the given channel for all samples of the given data.
+   */
+  private static boolean[] getSampleBits( final AcquisitionResult aData, final int aChannelIdx )
+  {
+    final int[] values = aData.getValues();
+    final long[] timestamps = aData.getTimestamps();
+    final int mask = 1 << aChannelIdx;
+
+    final boolean[] result = new boolean[( int )aData.getAbsoluteLength()];
+    for ( int i = 0; i < values.length; i++ )
+    {
+      final int end = ( i < ( values.length - 1 ) ) ? ( int )timestamps[i + 1] : result.length;
+      Arrays.fill( result, ( int )timestamps[i], end, ( values[i] & mask ) != 0 );
+    }
+    return result;
+  }
+
+  /**
+   * Asserts that the given decoded bytes start with (repetitions of) the given
+   * data.
+   */
+  private static void assertDecodedData( final String aExpected, final List<Integer> aDecoded, final int aMinCount )
+  {
+    final byte[] expected = aExpected.getBytes();
+
+    assertTrue( "Too few bytes decoded: " + aDecoded.size(), aDecoded.size() >= aMinCount );
+    for ( int i = 0; i < aDecoded.size(); i++ )
+    {
+      assertEquals( "Decoded byte at index " + i, expected[i % expected.length] & 0xFF, aDecoded.get( i ).intValue() );
+    }
+  }
+
+  /**
+   * Tests that the I2C generator is decoded by the I2C analyser.
+   */
+  @Test
+  public void testI2CGeneratorDecodingOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new I2CGenerator( DATA ), 4000 );
+
+    final I2CAnalyserTask task = new I2CAnalyserTask( createToolContext( data ), mock( ToolProgressListener.class ),
+        mock( AnnotationListener.class ) );
+    task.setLineAIndex( 1 ); // SCL
+    task.setLineBIndex( 0 ); // SDA
+    task.setDetectSDA_SCL( false );
+    task.setReportACK( false );
+    task.setReportNACK( false );
+    task.setReportStart( false );
+    task.setReportStop( false );
+
+    final List<Integer> decoded = new ArrayList<Integer>();
+    for ( I2CData i2cData : task.call().getData() )
+    {
+      if ( !i2cData.isEvent() )
+      {
+        decoded.add( Integer.valueOf( i2cData.getValue() ) );
+      }
+    }
+
+    // 10-bit address (0xf6, 0xff), followed by the data, followed by a read
+    // from address 0x2a...
+    assertTrue( "Too few bytes decoded: " + decoded.size(), decoded.size() >= ( DATA.length() + 4 ) );
+    assertEquals( 0xf6, decoded.get( 0 ).intValue() );
+    assertEquals( 0xff, decoded.get( 1 ).intValue() );
+    assertDecodedData( DATA, decoded.subList( 2, DATA.length() + 2 ), DATA.length() );
+    assertEquals( 0x55, decoded.get( DATA.length() + 2 ).intValue() );
+    assertEquals( '!', decoded.get( DATA.length() + 3 ).intValue() );
+  }
+
+  /**
+   * Tests that the SPI generator is decoded by the SPI analyser.
+   */
+  @Test
+  public void testSpiGeneratorDecodingOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new SpiGenerator( DATA ), 20000 );
+
+    final SPIAnalyserTask task = new SPIAnalyserTask( createToolContext( data ), mock( ToolProgressListener.class ),
+        mock( AnnotationListener.class ) );
+    task.setCSIndex( 0 );
+    task.setSCKIndex( 1 );
+    task.setMosiIndex( 2 );
+    task.setMisoIndex( 3 );
+    task.setBitCount( 7 );
+    task.setHonourCS( true );
+    task.setReportCS( false );
+    task.setMode( SPIMode.MODE_0 );
+    task.setOrder( BitOrder.MSB_FIRST );
+
+    final List<Integer> mosi = new ArrayList<Integer>();
+    final List<Integer> miso = new ArrayList<Integer>();
+    for ( SPIData spiData : task.call().getData() )
+    {
+      if ( spiData.isMosiData() )
+      {
+        mosi.add( Integer.valueOf( spiData.getDataValue() ) );
+      }
+      else if ( spiData.isMisoData() )
+      {
+        miso.add( Integer.valueOf( spiData.getDataValue() ) );
+      }
+    }
+
+    assertDecodedData( DATA, mosi, DATA.length() );
+    // MISO yields a simple counter...
+    assertEquals( mosi.size(), miso.size() );
+    for ( int i = 0; i < miso.size(); i++ )
+    {
+      assertEquals( i & 0xFF, miso.get( i ).intValue() );
+    }
+  }
+
+  /**
+   * Tests that the UART generator is decoded by the UART analyser.
+   */
+  @Test
+  public void testUartGeneratorDecodingOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new UartGenerator( DATA ), 10000 );
+
+    final UARTAnalyserTask task = new UARTAnalyserTask( createToolContext( data ), mock( ToolProgressListener.class ),
+        mock( AnnotationListener.class ) );
+    task.setTxdIndex( 0 );
+    task.setRxdIndex( -1 );
+    task.setBaudRate( 115200 );
+    task.setBitCount( 8 );
+    task.setParity( UARTParity.NONE );
+    task.setStopBits( UARTStopBits.STOP_1 );
+
+    final List<Integer> decoded = new ArrayList<Integer>();
+    for ( UARTData uartData : task.call().getData() )
+    {
+      if ( !uartData.isEvent() && ( uartData.getType() == UARTData.UART_TYPE_TXDATA ) )
+      {
+        decoded.add( Integer.valueOf( uartData.getData() ) );
+      }
+    }
+
+    assertDecodedData( DATA, decoded, DATA.length() );
+  }
+
+  /**
+   * Tests that the 1-Wire generator is decoded by the 1-Wire analyser.
+   */
+  @Test
+  public void testOneWireGeneratorDecodingOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new OneWireGenerator( DATA, true /* aStandard */), 40000 );
+
+    final OneWireAnalyserTask task = new OneWireAnalyserTask( createToolContext( data ),
+        mock( ToolProgressListener.class ), mock( AnnotationListener.class ) );
+    // uses the standard bus mode by default...
+    task.setOneWireLineIndex( 2 );
+
+    final List<Integer> decoded = new ArrayList<Integer>();
+    for ( OneWireData oneWireData : task.call().getData() )
+    {
+      if ( !oneWireData.isEvent() )
+      {
+        decoded.add( Integer.valueOf( oneWireData.getValue() ) );
+      }
+    }
+
+    assertDecodedData( DATA, decoded, DATA.length() );
+  }
+
+  /**
+   * Tests that the JTAG generator yields the TAP state sequence of an IR scan
+   * followed by a DR scan.
+   */
+  @Test
+  public void testJtagGeneratorDecodingOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new JtagGenerator(), 1000 );
+
+    final JTAGAnalyserTask task = new JTAGAnalyserTask( createToolContext( data ), mock( ToolProgressListener.class ),
+        mock( AnnotationListener.class ) );
+    task.setTckIndex( 0 );
+    task.setTmsIndex( 1 );
+    task.setTdiIndex( 2 );
+    task.setTdoIndex( 3 );
+
+    final List<JTAGState> states = new ArrayList<JTAGState>();
+    for ( JTAGData jtagData : task.call().getData() )
+    {
+      if ( !jtagData.isEvent() )
+      {
+        states.add( jtagData.getDataValue() );
+      }
+    }
+
+    final List<JTAGState> expected = Arrays.asList( JTAGState.TEST_LOGIC_RESET, JTAGState.RUN_TEST_IDLE,
+        JTAGState.SELECT_DR, JTAGState.SELECT_IR, JTAGState.CAPTURE_IR, JTAGState.SHIFT_IR, JTAGState.EXIT1_IR,
+        JTAGState.UPDATE_IR, JTAGState.RUN_TEST_IDLE, JTAGState.SELECT_DR, JTAGState.CAPTURE_DR, JTAGState.SHIFT_DR,
+        JTAGState.EXIT1_DR, JTAGState.UPDATE_DR, JTAGState.RUN_TEST_IDLE );
+
+    assertTrue( "Too few states decoded: " + states.size(), states.size() >= expected.size() );
+    assertEquals( expected, states.subList( 0, expected.size() ) );
+  }
+
+  /**
+   * Tests that the PRBS generator yields the PRBS7, PRBS15, PRBS23 and PRBS31
+   * sequences on its first four channels.
+   */
+  @Test
+  public void testPrbsGeneratorOk() throws Exception
+  {
+    final AcquisitionResult data = generate( new PrbsGenerator(), 10000 );
+
+    assertPrbs( getSampleBits( data, 0 ), 7, 6 );
+    assertPrbs( getSampleBits( data, 1 ), 15, 14 );
+    assertPrbs( getSampleBits( data, 2 ), 23, 18 );
+    assertPrbs( getSampleBits( data, 3 ), 31, 28 );
+  }
+
+  /**
+   * Asserts that the given bits satisfy the recurrence of the PRBS polynomial
+   * x^aOrder + x^aTap + 1, that is, bit[n] = bit[n - aOrder] ^ bit[n - aTap].
+   */
+  private void assertPrbs( final boolean[] aBits, final int aOrder, final int aTap )
+  {
+    int ones = 0;
+    for ( int n = aOrder; n < aBits.length; n++ )
+    {
+      assertEquals( "Bit " + n + " of PRBS" + aOrder, aBits[n - aOrder] ^ aBits[n - aTap], aBits[n] );
+      if ( aBits[n] )
+      {
+        ones++;
+      }
+    }
+    // A PRBS is balanced...
+    assertEquals( 0.5, ones / ( double )( aBits.length - aOrder ), 0.05 );
+  }
+}
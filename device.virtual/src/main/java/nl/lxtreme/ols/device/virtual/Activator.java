@@ -0,0 +1,58 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.util.*;
+
+import org.osgi.framework.*;
+import org.osgi.service.io.*;
+
+
+/**
+ * Bundle activator that registers the connection factory for talking to a
+ * virtual LogicSniffer device.
+ */
+public class Activator implements BundleActivator
+{
+  // METHODS
+
+  /**
+   * @see org.osgi.framework.BundleActivator#start(org.osgi.framework.BundleContext)
+   */
+  @Override
+  public void start( final BundleContext aContext ) throws Exception
+  {
+    final Hashtable<String, Object> dictionary = new Hashtable<String, Object>();
+    dictionary.put( ConnectionFactory.IO_SCHEME, new String[] { VirtualConnectionFactory.SCHEME } );
+
+    aContext.registerService( ConnectionFactory.class.getName(), new VirtualConnectionFactory(), dictionary );
+  }
+
+  /**
+   * @see org.osgi.framework.BundleActivator#stop(org.osgi.framework.BundleContext)
+   */
+  @Override
+  public void stop( final BundleContext aContext ) throws Exception
+  {
+    // NO-op
+  }
+}
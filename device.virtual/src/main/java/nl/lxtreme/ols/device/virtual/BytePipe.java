@@ -0,0 +1,270 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.io.*;
+
+
+/**
+ * Provides a bounded, thread-safe, byte buffer between a single writer and a
+ * single reader.
+ * <p>
+ * Unlike {@link PipedInputStream} and {@link PipedOutputStream}, this pipe
+ * does not keep track of the threads using it, so it can be written to and
+ * read from by arbitrary (pooled) threads. Closing either side of the pipe
+ * closes the pipe as a whole: pending reads yield the remaining data followed
+ * by an EOF, while pending writes fail.
+ * </p>
+ */
+final class BytePipe
+{
+  // VARIABLES
+
+  private final byte[] buffer;
+
+  private int readPos;
+  private int count;
+  private boolean closed;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new BytePipe instance.
+   * 
+   * @param aCapacity
+   *          the maximum number of bytes that can be buffered, &gt; 0.
+   */
+  public BytePipe( final int aCapacity )
+  {
+    if ( aCapacity <= 0 )
+    {
+      throw new IllegalArgumentException( "Capacity should be positive!" );
+    }
+    this.buffer = new byte[aCapacity];
+  }
+
+  // METHODS
+
+  /**
+   * Returns the number of bytes that can be read without blocking.
+   * 
+   * @return the number of buffered bytes, &gt;= 0.
+   */
+  public synchronized int available()
+  {
+    return this.count;
+  }
+
+  /**
+   * Discards all buffered bytes.
+   */
+  public synchronized void clear()
+  {
+    this.readPos = 0;
+    this.count = 0;
+    notifyAll();
+  }
+
+  /**
+   * Closes this pipe, waking up all threads waiting on it.
+   */
+  public synchronized void close()
+  {
+    this.closed = true;
+    notifyAll();
+  }
+
+  /**
+   * Returns an input stream reading from this pipe.
+   * 
+   * @return an input stream, never <code>null</code>.
+   */
+  public InputStream getInputStream()
+  {
+    return new InputStream()
+    {
+      private final byte[] single = new byte[1];
+
+      @Override
+      public int available() throws IOException
+      {
+        return BytePipe.this.available();
+      }
+
+      @Override
+      public void close() throws IOException
+      {
+        BytePipe.this.close();
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+        if ( BytePipe.this.read( this.single, 0, 1 ) < 0 )
+        {
+          return -1;
+        }
+        return this.single[0] & 0xFF;
+      }
+
+      @Override
+      public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+      {
+        return BytePipe.this.read( aBuffer, aOffset, aLength );
+      }
+    };
+  }
+
+  /**
+   * Returns an output stream writing to this pipe.
+   * 
+   * @return an output stream, never <code>null</code>.
+   */
+  public OutputStream getOutputStream()
+  {
+    return new OutputStream()
+    {
+      @Override
+      public void close() throws IOException
+      {
+        BytePipe.this.close();
+      }
+
+      @Override
+      public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+      {
+        BytePipe.this.write( aBuffer, aOffset, aLength );
+      }
+
+      @Override
+      public void write( final int aByte ) throws IOException
+      {
+        BytePipe.this.write( new byte[] { ( byte )aByte }, 0, 1 );
+      }
+    };
+  }
+
+  /**
+   * Reads at most the given number of bytes from this pipe, blocking until at
+   * least one byte is available.
+   * 
+   * @param aBuffer
+   *          the buffer to read the bytes into;
+   * @param aOffset
+   *          the offset in the buffer to start storing the bytes;
+   * @param aLength
+   *          the maximum number of bytes to read.
+   * @return the number of bytes read, or -1 if the pipe is closed and no more
+   *         bytes are available.
+   * @throws InterruptedIOException
+   *           in case the current thread is interrupted while waiting.
+   */
+  public synchronized int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    if ( aLength == 0 )
+    {
+      return 0;
+    }
+
+    while ( this.count == 0 )
+    {
+      if ( this.closed )
+      {
+        return -1;
+      }
+      await();
+    }
+
+    final int length = Math.min( aLength, this.count );
+    final int first = Math.min( length, this.buffer.length - this.readPos );
+    System.arraycopy( this.buffer, this.readPos, aBuffer, aOffset, first );
+    System.arraycopy( this.buffer, 0, aBuffer, aOffset + first, length - first );
+
+    this.readPos = ( this.readPos + length ) % this.buffer.length;
+    this.count -= length;
+
+    notifyAll();
+    return length;
+  }
+
+  /**
+   * Writes the given bytes to this pipe, blocking as long as the pipe is full.
+   * 
+   * @param aBuffer
+   *          the buffer with the bytes to write;
+   * @param aOffset
+   *          the offset in the buffer of the first byte to write;
+   * @param aLength
+   *          the number of bytes to write.
+   * @throws IOException
+   *           in case the pipe is closed;
+   * @throws InterruptedIOException
+   *           in case the current thread is interrupted while waiting.
+   */
+  public synchronized void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    int offset = aOffset;
+    int remaining = aLength;
+
+    while ( remaining > 0 )
+    {
+      while ( !this.closed && ( this.count == this.buffer.length ) )
+      {
+        await();
+      }
+      if ( this.closed )
+      {
+        throw new IOException( "Pipe closed!" );
+      }
+
+      final int writePos = ( this.readPos + this.count ) % this.buffer.length;
+      final int length = Math.min( remaining,
+          Math.min( this.buffer.length - this.count, this.buffer.length - writePos ) );
+      System.arraycopy( aBuffer, offset, this.buffer, writePos, length );
+
+      this.count += length;
+      offset += length;
+      remaining -= length;
+
+      notifyAll();
+    }
+  }
+
+  /**
+   * Waits until this pipe is notified.
+   * 
+   * @throws InterruptedIOException
+   *           in case the current thread is interrupted while waiting.
+   */
+  private void await() throws InterruptedIOException
+  {
+    try
+    {
+      wait();
+    }
+    catch ( InterruptedException exception )
+    {
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException( "Interrupted while waiting for pipe!" );
+    }
+  }
+}
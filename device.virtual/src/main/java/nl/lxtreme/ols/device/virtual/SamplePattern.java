@@ -0,0 +1,94 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+/**
+ * Denotes the sample patterns a virtual device can generate.
+ */
+enum SamplePattern
+{
+  // CONSTANTS
+
+  /** Each value is one more than its predecessor. */
+  COUNTER
+  {
+    @Override
+    public int getValue( final long aIndex )
+    {
+      return ( int )aIndex;
+    }
+  },
+  /** Toggles all channels, with neighbouring channels in opposite phase. */
+  SQUARE
+  {
+    @Override
+    public int getValue( final long aIndex )
+    {
+      return ( ( aIndex & 1L ) == 0L ) ? 0x55555555 : 0xAAAAAAAA;
+    }
+  },
+  /** Pseudo random, but reproducible, values. */
+  RANDOM
+  {
+    @Override
+    public int getValue( final long aIndex )
+    {
+      // Based on the finalizer of the 64-bit MurmurHash3...
+      long h = aIndex * 0x9E3779B97F4A7C15L;
+      h ^= ( h >>> 33 );
+      h *= 0xFF51AFD7ED558CCDL;
+      h ^= ( h >>> 33 );
+      return ( int )h;
+    }
+  };
+
+  // METHODS
+
+  /**
+   * Parses the given pattern name.
+   * 
+   * @param aName
+   *          the name of the pattern to parse, case insensitive.
+   * @return the sample pattern, defaults to {@link #COUNTER} for unknown
+   *         names.
+   */
+  public static SamplePattern parse( final String aName )
+  {
+    for ( SamplePattern pattern : values() )
+    {
+      if ( pattern.name().equalsIgnoreCase( aName ) )
+      {
+        return pattern;
+      }
+    }
+    return COUNTER;
+  }
+
+  /**
+   * Returns the value for the given pattern index.
+   * 
+   * @param aIndex
+   *          the index of the value, &gt;= 0.
+   * @return the (32-bit) sample value.
+   */
+  public abstract int getValue( final long aIndex );
+}
@@ -0,0 +1,114 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.io.*;
+
+import javax.microedition.io.*;
+
+
+/**
+ * Provides a stream connection to a {@link VirtualLogicSniffer}.
+ */
+final class VirtualConnection implements StreamConnection
+{
+  // CONSTANTS
+
+  /** The number of bytes the device can send before it blocks. */
+  private static final int SAMPLE_BUFFER_SIZE = 64 * 1024;
+  /** The number of bytes the client can send before it blocks. */
+  private static final int COMMAND_BUFFER_SIZE = 1024;
+
+  // VARIABLES
+
+  private final BytePipe commandPipe;
+  private final BytePipe samplePipe;
+  private final VirtualLogicSniffer device;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VirtualConnection instance, starting a new virtual device.
+   * 
+   * @param aOptions
+   *          the options of the virtual device, cannot be <code>null</code>.
+   */
+  public VirtualConnection( final VirtualDeviceOptions aOptions )
+  {
+    this.commandPipe = new BytePipe( COMMAND_BUFFER_SIZE );
+    this.samplePipe = new BytePipe( SAMPLE_BUFFER_SIZE );
+
+    this.device = new VirtualLogicSniffer( aOptions, this.commandPipe.getInputStream(),
+        this.samplePipe.getOutputStream() );
+    this.device.start();
+  }
+
+  // METHODS
+
+  /**
+   * @see javax.microedition.io.Connection#close()
+   */
+  @Override
+  public void close() throws IOException
+  {
+    this.commandPipe.close();
+    this.samplePipe.close();
+
+    this.device.stop();
+  }
+
+  /**
+   * @see javax.microedition.io.InputConnection#openDataInputStream()
+   */
+  @Override
+  public DataInputStream openDataInputStream() throws IOException
+  {
+    return new DataInputStream( openInputStream() );
+  }
+
+  /**
+   * @see javax.microedition.io.OutputConnection#openDataOutputStream()
+   */
+  @Override
+  public DataOutputStream openDataOutputStream() throws IOException
+  {
+    return new DataOutputStream( openOutputStream() );
+  }
+
+  /**
+   * @see javax.microedition.io.InputConnection#openInputStream()
+   */
+  @Override
+  public InputStream openInputStream() throws IOException
+  {
+    return this.samplePipe.getInputStream();
+  }
+
+  /**
+   * @see javax.microedition.io.OutputConnection#openOutputStream()
+   */
+  @Override
+  public OutputStream openOutputStream() throws IOException
+  {
+    return this.commandPipe.getOutputStream();
+  }
+}
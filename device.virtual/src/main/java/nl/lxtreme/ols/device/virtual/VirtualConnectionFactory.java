@@ -0,0 +1,72 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.io.*;
+
+import javax.microedition.io.*;
+
+import org.osgi.service.io.*;
+
+
+/**
+ * Provides a connection factory for virtual LogicSniffer devices.
+ * <p>
+ * Each connection that is created by this factory is backed by its own
+ * {@link VirtualLogicSniffer}, which speaks the SUMP protocol just like a real
+ * device does. This allows the complete acquisition pipeline of the client to
+ * be tested and profiled without any hardware attached.
+ * </p>
+ */
+public class VirtualConnectionFactory implements ConnectionFactory
+{
+  // CONSTANTS
+
+  /**
+   * The scheme we're exposing through this factory. Virtual URIs should be
+   * written in the form of: <tt>virtual:dev0;rate=1000000;pattern=counter</tt>,
+   * see {@link VirtualDeviceOptions} for all supported options.
+   */
+  public static final String SCHEME = "virtual";
+
+  // METHODS
+
+  /**
+   * @see org.osgi.service.io.ConnectionFactory#createConnection(java.lang.String,
+   *      int, boolean)
+   */
+  @Override
+  public Connection createConnection( final String aName, final int aMode, final boolean aTimeouts ) throws IOException
+  {
+    final VirtualDeviceOptions options;
+    try
+    {
+      options = new VirtualDeviceOptions( aName );
+    }
+    catch ( IllegalArgumentException exception )
+    {
+      throw new IOException( "Invalid virtual device URI: " + aName );
+    }
+
+    return new VirtualConnection( options );
+  }
+}
@@ -0,0 +1,256 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.util.regex.*;
+
+
+/**
+ * Provides a convenience class for accessing the options of a virtual device
+ * URI.
+ * <table>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Default</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>rate</td>
+ * <td>0</td>
+ * <td>The maximum number of bytes per second the device sends back, 0 (the
+ * default) means unlimited.</td>
+ * </tr>
+ * <tr>
+ * <td>pattern</td>
+ * <td>counter</td>
+ * <td>The sample pattern to generate, can be "counter", "square" or "random".
+ * </td>
+ * </tr>
+ * <tr>
+ * <td>hold</td>
+ * <td>16</td>
+ * <td>The number of consecutive samples each pattern value is held, which
+ * determines how well the samples compress in RLE-mode.</td>
+ * </tr>
+ * <tr>
+ * <td>delay</td>
+ * <td>0</td>
+ * <td>The time (in milliseconds) between arming the device and sending the
+ * first sample, simulating the time to trigger.</td>
+ * </tr>
+ * <tr>
+ * <td>reverse</td>
+ * <td>false</td>
+ * <td>If true, samples are sent back last sample first, like the original
+ * SUMP device does.</td>
+ * </tr>
+ * <tr>
+ * <td>name</td>
+ * <td>Virtual LogicSniffer</td>
+ * <td>The device name reported in the metadata, used to select the device
+ * profile.</td>
+ * </tr>
+ * </table>
+ */
+final class VirtualDeviceOptions
+{
+  // CONSTANTS
+
+  /** The device name that is reported by default. */
+  static final String DEFAULT_NAME = "Virtual LogicSniffer";
+
+  private static final Pattern SCHEMA_REGEX = Pattern.compile( "^virtual:([^;]+)(?:;([^\r\n]+))*$" );
+  private static final Pattern OPTION_REGEX = Pattern.compile( "(rate|pattern|hold|delay|reverse|name)=([^;]+)",
+      Pattern.CASE_INSENSITIVE );
+
+  // VARIABLES
+
+  private String deviceName;
+  private long byteRate;
+  private SamplePattern pattern;
+  private int holdCount;
+  private int triggerDelay;
+  private boolean reverseOrder;
+  private String metadataName;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VirtualDeviceOptions instance.
+   * 
+   * @param aURI
+   *          the virtual device URI, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given URI was <code>null</code> or invalid.
+   */
+  public VirtualDeviceOptions( final String aURI ) throws IllegalArgumentException
+  {
+    if ( aURI == null )
+    {
+      throw new IllegalArgumentException( "URI cannot be null!" );
+    }
+
+    // Default to an unlimited byte rate...
+    this.byteRate = 0L;
+    this.pattern = SamplePattern.COUNTER;
+    this.holdCount = 16;
+    this.triggerDelay = 0;
+    this.reverseOrder = false;
+    this.metadataName = DEFAULT_NAME;
+
+    parseURI( aURI );
+  }
+
+  // METHODS
+
+  /**
+   * @return the maximum number of bytes per second, &lt;= 0 if unlimited.
+   */
+  public long getByteRate()
+  {
+    return this.byteRate;
+  }
+
+  /**
+   * @return the name of the virtual device, as given in the URI.
+   */
+  public String getDeviceName()
+  {
+    return this.deviceName;
+  }
+
+  /**
+   * @return the number of samples each pattern value is held, &gt;= 1.
+   */
+  public int getHoldCount()
+  {
+    return this.holdCount;
+  }
+
+  /**
+   * @return the device name to report in the metadata.
+   */
+  public String getMetadataName()
+  {
+    return this.metadataName;
+  }
+
+  /**
+   * @return the sample pattern, never <code>null</code>.
+   */
+  public SamplePattern getPattern()
+  {
+    return this.pattern;
+  }
+
+  /**
+   * @return the delay between arming and the first sample, in milliseconds.
+   */
+  public int getTriggerDelay()
+  {
+    return this.triggerDelay;
+  }
+
+  /**
+   * @return <code>true</code> if samples are sent last sample first,
+   *         <code>false</code> otherwise.
+   */
+  public boolean isReverseOrder()
+  {
+    return this.reverseOrder;
+  }
+
+  /**
+   * @param aStr
+   * @param aDefault
+   * @return
+   */
+  private long parseLong( final String aStr, final long aDefault )
+  {
+    long result;
+    try
+    {
+      result = Long.parseLong( aStr.trim() );
+    }
+    catch ( NumberFormatException exception )
+    {
+      result = aDefault;
+    }
+    return result;
+  }
+
+  /**
+   * @param aURI
+   *          the URI to parse, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given URI was invalid/not parsable.
+   */
+  private void parseURI( final String aURI ) throws IllegalArgumentException
+  {
+    final Matcher schemaMatcher = SCHEMA_REGEX.matcher( aURI );
+    if ( !schemaMatcher.matches() )
+    {
+      throw new IllegalArgumentException( "URI invalid!" );
+    }
+
+    // device name is mandatory...
+    this.deviceName = schemaMatcher.group( 1 );
+
+    String options = schemaMatcher.group( 2 );
+    if ( options == null )
+    {
+      options = "";
+    }
+
+    final Matcher optionMatcher = OPTION_REGEX.matcher( options );
+    while ( optionMatcher.find() )
+    {
+      final String key = optionMatcher.group( 1 ).toLowerCase();
+      final String value = optionMatcher.group( 2 );
+
+      if ( "rate".equals( key ) )
+      {
+        this.byteRate = Math.max( 0L, parseLong( value, 0L ) );
+      }
+      else if ( "pattern".equals( key ) )
+      {
+        this.pattern = SamplePattern.parse( value );
+      }
+      else if ( "hold".equals( key ) )
+      {
+        this.holdCount = ( int )Math.max( 1L, Math.min( Integer.MAX_VALUE, parseLong( value, 16L ) ) );
+      }
+      else if ( "delay".equals( key ) )
+      {
+        this.triggerDelay = ( int )Math.max( 0L, Math.min( Integer.MAX_VALUE, parseLong( value, 0L ) ) );
+      }
+      else if ( "reverse".equals( key ) )
+      {
+        this.reverseOrder = "true".equalsIgnoreCase( value ) || "on".equalsIgnoreCase( value );
+      }
+      else if ( "name".equals( key ) )
+      {
+        this.metadataName = value;
+      }
+    }
+  }
+}
@@ -0,0 +1,497 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import java.io.*;
+import java.util.concurrent.*;
+import java.util.logging.*;
+
+
+/**
+ * Emulates a SUMP-compatible LogicSniffer device on top of a pair of streams.
+ * <p>
+ * The emulator understands the commands needed for detecting the device and
+ * for taking a capture: the device ID and metadata queries, and the divider,
+ * size and flags settings. All other commands, such as the trigger
+ * configuration, are accepted but ignored. Upon a run command, the emulator
+ * sends back the requested number of samples, generated by the configured
+ * {@link SamplePattern} and optionally run-length encoded, at the configured
+ * byte rate.
+ * </p>
+ * <p>
+ * This emulator only depends on the SUMP protocol, not on the LogicSniffer
+ * device bundle, so it can be used to exercise the complete acquisition
+ * pipeline at runtime. The unit tests of the LogicSniffer bundle use their own
+ * in-process test double, which also records the commands it receives.
+ * </p>
+ */
+final class VirtualLogicSniffer implements Runnable
+{
+  // CONSTANTS
+
+  private static final Logger LOG = Logger.getLogger( VirtualLogicSniffer.class.getName() );
+
+  static final int CMD_RESET = 0x00;
+  static final int CMD_RUN = 0x01;
+  static final int CMD_ID = 0x02;
+  static final int CMD_METADATA = 0x04;
+  static final int CMD_RLE_FINISH_NOW = 0x05;
+  static final int CMD_SETDIVIDER = 0x80;
+  static final int CMD_SETSIZE = 0x81;
+  static final int CMD_SETFLAGS = 0x82;
+
+  static final int FLAG_DEMUX = 0x00000001;
+  static final int FLAG_RLE = 0x00000100;
+
+  /** The number of probes reported in the metadata. */
+  static final int PROBE_COUNT = 32;
+  /** The amount of sample memory reported in the metadata, in bytes. */
+  static final int SAMPLE_MEMORY = 262144 * 4;
+  /** The maximum sample rate reported in the metadata, in Hertz. */
+  static final int MAX_SAMPLE_RATE = 100000000;
+
+  /** The number of bytes that is written at once. */
+  private static final int CHUNK_SIZE = 4096;
+
+  // VARIABLES
+
+  private final VirtualDeviceOptions options;
+  private final DataInputStream commandStream;
+  private final OutputStream responseStream;
+  private final ExecutorService transferExecutor;
+
+  private volatile Thread commandThread;
+  private volatile Future<?> transfer;
+  private volatile CountDownLatch triggerLatch;
+
+  private int divider;
+  private int size;
+  private int flags;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new VirtualLogicSniffer instance.
+   * 
+   * @param aOptions
+   *          the options of the virtual device, cannot be <code>null</code>;
+   * @param aCommandStream
+   *          the stream to read the commands from, cannot be
+   *          <code>null</code>;
+   * @param aResponseStream
+   *          the stream to write the responses and samples to, cannot be
+   *          <code>null</code>.
+   */
+  public VirtualLogicSniffer( final VirtualDeviceOptions aOptions, final InputStream aCommandStream,
+      final OutputStream aResponseStream )
+  {
+    this.options = aOptions;
+    this.commandStream = new DataInputStream( aCommandStream );
+    this.responseStream = aResponseStream;
+
+    this.transferExecutor = Executors.newSingleThreadExecutor( new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, "Virtual LogicSniffer transfer" );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
+  // METHODS
+
+  /**
+   * Creates the raw sample data the device sends back for the given size and
+   * flags.
+   * 
+   * @param aSize
+   *          the value of the last "set size" command;
+   * @param aFlags
+   *          the value of the last "set flags" command;
+   * @param aPattern
+   *          the sample pattern to use, cannot be <code>null</code>;
+   * @param aHoldCount
+   *          the number of samples each pattern value is held, &gt;= 1;
+   * @param aReverse
+   *          <code>true</code> to return the samples last sample first,
+   *          <code>false</code> to return them first sample first.
+   * @return the raw sample bytes, never <code>null</code>.
+   */
+  static byte[] createSampleData( final int aSize, final int aFlags, final SamplePattern aPattern,
+      final int aHoldCount, final boolean aReverse )
+  {
+    final boolean ddrMode = ( aFlags & FLAG_DEMUX ) != 0;
+    final boolean rleMode = ( aFlags & FLAG_RLE ) != 0;
+
+    int groupMask = ~( aFlags >> 2 ) & 0x0F;
+    if ( ddrMode )
+    {
+      // the upper two groups are used for the second half of the samples...
+      groupMask &= 0x03;
+    }
+
+    final int sampleWidth = Integer.bitCount( groupMask );
+    if ( sampleWidth == 0 )
+    {
+      return new byte[0];
+    }
+
+    final int readCount = ( ( aSize & 0xFFFF ) + 1 ) << ( ddrMode ? 3 : 2 );
+    final int[] words = rleMode ? createRleWords( readCount, sampleWidth, ddrMode, aPattern, aHoldCount )
+        : createWords( readCount, sampleWidth, aPattern, aHoldCount );
+
+    final byte[] result = new byte[readCount * sampleWidth];
+    for ( int i = 0, offset = 0; i < readCount; i++ )
+    {
+      int word = words[aReverse ? ( readCount - i - 1 ) : i];
+      for ( int j = 0; j < sampleWidth; j++ )
+      {
+        result[offset++] = ( byte )word;
+        word >>>= 8;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Creates the run-length encoded sample words: each pattern value is
+   * followed by the count of its repetitions.
+   */
+  private static int[] createRleWords( final int aReadCount, final int aSampleWidth, final boolean aDdrMode,
+      final SamplePattern aPattern, final int aHoldCount )
+  {
+    final int bits = 8 * aSampleWidth;
+    final int countBit = 1 << ( bits - 1 );
+    final int countMask = countBit - 1;
+    final int lowerMask = ( bits == 32 ) ? -1 : ( ( 1 << bits ) - 1 );
+    // In DDR-mode, counts are spread over two words...
+    final long maxCount = aDdrMode ? ( ( ( long )countMask << bits ) | lowerMask ) : countMask;
+
+    final int[] result = new int[aReadCount];
+
+    int i = 0;
+    long index = 0L;
+    while ( i < aReadCount )
+    {
+      result[i++] = aPattern.getValue( index++ ) & countMask;
+
+      long remaining = aHoldCount - 1;
+      while ( ( remaining > 0L ) && ( i < ( aDdrMode ? aReadCount - 1 : aReadCount ) ) )
+      {
+        final long count = Math.min( remaining, maxCount );
+        if ( aDdrMode )
+        {
+          result[i++] = countBit | ( int )( count >>> bits );
+          result[i++] = ( int )( count & lowerMask );
+        }
+        else
+        {
+          result[i++] = countBit | ( int )count;
+        }
+        remaining -= count;
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Creates the plain sample words, each pattern value is repeated for the
+   * hold count.
+   */
+  private static int[] createWords( final int aReadCount, final int aSampleWidth, final SamplePattern aPattern,
+      final int aHoldCount )
+  {
+    final int mask = ( aSampleWidth == 4 ) ? -1 : ( ( 1 << ( 8 * aSampleWidth ) ) - 1 );
+
+    final int[] result = new int[aReadCount];
+    for ( int i = 0; i < aReadCount; i++ )
+    {
+      result[i] = aPattern.getValue( i / aHoldCount ) & mask;
+    }
+    return result;
+  }
+
+  /**
+   * Reads and handles the commands until the command stream is closed.
+   */
+  @Override
+  public void run()
+  {
+    try
+    {
+      int command;
+      while ( ( command = this.commandStream.read() ) >= 0 )
+      {
+        int value = 0;
+        if ( ( command & 0x80 ) != 0 )
+        {
+          // long command; four bytes of data, least significant byte first...
+          value = Integer.reverseBytes( this.commandStream.readInt() );
+        }
+
+        handleCommand( command, value );
+      }
+    }
+    catch ( IOException exception )
+    {
+      if ( this.commandThread != null )
+      {
+        LOG.log( Level.FINE, "Virtual device stopped due to I/O problem!", exception );
+      }
+    }
+    finally
+    {
+      cancelTransfer();
+    }
+  }
+
+  /**
+   * Starts this virtual device.
+   */
+  public void start()
+  {
+    final Thread thread = new Thread( this, "Virtual LogicSniffer (" + this.options.getDeviceName() + ")" );
+    thread.setDaemon( true );
+
+    this.commandThread = thread;
+    thread.start();
+  }
+
+  /**
+   * Stops this virtual device, cancelling any ongoing transfer.
+   */
+  public void stop()
+  {
+    final Thread thread = this.commandThread;
+    this.commandThread = null;
+    if ( thread != null )
+    {
+      thread.interrupt();
+    }
+
+    cancelTransfer();
+    this.transferExecutor.shutdownNow();
+  }
+
+  /**
+   * Waits until the trigger delay has passed, or the device is told to finish
+   * right away.
+   */
+  final void awaitTrigger( final CountDownLatch aLatch ) throws InterruptedException
+  {
+    final int delay = this.options.getTriggerDelay();
+    if ( delay > 0 )
+    {
+      aLatch.await( delay, TimeUnit.MILLISECONDS );
+    }
+  }
+
+  /**
+   * Sends the given data, at most at the configured byte rate.
+   */
+  final void sendSamples( final byte[] aData ) throws IOException, InterruptedException
+  {
+    final long byteRate = this.options.getByteRate();
+    final long startTime = System.nanoTime();
+
+    int offset = 0;
+    while ( offset < aData.length )
+    {
+      if ( Thread.currentThread().isInterrupted() )
+      {
+        throw new InterruptedException();
+      }
+
+      final int length = Math.min( CHUNK_SIZE, aData.length - offset );
+      this.responseStream.write( aData, offset, length );
+      this.responseStream.flush();
+      offset += length;
+
+      if ( byteRate > 0L )
+      {
+        final long sendTime = startTime + ( ( offset * 1000000000L ) / byteRate );
+        final long waitTime = sendTime - System.nanoTime();
+        if ( waitTime > 0L )
+        {
+          TimeUnit.NANOSECONDS.sleep( waitTime );
+        }
+      }
+    }
+
+    if ( LOG.isLoggable( Level.FINE ) )
+    {
+      final long time = System.nanoTime() - startTime;
+      LOG.log( Level.FINE, "Sent {0} bytes in {1} ms ...",
+          new Object[] { Integer.valueOf( aData.length ), Long.valueOf( time / 1000000L ) } );
+    }
+  }
+
+  /**
+   * Cancels the ongoing transfer, if any.
+   */
+  private void cancelTransfer()
+  {
+    releaseTrigger();
+
+    final Future<?> current = this.transfer;
+    this.transfer = null;
+    if ( current != null )
+    {
+      current.cancel( true /* mayInterruptIfRunning */);
+    }
+  }
+
+  /**
+   * Handles a single command.
+   */
+  private void handleCommand( final int aCommand, final int aValue ) throws IOException
+  {
+    switch ( aCommand )
+    {
+      case CMD_RESET:
+        cancelTransfer();
+        break;
+
+      case CMD_RUN:
+        startTransfer();
+        break;
+
+      case CMD_ID:
+        // Respond with '1ALS'...
+        this.responseStream.write( new byte[] { 0x31, 0x41, 0x4c, 0x53 } );
+        this.responseStream.flush();
+        break;
+
+      case CMD_METADATA:
+        writeMetadata();
+        break;
+
+      case CMD_RLE_FINISH_NOW:
+        releaseTrigger();
+        break;
+
+      case CMD_SETDIVIDER:
+        this.divider = aValue & 0xFFFFFF;
+        break;
+
+      case CMD_SETSIZE:
+        this.size = aValue;
+        break;
+
+      case CMD_SETFLAGS:
+        this.flags = aValue;
+        break;
+
+      default:
+        // Trigger configuration and other commands are of no interest...
+        if ( LOG.isLoggable( Level.FINEST ) )
+        {
+          LOG.log( Level.FINEST, "Ignoring command: 0x{0} ...", Integer.toHexString( aCommand ) );
+        }
+        break;
+    }
+  }
+
+  /**
+   * Ends the trigger delay of the ongoing transfer, if any.
+   */
+  private void releaseTrigger()
+  {
+    final CountDownLatch latch = this.triggerLatch;
+    if ( latch != null )
+    {
+      latch.countDown();
+    }
+  }
+
+  /**
+   * Starts the transfer of the samples for the current configuration.
+   */
+  private void startTransfer()
+  {
+    cancelTransfer();
+
+    final byte[] data = createSampleData( this.size, this.flags, this.options.getPattern(),
+        this.options.getHoldCount(), this.options.isReverseOrder() );
+    final CountDownLatch latch = new CountDownLatch( 1 );
+
+    LOG.log( Level.FINE, "Armed with divider {0}; sending {1} bytes ...",
+        new Object[] { Integer.valueOf( this.divider ), Integer.valueOf( data.length ) } );
+
+    this.triggerLatch = latch;
+    this.transfer = this.transferExecutor.submit( new Callable<Void>()
+    {
+      @Override
+      public Void call() throws Exception
+      {
+        try
+        {
+          awaitTrigger( latch );
+          sendSamples( data );
+        }
+        catch ( InterruptedException exception )
+        {
+          LOG.log( Level.FINE, "Transfer cancelled ..." );
+        }
+        catch ( IOException exception )
+        {
+          LOG.log( Level.FINE, "Transfer aborted due to I/O problem!", exception );
+        }
+        return null;
+      }
+    } );
+  }
+
+  /**
+   * Writes the metadata of this device.
+   */
+  private void writeMetadata() throws IOException
+  {
+    final DataOutputStream dos = new DataOutputStream( new BufferedOutputStream( this.responseStream ) );
+    // 0x01: Device name...
+    dos.writeByte( 0x01 );
+    dos.write( this.options.getMetadataName().getBytes( "US-ASCII" ) );
+    dos.writeByte( 0x00 );
+    // 0x02: FPGA version...
+    dos.writeByte( 0x02 );
+    dos.write( "Virtual".getBytes( "US-ASCII" ) );
+    dos.writeByte( 0x00 );
+    // 0x20: number of usable probes...
+    dos.writeByte( 0x20 );
+    dos.writeInt( PROBE_COUNT );
+    // 0x21: Amount of sample memory available (bytes)
+    dos.writeByte( 0x21 );
+    dos.writeInt( SAMPLE_MEMORY );
+    // 0x23: Maximum sample rate (hz)
+    dos.writeByte( 0x23 );
+    dos.writeInt( MAX_SAMPLE_RATE );
+    // 0x24: Protocol version
+    dos.writeByte( 0x24 );
+    dos.writeInt( 2 );
+    // 0x00: END-OF-DESCRIPTOR
+    dos.writeByte( 0x00 );
+    dos.flush();
+  }
+}
@@ -0,0 +1,101 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Tests for {@link VirtualDeviceOptions}.
+ */
+public class VirtualDeviceOptionsTest
+{
+  // METHODS
+
+  /**
+   * @throws Exception
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseEmptyDeviceNameFail() throws Exception
+  {
+    new VirtualDeviceOptions( "virtual:;rate=1" );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseOtherSchemeFail() throws Exception
+  {
+    new VirtualDeviceOptions( "comm:COM1" );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void testParseDefaultsOk() throws Exception
+  {
+    final VirtualDeviceOptions options = new VirtualDeviceOptions( "virtual:dev0" );
+
+    assertEquals( "dev0", options.getDeviceName() );
+    assertEquals( 0L, options.getByteRate() );
+    assertEquals( SamplePattern.COUNTER, options.getPattern() );
+    assertEquals( 16, options.getHoldCount() );
+    assertEquals( 0, options.getTriggerDelay() );
+    assertFalse( options.isReverseOrder() );
+    assertEquals( VirtualDeviceOptions.DEFAULT_NAME, options.getMetadataName() );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void testParseFullUriOk() throws Exception
+  {
+    final VirtualDeviceOptions options = new VirtualDeviceOptions(
+        "virtual:dev1;rate=115200;pattern=square;hold=4;delay=250;reverse=true;name=Open Logic Sniffer v1.01" );
+
+    assertEquals( "dev1", options.getDeviceName() );
+    assertEquals( 115200L, options.getByteRate() );
+    assertEquals( SamplePattern.SQUARE, options.getPattern() );
+    assertEquals( 4, options.getHoldCount() );
+    assertEquals( 250, options.getTriggerDelay() );
+    assertTrue( options.isReverseOrder() );
+    assertEquals( "Open Logic Sniffer v1.01", options.getMetadataName() );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void testParseInvalidValuesOk() throws Exception
+  {
+    final VirtualDeviceOptions options = new VirtualDeviceOptions( "virtual:dev2;rate=fast;pattern=foo;hold=0" );
+
+    assertEquals( 0L, options.getByteRate() );
+    assertEquals( SamplePattern.COUNTER, options.getPattern() );
+    assertEquals( 1, options.getHoldCount() );
+  }
+}
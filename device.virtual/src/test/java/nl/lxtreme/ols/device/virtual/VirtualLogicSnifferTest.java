@@ -0,0 +1,158 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.device.virtual;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+
+import org.junit.*;
+
+
+/**
+ * Tests for {@link VirtualLogicSniffer}.
+ */
+public class VirtualLogicSnifferTest
+{
+  // VARIABLES
+
+  private VirtualConnection connection;
+  private DataInputStream is;
+  private DataOutputStream os;
+
+  // METHODS
+
+  /**
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.connection = new VirtualConnection( new VirtualDeviceOptions( "virtual:test;hold=2" ) );
+    this.is = this.connection.openDataInputStream();
+    this.os = this.connection.openDataOutputStream();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception
+  {
+    this.connection.close();
+  }
+
+  /**
+   * Tests that the RLE counts in DDR-mode are spread over two samples.
+   */
+  @Test
+  public void testCreateDdrRleSampleDataOk() throws Exception
+  {
+    final int flags = VirtualLogicSniffer.FLAG_DEMUX | VirtualLogicSniffer.FLAG_RLE | 0x38;
+    final byte[] data = VirtualLogicSniffer.createSampleData( 0, flags, SamplePattern.COUNTER, 3, false );
+
+    assertArrayEquals( new byte[] { 0x00, ( byte )0x80, 0x02, 0x01, ( byte )0x80, 0x02, 0x02, 0x03 }, data );
+  }
+
+  /**
+   * Tests that each RLE-encoded value is followed by its repetition count.
+   */
+  @Test
+  public void testCreateRleSampleDataOk() throws Exception
+  {
+    final int flags = VirtualLogicSniffer.FLAG_RLE | 0x38;
+    final byte[] data = VirtualLogicSniffer.createSampleData( 0, flags, SamplePattern.COUNTER, 3, false );
+
+    assertArrayEquals( new byte[] { 0x00, ( byte )0x82, 0x01, ( byte )0x82 }, data );
+  }
+
+  /**
+   * Tests that samples are sent last sample first, if requested.
+   */
+  @Test
+  public void testCreateReversedSampleDataOk() throws Exception
+  {
+    final byte[] data = VirtualLogicSniffer.createSampleData( 0, 0x28, SamplePattern.COUNTER, 1, true );
+
+    // groups 0 and 2 are enabled; each sample takes two bytes...
+    assertArrayEquals( new byte[] { 0x03, 0x00, 0x02, 0x00, 0x01, 0x00, 0x00, 0x00 }, data );
+  }
+
+  /**
+   * Tests that the device responds to the ID command.
+   */
+  @Test( timeout = 10000 )
+  public void testDeviceIdOk() throws Exception
+  {
+    this.os.write( VirtualLogicSniffer.CMD_RESET );
+    this.os.write( VirtualLogicSniffer.CMD_ID );
+    this.os.flush();
+
+    assertEquals( 0x31414c53, this.is.readInt() );
+  }
+
+  /**
+   * Tests that the device responds with its metadata.
+   */
+  @Test( timeout = 10000 )
+  public void testMetadataOk() throws Exception
+  {
+    this.os.write( VirtualLogicSniffer.CMD_METADATA );
+    this.os.flush();
+
+    assertEquals( 0x01, this.is.read() );
+    for ( byte b : VirtualDeviceOptions.DEFAULT_NAME.getBytes( "US-ASCII" ) )
+    {
+      assertEquals( b, this.is.readByte() );
+    }
+    assertEquals( 0x00, this.is.read() );
+  }
+
+  /**
+   * Tests that a run command yields the requested number of samples.
+   */
+  @Test( timeout = 10000 )
+  public void testRunSendsAllSamplesOk() throws Exception
+  {
+    // read count = (255 + 1) * 4 = 1024 samples of 32-bits...
+    writeLongCommand( VirtualLogicSniffer.CMD_SETSIZE, 0x00FF );
+    writeLongCommand( VirtualLogicSniffer.CMD_SETFLAGS, 0 );
+    this.os.write( VirtualLogicSniffer.CMD_RUN );
+    this.os.flush();
+
+    final byte[] data = new byte[1024 * 4];
+    this.is.readFully( data );
+
+    // hold = 2, so sample 1022 is the 511th value...
+    assertEquals( 511, ( data[4088] & 0xFF ) | ( ( data[4089] & 0xFF ) << 8 ) );
+    assertEquals( 0, this.is.available() );
+  }
+
+  /**
+   * Writes a long command with the given value.
+   */
+  private void writeLongCommand( final int aCommand, final int aValue ) throws IOException
+  {
+    this.os.write( aCommand );
+    this.os.writeInt( Integer.reverseBytes( aValue ) );
+  }
+}
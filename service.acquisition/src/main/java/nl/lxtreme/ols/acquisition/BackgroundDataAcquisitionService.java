@@ -31,6 +31,7 @@ import nl.lxtreme.ols.api.acquisition.*;
 import nl.lxtreme.ols.api.acquisition.AcquisitionResultStatus.ResultStatus;
 import nl.lxtreme.ols.api.devices.*;
 import nl.lxtreme.ols.api.task.*;
+import nl.lxtreme.ols.util.*;
 
 
 /**
@@ -39,10 +40,53 @@ import nl.lxtreme.ols.api.task.*;
  */
 public class BackgroundDataAcquisitionService implements DataAcquisitionService, TaskStatusListener
 {
+  // INNER TYPES
+
+  /**
+   * Passes the progress and armed events of a device on to all registered
+   * listeners.
+   */
+  final class EventDispatcher implements AcquisitionProgressListener, AcquisitionArmedListener
+  {
+    // METHODS
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void acquisitionArmed()
+    {
+      fireAcquisitionArmedEvent();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void acquisitionInProgress( final int aPercentage )
+    {
+      fireAcquisitionInProgressEvent( aPercentage );
+    }
+  }
+
   // CONSTANTS
 
   private static final Logger LOG = Logger.getLogger( BackgroundDataAcquisitionService.class.getName() );
 
+  /**
+   * The minimal interval (in milliseconds) between two progress events, can
+   * be overridden by the system property
+   * "nl.lxtreme.ols.acquisition.progressInterval".
+   */
+  private static final long PROGRESS_INTERVAL = Long.getLong( "nl.lxtreme.ols.acquisition.progressInterval", 50L )
+      .longValue();
+
+  /**
+   * The maximal time (in milliseconds) to wait for the last result of a
+   * continuous acquisition to be published.
+   */
+  private static final long PUBLISH_TIMEOUT = 5000L;
+
   // VARIABLES
 
   private final List<AcquisitionProgressListener> acquisitionProgressListeners;
@@ -52,6 +96,8 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
   private volatile TaskExecutionService taskExecutionService;
   private volatile Future<?> acquisitionFutureTask;
   private volatile Task<AcquisitionResult> acquisitionTask;
+  private volatile AcquisitionMetrics acquisitionMetrics;
+  private volatile boolean resultsPublished;
 
   // CONSTRUCTORS
 
@@ -65,6 +111,18 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     this.acquisitionDataListeners = new CopyOnWriteArrayList<AcquisitionDataListener>();
   }
 
+  /**
+   * Creates a new {@link BackgroundDataAcquisitionService} instance.
+   * 
+   * @param aTaskExecutionService
+   *          the task execution service to use, cannot be <code>null</code>.
+   */
+  BackgroundDataAcquisitionService( final TaskExecutionService aTaskExecutionService )
+  {
+    this();
+    this.taskExecutionService = aTaskExecutionService;
+  }
+
   // METHODS
 
   /**
@@ -73,30 +131,138 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
   @Override
   public void acquireData( final Device aDevice ) throws IOException
   {
-    final AcquisitionTask innerTask = aDevice.createAcquisitionTask( new AcquisitionProgressListener()
+    if ( aDevice == null )
+    {
+      throw new IllegalArgumentException( "Device cannot be null!" );
+    }
+    if ( this.acquisitionTask != null )
+    {
+      // also covers a cancelled acquisition that is still closing its device...
+      throw new IllegalStateException( "Acquisition already in progress!" );
+    }
+
+    final CoalescingProgressListener progressListener = createProgressListener();
+    final AcquisitionTask innerTask = aDevice.createAcquisitionTask( progressListener );
+    this.acquisitionMetrics = null;
+    this.resultsPublished = false;
+
+    // Wrap the actual acquisition task in order to get a kind of "auto"
+    // closable behavior...
+    this.acquisitionTask = new Task<AcquisitionResult>()
     {
       @Override
-      public void acquisitionInProgress( final int aPercentage )
+      public AcquisitionResult call() throws Exception
       {
-        fireAcquisitionInProgressEvent( aPercentage );
+        innerTask.open();
+        try
+        {
+          final AcquisitionResult result = innerTask.call();
+          recordMetrics( innerTask );
+          return result;
+        }
+        finally
+        {
+          try
+          {
+            innerTask.close();
+          }
+          finally
+          {
+            // make sure the last reported progress is delivered...
+            progressListener.flush();
+          }
+        }
       }
-    } );
+    };
 
-    // Wrap the actual acquisition task in order to get a kind of "auto"
-    // closable behavior...
+    this.acquisitionFutureTask = this.taskExecutionService.execute( this.acquisitionTask );
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public void acquireDataContinuously( final Device aDevice ) throws IOException
+  {
+    if ( aDevice == null )
+    {
+      throw new IllegalArgumentException( "Device cannot be null!" );
+    }
+    if ( this.acquisitionTask != null )
+    {
+      // also covers a cancelled acquisition that is still closing its device...
+      throw new IllegalStateException( "Acquisition already in progress!" );
+    }
+
+    final CoalescingProgressListener progressListener = createProgressListener();
+    final AcquisitionTask innerTask = aDevice.createAcquisitionTask( progressListener );
+    this.acquisitionMetrics = null;
+    this.resultsPublished = false;
+
+    // Keep the device open between the captures, and publish the results in
+    // the background while the next capture is already running. Once stopped,
+    // the task ends normally without a result of its own, as all results are
+    // already published...
     this.acquisitionTask = new Task<AcquisitionResult>()
     {
       @Override
       public AcquisitionResult call() throws Exception
       {
+        final ExecutorService publisher = createResultPublisher();
+
         innerTask.open();
         try
         {
-          return innerTask.call();
+          int count = 0;
+          while ( !Thread.currentThread().isInterrupted() )
+          {
+            final AcquisitionResult result;
+            try
+            {
+              result = innerTask.call();
+            }
+            catch ( Exception exception )
+            {
+              if ( !Thread.currentThread().isInterrupted() && !HostUtils.handleInterruptedException( exception ) )
+              {
+                throw exception;
+              }
+              // Stopped while waiting for the device...
+              break;
+            }
+
+            progressListener.flush();
+            final AcquisitionMetrics metrics = recordMetrics( innerTask );
+
+            if ( !Thread.currentThread().isInterrupted() )
+            {
+              publishResult( publisher, result, metrics );
+              BackgroundDataAcquisitionService.this.resultsPublished = true;
+              count++;
+            }
+          }
+
+          // The stop request is honoured; clear it to allow the device to be
+          // closed and the pending result to be published properly...
+          Thread.interrupted();
+
+          LOG.log( Level.INFO, "Continuous acquisition stopped after {0} captures.", Integer.valueOf( count ) );
+          return null;
         }
         finally
         {
-          innerTask.close();
+          // let the publisher deliver its pending result, if any, before the
+          // end of the acquisition is reported...
+          awaitPublished( publisher );
+
+          try
+          {
+            innerTask.close();
+          }
+          finally
+          {
+            progressListener.flush();
+          }
         }
       }
     };
@@ -241,10 +407,20 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
       this.acquisitionFutureTask = null;
 
       final AcquisitionResult result = ( AcquisitionResult )aResult;
-      fireAcquisitionCompleteEvent( result );
+      if ( result != null )
+      {
+        fireAcquisitionCompleteEvent( result );
+      }
 
-      final AcquisitionResultStatus status = new AcquisitionResultStatus( ResultStatus.NORMAL );
-      fireAcquisitionEndedEvent( status );
+      // Continuous acquisitions have published their results, and the status
+      // of their last capture is the final one; only report the end in case
+      // nothing is published at all...
+      if ( ( result != null ) || !this.resultsPublished )
+      {
+        final AcquisitionResultStatus status = new AcquisitionResultStatus( ResultStatus.NORMAL, null /* aMessage */,
+            this.acquisitionMetrics );
+        fireAcquisitionEndedEvent( status );
+      }
 
       LOG.log( Level.INFO, "Acquisition successful!" );
     }
@@ -280,6 +456,145 @@ public class BackgroundDataAcquisitionService implements DataAcquisitionService,
     }
   }
 
+  /**
+   * Creates a progress listener that coalesces the progress events of a
+   * device, as devices tend to report their progress far more often than is
+   * useful.
+   * 
+   * @return a new progress listener, never <code>null</code>.
+   */
+  final CoalescingProgressListener createProgressListener()
+  {
+    return new CoalescingProgressListener( new EventDispatcher(), Math.max( 0L, PROGRESS_INTERVAL ) );
+  }
+
+  /**
+   * Creates an executor for publishing the results of a continuous
+   * acquisition.
+   * <p>
+   * The results are published by a single thread, in order. In case the
+   * listeners cannot keep up with the device, only the most recent result is
+   * kept pending and older results are dropped.
+   * </p>
+   * 
+   * @return a new executor service, never <code>null</code>.
+   */
+  final ExecutorService createResultPublisher()
+  {
+    return new ThreadPoolExecutor( 1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>( 1 ),
+        new ThreadFactory()
+        {
+          @Override
+          public Thread newThread( final Runnable aRunnable )
+          {
+            final Thread thread = new Thread( aRunnable, "Acquisition result publisher" );
+            thread.setDaemon( true );
+            return thread;
+          }
+        }, new ThreadPoolExecutor.DiscardOldestPolicy() );
+  }
+
+  /**
+   * Publishes the given result to all acquisition data listeners, followed by
+   * the status of the capture to all acquisition status listeners, using the
+   * given publisher.
+   * 
+   * @param aPublisher
+   *          the executor to publish the result with;
+   * @param aResult
+   *          the result to publish;
+   * @param aMetrics
+   *          the metrics of the capture, can be <code>null</code>.
+   */
+  final void publishResult( final ExecutorService aPublisher, final AcquisitionResult aResult,
+      final AcquisitionMetrics aMetrics )
+  {
+    aPublisher.execute( new Runnable()
+    {
+      @Override
+      public void run()
+      {
+        try
+        {
+          fireAcquisitionCompleteEvent( aResult );
+          fireAcquisitionEndedEvent( new AcquisitionResultStatus( ResultStatus.NORMAL, null /* aMessage */, aMetrics ) );
+        }
+        catch ( RuntimeException exception )
+        {
+          LOG.log( Level.WARNING, "Publishing acquisition result failed!", exception );
+        }
+      }
+    } );
+  }
+
+  /**
+   * Shuts down the given publisher and waits until it has published its
+   * pending result, if any.
+   * 
+   * @param aPublisher
+   *          the executor to shut down.
+   */
+  final void awaitPublished( final ExecutorService aPublisher )
+  {
+    aPublisher.shutdown();
+    try
+    {
+      if ( !aPublisher.awaitTermination( PUBLISH_TIMEOUT, TimeUnit.MILLISECONDS ) )
+      {
+        LOG.log( Level.WARNING, "Publishing acquisition result takes too long!" );
+      }
+    }
+    catch ( InterruptedException exception )
+    {
+      // Make sure our thread administration is correct...
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  /**
+   * Informs all acquisition status listeners that want to know about it that
+   * the device is armed.
+   */
+  void fireAcquisitionArmedEvent()
+  {
+    final Iterator<AcquisitionStatusListener> statusListenerIter = this.acquisitionStatusListeners.iterator();
+    while ( statusListenerIter.hasNext() )
+    {
+      final AcquisitionStatusListener listener = statusListenerIter.next();
+      if ( listener instanceof AcquisitionArmedListener )
+      {
+        ( ( AcquisitionArmedListener )listener ).acquisitionArmed();
+      }
+    }
+  }
+
+  /**
+   * Records the metrics of the last acquisition of the given task, if it
+   * provides them, and logs them.
+   * 
+   * @param aTask
+   *          the acquisition task that just completed an acquisition.
+   * @return the recorded metrics, can be <code>null</code> if the task does
+   *         not provide them.
+   */
+  final AcquisitionMetrics recordMetrics( final AcquisitionTask aTask )
+  {
+    AcquisitionMetrics metrics = null;
+    if ( aTask instanceof AcquisitionMetricsProvider )
+    {
+      metrics = ( ( AcquisitionMetricsProvider )aTask ).getAcquisitionMetrics();
+    }
+
+    this.acquisitionMetrics = metrics;
+
+    if ( metrics != null )
+    {
+      LOG.log( Level.INFO, "Acquisition metrics: {0}", metrics );
+    }
+
+    return metrics;
+  }
+
   /**
    * @param result
    */
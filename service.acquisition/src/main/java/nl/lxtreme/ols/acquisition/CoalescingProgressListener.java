@@ -0,0 +1,141 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.acquisition;
+
+
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+
+/**
+ * Provides an {@link AcquisitionProgressListener} that coalesces progress
+ * events before passing them on to another listener.
+ * <p>
+ * Devices tend to report their progress for every sample read, which would
+ * otherwise result in millions of (UI) events per acquisition. This listener
+ * only passes on a percentage if it differs from the previous one, and at
+ * most once every interval. A suppressed percentage is passed on by the first
+ * event after the interval has passed, or when this listener is flushed, so
+ * the last reported percentage is always delivered.
+ * </p>
+ * <p>
+ * Notifications about the device being armed are never coalesced, but passed
+ * on directly if the other listener is an {@link AcquisitionArmedListener}.
+ * </p>
+ */
+final class CoalescingProgressListener implements AcquisitionProgressListener, AcquisitionArmedListener
+{
+  // VARIABLES
+
+  private final AcquisitionProgressListener listener;
+  private final long intervalNanos;
+
+  private int lastPercentage;
+  private boolean pending;
+  private long lastDelivered;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new CoalescingProgressListener instance.
+   * 
+   * @param aListener
+   *          the listener to pass the coalesced events to, cannot be
+   *          <code>null</code>;
+   * @param aInterval
+   *          the minimal interval between two events, in milliseconds, >= 0.
+   */
+  public CoalescingProgressListener( final AcquisitionProgressListener aListener, final long aInterval )
+  {
+    if ( aListener == null )
+    {
+      throw new IllegalArgumentException( "Listener cannot be null!" );
+    }
+    if ( aInterval < 0 )
+    {
+      throw new IllegalArgumentException( "Interval cannot be negative!" );
+    }
+
+    this.listener = aListener;
+    this.intervalNanos = TimeUnit.MILLISECONDS.toNanos( aInterval );
+
+    this.lastPercentage = -1;
+    this.pending = false;
+    this.lastDelivered = System.nanoTime() - this.intervalNanos;
+  }
+
+  // METHODS
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void acquisitionArmed()
+  {
+    // make sure the listener sees the events in the order they were reported...
+    flush();
+
+    if ( this.listener instanceof AcquisitionArmedListener )
+    {
+      ( ( AcquisitionArmedListener )this.listener ).acquisitionArmed();
+    }
+  }
+
+  /**
+   * {@inheritDoc}
+   */
+  @Override
+  public synchronized void acquisitionInProgress( final int aPercentage )
+  {
+    if ( aPercentage != this.lastPercentage )
+    {
+      this.lastPercentage = aPercentage;
+      this.pending = true;
+    }
+
+    // A suppressed percentage is delivered by the first call after the
+    // interval has passed, even if that call repeats the same percentage...
+    if ( this.pending )
+    {
+      final long now = System.nanoTime();
+      if ( ( now - this.lastDelivered ) >= this.intervalNanos )
+      {
+        this.lastDelivered = now;
+        this.pending = false;
+        this.listener.acquisitionInProgress( this.lastPercentage );
+      }
+    }
+  }
+
+  /**
+   * Passes on the last reported percentage, in case it was suppressed.
+   */
+  public synchronized void flush()
+  {
+    if ( this.pending )
+    {
+      this.lastDelivered = System.nanoTime();
+      this.pending = false;
+      this.listener.acquisitionInProgress( this.lastPercentage );
+    }
+  }
+}
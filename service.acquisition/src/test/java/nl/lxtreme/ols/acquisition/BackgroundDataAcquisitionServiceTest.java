@@ -0,0 +1,359 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.acquisition;
+
+
+import static org.junit.Assert.*;
+import static org.mockito.Matchers.*;
+import static org.mockito.Mockito.*;
+
+import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.acquisition.AcquisitionResultStatus.ResultStatus;
+import nl.lxtreme.ols.api.devices.*;
+import nl.lxtreme.ols.api.task.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link BackgroundDataAcquisitionService}.
+ */
+public class BackgroundDataAcquisitionServiceTest
+{
+  // INNER TYPES
+
+  /**
+   * Provides an acquisition task that yields a new result and metrics for each
+   * capture, and either fails or blocks until interrupted after a number of
+   * captures.
+   */
+  static final class StubAcquisitionTask implements AcquisitionTask, AcquisitionMetricsProvider
+  {
+    final List<AcquisitionResult> results = new CopyOnWriteArrayList<AcquisitionResult>();
+    final CountDownLatch blocked = new CountDownLatch( 1 );
+    final List<AcquisitionMetrics> metrics = new CopyOnWriteArrayList<AcquisitionMetrics>();
+    final int captureCount;
+    final boolean failAfterwards;
+    volatile boolean opened;
+    volatile boolean closed;
+
+    StubAcquisitionTask( final int aCaptureCount, final boolean aFailAfterwards )
+    {
+      this.captureCount = aCaptureCount;
+      this.failAfterwards = aFailAfterwards;
+    }
+
+    @Override
+    public AcquisitionResult call() throws Exception
+    {
+      if ( this.results.size() >= this.captureCount )
+      {
+        if ( this.failAfterwards )
+        {
+          throw new IOException( "Device gone!" );
+        }
+        this.blocked.countDown();
+        // wait for a trigger that never comes...
+        Thread.sleep( Long.MAX_VALUE );
+      }
+
+      final AcquisitionResult result = mock( AcquisitionResult.class );
+      this.results.add( result );
+      this.metrics.add( new AcquisitionMetrics( 0L, 0L, 0L, 0L, 0L, 0L, this.results.size(), 0L ) );
+      return result;
+    }
+
+    @Override
+    public AcquisitionMetrics getAcquisitionMetrics()
+    {
+      return this.metrics.isEmpty() ? null : this.metrics.get( this.metrics.size() - 1 );
+    }
+
+    @Override
+    public void close() throws IOException
+    {
+      this.closed = true;
+    }
+
+    @Override
+    public void open() throws IOException
+    {
+      this.opened = true;
+    }
+  }
+
+  /**
+   * Executes tasks in a background thread, like the real task execution
+   * service does, and allows one to wait until the task is ended.
+   */
+  static final class StubTaskExecutionService implements TaskExecutionService
+  {
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    final CountDownLatch ended = new CountDownLatch( 1 );
+    volatile TaskStatusListener listener;
+
+    @Override
+    public <RESULT_TYPE> Future<RESULT_TYPE> execute( final Task<RESULT_TYPE> aTask )
+    {
+      return this.executor.submit( new Callable<RESULT_TYPE>()
+      {
+        @Override
+        public RESULT_TYPE call() throws Exception
+        {
+          StubTaskExecutionService.this.listener.taskStarted( aTask );
+          try
+          {
+            final RESULT_TYPE result = aTask.call();
+            StubTaskExecutionService.this.listener.taskEnded( aTask, result );
+            return result;
+          }
+          catch ( Exception exception )
+          {
+            StubTaskExecutionService.this.listener.taskFailed( aTask, exception );
+            throw exception;
+          }
+          finally
+          {
+            StubTaskExecutionService.this.ended.countDown();
+          }
+        }
+      } );
+    }
+  }
+
+  // VARIABLES
+
+  private StubTaskExecutionService taskExecutionService;
+  private BackgroundDataAcquisitionService service;
+  private List<AcquisitionResult> completed;
+  private List<AcquisitionResultStatus> statuses;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.taskExecutionService = new StubTaskExecutionService();
+    this.service = new BackgroundDataAcquisitionService( this.taskExecutionService );
+    this.taskExecutionService.listener = this.service;
+
+    this.completed = new CopyOnWriteArrayList<AcquisitionResult>();
+    this.statuses = new CopyOnWriteArrayList<AcquisitionResultStatus>();
+
+    this.service.addAcquisitionDataListener( new AcquisitionDataListener()
+    {
+      @Override
+      public void acquisitionComplete( final AcquisitionResult aData )
+      {
+        BackgroundDataAcquisitionServiceTest.this.completed.add( aData );
+      }
+    } );
+    this.service.addAcquisitionStatusListener( new AcquisitionStatusListener()
+    {
+      @Override
+      public void acquisitionEnded( final AcquisitionResultStatus aStatus )
+      {
+        BackgroundDataAcquisitionServiceTest.this.statuses.add( aStatus );
+      }
+
+      @Override
+      public void acquisitionStarted()
+      {
+        // Nop
+      }
+    } );
+  }
+
+  /**
+   * Tears down the test case.
+   */
+  @After
+  public void tearDown()
+  {
+    this.taskExecutionService.executor.shutdownNow();
+  }
+
+  /**
+   * Tests that the armed event is only passed on to the status listeners that
+   * want to know about it.
+   */
+  @Test
+  public void testArmedEventIsDeliveredToArmedListenersOnly()
+  {
+    final AcquisitionStatusListener armedListener = mock( AcquisitionStatusListener.class,
+        withSettings().extraInterfaces( AcquisitionArmedListener.class ) );
+    this.service.addAcquisitionStatusListener( armedListener );
+
+    this.service.fireAcquisitionArmedEvent();
+
+    verify( ( AcquisitionArmedListener )armedListener ).acquisitionArmed();
+    assertTrue( this.statuses.isEmpty() );
+  }
+
+  /**
+   * Tests that a failing capture ends a continuous acquisition as failed.
+   */
+  @Test( timeout = 10000 )
+  public void testContinuousAcquisitionFailsOk() throws Exception
+  {
+    final StubAcquisitionTask task = new StubAcquisitionTask( 3, true /* aFailAfterwards */);
+
+    this.service.acquireDataContinuously( createDevice( task ) );
+    this.taskExecutionService.ended.await();
+
+    assertTrue( task.opened );
+    assertTrue( task.closed );
+
+    final AcquisitionResultStatus lastStatus = this.statuses.get( this.statuses.size() - 1 );
+    assertEquals( ResultStatus.FAILED, lastStatus.getStatus() );
+    assertEquals( "Device gone!", lastStatus.getMessage() );
+
+    assertPublishedCapturesOk( task, this.statuses.size() - 1 );
+  }
+
+  /**
+   * Tests that stopping a continuous acquisition ends it normally.
+   */
+  @Test( timeout = 10000 )
+  public void testContinuousAcquisitionStopsOk() throws Exception
+  {
+    final StubAcquisitionTask task = new StubAcquisitionTask( 3, false /* aFailAfterwards */);
+
+    this.service.acquireDataContinuously( createDevice( task ) );
+    task.blocked.await();
+    assertTrue( this.service.isAcquiring() );
+
+    this.service.cancelAcquisition();
+    this.taskExecutionService.ended.await();
+
+    assertFalse( this.service.isAcquiring() );
+    assertTrue( task.closed );
+
+    // no failures, and only the status of each capture; the status of the
+    // last capture is the final one...
+    for ( AcquisitionResultStatus status : this.statuses )
+    {
+      assertEquals( ResultStatus.NORMAL, status.getStatus() );
+    }
+
+    assertPublishedCapturesOk( task, this.statuses.size() );
+  }
+
+  /**
+   * Tests that stopping a continuous acquisition before its first capture
+   * still reports its end, once.
+   */
+  @Test( timeout = 10000 )
+  public void testContinuousAcquisitionStoppedWithoutCapturesEndsOnce() throws Exception
+  {
+    final StubAcquisitionTask task = new StubAcquisitionTask( 0, false /* aFailAfterwards */);
+
+    this.service.acquireDataContinuously( createDevice( task ) );
+    task.blocked.await();
+
+    this.service.cancelAcquisition();
+    this.taskExecutionService.ended.await();
+
+    assertTrue( this.completed.isEmpty() );
+    assertEquals( 1, this.statuses.size() );
+    assertEquals( ResultStatus.NORMAL, this.statuses.get( 0 ).getStatus() );
+  }
+
+  /**
+   * Tests that an acquisition cannot be started while another one is still in
+   * progress, as it would no longer be possible to cancel the first one.
+   */
+  @Test( timeout = 10000 )
+  public void testStartWhileAcquiringFails() throws Exception
+  {
+    final StubAcquisitionTask task = new StubAcquisitionTask( 0, false /* aFailAfterwards */);
+    final Device device = createDevice( task );
+
+    this.service.acquireDataContinuously( device );
+    task.blocked.await();
+
+    try
+    {
+      this.service.acquireData( device );
+      fail( "IllegalStateException expected!" );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // Ok; expected...
+    }
+
+    try
+    {
+      this.service.acquireDataContinuously( device );
+      fail( "IllegalStateException expected!" );
+    }
+    catch ( IllegalStateException exception )
+    {
+      // Ok; expected...
+    }
+
+    // the first acquisition can still be cancelled...
+    this.service.cancelAcquisition();
+    this.taskExecutionService.ended.await();
+
+    assertTrue( task.closed );
+    assertEquals( 1, this.statuses.size() );
+  }
+
+  /**
+   * Asserts that the results of the given task are published in order, each
+   * followed by a status with its metrics, and that the most recent result is
+   * never dropped.
+   */
+  private void assertPublishedCapturesOk( final StubAcquisitionTask aTask, final int aCaptureStatusCount )
+  {
+    assertFalse( this.completed.isEmpty() );
+    assertTrue( this.completed.size() <= aTask.captureCount );
+    assertEquals( this.completed.size(), aCaptureStatusCount );
+
+    int lastIdx = -1;
+    for ( int i = 0; i < this.completed.size(); i++ )
+    {
+      final int idx = aTask.results.indexOf( this.completed.get( i ) );
+      assertTrue( idx > lastIdx );
+      assertSame( aTask.metrics.get( idx ), this.statuses.get( i ).getMetrics() );
+      lastIdx = idx;
+    }
+    assertEquals( aTask.captureCount - 1, lastIdx );
+  }
+
+  /**
+   * Creates a device that yields the given acquisition task.
+   */
+  private Device createDevice( final AcquisitionTask aTask ) throws IOException
+  {
+    final Device device = mock( Device.class );
+    when( device.createAcquisitionTask( any( AcquisitionProgressListener.class ) ) ).thenReturn( aTask );
+    return device;
+  }
+}
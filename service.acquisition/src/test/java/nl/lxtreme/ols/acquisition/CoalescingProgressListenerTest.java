@@ -0,0 +1,179 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * Copyright (C) 2006-2010 Michael Poppitz, www.sump.org
+ * Copyright (C) 2010 J.W. Janssen, www.lxtreme.nl
+ */
+package nl.lxtreme.ols.acquisition;
+
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+
+import nl.lxtreme.ols.api.acquisition.*;
+
+import org.junit.*;
+
+
+/**
+ * Test cases for {@link CoalescingProgressListener}.
+ */
+public class CoalescingProgressListenerTest
+{
+  // INNER TYPES
+
+  /**
+   * Records the progress events, and the armed event as -1.
+   */
+  final class AcquisitionArmedRecorder implements AcquisitionProgressListener, AcquisitionArmedListener
+  {
+    @Override
+    public void acquisitionArmed()
+    {
+      CoalescingProgressListenerTest.this.events.add( Integer.valueOf( -1 ) );
+    }
+
+    @Override
+    public void acquisitionInProgress( final int aPercentage )
+    {
+      CoalescingProgressListenerTest.this.events.add( Integer.valueOf( aPercentage ) );
+    }
+  }
+
+  // VARIABLES
+
+  private List<Integer> events;
+  private AcquisitionProgressListener recorder;
+
+  // METHODS
+
+  /**
+   * Sets up the test case.
+   */
+  @Before
+  public void setUp()
+  {
+    this.events = new ArrayList<Integer>();
+    this.recorder = new AcquisitionProgressListener()
+    {
+      @Override
+      public void acquisitionInProgress( final int aPercentage )
+      {
+        CoalescingProgressListenerTest.this.events.add( Integer.valueOf( aPercentage ) );
+      }
+    };
+  }
+
+  /**
+   * Tests that the armed event is passed on directly, after any pending
+   * progress.
+   */
+  @Test
+  public void testArmedEventIsPassedOn()
+  {
+    final AcquisitionArmedRecorder armedRecorder = new AcquisitionArmedRecorder();
+    final CoalescingProgressListener listener = new CoalescingProgressListener( armedRecorder, 60000L );
+
+    listener.acquisitionInProgress( 0 );
+    listener.acquisitionInProgress( 1 );
+    listener.acquisitionArmed();
+
+    assertEquals( Arrays.asList( Integer.valueOf( 0 ), Integer.valueOf( 1 ), Integer.valueOf( -1 ) ), this.events );
+  }
+
+  /**
+   * Tests that the armed event is ignored if the listener is not interested in
+   * it.
+   */
+  @Test
+  public void testArmedEventIsIgnoredByProgressOnlyListener()
+  {
+    final CoalescingProgressListener listener = new CoalescingProgressListener( this.recorder, 0L );
+    listener.acquisitionArmed();
+
+    assertTrue( this.events.isEmpty() );
+  }
+
+  /**
+   * Tests that repeated percentages are only delivered once.
+   */
+  @Test
+  public void testDuplicatePercentagesAreCoalesced()
+  {
+    final CoalescingProgressListener listener = new CoalescingProgressListener( this.recorder, 0L );
+    for ( int i = 0; i < 10000; i++ )
+    {
+      listener.acquisitionInProgress( i / 100 );
+    }
+    listener.flush();
+
+    assertEquals( 100, this.events.size() );
+    for ( int i = 0; i < 100; i++ )
+    {
+      assertEquals( Integer.valueOf( i ), this.events.get( i ) );
+    }
+  }
+
+  /**
+   * Tests that a suppressed percentage is delivered by the first event after
+   * the interval has passed, even if it repeats that percentage.
+   */
+  @Test
+  public void testSuppressedPercentageIsDeliveredAfterInterval() throws InterruptedException
+  {
+    final CoalescingProgressListener listener = new CoalescingProgressListener( this.recorder, 50L );
+    listener.acquisitionInProgress( 0 );
+    listener.acquisitionInProgress( 37 );
+
+    assertEquals( Arrays.asList( Integer.valueOf( 0 ) ), this.events );
+
+    Thread.sleep( 100L );
+
+    // the device stalls at the same percentage...
+    listener.acquisitionInProgress( 37 );
+    assertEquals( Arrays.asList( Integer.valueOf( 0 ), Integer.valueOf( 37 ) ), this.events );
+
+    // nothing pending, so nothing to deliver...
+    listener.acquisitionInProgress( 37 );
+    listener.flush();
+    assertEquals( 2, this.events.size() );
+  }
+
+  /**
+   * Tests that events are rate-limited, while the last percentage is delivered
+   * upon flushing.
+   */
+  @Test
+  public void testEventsAreRateLimited()
+  {
+    final CoalescingProgressListener listener = new CoalescingProgressListener( this.recorder, 60000L );
+    for ( int i = 0; i <= 100; i++ )
+    {
+      listener.acquisitionInProgress( i );
+    }
+
+    assertEquals( Arrays.asList( Integer.valueOf( 0 ) ), this.events );
+
+    listener.flush();
+    assertEquals( Arrays.asList( Integer.valueOf( 0 ), Integer.valueOf( 100 ) ), this.events );
+
+    // nothing pending, so nothing to deliver...
+    listener.flush();
+    assertEquals( 2, this.events.size() );
+  }
+}
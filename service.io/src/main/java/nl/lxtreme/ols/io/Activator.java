@@ -21,13 +21,16 @@
 package nl.lxtreme.ols.io;
 
 
+import java.util.*;
+
 import org.osgi.framework.*;
-import org.osgi.service.io.ConnectorService;
+import org.osgi.service.io.*;
 
 
 /**
  * Provides a bundle activator, that registers the ConnectorService
- * implementation as service.
+ * implementation as service, together with the connection factory for
+ * sockets.
  */
 public class Activator implements BundleActivator
 {
@@ -46,6 +49,11 @@ public class Activator implements BundleActivator
     this.connectorService = new ConnectorServiceImpl( aContext );
 
     aContext.registerService( ConnectorService.class.getName(), this.connectorService, null );
+
+    final Hashtable<String, Object> dictionary = new Hashtable<String, Object>();
+    dictionary.put( ConnectionFactory.IO_SCHEME, new String[] { SocketConnectionFactory.SCHEME } );
+
+    aContext.registerService( ConnectionFactory.class.getName(), new SocketConnectionFactory(), dictionary );
   }
 
   /**
@@ -0,0 +1,459 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import java.io.*;
+import java.net.*;
+import java.nio.*;
+import java.nio.channels.*;
+
+import javax.microedition.io.*;
+
+
+/**
+ * Provides a socket connection on top of a non-blocking NIO socket channel.
+ * <p>
+ * Incoming data is read in large blocks into a (direct) receive buffer, from
+ * which the input stream is served. Reads only block, using a selector, when
+ * this buffer is drained and no data is pending on the socket, which keeps the
+ * number of system calls low when large amounts of sample data are read.
+ * </p>
+ * <p>
+ * Note that closing the streams of this connection does <em>not</em> close
+ * the connection itself, use {@link #close()} for this.
+ * </p>
+ */
+final class NioSocketConnection implements SocketConnection
+{
+  // VARIABLES
+
+  private final SocketChannel channel;
+  private final Selector readSelector;
+  private final Selector writeSelector;
+  private final ByteBuffer readBuffer;
+  private final int readTimeout;
+  private final Object readLock = new Object();
+  private final Object writeLock = new Object();
+  private final InputStream inputStream;
+  private final OutputStream outputStream;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new NioSocketConnection instance.
+   * 
+   * @param aChannel
+   *          the connected socket channel, cannot be <code>null</code>;
+   * @param aReceiveBufferSize
+   *          the size (in bytes) of the receive buffer, &gt; 0;
+   * @param aReadTimeout
+   *          the time (in milliseconds) to wait for incoming data, or for
+   *          the socket to accept outgoing data, before an
+   *          {@link IOException} is thrown, 0 to wait forever.
+   * @throws IOException
+   *           in case the channel could not be made non-blocking.
+   */
+  public NioSocketConnection( final SocketChannel aChannel, final int aReceiveBufferSize, final int aReadTimeout )
+      throws IOException
+  {
+    this.channel = aChannel;
+    this.readTimeout = aReadTimeout;
+
+    this.readBuffer = ByteBuffer.allocateDirect( aReceiveBufferSize );
+    // Start out with an empty buffer...
+    this.readBuffer.flip();
+
+    this.channel.configureBlocking( false );
+
+    this.readSelector = Selector.open();
+    this.writeSelector = Selector.open();
+    try
+    {
+      this.channel.register( this.readSelector, SelectionKey.OP_READ );
+      this.channel.register( this.writeSelector, SelectionKey.OP_WRITE );
+    }
+    catch ( IOException exception )
+    {
+      this.readSelector.close();
+      this.writeSelector.close();
+      throw exception;
+    }
+
+    this.inputStream = new InputStream()
+    {
+      @Override
+      public int available() throws IOException
+      {
+        return NioSocketConnection.this.available();
+      }
+
+      @Override
+      public int read() throws IOException
+      {
+        final byte[] buf = new byte[1];
+        if ( NioSocketConnection.this.read( buf, 0, 1 ) < 0 )
+        {
+          return -1;
+        }
+        return buf[0] & 0xFF;
+      }
+
+      @Override
+      public int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+      {
+        return NioSocketConnection.this.read( aBuffer, aOffset, aLength );
+      }
+    };
+
+    this.outputStream = new OutputStream()
+    {
+      @Override
+      public void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+      {
+        NioSocketConnection.this.write( aBuffer, aOffset, aLength );
+      }
+
+      @Override
+      public void write( final int aByte ) throws IOException
+      {
+        NioSocketConnection.this.write( new byte[] { ( byte )aByte }, 0, 1 );
+      }
+    };
+  }
+
+  // METHODS
+
+  /**
+   * Verifies that the current thread is not interrupted.
+   * <p>
+   * Socket channels are closed when an interrupted thread uses them, hence we
+   * need to check for this up front.
+   * </p>
+   * 
+   * @throws InterruptedIOException
+   *           in case the current thread is interrupted.
+   */
+  private static void checkInterrupted() throws InterruptedIOException
+  {
+    if ( Thread.currentThread().isInterrupted() )
+    {
+      throw new InterruptedIOException( "Socket I/O interrupted!" );
+    }
+  }
+
+  /**
+   * @see javax.microedition.io.Connection#close()
+   */
+  @Override
+  public void close() throws IOException
+  {
+    try
+    {
+      this.readSelector.close();
+      this.writeSelector.close();
+    }
+    finally
+    {
+      this.channel.close();
+    }
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#getAddress()
+   */
+  @Override
+  public String getAddress() throws IOException
+  {
+    return getSocket().getInetAddress().getHostAddress();
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#getLocalAddress()
+   */
+  @Override
+  public String getLocalAddress() throws IOException
+  {
+    return getSocket().getLocalAddress().getHostAddress();
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#getLocalPort()
+   */
+  @Override
+  public int getLocalPort() throws IOException
+  {
+    return getSocket().getLocalPort();
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#getPort()
+   */
+  @Override
+  public int getPort() throws IOException
+  {
+    return getSocket().getPort();
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#getSocketOption(byte)
+   */
+  @Override
+  public int getSocketOption( final byte aOption ) throws IllegalArgumentException, IOException
+  {
+    final Socket socket = getSocket();
+    switch ( aOption )
+    {
+      case DELAY:
+        return socket.getTcpNoDelay() ? 0 : 1;
+      case LINGER:
+        return socket.getSoLinger();
+      case KEEPALIVE:
+        return socket.getKeepAlive() ? 1 : 0;
+      case RCVBUF:
+        return socket.getReceiveBufferSize();
+      case SNDBUF:
+        return socket.getSendBufferSize();
+      default:
+        throw new IllegalArgumentException( "Invalid socket option: " + aOption );
+    }
+  }
+
+  /**
+   * @see javax.microedition.io.InputConnection#openDataInputStream()
+   */
+  @Override
+  public DataInputStream openDataInputStream() throws IOException
+  {
+    return new DataInputStream( openInputStream() );
+  }
+
+  /**
+   * @see javax.microedition.io.OutputConnection#openDataOutputStream()
+   */
+  @Override
+  public DataOutputStream openDataOutputStream() throws IOException
+  {
+    return new DataOutputStream( openOutputStream() );
+  }
+
+  /**
+   * @see javax.microedition.io.InputConnection#openInputStream()
+   */
+  @Override
+  public InputStream openInputStream() throws IOException
+  {
+    return this.inputStream;
+  }
+
+  /**
+   * @see javax.microedition.io.OutputConnection#openOutputStream()
+   */
+  @Override
+  public OutputStream openOutputStream() throws IOException
+  {
+    return this.outputStream;
+  }
+
+  /**
+   * @see javax.microedition.io.SocketConnection#setSocketOption(byte, int)
+   */
+  @Override
+  public void setSocketOption( final byte aOption, final int aValue ) throws IllegalArgumentException, IOException
+  {
+    final Socket socket = getSocket();
+    switch ( aOption )
+    {
+      case DELAY:
+        socket.setTcpNoDelay( aValue == 0 );
+        break;
+      case LINGER:
+        socket.setSoLinger( aValue > 0, Math.max( 0, aValue ) );
+        break;
+      case KEEPALIVE:
+        socket.setKeepAlive( aValue != 0 );
+        break;
+      case RCVBUF:
+        socket.setReceiveBufferSize( aValue );
+        break;
+      case SNDBUF:
+        socket.setSendBufferSize( aValue );
+        break;
+      default:
+        throw new IllegalArgumentException( "Invalid socket option: " + aOption );
+    }
+  }
+
+  /**
+   * Returns the number of bytes that can be read without blocking.
+   * 
+   * @return the number of bytes available, &gt;= 0.
+   * @throws IOException
+   *           in case of I/O problems.
+   */
+  final int available() throws IOException
+  {
+    synchronized ( this.readLock )
+    {
+      if ( !this.readBuffer.hasRemaining() )
+      {
+        fillReadBuffer();
+      }
+      return this.readBuffer.remaining();
+    }
+  }
+
+  /**
+   * Reads at most the given number of bytes, blocking until at least one byte
+   * is available.
+   * 
+   * @return the number of bytes read, or -1 if the end of the stream is
+   *         reached.
+   * @throws IOException
+   *           in case no data arrived within the read timeout, or in case of
+   *           other I/O problems.
+   */
+  final int read( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    if ( aLength == 0 )
+    {
+      return 0;
+    }
+
+    synchronized ( this.readLock )
+    {
+      while ( !this.readBuffer.hasRemaining() )
+      {
+        final int read = fillReadBuffer();
+        if ( read < 0 )
+        {
+          return -1;
+        }
+        else if ( read == 0 )
+        {
+          awaitSelected( this.readSelector, "Read timed out!" );
+        }
+      }
+
+      final int length = Math.min( aLength, this.readBuffer.remaining() );
+      this.readBuffer.get( aBuffer, aOffset, length );
+      return length;
+    }
+  }
+
+  /**
+   * Writes all given bytes, blocking while the socket cannot accept more data.
+   * 
+   * @throws IOException
+   *           in case the socket did not accept more data within the read
+   *           timeout, or in case of other I/O problems.
+   */
+  final void write( final byte[] aBuffer, final int aOffset, final int aLength ) throws IOException
+  {
+    synchronized ( this.writeLock )
+    {
+      final ByteBuffer buffer = ByteBuffer.wrap( aBuffer, aOffset, aLength );
+      while ( buffer.hasRemaining() )
+      {
+        checkInterrupted();
+
+        if ( this.channel.write( buffer ) == 0 )
+        {
+          awaitSelected( this.writeSelector, "Write timed out!" );
+        }
+      }
+    }
+  }
+
+  /**
+   * Waits until the given selector selects the socket channel.
+   * 
+   * @param aSelector
+   *          the read or write selector to wait on;
+   * @param aTimeoutMessage
+   *          the message of the exception thrown upon a timeout.
+   * @throws IOException
+   *           in case the channel was not selected within the read timeout.
+   *           This is deliberately not a {@link SocketTimeoutException}, as
+   *           that is an {@link InterruptedIOException}, which is considered
+   *           to be an interruption of the current thread by its callers.
+   */
+  private void awaitSelected( final Selector aSelector, final String aTimeoutMessage ) throws IOException
+  {
+    final long startTime = System.currentTimeMillis();
+
+    int selected;
+    do
+    {
+      checkInterrupted();
+
+      long timeout = 0L;
+      if ( this.readTimeout > 0 )
+      {
+        timeout = this.readTimeout - ( System.currentTimeMillis() - startTime );
+        if ( timeout <= 0L )
+        {
+          throw new IOException( aTimeoutMessage );
+        }
+      }
+
+      selected = aSelector.select( timeout );
+      aSelector.selectedKeys().clear();
+    }
+    while ( selected == 0 );
+  }
+
+  /**
+   * Fills the (empty) read buffer with the data that is pending on the socket,
+   * without blocking.
+   * 
+   * @return the number of bytes read, or -1 if the end of the stream is
+   *         reached.
+   */
+  private int fillReadBuffer() throws IOException
+  {
+    checkInterrupted();
+
+    this.readBuffer.clear();
+    try
+    {
+      return this.channel.read( this.readBuffer );
+    }
+    finally
+    {
+      this.readBuffer.flip();
+    }
+  }
+
+  /**
+   * @return the underlying socket, never <code>null</code>.
+   * @throws IOException
+   *           in case the connection is closed.
+   */
+  private Socket getSocket() throws IOException
+  {
+    if ( !this.channel.isOpen() )
+    {
+      throw new IOException( "Connection closed!" );
+    }
+    return this.channel.socket();
+  }
+}
@@ -0,0 +1,85 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import java.io.*;
+import java.net.*;
+import java.nio.channels.*;
+
+import javax.microedition.io.*;
+
+import org.osgi.service.io.*;
+
+
+/**
+ * Provides a connection factory for TCP sockets, for talking to devices that
+ * are accessible through the network, for example through an Ethernet bridge.
+ */
+public class SocketConnectionFactory implements ConnectionFactory
+{
+  // CONSTANTS
+
+  /**
+   * The scheme we're exposing through this factory. Socket URIs should be
+   * written in the form of: <tt>socket://host:port;rcvbuf=262144</tt>, see
+   * {@link SocketConnectionOptions} for all supported options.
+   */
+  public static final String SCHEME = "socket";
+
+  // METHODS
+
+  /**
+   * @see org.osgi.service.io.ConnectionFactory#createConnection(java.lang.String,
+   *      int, boolean)
+   */
+  @Override
+  public Connection createConnection( final String aName, final int aMode, final boolean aTimeouts )
+      throws IOException
+  {
+    final SocketConnectionOptions options = new SocketConnectionOptions( aName );
+
+    final SocketChannel channel = SocketChannel.open();
+    try
+    {
+      final Socket socket = channel.socket();
+      // Needs to be set before connecting in order to allow large TCP
+      // windows...
+      socket.setReceiveBufferSize( options.getReceiveBufferSize() );
+      if ( options.getSendBufferSize() > 0 )
+      {
+        socket.setSendBufferSize( options.getSendBufferSize() );
+      }
+      // Commands are small and should be sent right away...
+      socket.setTcpNoDelay( true );
+      socket.setKeepAlive( true );
+
+      socket.connect( new InetSocketAddress( options.getHost(), options.getPort() ), options.getTimeout() );
+
+      return new NioSocketConnection( channel, options.getReceiveBufferSize(), aTimeouts ? options.getTimeout() : 0 );
+    }
+    catch ( IOException exception )
+    {
+      channel.close();
+      throw exception;
+    }
+  }
+}
@@ -0,0 +1,212 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import java.util.regex.*;
+
+
+/**
+ * Provides a convenience class for accessing the options of a socket URI.
+ * <p>
+ * Socket URIs are written in the form of
+ * <tt>socket://host:port;rcvbuf=262144;timeout=5000</tt>, and support the
+ * following options:
+ * </p>
+ * <table>
+ * <tr>
+ * <th>Parameter</th>
+ * <th>Default</th>
+ * <th>Description</th>
+ * </tr>
+ * <tr>
+ * <td>rcvbuf</td>
+ * <td>262144</td>
+ * <td>The size (in bytes) of the receive buffer, both of the socket and of the
+ * connection itself.</td>
+ * </tr>
+ * <tr>
+ * <td>sndbuf</td>
+ * <td>0</td>
+ * <td>The size (in bytes) of the send buffer of the socket, 0 (the default)
+ * means the platform default.</td>
+ * </tr>
+ * <tr>
+ * <td>timeout</td>
+ * <td>5000</td>
+ * <td>The time (in milliseconds) to wait for the connection to be established,
+ * and for data to arrive if timeouts are requested. 0 means wait forever.</td>
+ * </tr>
+ * </table>
+ */
+final class SocketConnectionOptions
+{
+  // CONSTANTS
+
+  private static final Pattern SCHEMA_REGEX = Pattern.compile( "^socket://([^:;/]+):(\\d+)/?(?:;([^\r\n]+))*$" );
+  private static final Pattern OPTION_REGEX = Pattern.compile( "(rcvbuf|sndbuf|timeout)=(\\d+)",
+      Pattern.CASE_INSENSITIVE );
+
+  // VARIABLES
+
+  private String host;
+  private int port;
+  private int receiveBufferSize;
+  private int sendBufferSize;
+  private int timeout;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SocketConnectionOptions instance.
+   * 
+   * @param aURI
+   *          the socket URI, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given URI was <code>null</code> or invalid.
+   */
+  public SocketConnectionOptions( final String aURI ) throws IllegalArgumentException
+  {
+    if ( aURI == null )
+    {
+      throw new IllegalArgumentException( "URI cannot be null!" );
+    }
+
+    // Default to a large receive buffer, as devices can send lots of data...
+    this.receiveBufferSize = 256 * 1024;
+    // Default to the platform's send buffer size...
+    this.sendBufferSize = 0;
+    // Default to a timeout of 5 seconds...
+    this.timeout = 5000;
+
+    parseURI( aURI );
+  }
+
+  // METHODS
+
+  /**
+   * @return the host name or address to connect to.
+   */
+  public String getHost()
+  {
+    return this.host;
+  }
+
+  /**
+   * @return the port to connect to, &gt; 0 &amp;&amp; &lt; 65536.
+   */
+  public int getPort()
+  {
+    return this.port;
+  }
+
+  /**
+   * @return the receive buffer size, in bytes, &gt; 0.
+   */
+  public int getReceiveBufferSize()
+  {
+    return this.receiveBufferSize;
+  }
+
+  /**
+   * @return the send buffer size, in bytes, 0 for the platform default.
+   */
+  public int getSendBufferSize()
+  {
+    return this.sendBufferSize;
+  }
+
+  /**
+   * @return the connect- and read timeout, in milliseconds, 0 to wait forever.
+   */
+  public int getTimeout()
+  {
+    return this.timeout;
+  }
+
+  /**
+   * @param aStr
+   * @param aDefault
+   * @return
+   */
+  private int parseInt( final String aStr, final int aDefault )
+  {
+    int result;
+    try
+    {
+      result = Integer.parseInt( aStr );
+    }
+    catch ( NumberFormatException exception )
+    {
+      result = aDefault;
+    }
+    return result;
+  }
+
+  /**
+   * @param aURI
+   *          the URI to parse, cannot be <code>null</code>.
+   * @throws IllegalArgumentException
+   *           in case the given URI was invalid/not parsable.
+   */
+  private void parseURI( final String aURI ) throws IllegalArgumentException
+  {
+    final Matcher schemaMatcher = SCHEMA_REGEX.matcher( aURI );
+    if ( !schemaMatcher.matches() )
+    {
+      throw new IllegalArgumentException( "URI invalid!" );
+    }
+
+    // host and port are mandatory...
+    this.host = schemaMatcher.group( 1 );
+    this.port = parseInt( schemaMatcher.group( 2 ), -1 );
+    if ( ( this.port <= 0 ) || ( this.port > 65535 ) )
+    {
+      throw new IllegalArgumentException( "Port invalid!" );
+    }
+
+    String options = schemaMatcher.group( 3 );
+    if ( options == null )
+    {
+      options = "";
+    }
+
+    final Matcher optionMatcher = OPTION_REGEX.matcher( options );
+    while ( optionMatcher.find() )
+    {
+      final String key = optionMatcher.group( 1 ).toLowerCase();
+      final String value = optionMatcher.group( 2 );
+
+      if ( "rcvbuf".equals( key ) )
+      {
+        this.receiveBufferSize = Math.max( 1, parseInt( value, this.receiveBufferSize ) );
+      }
+      else if ( "sndbuf".equals( key ) )
+      {
+        this.sendBufferSize = parseInt( value, this.sendBufferSize );
+      }
+      else if ( "timeout".equals( key ) )
+      {
+        this.timeout = parseInt( value, this.timeout );
+      }
+    }
+  }
+}
@@ -0,0 +1,183 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import static org.junit.Assert.*;
+
+import java.io.*;
+import java.util.*;
+
+import javax.microedition.io.*;
+
+import org.junit.*;
+import org.osgi.service.io.*;
+
+
+/**
+ * Tests for {@link SocketConnectionFactory}, using a loopback SUMP stand-in.
+ */
+public class SocketConnectionFactoryTest
+{
+  // VARIABLES
+
+  private SumpTestServer server;
+  private SocketConnection connection;
+  private DataInputStream is;
+  private DataOutputStream os;
+
+  // METHODS
+
+  /**
+   * @throws Exception
+   */
+  @Before
+  public void setUp() throws Exception
+  {
+    this.server = new SumpTestServer();
+
+    final String uri = this.server.getURI() + ";rcvbuf=65536;timeout=500";
+    this.connection = ( SocketConnection )new SocketConnectionFactory().createConnection( uri,
+        ConnectorService.READ_WRITE, true /* aTimeouts */);
+    this.is = this.connection.openDataInputStream();
+    this.os = this.connection.openDataOutputStream();
+  }
+
+  /**
+   * @throws Exception
+   */
+  @After
+  public void tearDown() throws Exception
+  {
+    this.connection.close();
+    this.server.close();
+  }
+
+  /**
+   * Tests that the device ID can be queried.
+   */
+  @Test( timeout = 10000 )
+  public void testReadDeviceIdOk() throws Exception
+  {
+    this.os.write( 0x00 );
+    this.os.write( 0x02 );
+    this.os.flush();
+
+    assertEquals( 0x31414c53, this.is.readInt() );
+  }
+
+  /**
+   * Tests that a large amount of sample data is read completely and in order.
+   */
+  @Test( timeout = 10000 )
+  public void testReadSamplesOk() throws Exception
+  {
+    // size = 0xFFFF yields 1 MiB of sample data...
+    this.os.write( new byte[] { ( byte )0x81, ( byte )0xFF, ( byte )0xFF, 0x00, 0x00 } );
+    this.os.write( 0x01 );
+    this.os.flush();
+
+    final byte[] data = new byte[1024 * 1024];
+    this.is.readFully( data );
+
+    for ( int i = 0; i < data.length; i++ )
+    {
+      assertEquals( "Byte " + i, SumpTestServer.getSampleByte( i ), data[i] );
+    }
+    assertEquals( 0, this.is.available() );
+  }
+
+  /**
+   * Tests that a read times out when no data arrives.
+   */
+  @Test( timeout = 10000 )
+  public void testReadTimesOut() throws Exception
+  {
+    try
+    {
+      this.is.read();
+      fail( "Expected IOException!" );
+    }
+    catch ( IOException exception )
+    {
+      // Ok; expected, but should not be mistaken for an interrupt...
+      assertFalse( exception instanceof InterruptedIOException );
+    }
+  }
+
+  /**
+   * Tests that a write times out when the other side stops reading.
+   */
+  @Test( timeout = 10000 )
+  public void testWriteTimesOut() throws Exception
+  {
+    // Let each run command produce a megabyte of samples, which are never
+    // read, causing the server to block and stop reading commands...
+    this.os.write( 0x81 );
+    this.os.writeInt( Integer.reverseBytes( 0xFFFF ) );
+
+    final byte[] runCommands = new byte[65536];
+    Arrays.fill( runCommands, ( byte )0x01 );
+
+    try
+    {
+      while ( true )
+      {
+        this.os.write( runCommands );
+      }
+    }
+    catch ( IOException exception )
+    {
+      // Ok; expected, but should not be mistaken for an interrupt...
+      assertFalse( exception instanceof InterruptedIOException );
+    }
+  }
+
+  /**
+   * Tests that an interrupted read does not close the connection.
+   */
+  @Test( timeout = 10000 )
+  public void testInterruptedReadKeepsConnectionOpen() throws Exception
+  {
+    Thread.currentThread().interrupt();
+    try
+    {
+      this.is.read();
+      fail( "Expected InterruptedIOException!" );
+    }
+    catch ( InterruptedIOException exception )
+    {
+      // Ok; expected...
+      assertTrue( Thread.interrupted() );
+    }
+
+    testReadDeviceIdOk();
+  }
+
+  /**
+   * Tests that invalid URIs are refused.
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testInvalidUriFail() throws Exception
+  {
+    new SocketConnectionFactory().createConnection( "socket://127.0.0.1", ConnectorService.READ_WRITE, false );
+  }
+}
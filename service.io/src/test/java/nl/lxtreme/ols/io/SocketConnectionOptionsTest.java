@@ -0,0 +1,75 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import static org.junit.Assert.*;
+
+import org.junit.*;
+
+
+/**
+ * Tests for {@link SocketConnectionOptions}.
+ */
+public class SocketConnectionOptionsTest
+{
+  // METHODS
+
+  /**
+   * @throws Exception
+   */
+  @Test( expected = IllegalArgumentException.class )
+  public void testParseInvalidPortFail() throws Exception
+  {
+    new SocketConnectionOptions( "socket://localhost:70000" );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void testParseDefaultsOk() throws Exception
+  {
+    final SocketConnectionOptions options = new SocketConnectionOptions( "socket://192.168.1.10:5000" );
+
+    assertEquals( "192.168.1.10", options.getHost() );
+    assertEquals( 5000, options.getPort() );
+    assertEquals( 256 * 1024, options.getReceiveBufferSize() );
+    assertEquals( 0, options.getSendBufferSize() );
+    assertEquals( 5000, options.getTimeout() );
+  }
+
+  /**
+   * @throws Exception
+   */
+  @Test
+  public void testParseFullUriOk() throws Exception
+  {
+    final SocketConnectionOptions options = new SocketConnectionOptions(
+        "socket://sump.local:2000;rcvbuf=1048576;sndbuf=4096;timeout=0" );
+
+    assertEquals( "sump.local", options.getHost() );
+    assertEquals( 2000, options.getPort() );
+    assertEquals( 1048576, options.getReceiveBufferSize() );
+    assertEquals( 4096, options.getSendBufferSize() );
+    assertEquals( 0, options.getTimeout() );
+  }
+}
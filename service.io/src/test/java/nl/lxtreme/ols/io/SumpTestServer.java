@@ -0,0 +1,136 @@
+/*
+ * OpenBench LogicSniffer / SUMP project 
+ *
+ * This program is free software; you can redistribute it and/or modify
+ * it under the terms of the GNU General Public License as published by
+ * the Free Software Foundation; either version 2 of the License, or (at
+ * your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but
+ * WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * General Public License for more details.
+ *
+ * You should have received a copy of the GNU General Public License along
+ * with this program; if not, write to the Free Software Foundation, Inc.,
+ * 51 Franklin St, Fifth Floor, Boston, MA 02110, USA
+ *
+ * 
+ * Copyright (C) 2010-2011 - J.W. Janssen, http://www.lxtreme.nl
+ */
+package nl.lxtreme.ols.io;
+
+
+import java.io.*;
+import java.net.*;
+
+
+/**
+ * Provides a stand-in for a SUMP-compatible device behind a TCP socket, bound
+ * to the loopback interface. It only understands the ID, size and run
+ * commands; the samples it sends are a simple counter.
+ */
+final class SumpTestServer implements Runnable
+{
+  // VARIABLES
+
+  private final ServerSocket serverSocket;
+  private final Thread thread;
+
+  // CONSTRUCTORS
+
+  /**
+   * Creates a new SumpTestServer instance, listening on an arbitrary free
+   * port.
+   */
+  public SumpTestServer() throws IOException
+  {
+    this.serverSocket = new ServerSocket( 0, 1, InetAddress.getByName( "127.0.0.1" ) );
+    this.thread = new Thread( this, "SUMP test server" );
+    this.thread.setDaemon( true );
+    this.thread.start();
+  }
+
+  // METHODS
+
+  /**
+   * Returns the sample byte at the given offset.
+   */
+  static byte getSampleByte( final int aOffset )
+  {
+    return ( byte )( aOffset % 251 );
+  }
+
+  /**
+   * Stops this server.
+   */
+  public void close() throws IOException
+  {
+    this.serverSocket.close();
+    this.thread.interrupt();
+  }
+
+  /**
+   * @return the URI to connect to this server.
+   */
+  public String getURI()
+  {
+    return "socket://127.0.0.1:" + this.serverSocket.getLocalPort();
+  }
+
+  /**
+   * Serves a single client.
+   */
+  @Override
+  public void run()
+  {
+    try
+    {
+      final Socket socket = this.serverSocket.accept();
+      try
+      {
+        final DataInputStream is = new DataInputStream( new BufferedInputStream( socket.getInputStream() ) );
+        final OutputStream os = new BufferedOutputStream( socket.getOutputStream() );
+
+        int size = 0;
+        int command;
+        while ( ( command = is.read() ) >= 0 )
+        {
+          int value = 0;
+          if ( ( command & 0x80 ) != 0 )
+          {
+            value = Integer.reverseBytes( is.readInt() );
+          }
+
+          if ( command == 0x02 )
+          {
+            // Respond with '1ALS'...
+            os.write( new byte[] { 0x31, 0x41, 0x4c, 0x53 } );
+            os.flush();
+          }
+          else if ( command == 0x81 )
+          {
+            size = value;
+          }
+          else if ( command == 0x01 )
+          {
+            final int byteCount = ( ( size & 0xFFFF ) + 1 ) << 4;
+            for ( int i = 0; i < byteCount; i++ )
+            {
+              os.write( getSampleByte( i ) );
+            }
+            os.flush();
+          }
+        }
+      }
+      finally
+      {
+        socket.close();
+      }
+    }
+    catch ( IOException exception )
+    {
+      // Ignore, we're done...
+    }
+  }
+}
@@ -27,6 +27,7 @@ import java.beans.*;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 
@@ -182,8 +183,15 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       startCondFound = true;
     }
 
-    for ( ; idx < ( i2cDataSet.getEndOfDecode() - 1 ); idx++ )
+    // Nothing happens unless either SDA or SCL changes, so only visit those
+    // transitions...
+    final int edgeMask = sdaMask | sclMask;
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, edgeMask ).iterator( edgeMask, idx + 1,
+        i2cDataSet.getEndOfDecode() - 1 );
+    while ( edges.hasNext() )
     {
+      idx = edges.next();
+
       final int dataValue = values[idx];
 
       final int sda = ( dataValue & sdaMask );
@@ -447,12 +455,17 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
 
     final int[] values = aData.getValues();
 
-    int sampleIdx;
+    // Both lines only change at their edges, so only visit those
+    // transitions...
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( aData, dataMask ).iterator( dataMask, aStartOfDecode + 1,
+        aEndOfDecode );
+
+    int sampleIdx = aStartOfDecode;
     /*
      * first of all scan both lines until they are high (IDLE), then the first
      * line that goes low is the SDA line (START condition).
      */
-    for ( sampleIdx = aStartOfDecode; sampleIdx < aEndOfDecode; sampleIdx++ )
+    while ( sampleIdx < aEndOfDecode )
     {
       final int dataValue = values[sampleIdx];
 
@@ -463,9 +476,11 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       }
 
       this.progressListener.setProgress( getPercentage( sampleIdx, aStartOfDecode, aEndOfDecode ) );
+
+      sampleIdx = edges.hasNext() ? edges.next() : aEndOfDecode;
     }
 
-    if ( sampleIdx == aEndOfDecode )
+    if ( sampleIdx >= aEndOfDecode )
     {
       // no idle state could be found
       LOG.log( Level.WARNING, "No IDLE state found in data; aborting analysis..." );
@@ -473,7 +488,7 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
     }
 
     // a is now the start of idle, now find the first start condition
-    for ( ; sampleIdx < aEndOfDecode; sampleIdx++ )
+    while ( sampleIdx < aEndOfDecode )
     {
       final int sample = values[sampleIdx];
       final int dataValue = sample & dataMask;
@@ -503,9 +518,11 @@ public class I2CAnalyserTask implements ToolTask<I2CDataSet>
       }
 
       this.progressListener.setProgress( getPercentage( sampleIdx, aStartOfDecode, aEndOfDecode ) );
+
+      sampleIdx = edges.hasNext() ? edges.next() : aEndOfDecode;
     }
 
-    if ( sampleIdx == aEndOfDecode )
+    if ( sampleIdx >= aEndOfDecode )
     {
       // no start condition could be found
       LOG.log( Level.WARNING, "No START condition found! Analysis aborted..." );
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.tool.measure;
 import java.util.logging.*;
 
 import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.analysis.*;
@@ -363,42 +364,37 @@ public class ClockFrequencyMeasureTask implements ToolTask<ClockFrequencyMeasure
   {
     final AcquisitionResult data = this.context.getData();
 
-    final int[] values = data.getValues();
     final long[] timestamps = data.getTimestamps();
 
     int start = this.context.getStartSampleIndex();
     int end = this.context.getEndSampleIndex();
 
-    int i = Math.max( 0, start - 1 );
     long lastTransition = 0;
-    int lastBitValue = values[i++] & this.channelMask;
 
     Long prevPeriodTime = null;
 
-    for ( ; i < end; i++ )
+    // Only visit the transitions at which our channel actually changes...
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, this.channelMask ).iterator( this.channelMask,
+        Math.max( 0, start - 1 ) + 1, end );
+    while ( edges.hasNext() )
     {
-      final int bitValue = values[i] & this.channelMask;
+      final int i = edges.next();
 
-      if ( lastBitValue != bitValue )
-      {
-        final long periodTime = timestamps[i] - lastTransition;
-
-        if ( prevPeriodTime != null )
-        {
-          final ClockPeriodStats stats = new ClockPeriodStats( prevPeriodTime.longValue(), periodTime );
-          this.periodStats.addValue( stats );
+      final long periodTime = timestamps[i] - lastTransition;
 
-          prevPeriodTime = null;
-        }
-        else
-        {
-          prevPeriodTime = Long.valueOf( periodTime );
-        }
+      if ( prevPeriodTime != null )
+      {
+        final ClockPeriodStats stats = new ClockPeriodStats( prevPeriodTime.longValue(), periodTime );
+        this.periodStats.addValue( stats );
 
-        lastTransition = timestamps[i];
+        prevPeriodTime = null;
+      }
+      else
+      {
+        prevPeriodTime = Long.valueOf( periodTime );
       }
 
-      lastBitValue = bitValue;
+      lastTransition = timestamps[i];
     }
 
     final ClockPeriodStats best = this.periodStats.getHighestRanked();
@@ -32,7 +32,6 @@ import nl.lxtreme.ols.api.tools.*;
 import nl.lxtreme.ols.tool.base.annotation.*;
 import nl.lxtreme.ols.util.*;
 import nl.lxtreme.ols.util.NumberUtils.BitOrder;
-import nl.lxtreme.ols.util.analysis.*;
 
 
 /**
@@ -303,8 +302,14 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
     int misovalue = 0;
     int mosivalue = 0;
 
-    for ( int idx = startOfDecode + 1; idx < endOfDecode; idx++ )
+    // Nothing happens unless either CS or SCK changes, so only visit those
+    // transitions...
+    final int edgeMask = sckMask | csMask;
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, edgeMask ).iterator( edgeMask, startOfDecode + 1,
+        endOfDecode );
+    while ( edges.hasNext() )
     {
+      final int idx = edges.next();
       final int dataSample = values[idx];
       /* CLK edge detection */
       final int sckValue = ( dataSample & sckMask );
@@ -425,24 +430,41 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
   private SPIMode detectSPIMode( final int aStartIndex, final int aEndIndex )
   {
     final AcquisitionResult data = this.context.getData();
-    final Frequency<Integer> valueStats = new Frequency<Integer>();
 
     final int[] values = data.getValues();
     final int sckMask = 1 << this.sckIdx;
 
     // Determine the value of the clock line of each sample; the value that
-    // occurs the most is probably the default polarity...
-    for ( int i = aStartIndex; i < aEndIndex; i++ )
+    // occurs the most is probably the default polarity. The clock line keeps
+    // its value between two of its edges, so count the samples per run...
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, sckMask ).iterator( sckMask, aStartIndex + 1,
+        aEndIndex );
+
+    long lowCount = 0L;
+    long highCount = 0L;
+
+    int runStart = aStartIndex;
+    while ( runStart < aEndIndex )
     {
-      final int newValue = ( values[i] & sckMask ) >> this.sckIdx;
-      valueStats.addValue( Integer.valueOf( newValue ) );
+      final int runEnd = edges.hasNext() ? edges.next() : aEndIndex;
+
+      if ( ( values[runStart] & sckMask ) != 0 )
+      {
+        highCount += runEnd - runStart;
+      }
+      else
+      {
+        lowCount += runEnd - runStart;
+      }
+
+      runStart = runEnd;
     }
 
     SPIMode result;
 
     // If the clock line's most occurring value is one, then
     // we're fairly sure that CPOL == 1...
-    if ( valueStats.getHighestRanked().intValue() == 1 )
+    if ( highCount > lowCount )
     {
       LOG.log( Level.INFO, "SPI mode is probably mode 2 or 3 (CPOL == 1). Assuming mode 2 ..." );
       result = SPIMode.MODE_2;
@@ -575,11 +597,11 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
      * found, the position of the trigger is used for start of analysis. If no
      * trigger and no edge is found the analysis fails.
      */
-    int oldCsValue = values[aStartIndex] & csMask;
-    for ( int i = aStartIndex + 1; i < aEndIndex; i++ )
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, csMask ).iterator( csMask, aStartIndex + 1, aEndIndex );
+    while ( edges.hasNext() )
     {
-      final int csValue = values[i] & csMask;
-      if ( oldCsValue > csValue )
+      final int i = edges.next();
+      if ( ( values[i] & csMask ) == 0 )
       {
         // found first falling edge; start decoding from here...
         if ( LOG.isLoggable( Level.FINE ) )
@@ -589,7 +611,6 @@ public class SPIAnalyserTask implements ToolTask<SPIDataSet>
 
         return i;
       }
-      oldCsValue = csValue;
     }
 
     return -1;
@@ -114,7 +114,7 @@ public class StateAnalysisTask implements ToolTask<AcquisitionResult>
       last = current;
     }
 
-    final CapturedData newCapturedData = new CapturedData( newValues, newTrigger, Ols.NOT_AVAILABLE,
+    final CapturedData newCapturedData = CapturedDataFactory.create( newValues, newTrigger, Ols.NOT_AVAILABLE,
         data.getChannels(), data.getEnabledChannels() );
 
     return newCapturedData;
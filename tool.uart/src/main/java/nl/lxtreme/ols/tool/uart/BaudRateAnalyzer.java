@@ -21,6 +21,8 @@
 package nl.lxtreme.ols.tool.uart;
 
 
+import nl.lxtreme.ols.api.acquisition.*;
+import nl.lxtreme.ols.api.data.*;
 import nl.lxtreme.ols.util.analysis.*;
 
 
@@ -68,34 +70,29 @@ final class BaudRateAnalyzer
    * 
    * @param aSampleRate
    *          the sample rate at which the incoming data was sampled;
-   * @param aValues
-   *          the values to determine the baudrate for;
-   * @param aTimestamps
-   *          the timestamps to use when determining the bit lengths;
+   * @param aData
+   *          the acquisition results to determine the baudrate for;
    * @param aMask
    *          the value mask to isolate the data.
    */
-  public BaudRateAnalyzer( final int aSampleRate, final int[] aValues, final long[] aTimestamps, final int aMask )
+  public BaudRateAnalyzer( final int aSampleRate, final AcquisitionResult aData, final int aMask )
   {
     this.sampleRate = aSampleRate;
     this.statData = new Frequency<Integer>();
 
+    final long[] timestamps = aData.getTimestamps();
+
     long lastTransition = 0;
-    int lastBitValue = aValues[0] & aMask;
 
-    for ( int i = 0; i < aValues.length; i++ )
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( aData, aMask ).iterator( aMask, 0, timestamps.length );
+    while ( edges.hasNext() )
     {
-      final int bitValue = aValues[i] & aMask;
-
-      if ( lastBitValue != bitValue )
-      {
-        final int bitLength = ( int )( aTimestamps[i] - lastTransition );
-        this.statData.addValue( bitLength );
+      final int i = edges.next();
 
-        lastTransition = aTimestamps[i];
-      }
+      final int bitLength = ( int )( timestamps[i] - lastTransition );
+      this.statData.addValue( bitLength );
 
-      lastBitValue = aValues[i] & aMask;
+      lastTransition = timestamps[i];
     }
   }
 
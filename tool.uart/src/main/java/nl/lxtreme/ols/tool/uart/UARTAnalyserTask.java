@@ -102,22 +102,16 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
      * is displayed it must be sortet by time.
      */
 
-    final int[] values = data.getValues();
-
     int startOfDecode = this.context.getStartSampleIndex();
     final int endOfDecode = this.context.getEndSampleIndex();
 
     // find first state change on the selected lines
     final int mask = getBitMask();
 
-    final int value = values[startOfDecode] & mask;
-    for ( int i = startOfDecode + 1; i < endOfDecode; i++ )
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, mask ).iterator( mask, startOfDecode + 1, endOfDecode );
+    if ( edges.hasNext() )
     {
-      if ( value != ( values[i] & mask ) )
-      {
-        startOfDecode = i;
-        break;
-      }
+      startOfDecode = edges.next();
     }
 
     startOfDecode = Math.max( 0, startOfDecode - 10 );
@@ -314,7 +308,7 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     if ( this.baudRate <= 0 )
     {
       // Auto detect the baud rate...
-      return new BaudRateAnalyzer( aData.getSampleRate(), aData.getValues(), aData.getTimestamps(), aMask );
+      return new BaudRateAnalyzer( aData.getSampleRate(), aData, aMask );
     }
     // Use a fixed baud rate...
     return new BaudRateAnalyzer( aData.getSampleRate(), this.baudRate );
@@ -347,21 +341,21 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
     final int[] values = data.getValues();
     this.progressListener.setProgress( 0 );
 
-    int oldValue = values[startSampleIdx] & mask;
-    for ( int i = startSampleIdx + 1; i < endSampleIdx; i++ )
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, mask ).iterator( mask, startSampleIdx + 1,
+        endSampleIdx );
+    while ( edges.hasNext() )
     {
-      final int value = values[i] & mask;
+      final int i = edges.next();
 
-      final Edge edge = Edge.toEdge( oldValue, value );
-      if ( edge.isRising() )
+      // Each edge toggles the control line...
+      if ( ( values[i] & mask ) != 0 )
       {
         aDataSet.reportControlHigh( aChannelIndex, i, aName );
       }
-      if ( edge.isFalling() )
+      else
       {
         aDataSet.reportControlLow( aChannelIndex, i, aName );
       }
-      oldValue = value;
 
       // update progress
       this.progressListener.setProgress( getPercentage( i, startSampleIdx, endSampleIdx ) );
@@ -551,25 +545,34 @@ public class UARTAnalyserTask implements ToolTask<UARTDataSet>
    */
   private long findStartBit( final long aStartOfDecode, final long aEndOfDecode, final int aMask )
   {
-    final Edge sampleEdge = isInverted() ? Edge.RISING : Edge.FALLING;
+    final AcquisitionResult data = this.context.getData();
+
+    final int[] values = data.getValues();
+    final long[] timestamps = data.getTimestamps();
 
-    long result = -1;
+    // A falling edge leaves the bit low, a rising edge leaves it high...
+    final int sampleBitValue = isInverted() ? aMask : 0;
 
-    int oldBitValue = getDataValue( aStartOfDecode ) & aMask;
-    for ( long timeCursor = aStartOfDecode + 1; ( result < 0 ) && ( timeCursor < aEndOfDecode ); timeCursor++ )
+    // Only the edges of our data line can start a start bit, so there's no
+    // need to look at any other transition...
+    final int startIndex = Math.max( 0, data.getSampleIndex( aStartOfDecode ) - 1 );
+    final EdgeIndex.Cursor edges = EdgeIndex.getInstance( data, aMask ).iterator( aMask, startIndex, values.length );
+    while ( edges.hasNext() )
     {
-      final int bitValue = getDataValue( timeCursor ) & aMask;
+      final int i = edges.next();
 
-      final Edge edge = Edge.toEdge( oldBitValue, bitValue );
-      if ( sampleEdge == edge )
+      final long time = timestamps[i];
+      if ( time >= aEndOfDecode )
       {
-        result = timeCursor;
+        break;
+      }
+      if ( ( time > aStartOfDecode ) && ( ( values[i] & aMask ) == sampleBitValue ) )
+      {
+        return time;
       }
-
-      oldBitValue = bitValue;
     }
 
-    return result;
+    return -1;
   }
 
   /**
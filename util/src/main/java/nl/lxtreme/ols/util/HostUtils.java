@@ -22,6 +22,8 @@ package nl.lxtreme.ols.util;
 
 
 import java.io.*;
+import java.util.*;
+import java.util.concurrent.*;
 import java.util.logging.*;
 
 
@@ -32,7 +34,14 @@ public final class HostUtils implements HostInfo
 {
   // INNER TYPES
 
-  
+  /**
+   * Lazily creates the shared thread pool, upon its first use.
+   */
+  static final class SharedThreadPoolHolder
+  {
+    static final ExecutorService POOL = createDaemonThreadPool( "Shared worker",
+        Runtime.getRuntime().availableProcessors() );
+  }
 
   // CONSTANTS
 
@@ -50,6 +59,20 @@ public final class HostUtils implements HostInfo
 
   // METHODS
 
+  /**
+   * Cancels all given futures, interrupting them if they are still running.
+   * 
+   * @param aFutures
+   *          the futures to cancel, cannot be <code>null</code>.
+   */
+  public static final void cancelAll( final Collection<? extends Future<?>> aFutures )
+  {
+    for ( Future<?> future : aFutures )
+    {
+      future.cancel( true /* mayInterruptIfRunning */);
+    }
+  }
+
   /**
    * Closes a given resource.
    * <p>
@@ -97,6 +120,33 @@ public final class HostUtils implements HostInfo
     return result;
   }
 
+  /**
+   * Creates a fixed size thread pool whose threads are daemon threads, so an
+   * abandoned pool never keeps the JVM from exiting.
+   * <p>
+   * The caller is responsible for shutting down the returned pool.
+   * </p>
+   * 
+   * @param aThreadName
+   *          the name of the threads in the pool, cannot be <code>null</code>;
+   * @param aThreadCount
+   *          the number of threads in the pool, &gt; 0.
+   * @return a new executor service, never <code>null</code>.
+   */
+  public static final ExecutorService createDaemonThreadPool( final String aThreadName, final int aThreadCount )
+  {
+    return Executors.newFixedThreadPool( aThreadCount, new ThreadFactory()
+    {
+      @Override
+      public Thread newThread( final Runnable aRunnable )
+      {
+        final Thread thread = new Thread( aRunnable, aThreadName );
+        thread.setDaemon( true );
+        return thread;
+      }
+    } );
+  }
+
   /**
    * Creates an OS-specific file location to store data.
    * 
@@ -218,6 +268,72 @@ public final class HostUtils implements HostInfo
     return HOSTINFO;
   }
 
+  /**
+   * Returns a thread pool that is shared by all parallel computations, which
+   * has as many (daemon) threads as there are processors available.
+   * <p>
+   * The returned pool should not be shut down. Tasks running on it should not
+   * wait for other tasks of the same pool, as this might dead-lock the pool.
+   * </p>
+   * 
+   * @return the shared executor service, never <code>null</code>.
+   */
+  public static final ExecutorService getSharedThreadPool()
+  {
+    return SharedThreadPoolHolder.POOL;
+  }
+
+  /**
+   * Waits for the result of the given future, without being interrupted. In
+   * case the current thread is interrupted while waiting, its interrupted
+   * status is restored afterwards.
+   * 
+   * @param aFuture
+   *          the future to wait for, cannot be <code>null</code>.
+   * @return the result of the future.
+   * @throws RuntimeException
+   *           in case the future failed; runtime exceptions are rethrown as-is,
+   *           checked exceptions are wrapped.
+   */
+  public static final <T> T getUninterruptibly( final Future<T> aFuture )
+  {
+    boolean interrupted = false;
+    try
+    {
+      while ( true )
+      {
+        try
+        {
+          return aFuture.get();
+        }
+        catch ( InterruptedException exception )
+        {
+          interrupted = true;
+        }
+        catch ( ExecutionException exception )
+        {
+          final Throwable cause = exception.getCause();
+          if ( cause instanceof RuntimeException )
+          {
+            throw ( RuntimeException )cause;
+          }
+          if ( cause instanceof Error )
+          {
+            throw ( Error )cause;
+          }
+          throw new RuntimeException( "Background computation failed!", cause );
+        }
+      }
+    }
+    finally
+    {
+      if ( interrupted )
+      {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
   /**
    * This method calls Thread.currentThread().interrupt() if any exception in
    * the hierarchy (including all parent causes) is either an
@@ -24,6 +24,7 @@ package nl.lxtreme.ols.util;
 import static org.junit.Assert.*;
 
 import java.io.*;
+import java.util.concurrent.*;
 
 import org.junit.*;
 
@@ -81,6 +82,55 @@ public class HostUtilsTest
     assertEquals( "", HostUtils.getFileExtension( f ) );
   }
 
+  /**
+   * Tests that waiting for a future keeps the interrupted status of the
+   * current thread, and passes on the failure of the future.
+   * 
+   * @see HostUtils#getUninterruptibly(Future)
+   */
+  @Test
+  public void testGetUninterruptibly() throws Exception
+  {
+    final Future<String> future = HostUtils.getSharedThreadPool().submit( new Callable<String>()
+    {
+      @Override
+      public String call() throws Exception
+      {
+        return "result";
+      }
+    } );
+
+    Thread.currentThread().interrupt();
+    try
+    {
+      assertEquals( "result", HostUtils.getUninterruptibly( future ) );
+      assertTrue( Thread.currentThread().isInterrupted() );
+    }
+    finally
+    {
+      Thread.interrupted();
+    }
+
+    final Future<String> failing = HostUtils.getSharedThreadPool().submit( new Callable<String>()
+    {
+      @Override
+      public String call() throws Exception
+      {
+        throw new IllegalArgumentException( "failure" );
+      }
+    } );
+
+    try
+    {
+      HostUtils.getUninterruptibly( failing );
+      fail( "IllegalArgumentException expected!" );
+    }
+    catch ( IllegalArgumentException exception )
+    {
+      assertEquals( "failure", exception.getMessage() );
+    }
+  }
+
   /**
    * Tests that setting a file extension under various circumstances works
    * correctly.